@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A pool of byte arrays, from which streams and other users of temporary
+ * buffers may borrow arrays instead of allocating them.
+ *
+ * <p>The pool keeps arrays in size classes whose lengths are powers of
+ * two, from 64 bytes to a maximum length given at construction time.
+ * {@link #borrow borrow} returns an array of the smallest class that is
+ * at least as long as requested, taken from the pool if one is available,
+ * and {@link #release release} returns it to the pool if its class is not
+ * full.  Longer arrays are allocated as requested and never pooled.
+ *
+ * <p>Arrays taken from a pool created by the caller hold whatever data was
+ * last written to them.  The {@link #sharedPool shared} pool, whose arrays
+ * may pass from one user to another unrelated one, zeroes each array that
+ * it takes back, so that no user sees the data of another.  An array must
+ * not be used after it has been released, and must be released at most
+ * once.
+ *
+ * <p>This class is safe for use by multiple concurrent threads.
+ *
+ * @see ChunkedByteArrayOutputStream
+ * @see UnsynchronizedBufferedInputStream
+ * @since 1.8
+ */
+public final class ByteArrayPool {
+
+    /*
+     * The shift of the length of the smallest size class, 64 bytes.
+     */
+    private static final int MIN_SHIFT = 6;
+
+    private static final int DEFAULT_MAX_ARRAY_LENGTH = 1 << 20;
+    private static final int DEFAULT_MAX_ARRAYS_PER_CLASS = 16;
+
+    private final int maxShift;
+    private final int maxArraysPerClass;
+    private final boolean clearOnRelease;
+
+    /*
+     * The idle arrays of each class, with the number of them; the number
+     * is reserved before an array is added, so it is never exceeded.
+     */
+    private final ConcurrentLinkedQueue<byte[]>[] classes;
+    private final AtomicIntegerArray counts;
+
+    private static class Holder {
+        static final ByteArrayPool SHARED =
+            new ByteArrayPool(DEFAULT_MAX_ARRAY_LENGTH,
+                              DEFAULT_MAX_ARRAYS_PER_CLASS, true);
+    }
+
+    /**
+     * Returns a pool shared by the whole virtual machine, with default
+     * limits.  The arrays returned to this pool are zeroed before they are
+     * pooled, so the arrays borrowed from it never hold the data of a
+     * previous borrower.
+     *
+     * @return the shared pool
+     */
+    public static ByteArrayPool sharedPool() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Creates a pool of arrays of up to 1M bytes, holding up to 16 arrays
+     * of each length.
+     */
+    public ByteArrayPool() {
+        this(DEFAULT_MAX_ARRAY_LENGTH, DEFAULT_MAX_ARRAYS_PER_CLASS);
+    }
+
+    /**
+     * Creates a pool with the specified limits.
+     *
+     * @param maxArrayLength the length of the longest arrays pooled; it
+     *        is rounded up to a power of two
+     * @param maxArraysPerClass the maximum number of idle arrays of each
+     *        length held by the pool
+     * @throws IllegalArgumentException if {@code maxArrayLength} is less
+     *         than 64 or greater than 2<sup>30</sup>, or if
+     *         {@code maxArraysPerClass} is negative
+     */
+    public ByteArrayPool(int maxArrayLength, int maxArraysPerClass) {
+        this(maxArrayLength, maxArraysPerClass, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ByteArrayPool(int maxArrayLength, int maxArraysPerClass,
+                          boolean clearOnRelease) {
+        if (maxArrayLength < (1 << MIN_SHIFT) || maxArrayLength > (1 << 30))
+            throw new IllegalArgumentException("Illegal maximum length: " +
+                                               maxArrayLength);
+        if (maxArraysPerClass < 0)
+            throw new IllegalArgumentException("Illegal maximum count: " +
+                                               maxArraysPerClass);
+        this.maxShift = shift(maxArrayLength);
+        this.maxArraysPerClass = maxArraysPerClass;
+        this.clearOnRelease = clearOnRelease;
+        int n = maxShift - MIN_SHIFT + 1;
+        classes = (ConcurrentLinkedQueue<byte[]>[])
+            new ConcurrentLinkedQueue<?>[n];
+        for (int i = 0; i < n; i++)
+            classes[i] = new ConcurrentLinkedQueue<>();
+        counts = new AtomicIntegerArray(n);
+    }
+
+    /*
+     * Returns the shift of the smallest class holding the given length.
+     */
+    private static int shift(int length) {
+        if (length <= (1 << MIN_SHIFT))
+            return MIN_SHIFT;
+        return 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+    /**
+     * Returns an array at least as long as specified.  Arrays up to the
+     * maximum length of the pool are a power of two long, and are taken
+     * from the pool if possible.
+     *
+     * @param minLength the minimum length of the array
+     * @return an array whose length is at least {@code minLength}, whose
+     *         contents are unspecified unless this is the shared pool
+     * @throws IllegalArgumentException if {@code minLength} is negative
+     */
+    public byte[] borrow(int minLength) {
+        if (minLength < 0)
+            throw new IllegalArgumentException("Negative length: " +
+                                               minLength);
+        int shift = shift(minLength);
+        if (shift > maxShift)
+            return new byte[minLength];
+        int i = shift - MIN_SHIFT;
+        byte[] b = classes[i].poll();
+        if (b == null)
+            return new byte[1 << shift];
+        counts.decrementAndGet(i);
+        return b;
+    }
+
+    /**
+     * Returns an array to the pool.  Arrays whose length is not that of a
+     * size class of the pool, or whose class already holds as many idle
+     * arrays as the pool allows, are left to the garbage collector.  The
+     * shared pool zeroes the arrays that it pools.
+     *
+     * @param array the array, which must not be used by the caller after
+     *        this method returns
+     * @throws NullPointerException if {@code array} is null
+     */
+    public void release(byte[] array) {
+        int length = array.length;
+        if ((length & (length - 1)) != 0 || length < (1 << MIN_SHIFT))
+            return;
+        int shift = Integer.numberOfTrailingZeros(length);
+        if (shift > maxShift)
+            return;
+        int i = shift - MIN_SHIFT;
+        if (counts.incrementAndGet(i) > maxArraysPerClass) {
+            counts.decrementAndGet(i);
+            return;
+        }
+        if (clearOnRelease)
+            Arrays.fill(array, (byte)0);
+        classes[i].offer(array);
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+/**
+ * An output stream in which the data is written into a sequence of byte
+ * arrays, or <em>chunks</em>.  Unlike a {@link ByteArrayOutputStream},
+ * this stream grows by adding a chunk, about as long as the data written
+ * so far, rather than by copying its data into a longer array, and may
+ * hold more than 2<sup>31</sup> bytes.  Its data can be retrieved using
+ * {@link #toByteArray()}, {@link #toString()}, {@link #writeTo(OutputStream)}
+ * or, without copying, by a gathering write into a channel with
+ * {@link #writeTo(GatheringByteChannel)}.
+ *
+ * <p>A stream may borrow its chunks from a {@link ByteArrayPool}, to which
+ * it returns them when it is {@link #reset() reset} or
+ * {@link #close() closed}, so that short-lived streams need not allocate
+ * their buffers.
+ *
+ * <p><strong>Note that this class is not synchronized.</strong>  It is
+ * intended for streams confined to a single thread; if a stream is used
+ * by multiple threads, it must be synchronized externally.
+ *
+ * @see ByteArrayOutputStream
+ * @since 1.8
+ */
+public class ChunkedByteArrayOutputStream extends OutputStream {
+
+    private static final int DEFAULT_CHUNK_SIZE = 256;
+
+    /*
+     * The length beyond which chunks stop growing.
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The maximum size of array to allocate.
+     * Some VMs reserve some header words in an array.
+     * Attempts to allocate larger arrays may result in
+     * OutOfMemoryError: Requested array size exceeds VM limit
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ByteArrayPool pool;
+    private final int firstChunkSize;
+
+    /*
+     * The chunks in use; each but the last is full.
+     */
+    private byte[][] chunks = new byte[8][];
+    private int chunkCount;
+
+    /*
+     * The last chunk in use, or null, and the number of bytes in it.
+     */
+    private byte[] chunk;
+    private int chunkPos;
+
+    /*
+     * The number of bytes in the full chunks.
+     */
+    private long fullSize;
+
+    /**
+     * Creates a new stream with a default first chunk size, which
+     * allocates its chunks.
+     */
+    public ChunkedByteArrayOutputStream() {
+        this(DEFAULT_CHUNK_SIZE, null);
+    }
+
+    /**
+     * Creates a new stream with the specified first chunk size, which
+     * allocates its chunks.
+     *
+     * @param size the length of the first chunk
+     * @exception IllegalArgumentException if {@code size <= 0}
+     */
+    public ChunkedByteArrayOutputStream(int size) {
+        this(size, null);
+    }
+
+    /**
+     * Creates a new stream with a default first chunk size, which borrows
+     * its chunks from the specified pool.
+     *
+     * @param pool the pool of chunks, or {@code null} to allocate them
+     */
+    public ChunkedByteArrayOutputStream(ByteArrayPool pool) {
+        this(DEFAULT_CHUNK_SIZE, pool);
+    }
+
+    /**
+     * Creates a new stream with the specified first chunk size, which
+     * borrows its chunks from the specified pool.  No chunk is borrowed
+     * until data is written.
+     *
+     * @param size the minimum length of the first chunk
+     * @param pool the pool of chunks, or {@code null} to allocate them
+     * @exception IllegalArgumentException if {@code size <= 0}
+     */
+    public ChunkedByteArrayOutputStream(int size, ByteArrayPool pool) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Chunk size <= 0");
+        }
+        this.firstChunkSize = size;
+        this.pool = pool;
+    }
+
+    /*
+     * Makes a new, empty chunk the last one.
+     */
+    private void addChunk() {
+        int length;
+        if (chunk == null) {
+            length = firstChunkSize;
+        } else {
+            fullSize += chunkPos;
+            length = (int) Math.max(chunk.length,
+                                    Math.min(fullSize, MAX_CHUNK_SIZE));
+        }
+        byte[] c = (pool != null) ? pool.borrow(length) : new byte[length];
+        if (chunkCount == chunks.length)
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        chunks[chunkCount++] = c;
+        chunk = c;
+        chunkPos = 0;
+    }
+
+    /**
+     * Writes the specified byte to this stream.
+     *
+     * @param b the byte to be written
+     */
+    public void write(int b) {
+        if (chunk == null || chunkPos == chunk.length)
+            addChunk();
+        chunk[chunkPos++] = (byte) b;
+    }
+
+    /**
+     * Writes <code>len</code> bytes from the specified byte array
+     * starting at offset <code>off</code> to this stream.
+     *
+     * @param b the data
+     * @param off the start offset in the data
+     * @param len the number of bytes to write
+     */
+    public void write(byte b[], int off, int len) {
+        if ((off < 0) || (off > b.length) || (len < 0) ||
+            ((off + len) - b.length > 0)) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (chunk == null || chunkPos == chunk.length)
+                addChunk();
+            int n = Math.min(len, chunk.length - chunkPos);
+            System.arraycopy(b, off, chunk, chunkPos, n);
+            chunkPos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes the complete contents of this stream to the specified output
+     * stream argument, as if by calling the output stream's write method
+     * using <code>out.write(buf, 0, len)</code> for each chunk.
+     *
+     * @param out the output stream to which to write the data
+     * @exception IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        for (int i = 0; i < chunkCount; i++) {
+            byte[] c = chunks[i];
+            out.write(c, 0, (c == chunk) ? chunkPos : c.length);
+        }
+    }
+
+    /**
+     * Writes the complete contents of this stream to the specified
+     * channel, with gathering writes of buffers wrapping the chunks.  The
+     * channel should be in blocking mode; if it is not, this method
+     * repeats the write until the channel has accepted all of the data.
+     *
+     * @param ch the channel to which to write the data
+     * @return the number of bytes written, the size of this stream
+     * @exception IOException if an I/O error occurs
+     */
+    public long writeTo(GatheringByteChannel ch) throws IOException {
+        ByteBuffer[] srcs = buffers(0);
+        long size = size();
+        long written = 0;
+        int first = 0;
+        while (written < size) {
+            written += ch.write(srcs, first, srcs.length - first);
+            while (first < srcs.length && !srcs[first].hasRemaining())
+                first++;
+        }
+        return written;
+    }
+
+    /**
+     * Writes the contents of this stream, starting at the specified
+     * position, to the specified channel with a single gathering write,
+     * and returns the number of bytes written.  This method allows the
+     * data to be written to a channel in non-blocking mode, by repeating
+     * the write at the position following the bytes written.
+     *
+     * @param ch the channel to which to write the data
+     * @param position the position in this stream of the first byte to
+     *        write
+     * @return the number of bytes written, possibly zero
+     * @exception IllegalArgumentException if {@code position} is negative
+     *            or greater than the size of this stream
+     * @exception IOException if an I/O error occurs
+     */
+    public long writeTo(GatheringByteChannel ch, long position)
+        throws IOException
+    {
+        if (position < 0 || position > size()) {
+            throw new IllegalArgumentException("Illegal position: " +
+                                               position);
+        }
+        ByteBuffer[] srcs = buffers(position);
+        return (srcs.length == 0) ? 0 : ch.write(srcs);
+    }
+
+    /*
+     * Returns buffers wrapping the data from the given position on.
+     */
+    private ByteBuffer[] buffers(long position) {
+        int i = 0;
+        long start = 0;
+        while (i < chunkCount) {
+            byte[] c = chunks[i];
+            int len = (c == chunk) ? chunkPos : c.length;
+            if (position < start + len)
+                break;
+            start += len;
+            i++;
+        }
+        ByteBuffer[] srcs = new ByteBuffer[chunkCount - i];
+        for (int j = 0; i < chunkCount; i++, j++) {
+            byte[] c = chunks[i];
+            int len = (c == chunk) ? chunkPos : c.length;
+            int off = (j == 0) ? (int) (position - start) : 0;
+            srcs[j] = ByteBuffer.wrap(c, off, len - off);
+        }
+        return srcs;
+    }
+
+    /**
+     * Resets this stream to be empty.  The first chunk is kept, and any
+     * other chunk is returned to the pool of this stream.
+     */
+    public void reset() {
+        release(1);
+    }
+
+    /*
+     * Drops the chunks from the given index on, returning them to the
+     * pool, and empties the stream.
+     */
+    private void release(int from) {
+        for (int i = from; i < chunkCount; i++) {
+            if (pool != null)
+                pool.release(chunks[i]);
+            chunks[i] = null;
+        }
+        if (chunkCount > from)
+            chunkCount = from;
+        chunk = (chunkCount > 0) ? chunks[0] : null;
+        chunkPos = 0;
+        fullSize = 0;
+    }
+
+    /**
+     * Returns the current size of this stream.
+     *
+     * @return the number of bytes written to this stream
+     */
+    public long size() {
+        return fullSize + chunkPos;
+    }
+
+    /**
+     * Creates a newly allocated byte array holding the contents of this
+     * stream.
+     *
+     * @return the current contents of this stream, as a byte array
+     * @exception OutOfMemoryError if the size of this stream is too large
+     *            for an array
+     */
+    public byte[] toByteArray() {
+        long size = size();
+        if (size > MAX_ARRAY_SIZE)
+            throw new OutOfMemoryError("Required array size too large");
+        byte[] b = new byte[(int) size];
+        int pos = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            byte[] c = chunks[i];
+            int len = (c == chunk) ? chunkPos : c.length;
+            System.arraycopy(c, 0, b, pos, len);
+            pos += len;
+        }
+        return b;
+    }
+
+    /**
+     * Converts the contents of this stream into a string, decoding bytes
+     * using the platform's default character set.
+     *
+     * @return String decoded from the contents of this stream
+     */
+    public String toString() {
+        return new String(toByteArray());
+    }
+
+    /**
+     * Converts the contents of this stream into a string by decoding the
+     * bytes using the named {@link java.nio.charset.Charset charset}.
+     *
+     * @param charsetName the name of a supported
+     *        {@link java.nio.charset.Charset charset}
+     * @return String decoded from the contents of this stream
+     * @exception UnsupportedEncodingException
+     *            If the named charset is not supported
+     */
+    public String toString(String charsetName)
+        throws UnsupportedEncodingException
+    {
+        return new String(toByteArray(), charsetName);
+    }
+
+    /**
+     * Discards the contents of this stream and returns all of its chunks
+     * to its pool.  The stream may still be written to, after which it
+     * borrows new chunks.
+     */
+    public void close() {
+        release(0);
+    }
+}
@@ -262,6 +262,12 @@ public class ObjectInputStream
     private final boolean enableOverride;
     /** if true, invoke resolveObject() */
     private boolean enableResolve;
+    /**
+     * descriptor read by readClassDescriptor -> resolved descriptor map,
+     * reusing the resolution of descriptors read again, or null; set by
+     * SessionObjectInputStream
+     */
+    java.util.IdentityHashMap<ObjectStreamClass, ObjectStreamClass> sessionDescs;
 
     /**
      * Context during upcalls to class-defined readObject methods; holds
@@ -1612,22 +1618,41 @@ public class ObjectInputStream
                 "failed to read class descriptor").initCause(ex);
         }
 
+        ObjectStreamClass cached = (sessionDescs != null) ?
+            sessionDescs.get(readDesc) : null;
         Class<?> cl = null;
         ClassNotFoundException resolveEx = null;
         bin.setBlockDataMode(true);
-        final boolean checksRequired = isCustomSubclass();
-        try {
-            if ((cl = resolveClass(readDesc)) == null) {
-                resolveEx = new ClassNotFoundException("null class");
-            } else if (checksRequired) {
-                ReflectUtil.checkPackageAccess(cl);
+        if (cached != null) {
+            // descriptor already resolved in this session
+            cl = cached.forClass();
+            resolveEx = cached.getResolveException();
+        } else {
+            final boolean checksRequired = isCustomSubclass();
+            try {
+                if ((cl = resolveClass(readDesc)) == null) {
+                    resolveEx = new ClassNotFoundException("null class");
+                } else if (checksRequired) {
+                    ReflectUtil.checkPackageAccess(cl);
+                }
+            } catch (ClassNotFoundException ex) {
+                resolveEx = ex;
             }
-        } catch (ClassNotFoundException ex) {
-            resolveEx = ex;
         }
         skipCustomData();
 
-        desc.initNonProxy(readDesc, cl, resolveEx, readClassDesc(false));
+        ObjectStreamClass superDesc = readClassDesc(false);
+        if (cached != null && cached.getSuperDesc() == superDesc) {
+            desc = cached;
+            if (!unshared) {
+                handles.setObject(descHandle, desc);
+            }
+        } else {
+            desc.initNonProxy(readDesc, cl, resolveEx, superDesc);
+            if (sessionDescs != null) {
+                sessionDescs.put(readDesc, desc);
+            }
+        }
 
         handles.finish(descHandle);
         passHandle = descHandle;
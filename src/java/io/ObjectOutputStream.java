@@ -191,6 +191,11 @@ public class ObjectOutputStream
     private final boolean enableOverride;
     /** if true, invoke replaceObject() */
     private boolean enableReplace;
+    /**
+     * class -> descriptor map memoizing descriptor lookups for the life
+     * of the stream, or null; set by SessionObjectOutputStream
+     */
+    java.util.IdentityHashMap<Class<?>, ObjectStreamClass> sessionDescs;
 
     // values below valid only during upcalls to writeObject()/writeExternal()
     /**
@@ -1131,7 +1136,7 @@ public class ObjectOutputStream
             for (;;) {
                 // REMIND: skip this check for strings/arrays?
                 Class<?> repCl;
-                desc = ObjectStreamClass.lookup(cl, true);
+                desc = lookupDesc(cl);
                 if (!desc.hasWriteReplaceMethod() ||
                     (obj = desc.invokeWriteReplace(obj)) == null ||
                     (repCl = obj.getClass()) == cl)
@@ -1144,7 +1149,7 @@ public class ObjectOutputStream
                 Object rep = replaceObject(obj);
                 if (rep != obj && rep != null) {
                     cl = rep.getClass();
-                    desc = ObjectStreamClass.lookup(cl, true);
+                    desc = lookupDesc(cl);
                 }
                 obj = rep;
             }
@@ -1294,6 +1299,23 @@ public class ObjectOutputStream
         writeClassDesc(desc.getSuperDesc(), false);
     }
 
+    /**
+     * Returns the class descriptor for the given class, as
+     * ObjectStreamClass.lookup(cl, true) does; session streams memoize the
+     * descriptors they look up.
+     */
+    private ObjectStreamClass lookupDesc(Class<?> cl) {
+        if (sessionDescs == null) {
+            return ObjectStreamClass.lookup(cl, true);
+        }
+        ObjectStreamClass desc = sessionDescs.get(cl);
+        if (desc == null) {
+            desc = ObjectStreamClass.lookup(cl, true);
+            sessionDescs.put(cl, desc);
+        }
+        return desc;
+    }
+
     /**
      * Writes given string to stream, using standard or long UTF format
      * depending on string length.
@@ -1527,11 +1549,13 @@ public class ObjectOutputStream
         desc.checkDefaultSerialize();
 
         int primDataSize = desc.getPrimDataSize();
-        if (primVals == null || primVals.length < primDataSize) {
-            primVals = new byte[primDataSize];
+        if (!bout.writePrimFieldValues(desc, obj, primDataSize)) {
+            if (primVals == null || primVals.length < primDataSize) {
+                primVals = new byte[primDataSize];
+            }
+            desc.getPrimFieldValues(obj, primVals);
+            bout.write(primVals, 0, primDataSize, false);
         }
-        desc.getPrimFieldValues(obj, primVals);
-        bout.write(primVals, 0, primDataSize, false);
 
         ObjectStreamField[] fields = desc.getFields(false);
         Object[] objVals = new Object[desc.getNumObjFields()];
@@ -1863,6 +1887,28 @@ public class ObjectOutputStream
             }
         }
 
+        /**
+         * Marshals the values of the primitive serializable fields of obj,
+         * described by desc, directly into the buffer of this stream, and
+         * returns true, if the stream is not in block data mode and size,
+         * their marshalled length, fits in the buffer.  Otherwise writes
+         * nothing and returns false.
+         */
+        boolean writePrimFieldValues(ObjectStreamClass desc, Object obj,
+                                     int size)
+            throws IOException
+        {
+            if (blkmode || size > MAX_BLOCK_SIZE) {
+                return false;
+            }
+            if (pos + size > MAX_BLOCK_SIZE) {
+                drain();
+            }
+            desc.getPrimFieldValues(obj, buf, pos);
+            pos += size;
+            return true;
+        }
+
         /**
          * Writes all buffered data from this stream to the underlying stream,
          * but does not flush underlying stream.
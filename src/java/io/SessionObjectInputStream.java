@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * An object input stream for a session: a sequence of messages, each an
+ * object graph, written by a {@link SessionObjectOutputStream} to one
+ * connection.
+ *
+ * <p>The full descriptor of each class is read only the first time it
+ * appears in the session; later messages refer to it by its session id.
+ * A session stream also resolves the class of each descriptor, and
+ * matches its fields with those of the local class, only once.
+ *
+ * @see SessionObjectOutputStream
+ * @since 1.8
+ */
+public class SessionObjectInputStream extends ObjectInputStream {
+
+    /** descriptors read, indexed by session id - 1 */
+    private final ArrayList<ObjectStreamClass> descs = new ArrayList<>();
+
+    /**
+     * Creates a session stream that reads from the specified InputStream,
+     * and reads the serialization stream header.  This constructor will
+     * block until the corresponding SessionObjectOutputStream has written
+     * and flushed the header.
+     *
+     * @param   in input stream to read from
+     * @throws  StreamCorruptedException if the stream header is incorrect
+     * @throws  IOException if an I/O error occurs while reading stream header
+     * @throws  NullPointerException if <code>in</code> is <code>null</code>
+     */
+    public SessionObjectInputStream(InputStream in) throws IOException {
+        super(in);
+        sessionDescs = new IdentityHashMap<>();
+    }
+
+    /**
+     * Reads a message written by
+     * {@link SessionObjectOutputStream#writeMessage writeMessage}.
+     *
+     * @return  the object read
+     * @throws  ClassNotFoundException Class of a serialized object cannot be
+     *          found.
+     * @throws  InvalidClassException Something is wrong with a class used by
+     *          serialization.
+     * @throws  StreamCorruptedException Control information in the
+     *          stream is inconsistent.
+     * @throws  OptionalDataException Primitive data was found in the
+     *          stream instead of objects.
+     * @throws  IOException Any of the usual Input/Output related exceptions.
+     */
+    public Object readMessage() throws IOException, ClassNotFoundException {
+        return readObject();
+    }
+
+    /**
+     * Reads a class descriptor written by
+     * {@link SessionObjectOutputStream#writeClassDescriptor
+     * SessionObjectOutputStream.writeClassDescriptor}: returns the
+     * descriptor with the session id read, or reads a new one if the id is
+     * 0.
+     *
+     * @return  the class descriptor read
+     * @throws  IOException If an I/O error has occurred.
+     * @throws  ClassNotFoundException If the Class of a serialized object used
+     *          in the class descriptor representation cannot be found
+     */
+    @Override
+    protected ObjectStreamClass readClassDescriptor()
+        throws IOException, ClassNotFoundException
+    {
+        int id = readId();
+        if (id == 0) {
+            ObjectStreamClass desc = super.readClassDescriptor();
+            descs.add(desc);
+            return desc;
+        }
+        if (id > descs.size()) {
+            throw new StreamCorruptedException(
+                "invalid class descriptor id: " + id);
+        }
+        return descs.get(id - 1);
+    }
+
+    private int readId() throws IOException {
+        int id = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = readUnsignedByte();
+            if (shift == 28 && (b & 0xF0) != 0) {
+                throw new StreamCorruptedException("invalid class descriptor id");
+            }
+            id |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return id;
+            }
+        }
+    }
+}
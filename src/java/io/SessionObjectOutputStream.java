@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.io;
+
+import java.util.IdentityHashMap;
+
+/**
+ * An object output stream for a session: a sequence of messages, each an
+ * object graph, written to one connection and read by a
+ * {@link SessionObjectInputStream}.
+ *
+ * <p>A new <code>ObjectOutputStream</code> per message writes the stream
+ * header and the full descriptor of every class it serializes with each
+ * message, and so does a single stream that is {@link #reset() reset}
+ * between messages so that the messages are independent.  A session
+ * stream writes the header once, and the full descriptor of each class
+ * only the first time it is written; later messages refer to it by a
+ * compact session id.  Each message is an independent object graph, as
+ * after a reset: objects shared between messages are written again.  A
+ * session stream also memoizes the class descriptors it looks up.
+ *
+ * <p>The descriptor of each class is written by
+ * {@link #writeClassDescriptor writeClassDescriptor}, preceded by a
+ * session id, so only a <code>SessionObjectInputStream</code> can read a
+ * session stream.  Session streams use the
+ * {@link ObjectStreamConstants#PROTOCOL_VERSION_2 PROTOCOL_VERSION_2}
+ * protocol.  Descriptors of dynamic proxy classes are written in full with
+ * each message.  The session holds references to all of the classes it
+ * has written until it is garbage collected.
+ *
+ * @see SessionObjectInputStream
+ * @since 1.8
+ */
+public class SessionObjectOutputStream extends ObjectOutputStream {
+
+    /** descriptor -> session id map */
+    private final IdentityHashMap<ObjectStreamClass, Integer> descIds =
+        new IdentityHashMap<>();
+
+    /**
+     * Creates a session stream that writes to the specified OutputStream,
+     * and writes the serialization stream header.
+     *
+     * @param   out output stream to write to
+     * @throws  IOException if an I/O error occurs while writing stream header
+     * @throws  NullPointerException if <code>out</code> is <code>null</code>
+     */
+    public SessionObjectOutputStream(OutputStream out) throws IOException {
+        super(out);
+        sessionDescs = new IdentityHashMap<>();
+    }
+
+    /**
+     * Writes a message: writes the specified object, and the graph of
+     * objects it refers to, then resets the stream so that the next message
+     * is independent of it, except for the class descriptors already
+     * written, and flushes the stream.
+     *
+     * @param   obj the object to write
+     * @throws  InvalidClassException Something is wrong with a class used by
+     *          serialization.
+     * @throws  NotSerializableException Some object to be serialized does not
+     *          implement the java.io.Serializable interface.
+     * @throws  IOException Any exception thrown by the underlying
+     *          OutputStream.
+     */
+    public void writeMessage(Object obj) throws IOException {
+        writeObject(obj);
+        reset();
+        flush();
+    }
+
+    /**
+     * Session streams only use the
+     * {@link ObjectStreamConstants#PROTOCOL_VERSION_2 PROTOCOL_VERSION_2}
+     * protocol, which invokes {@link #writeClassDescriptor
+     * writeClassDescriptor}.
+     *
+     * @param   version use ProtocolVersion from java.io.ObjectStreamConstants.
+     * @throws  IllegalStateException if called after any objects
+     *          have been serialized.
+     * @throws  IllegalArgumentException if invalid version is passed in,
+     *          or if version is not PROTOCOL_VERSION_2.
+     * @throws  IOException if I/O errors occur
+     */
+    @Override
+    public void useProtocolVersion(int version) throws IOException {
+        if (version != PROTOCOL_VERSION_2) {
+            throw new IllegalArgumentException(
+                "session streams require PROTOCOL_VERSION_2");
+        }
+        super.useProtocolVersion(version);
+    }
+
+    /**
+     * Writes the specified class descriptor: its session id if it has
+     * already been written in this session, and otherwise 0 followed by
+     * the descriptor, which is assigned the next session id.  Ids are
+     * written as unsigned variable-length integers, seven bits per byte.
+     *
+     * @param   desc class descriptor to write to the stream
+     * @throws  IOException If an I/O error has occurred.
+     */
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc)
+        throws IOException
+    {
+        Integer id = descIds.get(desc);
+        if (id != null) {
+            writeId(id);
+        } else {
+            writeId(0);
+            super.writeClassDescriptor(desc);
+            descIds.put(desc, descIds.size() + 1);
+        }
+    }
+
+    private void writeId(int id) throws IOException {
+        while ((id & ~0x7F) != 0) {
+            writeByte((id & 0x7F) | 0x80);
+            id >>>= 7;
+        }
+        writeByte(id);
+    }
+}
@@ -36,6 +36,7 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.Arrays;
 import sun.misc.MessageUtils;
@@ -95,6 +96,19 @@ class StringCoding {
         return (int)(len * (double)expansionFactor);
     }
 
+    // Returns the value below which every byte of the given charset decodes
+    // to the char of the same value, and every such char encodes to that
+    // byte, or zero if the charset is not one of the standard charsets of
+    // which this is true.  Each of these has at most one char per byte.
+    //
+    private static int directLimit(Charset cs) {
+        if (cs == StandardCharsets.UTF_8 || cs == StandardCharsets.US_ASCII)
+            return 0x80;
+        if (cs == StandardCharsets.ISO_8859_1)
+            return 0x100;
+        return 0;
+    }
+
     private static Charset lookupCharset(String csn) {
         if (Charset.isSupported(csn)) {
             try {
@@ -194,6 +208,9 @@ class StringCoding {
     }
 
     static char[] decode(Charset cs, byte[] ba, int off, int len) {
+        int limit = directLimit(cs);
+        if (limit != 0)
+            return decodeDirect(cs, limit, ba, off, len);
         // (1)We never cache the "external" cs, the only benefit of creating
         // an additional StringDe/Encoder object to wrap it is to share the
         // de/encode() method. These SD/E objects are short-lifed, the young-gen
@@ -247,6 +264,43 @@ class StringCoding {
         }
     }
 
+    // Decodes with one of the standard charsets, copying the leading run of
+    // bytes below the given limit, which is often the whole input, without
+    // creating a decoder.  The charset is trusted, so neither the input nor
+    // the result need be copied defensively.
+    //
+    private static char[] decodeDirect(Charset cs, int limit,
+                                       byte[] ba, int off, int len) {
+        char[] ca = new char[len];
+        int i = 0;
+        while (i < len) {
+            int b = ba[off + i] & 0xff;
+            if (b >= limit)
+                break;
+            ca[i++] = (char)b;
+        }
+        if (i == len)
+            return ca;
+        CharsetDecoder cd = cs.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bb = ByteBuffer.wrap(ba, off + i, len - i);
+        CharBuffer cb = CharBuffer.wrap(ca, i, len - i);
+        try {
+            CoderResult cr = cd.decode(bb, cb, true);
+            if (!cr.isUnderflow())
+                cr.throwException();
+            cr = cd.flush(cb);
+            if (!cr.isUnderflow())
+                cr.throwException();
+        } catch (CharacterCodingException x) {
+            // Substitution is always enabled,
+            // so this shouldn't happen
+            throw new Error(x);
+        }
+        return safeTrim(ca, cb.position(), cs, true);
+    }
+
     static char[] decode(byte[] ba, int off, int len) {
         String csn = Charset.defaultCharset().name();
         try {
@@ -345,6 +399,9 @@ class StringCoding {
     }
 
     static byte[] encode(Charset cs, char[] ca, int off, int len) {
+        int limit = directLimit(cs);
+        if (limit != 0)
+            return encodeDirect(cs, limit, ca, off, len);
         CharsetEncoder ce = cs.newEncoder();
         int en = scale(len, ce.maxBytesPerChar());
         byte[] ba = new byte[en];
@@ -380,6 +437,44 @@ class StringCoding {
         }
     }
 
+    // Encodes with one of the standard charsets, copying the leading run of
+    // chars below the given limit, which is often the whole input, without
+    // creating an encoder.  The charset is trusted, so neither the input nor
+    // the result need be copied defensively.
+    //
+    private static byte[] encodeDirect(Charset cs, int limit,
+                                       char[] ca, int off, int len) {
+        byte[] ba = new byte[len];
+        int i = 0;
+        while (i < len) {
+            char c = ca[off + i];
+            if (c >= limit)
+                break;
+            ba[i++] = (byte)c;
+        }
+        if (i == len)
+            return ba;
+        CharsetEncoder ce = cs.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        int en = scale(len, ce.maxBytesPerChar());
+        if (en > len)
+            ba = Arrays.copyOf(ba, en);
+        ByteBuffer bb = ByteBuffer.wrap(ba, i, en - i);
+        CharBuffer cb = CharBuffer.wrap(ca, off + i, len - i);
+        try {
+            CoderResult cr = ce.encode(cb, bb, true);
+            if (!cr.isUnderflow())
+                cr.throwException();
+            cr = ce.flush(bb);
+            if (!cr.isUnderflow())
+                cr.throwException();
+        } catch (CharacterCodingException x) {
+            throw new Error(x);
+        }
+        return safeTrim(ba, bb.position(), cs, true);
+    }
+
     static byte[] encode(char[] ca, int off, int len) {
         String csn = Charset.defaultCharset().name();
         try {
@@ -171,6 +171,10 @@ import sun.management.ExtendedPlatformComponent;
  * <td> {@link java.util.logging.LogManager#LOGGING_MXBEAN_NAME
  *             java.util.logging:type=Logging}</td>
  * </tr>
+ * <tr>
+ * <td> {@link SocketMXBean} </td>
+ * <td> java.net:type=Socket</td>
+ * </tr>
  * </table>
  * </blockquote>
  *
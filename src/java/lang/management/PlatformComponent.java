@@ -25,6 +25,8 @@
 
 package java.lang.management;
 
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -212,7 +214,26 @@ enum PlatformComponent {
         false, // zero or more instances
         new MXBeanFetcher<BufferPoolMXBean>() {
             public List<BufferPoolMXBean> getMXBeans() {
-                return ManagementFactoryHelper.getBufferPoolMXBeans();
+                List<BufferPoolMXBean> beans = new ArrayList<>(
+                    ManagementFactoryHelper.getBufferPoolMXBeans());
+                for (java.nio.DirectBufferPool pool :
+                         java.nio.DirectBufferPool.openPools()) {
+                    beans.add(directBufferPoolMXBean(pool));
+                }
+                return beans;
+            }
+        }),
+
+    /**
+     * Socket statistics.
+     */
+    SOCKET(
+        "java.lang.management.SocketMXBean",
+        "java.net", "Socket", defaultKeyProperties(),
+        true, // singleton
+        new MXBeanFetcher<SocketMXBean>() {
+            public List<SocketMXBean> getMXBeans() {
+                return Collections.singletonList(socketMXBean());
             }
         }),
 
@@ -310,6 +331,110 @@ enum PlatformComponent {
         }
     }
 
+    /*
+     * Returns the buffer pool mxbean of a direct buffer pool: its count and
+     * total capacity are those of the buffers leased.
+     */
+    private static BufferPoolMXBean directBufferPoolMXBean(
+            final java.nio.DirectBufferPool pool) {
+        return new BufferPoolMXBean() {
+            @Override
+            public ObjectName getObjectName() {
+                String name = pool.getName();
+                if (name.matches(".*[,=:\"*?\n].*"))
+                    name = ObjectName.quote(name);
+                return Util.newObjectName("java.nio:type=BufferPool,name=" + name);
+            }
+            @Override
+            public String getName() {
+                return pool.getName();
+            }
+            @Override
+            public long getCount() {
+                return pool.getLeasedCount();
+            }
+            @Override
+            public long getTotalCapacity() {
+                return pool.getLeasedMemory();
+            }
+            @Override
+            public long getMemoryUsed() {
+                return pool.getMemoryUsed();
+            }
+        };
+    }
+
+    /*
+     * Returns the socket mxbean, which reports the aggregate socket
+     * statistics.
+     */
+    private static SocketMXBean socketMXBean() {
+        final java.net.SocketStatistics stats =
+            java.net.SocketStatistics.aggregate();
+        return new SocketMXBean() {
+            @Override
+            public ObjectName getObjectName() {
+                return Util.newObjectName("java.net:type=Socket");
+            }
+            @Override
+            public boolean isStatisticsEnabled() {
+                return java.net.SocketStatistics.isEnabled();
+            }
+            @Override
+            public void setStatisticsEnabled(final boolean enable) {
+                SecurityManager sm = System.getSecurityManager();
+                if (sm != null)
+                    sm.checkPermission(new ManagementPermission("control"));
+                AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                    public Void run() {
+                        java.net.SocketStatistics.setEnabled(enable);
+                        return null;
+                    }
+                });
+            }
+            @Override
+            public long getOpenSocketCount() {
+                return stats.getOpenCount();
+            }
+            @Override
+            public long getConnectCount() {
+                return stats.getConnectCount();
+            }
+            @Override
+            public long getConnectFailureCount() {
+                return stats.getConnectFailureCount();
+            }
+            @Override
+            public long getConnectTime() {
+                return stats.getConnectTime();
+            }
+            @Override
+            public long getBytesRead() {
+                return stats.getBytesRead();
+            }
+            @Override
+            public long getBytesWritten() {
+                return stats.getBytesWritten();
+            }
+            @Override
+            public long getReadCount() {
+                return stats.getReadCount();
+            }
+            @Override
+            public long getWriteCount() {
+                return stats.getWriteCount();
+            }
+            @Override
+            public long getReadTime() {
+                return stats.getReadTime();
+            }
+            @Override
+            public long getWriteTime() {
+                return stats.getWriteTime();
+            }
+        };
+    }
+
     private final String mxbeanInterfaceName;
     private final String domain;
     private final String type;
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+package java.lang.management;
+
+/**
+ * The management interface for the {@linkplain java.net.SocketStatistics
+ * statistics} of the stream sockets of the Java virtual machine.
+ *
+ * <p>There is a single global instance of the <tt>SocketMXBean</tt>.
+ * The {@link java.lang.management.ManagementFactory#getPlatformMXBean(Class)
+ * ManagementFactory.getPlatformMXBean} method can be used to obtain
+ * the {@code SocketMXBean} object as follows:
+ * <pre>
+ *     SocketMXBean sockets = ManagementFactory.getPlatformMXBean(SocketMXBean.class);
+ * </pre>
+ * The {@code SocketMXBean} object is also registered with the
+ * platform {@linkplain java.lang.management.ManagementFactory#getPlatformMBeanServer
+ * MBeanServer}.
+ * The {@link javax.management.ObjectName ObjectName} for uniquely
+ * identifying the {@code SocketMXBean} within an MBeanServer is:
+ * <pre>
+ *     java.net:type=Socket
+ * </pre>
+ *
+ * <p>The counters are those of the {@link java.net.SocketStatistics#aggregate
+ * aggregate} socket statistics: they cover the sockets that were created or
+ * accepted while statistics were {@linkplain #isStatisticsEnabled enabled},
+ * including sockets that have since been closed.  Times are in nanoseconds.
+ *
+ * @see java.net.SocketStatistics
+ * @since 1.8
+ */
+public interface SocketMXBean extends PlatformManagedObject {
+
+    /**
+     * Tests if statistics are collected for the sockets created from now
+     * on.
+     *
+     * @return {@code true} if socket statistics are enabled
+     *
+     * @see java.net.SocketStatistics#isEnabled
+     */
+    boolean isStatisticsEnabled();
+
+    /**
+     * Enables or disables the collection of statistics for the sockets
+     * created from now on.
+     *
+     * @param enable {@code true} to enable socket statistics
+     *
+     * @throws java.lang.SecurityException if a security manager
+     *     exists and the caller does not have
+     *     ManagementPermission("control").
+     *
+     * @see java.net.SocketStatistics#setEnabled
+     */
+    void setStatisticsEnabled(boolean enable);
+
+    /**
+     * Returns the number of instrumented sockets that are open.
+     *
+     * @return the number of open sockets
+     */
+    long getOpenSocketCount();
+
+    /**
+     * Returns the number of connections established.
+     *
+     * @return the number of connections established
+     */
+    long getConnectCount();
+
+    /**
+     * Returns the number of connect operations that failed.
+     *
+     * @return the number of failed connect operations
+     */
+    long getConnectFailureCount();
+
+    /**
+     * Returns the time spent in connect operations, in nanoseconds.
+     *
+     * @return the connect time
+     */
+    long getConnectTime();
+
+    /**
+     * Returns the number of bytes read.
+     *
+     * @return the number of bytes read
+     */
+    long getBytesRead();
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes written
+     */
+    long getBytesWritten();
+
+    /**
+     * Returns the number of read operations.
+     *
+     * @return the number of read operations
+     */
+    long getReadCount();
+
+    /**
+     * Returns the number of write operations.
+     *
+     * @return the number of write operations
+     */
+    long getWriteCount();
+
+    /**
+     * Returns the time spent blocked in read operations, in nanoseconds.
+     *
+     * @return the read time
+     */
+    long getReadTime();
+
+    /**
+     * Returns the time spent blocked in write operations, in nanoseconds.
+     *
+     * @return the write time
+     */
+    long getWriteTime();
+}
@@ -74,6 +74,9 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
     */
     protected boolean stream;
 
+    /* statistics of a connected or connecting stream socket, or null */
+    SocketStatistics stats;
+
     /**
      * Load net library into runtime.
      */
@@ -107,6 +110,8 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
         } else {
             fd = new FileDescriptor();
             socketCreate(true);
+            if (serverSocket == null)
+                stats = SocketStatistics.create();
         }
         if (socket != null)
             socket.setCreated();
@@ -344,6 +349,8 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
                 NetHooks.beforeTcpConnect(fd, address, port);
             }
         }
+        SocketStatistics stats = this.stats;
+        long start = (stats != null) ? System.nanoTime() : 0L;
         try {
             acquireFD();
             try {
@@ -365,7 +372,11 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
             } finally {
                 releaseFD();
             }
+            if (stats != null)
+                stats.connectCompleted(start, true);
         } catch (IOException e) {
+            if (stats != null)
+                stats.connectCompleted(start, false);
             close();
             throw e;
         }
@@ -410,6 +421,8 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
         } finally {
             releaseFD();
         }
+        if (s instanceof AbstractPlainSocketImpl)
+            ((AbstractPlainSocketImpl) s).stats = SocketStatistics.create();
     }
 
     /**
@@ -510,6 +523,9 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
     protected void close() throws IOException {
         synchronized(fdLock) {
             if (fd != null) {
+                if (stats != null) {
+                    stats.closed();
+                }
                 if (!stream) {
                     ResourceManager.afterUdpClose();
                 }
@@ -554,6 +570,10 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
         if (fd != null) {
             socketClose();
         }
+        if (stats != null) {
+            stats.closed();
+            stats = null;
+        }
         fd = null;
         super.reset();
     }
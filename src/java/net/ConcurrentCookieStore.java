@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.net;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory java.net.CookieStore implementation for concurrent use.
+ *
+ * Cookies are held in a concurrent map keyed by their identity (name,
+ * domain and path, as for {@link HttpCookie#equals}), and indexed both by
+ * the last two labels of their domain, which approximates the registrable
+ * domain, and by the effective URI they were added with.  A lookup examines
+ * only the index entries that can possibly match the host of the given URI,
+ * and takes no lock.  Expired cookies are removed lazily, when a lookup
+ * comes across them.
+ *
+ * The cookies returned by {@link #get} and {@link #getCookies} are in the
+ * order in which they were added.  Otherwise this store behaves as
+ * {@link InMemoryCookieStore}.
+ *
+ * @since 1.8
+ */
+class ConcurrentCookieStore implements CookieStore {
+
+    // the key under which domain-indexed cookies that can match only
+    // unqualified host names, or host names in .local, are indexed
+    private static final String LOCAL_KEY = "local";
+
+    // all cookies, by identity
+    private final ConcurrentHashMap<Key, Entry> cookieJar =
+        new ConcurrentHashMap<>();
+
+    // the cookies are indexed by the last two labels of their domain and by
+    // their associated uri (if present).  An index may briefly hold an entry
+    // that has been replaced in cookieJar; such entries are dropped when
+    // found.
+    private final ConcurrentHashMap<String, Set<Entry>> domainIndex =
+        new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<URI, Set<Entry>> uriIndex =
+        new ConcurrentHashMap<>();
+
+    // orders entries by when they were added
+    private final AtomicLong sequence = new AtomicLong();
+
+    private static final Comparator<Entry> ADDED_ORDER =
+        new Comparator<Entry>() {
+            public int compare(Entry e1, Entry e2) {
+                return Long.compare(e1.seq, e2.seq);
+            }
+        };
+
+    /**
+     * The default ctor
+     */
+    public ConcurrentCookieStore() {
+    }
+
+    /**
+     * Add one cookie into cookie store.
+     */
+    public void add(URI uri, HttpCookie cookie) {
+        // pre-condition : argument can't be null
+        if (cookie == null) {
+            throw new NullPointerException("cookie is null");
+        }
+
+        Key key = new Key(cookie);
+        Entry old;
+        if (cookie.getMaxAge() != 0) {
+            String domain = cookie.getDomain();
+            Entry e = new Entry(key, cookie, domain,
+                                domain == null ? null : domainKey(domain),
+                                uri == null ? null : getEffectiveURI(uri),
+                                sequence.getAndIncrement());
+            old = cookieJar.put(key, e);
+            if (e.domainKey != null)
+                index(domainIndex, e.domainKey, e);
+            if (e.uri != null)
+                index(uriIndex, e.uri, e);
+        } else {
+            // a zero max-age only removes the old cookie
+            old = cookieJar.remove(key);
+        }
+        if (old != null)
+            unindex(old);
+    }
+
+    /**
+     * Get all cookies, which:
+     *  1) given uri domain-matches with, or, associated with
+     *     given uri when added to the cookie store.
+     *  3) not expired.
+     * See RFC 2965 sec. 3.3.4 for more detail.
+     */
+    public List<HttpCookie> get(URI uri) {
+        // argument can't be null
+        if (uri == null) {
+            throw new NullPointerException("uri is null");
+        }
+
+        List<Entry> found = new ArrayList<>();
+        boolean secureLink = "https".equalsIgnoreCase(uri.getScheme());
+        String host = uri.getHost();
+        if (host != null) {
+            // check domainIndex first: every domain that can match host is
+            // a suffix of it, so its key is a suffix of the last two labels
+            // of host that starts within the second to last label
+            String h = host.toLowerCase(Locale.ROOT);
+            getByDomain(found, LOCAL_KEY, host, secureLink);
+            int last = h.lastIndexOf('.');
+            if (last >= 0) {
+                for (int i = h.lastIndexOf('.', last - 1) + 1; i <= last; i++)
+                    getByDomain(found, h.substring(i), host, secureLink);
+            } else {
+                getByDomain(found, h + ".local", host, secureLink);
+            }
+        }
+        // check uriIndex then
+        Set<Entry> entries = uriIndex.get(getEffectiveURI(uri));
+        if (entries != null) {
+            for (Entry e : entries) {
+                if (isLive(e) && (secureLink || !e.cookie.getSecure())
+                        && !found.contains(e))
+                    found.add(e);
+            }
+        }
+
+        return toCookies(found);
+    }
+
+    /**
+     * Get all cookies in cookie store, except those have expired
+     */
+    public List<HttpCookie> getCookies() {
+        List<Entry> found = new ArrayList<>(cookieJar.size());
+        for (Entry e : cookieJar.values()) {
+            if (isLive(e))
+                found.add(e);
+        }
+        return Collections.unmodifiableList(toCookies(found));
+    }
+
+    /**
+     * Get all URIs, which are associated with at least one cookie
+     * of this cookie store.
+     */
+    public List<URI> getURIs() {
+        return new ArrayList<URI>(uriIndex.keySet());
+    }
+
+    /**
+     * Remove a cookie from store
+     */
+    public boolean remove(URI uri, HttpCookie ck) {
+        // argument can't be null
+        if (ck == null) {
+            throw new NullPointerException("cookie is null");
+        }
+
+        Entry old = cookieJar.remove(new Key(ck));
+        if (old == null)
+            return false;
+        unindex(old);
+        return true;
+    }
+
+    /**
+     * Remove all cookies in this cookie store.
+     */
+    public boolean removeAll() {
+        if (cookieJar.isEmpty()) {
+            return false;
+        }
+        cookieJar.clear();
+        domainIndex.clear();
+        uriIndex.clear();
+        return true;
+    }
+
+
+    /* ---------------- Private operations -------------- */
+
+
+    // Adds to found the live entries indexed under the given domain key
+    // that domain-match host
+    private void getByDomain(List<Entry> found, String domainKey, String host,
+                             boolean secureLink)
+    {
+        Set<Entry> entries = domainIndex.get(domainKey);
+        if (entries == null)
+            return;
+        for (Entry e : entries) {
+            HttpCookie c = e.cookie;
+            if ((c.getVersion() == 0 && netscapeDomainMatches(e.domain, host)) ||
+                    (c.getVersion() == 1 && HttpCookie.domainMatches(e.domain, host))) {
+                // don't add twice and make sure it's the proper
+                // security level
+                if (isLive(e) && (secureLink || !c.getSecure())
+                        && !found.contains(e))
+                    found.add(e);
+            }
+        }
+    }
+
+    // Tells whether the entry is still in the store and its cookie has not
+    // expired, removing it from the store if it has
+    private boolean isLive(Entry e) {
+        if (cookieJar.get(e.key) != e) {
+            // replaced or removed, the index entry is stale
+            unindex(e);
+            return false;
+        }
+        if (e.cookie.hasExpired()) {
+            if (cookieJar.remove(e.key, e))
+                unindex(e);
+            return false;
+        }
+        return true;
+    }
+
+    private static List<HttpCookie> toCookies(List<Entry> entries) {
+        Collections.sort(entries, ADDED_ORDER);
+        List<HttpCookie> cookies = new ArrayList<>(entries.size());
+        for (Entry e : entries)
+            cookies.add(e.cookie);
+        return cookies;
+    }
+
+    // add 'entry' indexed by 'index' into 'indexStore'; done under the
+    // map's lock for the index so as not to race with the removal of an
+    // empty set by unindex
+    private static <T> void index(ConcurrentHashMap<T, Set<Entry>> indexStore,
+                                  T index, Entry entry)
+    {
+        indexStore.compute(index, (k, entries) -> {
+            if (entries == null)
+                entries = ConcurrentHashMap.newKeySet();
+            entries.add(entry);
+            return entries;
+        });
+    }
+
+    private void unindex(Entry entry) {
+        if (entry.domainKey != null)
+            unindex(domainIndex, entry.domainKey, entry);
+        if (entry.uri != null)
+            unindex(uriIndex, entry.uri, entry);
+    }
+
+    private static <T> void unindex(ConcurrentHashMap<T, Set<Entry>> indexStore,
+                                    T index, Entry entry)
+    {
+        indexStore.computeIfPresent(index, (k, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    // Returns the key under which a cookie with the given domain is
+    // indexed: the last two labels of the domain, without any leading dot
+    private static String domainKey(String domain) {
+        String d = domain.toLowerCase(Locale.ROOT);
+        if (d.startsWith("."))
+            d = d.substring(1);
+        int last = d.lastIndexOf('.');
+        if (last < 0)
+            return d;
+        return d.substring(d.lastIndexOf('.', last - 1) + 1);
+    }
+
+    /*
+     * The same as InMemoryCookieStore.netscapeDomainMatches: HttpCookie
+     * domainMatches except that it won't reject cookies when the 'H' part
+     * of the domain contains a dot ('.').  Used for 'old' style cookies
+     * (aka Netscape type of cookies).
+     */
+    private static boolean netscapeDomainMatches(String domain, String host)
+    {
+        if (domain == null || host == null) {
+            return false;
+        }
+
+        // if there's no embedded dot in domain and domain is not .local
+        boolean isLocalDomain = ".local".equalsIgnoreCase(domain);
+        int embeddedDotInDomain = domain.indexOf('.');
+        if (embeddedDotInDomain == 0) {
+            embeddedDotInDomain = domain.indexOf('.', 1);
+        }
+        if (!isLocalDomain && (embeddedDotInDomain == -1 || embeddedDotInDomain == domain.length() - 1)) {
+            return false;
+        }
+
+        // if the host name contains no dot and the domain name is .local
+        int firstDotInHost = host.indexOf('.');
+        if (firstDotInHost == -1 && isLocalDomain) {
+            return true;
+        }
+
+        int domainLength = domain.length();
+        int lengthDiff = host.length() - domainLength;
+        if (lengthDiff == 0) {
+            // if the host name and the domain name are just string-compare equal
+            return host.equalsIgnoreCase(domain);
+        } else if (lengthDiff > 0) {
+            // need to check D component
+            return host.regionMatches(true, lengthDiff, domain, 0, domainLength);
+        } else if (lengthDiff == -1) {
+            // if domain is actually .host
+            return (domain.charAt(0) == '.' &&
+                    host.regionMatches(true, 0, domain, 1, domainLength - 1));
+        }
+
+        return false;
+    }
+
+    //
+    // for cookie purpose, the effective uri should only be http://host
+    // the path will be taken into account when path-match algorithm applied
+    //
+    private static URI getEffectiveURI(URI uri) {
+        URI effectiveURI = null;
+        try {
+            effectiveURI = new URI("http",
+                                   uri.getHost(),
+                                   null,  // path component
+                                   null,  // query component
+                                   null   // fragment component
+                                  );
+        } catch (URISyntaxException ignored) {
+            effectiveURI = uri;
+        }
+
+        return effectiveURI;
+    }
+
+    /*
+     * The identity of a cookie, as compared by HttpCookie.equals, captured
+     * when it is added to or removed from the store.
+     */
+    private static final class Key {
+        private final String name;
+        private final String domain;
+        private final String path;
+
+        Key(HttpCookie cookie) {
+            name = cookie.getName().toLowerCase(Locale.ROOT);
+            String d = cookie.getDomain();
+            domain = (d == null) ? null : d.toLowerCase(Locale.ROOT);
+            path = cookie.getPath();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return name.equals(other.name) &&
+                   Objects.equals(domain, other.domain) &&
+                   Objects.equals(path, other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, domain, path);
+        }
+    }
+
+    /*
+     * A cookie in the store, with what it was indexed by.
+     */
+    private static final class Entry {
+        final Key key;
+        final HttpCookie cookie;
+        final String domain;        // the domain of the cookie when added
+        final String domainKey;     // null if not domain-indexed
+        final URI uri;              // null if not uri-indexed
+        final long seq;
+
+        Entry(Key key, HttpCookie cookie, String domain, String domainKey,
+              URI uri, long seq) {
+            this.key = key;
+            this.cookie = cookie;
+            this.domain = domain;
+            this.domainKey = domainKey;
+            this.uri = uri;
+            this.seq = seq;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Collections;
 import java.util.Comparator;
 import java.io.IOException;
+import sun.security.action.GetBooleanAction;
 import sun.util.logging.PlatformLogger;
 
 /**
@@ -123,6 +124,12 @@ public class CookieManager extends CookieHandler
 
     private CookieStore cookieJar = null;
 
+    // whether the default cookie store is the lock-based InMemoryCookieStore
+    // rather than ConcurrentCookieStore
+    private static final boolean useLegacyCookieStore =
+        java.security.AccessController.doPrivileged(
+            new GetBooleanAction("sun.net.useLegacyCookieStore")).booleanValue();
+
 
     /* ---------------- Ctors -------------- */
 
@@ -143,7 +150,8 @@ public class CookieManager extends CookieHandler
      *
      * @param store     a {@code CookieStore} to be used by cookie manager.
      *                  if {@code null}, cookie manager will use a default one,
-     *                  which is an in-memory CookieStore implementation.
+     *                  which is an in-memory CookieStore implementation
+     *                  that supports concurrent lookups.
      * @param cookiePolicy      a {@code CookiePolicy} instance
      *                          to be used by cookie manager as policy callback.
      *                          if {@code null}, ACCEPT_ORIGINAL_SERVER will
@@ -158,7 +166,8 @@ public class CookieManager extends CookieHandler
 
         // if not specify CookieStore to use, use default one
         if (store == null) {
-            cookieJar = new InMemoryCookieStore();
+            cookieJar = useLegacyCookieStore ? new InMemoryCookieStore()
+                                             : new ConcurrentCookieStore();
         } else {
             cookieJar = store;
         }
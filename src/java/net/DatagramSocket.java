@@ -817,6 +817,147 @@ class DatagramSocket implements java.io.Closeable {
         }
     }
 
+    /**
+     * Sends a sequence of datagram packets from this socket.  Each packet
+     * in the subsequence <tt>packets[offset]</tt> through
+     * <tt>packets[offset+length-1]</tt> is sent in turn, exactly as if by
+     * the {@link #send(DatagramPacket) send} method, including its security
+     * checks.
+     *
+     * <p>If an I/O error occurs after at least one packet has been sent then
+     * this method returns the number of packets sent; the error, if it
+     * persists, will be reported by the next operation upon this socket.
+     * Any other exception is thrown, whether or not packets have already
+     * been sent.  Implementations may send the whole batch with a single
+     * system call where the operating system provides one.
+     *
+     * @param      packets  the {@code DatagramPacket}s to be sent.
+     * @param      offset   the index of the first packet to be sent.
+     * @param      length   the number of packets to be sent.
+     * @return     the number of packets sent, which is {@code length}
+     *             unless an I/O error occurred.
+     *
+     * @exception  IOException  if an I/O error occurs before any packet
+     *             has been sent.
+     * @exception  SecurityException  if a security manager exists and its
+     *             {@code checkMulticast} or {@code checkConnect}
+     *             method doesn't allow the send of one of the packets.
+     * @exception  IndexOutOfBoundsException  if {@code offset} or
+     *             {@code length} is negative, or {@code offset+length} is
+     *             greater than {@code packets.length}.
+     * @exception  java.nio.channels.IllegalBlockingModeException
+     *             if this socket has an associated channel,
+     *             and the channel is in non-blocking mode.
+     * @exception  IllegalArgumentException if the socket is connected,
+     *             and connected address and the address of one of the
+     *             packets differ.
+     * @exception  NullPointerException if one of the packets is
+     *             {@code null}.
+     *
+     * @see        #send(DatagramPacket)
+     * @since 1.8
+     */
+    public int send(DatagramPacket[] packets, int offset, int length)
+        throws IOException
+    {
+        checkBatch(packets, offset, length);
+        int n = 0;
+        while (n < length) {
+            try {
+                send(packets[offset + n]);
+            } catch (IOException x) {
+                if (n == 0)
+                    throw x;
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Receives a sequence of datagram packets from this socket.  This
+     * method blocks, exactly as the {@link #receive(DatagramPacket)
+     * receive} method does, until a datagram is received into
+     * <tt>packets[offset]</tt>.  Further datagrams that are immediately
+     * available are then received into the following packets of the
+     * subsequence, up to <tt>packets[offset+length-1]</tt>, without
+     * blocking.
+     *
+     * <p>Further datagrams are received only when doing so cannot block:
+     * if a security manager is installed and the socket is not connected,
+     * or the socket is still discarding datagrams from sources other than
+     * its connected peer, then only one datagram is received.
+     *
+     * <p>If an I/O error occurs after at least one datagram has been
+     * received then this method returns the number of datagrams received;
+     * the error, if it persists, will be reported by the next operation
+     * upon this socket.  Implementations may receive the whole batch with a
+     * single system call where the operating system provides one.
+     *
+     * @param      packets  the {@code DatagramPacket}s into which to place
+     *                      the incoming data.
+     * @param      offset   the index of the first packet to be filled.
+     * @param      length   the maximum number of datagrams to be received.
+     * @return     the number of datagrams received, which is at least one
+     *             unless {@code length} is zero.
+     *
+     * @exception  IOException  if an I/O error occurs before any datagram
+     *             has been received.
+     * @exception  SocketTimeoutException  if setSoTimeout was previously called
+     *                 and the timeout has expired before the first datagram
+     *                 was received.
+     * @exception  IndexOutOfBoundsException  if {@code offset} or
+     *             {@code length} is negative, or {@code offset+length} is
+     *             greater than {@code packets.length}.
+     * @exception  java.nio.channels.IllegalBlockingModeException
+     *             if this socket has an associated channel,
+     *             and the channel is in non-blocking mode.
+     *
+     * @see        #receive(DatagramPacket)
+     * @since 1.8
+     */
+    public synchronized int receive(DatagramPacket[] packets,
+                                    int offset, int length)
+        throws IOException
+    {
+        checkBatch(packets, offset, length);
+        if (length == 0)
+            return 0;
+        receive(packets[offset]);
+        int n = 1;
+        while (n < length && canReceiveWithoutBlocking()) {
+            try {
+                receive(packets[offset + n]);
+            } catch (IOException x) {
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns true if a datagram is queued on the socket and receiving it
+     * cannot block, either in the security check or in the filtering of
+     * datagrams from sources other than the connected peer.
+     */
+    private boolean canReceiveWithoutBlocking() throws SocketException {
+        if (isClosed() || explicitFilter ||
+            connectState == ST_CONNECTED_NO_IMPL)
+            return false;
+        if (connectState == ST_NOT_CONNECTED &&
+            System.getSecurityManager() != null)
+            return false;
+        return getImpl().dataAvailable() > 0;
+    }
+
+    private static void checkBatch(DatagramPacket[] packets,
+                                   int offset, int length) {
+        if (offset < 0 || length < 0 || offset > packets.length - length)
+            throw new IndexOutOfBoundsException();
+    }
+
     private boolean checkFiltering(DatagramPacket p) throws SocketException {
         bytesLeftToFilter -= p.getLength();
         if (bytesLeftToFilter <= 0 || getImpl().dataAvailable() <= 0) {
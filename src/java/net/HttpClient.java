@@ -0,0 +1,665 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+package java.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An asynchronous HTTP/1.1 client with an explicit pool of persistent
+ * connections.
+ *
+ * <p> A client sends {@link HttpRequest}s to {@code http} origin servers
+ * and completes a {@link CompletableFuture} with the {@link HttpResponse}
+ * as soon as the response head is received.  The response body is then
+ * streamed from the connection as the application reads it.  No thread
+ * is blocked while a request is in progress: connections are {@link
+ * AsynchronousSocketChannel}s of the client's {@link
+ * AsynchronousChannelGroup}, and host names are resolved with {@link
+ * InetAddress#getAllByNameAsync}.
+ *
+ * <p> The client keeps, for each origin server, up to {@link
+ * Builder#maxConnectionsPerHost maxConnectionsPerHost} connections.  A
+ * request uses an idle connection of its server if there is one, opens a
+ * new connection if the limit is not reached, and otherwise waits for a
+ * connection to be returned.  Requests on a connection are sent one at a
+ * time: a connection returns to the pool when the body of its response
+ * has been read, and is not reused once it has been idle for the {@link
+ * Builder#keepAliveTime keep-alive time}.  The client has no thread of its
+ * own, so a connection that has expired is only closed when a later request
+ * is sent, or when the client is closed.  A connection is not reused if
+ * either side asked for it to be closed or the response body was delimited
+ * by the end of the connection.  An idempotent request that fails on a
+ * reused connection before any of the response is received, typically
+ * because the server closed the idle connection, is sent again once on a
+ * new connection.
+ *
+ * <p> For example:
+ * <pre>
+ *     HttpClient client = HttpClient.newBuilder().maxConnectionsPerHost(8).build();
+ *     HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/")).build();
+ *     client.send(request)
+ *           .thenCompose(HttpResponse::body)
+ *           .thenAccept(bytes -&gt; ...);
+ * </pre>
+ *
+ * <p> Completion of the futures, and the dependent actions registered on
+ * them, may run in an I/O thread of the channel group; actions that block
+ * should use the {@code async} methods of {@code CompletableFuture}.
+ *
+ * <p> Only the {@code http} scheme is supported, without proxies.  This
+ * class is safe for use by multiple concurrent threads.
+ *
+ * @see HttpURLConnection
+ * @since 1.8
+ */
+public final class HttpClient implements Closeable {
+
+    private final int maxConnectionsPerHost;
+    private final long keepAliveTime;       // ms
+    private final long timeout;             // ms, or 0
+    private final AsynchronousChannelGroup group;
+    private final ConcurrentHashMap<String, HostPool> pools = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+    private volatile long nextSweep;
+
+    private HttpClient(Builder builder) {
+        this.maxConnectionsPerHost = builder.maxConnectionsPerHost;
+        this.keepAliveTime = builder.keepAliveTime;
+        this.timeout = builder.timeout;
+        this.group = builder.group;
+    }
+
+    /**
+     * Returns a client with the default configuration.
+     *
+     * @return  a new client
+     */
+    public static HttpClient open() {
+        return newBuilder().build();
+    }
+
+    /**
+     * Returns a builder of clients.
+     *
+     * @return  a new builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the maximum number of connections to each origin server.
+     *
+     * @return  the maximum number of connections per host
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Returns the number of open connections, in use or idle, and of
+     * connections being opened.
+     *
+     * @return  the number of connections
+     */
+    public int getConnectionCount() {
+        int n = 0;
+        for (HostPool pool : pools.values()) {
+            synchronized (pool) {
+                n += pool.open;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     *
+     * @return  the number of idle connections
+     */
+    public int getIdleConnectionCount() {
+        int n = 0;
+        for (HostPool pool : pools.values()) {
+            synchronized (pool) {
+                n += pool.idle.size();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Sends a request.  The returned future completes with the response
+     * once its head has been received, or exceptionally if the connection
+     * cannot be established or fails, or the response is malformed.
+     * Interim ({@code 1xx}) responses are skipped.
+     *
+     * <p> If there is a security manager, its {@code checkConnect} method
+     * is called with the host and port of the request URI to see if the
+     * operation is allowed.
+     *
+     * @param  request
+     *         the request
+     *
+     * @return  a future for the response
+     *
+     * @throws  IllegalStateException
+     *          if this client is closed
+     * @throws  SecurityException
+     *          if a security manager exists and its {@code checkConnect}
+     *          method doesn't allow the connection
+     */
+    public CompletableFuture<HttpResponse> send(HttpRequest request) {
+        if (closed)
+            throw new IllegalStateException("HttpClient is closed");
+        URI uri = request.uri();
+        String host = uri.getHost();
+        int port = (uri.getPort() == -1) ? 80 : uri.getPort();
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null)
+            sm.checkConnect(host, port);
+
+        long now = System.currentTimeMillis();
+        if (now >= nextSweep) {
+            nextSweep = now + 1000L;
+            for (HostPool pool : pools.values())
+                pool.closeExpired(now);
+        }
+
+        String key = host.toLowerCase(Locale.ROOT) + ":" + port;
+        HostPool pool = pools.get(key);
+        if (pool == null) {
+            HostPool newPool = new HostPool(host, port);
+            pool = pools.putIfAbsent(key, newPool);
+            if (pool == null)
+                pool = newPool;
+        }
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        exchange(pool, request, result);
+        return result;
+    }
+
+    /*
+     * Acquires a connection and sends the request on it.
+     */
+    private void exchange(HostPool pool, HttpRequest request,
+                          CompletableFuture<HttpResponse> result) {
+        pool.acquire().whenComplete((conn, exc) -> {
+            if (exc != null) {
+                result.completeExceptionally(unwrap(exc));
+            } else {
+                exchange(pool, conn, request, result);
+            }
+        });
+    }
+
+    private void exchange(HostPool pool, HttpClientConnection conn,
+                          HttpRequest request,
+                          CompletableFuture<HttpResponse> result) {
+        conn.send(request)
+            .thenCompose(v -> readFinalHead(conn))
+            .whenComplete((head, exc) -> {
+                if (exc != null) {
+                    pool.release(conn, false);
+                    if (conn.reused && !conn.responseReceived()
+                            && request.isReplayable() && !closed) {
+                        // the server may have closed the idle connection
+                        exchange(pool, request, result);
+                    } else {
+                        result.completeExceptionally(unwrap(exc));
+                    }
+                    return;
+                }
+                HttpResponse response;
+                try {
+                    response = newResponse(pool, conn, request, head);
+                } catch (IOException x) {
+                    pool.release(conn, false);
+                    result.completeExceptionally(x);
+                    return;
+                }
+                if (!result.complete(response))
+                    response.close();
+            });
+    }
+
+    /*
+     * Reads response heads until a final (non 1xx) response.
+     */
+    private static CompletableFuture<HttpClientConnection.Head>
+        readFinalHead(HttpClientConnection conn)
+    {
+        return conn.readHead().thenCompose(head -> {
+            if (head.status >= 100 && head.status < 200 && head.status != 101)
+                return readFinalHead(conn);
+            return CompletableFuture.completedFuture(head);
+        });
+    }
+
+    private static HttpResponse newResponse(HostPool pool,
+                                            HttpClientConnection conn,
+                                            HttpRequest request,
+                                            HttpClientConnection.Head head)
+        throws IOException
+    {
+        boolean keepAlive;
+        String connection = head.first("Connection");
+        if (head.version.equals("HTTP/1.0")) {
+            keepAlive = (connection != null) && connection.equalsIgnoreCase("keep-alive");
+        } else {
+            keepAlive = (connection == null) || !hasToken(connection, "close");
+        }
+        String requested = firstHeader(request, "Connection");
+        if (requested != null && hasToken(requested, "close"))
+            keepAlive = false;
+
+        int status = head.status;
+        String te = head.first("Transfer-Encoding");
+        String cl = head.first("Content-Length");
+        if (request.method().equals("HEAD") || status == 204 || status == 304
+                || (status >= 100 && status < 200)) {
+            conn.startBody(HttpClientConnection.NO_BODY, 0);
+            if (status == 101)
+                keepAlive = false;
+        } else if (te != null && !te.equalsIgnoreCase("identity")) {
+            if (!hasToken(te, "chunked"))
+                throw new ProtocolException("Unsupported transfer coding: " + te);
+            conn.startBody(HttpClientConnection.CHUNKED, 0);
+        } else if (cl != null) {
+            long length;
+            try {
+                length = Long.parseLong(cl.trim());
+            } catch (NumberFormatException x) {
+                length = -1;
+            }
+            if (length < 0)
+                throw new ProtocolException("Invalid Content-Length: " + cl);
+            conn.startBody(HttpClientConnection.FIXED_LENGTH, length);
+        } else {
+            conn.startBody(HttpClientConnection.UNTIL_CLOSE, 0);
+            keepAlive = false;
+        }
+        return new HttpResponse(request, head, conn, keepAlive, pool::release);
+    }
+
+    private static String firstHeader(HttpRequest request, String name) {
+        List<String> values = request.headers().get(name);
+        return (values == null) ? null : values.get(0);
+    }
+
+    private static boolean hasToken(String value, String token) {
+        for (String s : value.split(",")) {
+            if (s.trim().equalsIgnoreCase(token))
+                return true;
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable exc) {
+        if (exc instanceof CompletionException && exc.getCause() != null)
+            return exc.getCause();
+        return exc;
+    }
+
+    /**
+     * Closes this client.  Idle connections are closed, requests waiting
+     * for a connection fail, and further requests are rejected.  Requests
+     * in progress complete, after which their connections are closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (HostPool pool : pools.values())
+            pool.close();
+    }
+
+    /**
+     * Tells whether this client is closed.
+     *
+     * @return  {@code true} if this client is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * The connections to one origin server.  The number of connections open
+     * or being opened is at most maxConnectionsPerHost.
+     */
+    private final class HostPool {
+        final String host;
+        final int port;
+        final ArrayDeque<HttpClientConnection> idle = new ArrayDeque<>();
+        final ArrayDeque<CompletableFuture<HttpClientConnection>> waiters =
+            new ArrayDeque<>();
+        int open;
+
+        HostPool(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        /**
+         * Returns an idle connection, a new connection, or a connection
+         * that will be released by another request.
+         */
+        CompletableFuture<HttpClientConnection> acquire() {
+            long now = System.currentTimeMillis();
+            List<HttpClientConnection> expired = new ArrayList<>();
+            CompletableFuture<HttpClientConnection> f = null;
+            boolean connect = false;
+            synchronized (this) {
+                if (closed) {
+                    f = new CompletableFuture<>();
+                    f.completeExceptionally(new IOException("HttpClient is closed"));
+                    return f;
+                }
+                HttpClientConnection conn;
+                while ((conn = idle.pollLast()) != null) {
+                    if (isUsable(conn, now)) {
+                        conn.reused = true;
+                        f = CompletableFuture.completedFuture(conn);
+                        break;
+                    }
+                    expired.add(conn);
+                    open--;
+                }
+                if (f == null) {
+                    f = new CompletableFuture<>();
+                    if (open < maxConnectionsPerHost) {
+                        open++;
+                        connect = true;
+                    } else {
+                        waiters.add(f);
+                    }
+                }
+            }
+            for (HttpClientConnection conn : expired)
+                conn.close();
+            if (connect)
+                connect(f);
+            return f;
+        }
+
+        private boolean isUsable(HttpClientConnection conn, long now) {
+            return conn.isOpen() && !conn.hasUnreadData()
+                && now - conn.idleSince < keepAliveTime;
+        }
+
+        /**
+         * Returns a connection to the pool, handing it, or a new connection
+         * in its place, to the next waiting request.
+         */
+        void release(HttpClientConnection conn, boolean reusable) {
+            CompletableFuture<HttpClientConnection> waiter;
+            synchronized (this) {
+                if (closed || keepAliveTime == 0)
+                    reusable = false;
+                waiter = waiters.poll();
+                if (reusable) {
+                    if (waiter == null) {
+                        conn.idleSince = System.currentTimeMillis();
+                        idle.addLast(conn);
+                        return;
+                    }
+                } else {
+                    if (waiter == null)
+                        open--;
+                }
+            }
+            if (reusable) {
+                conn.reused = true;
+                waiter.complete(conn);
+            } else {
+                conn.close();
+                if (waiter != null)
+                    connect(waiter);
+            }
+        }
+
+        /*
+         * Opens a connection counted in open, completing f with it.
+         */
+        private void connect(CompletableFuture<HttpClientConnection> f) {
+            f.whenComplete((conn, exc) -> {
+                if (exc != null) {
+                    connectFailed();
+                }
+            });
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    InetAddress.getAllByNameAsync(host).whenComplete((addrs, exc) -> {
+                        if (exc != null) {
+                            f.completeExceptionally(unwrap(exc));
+                        } else {
+                            connect(addrs, 0, null, f);
+                        }
+                    });
+                    return null;
+                }
+            });
+        }
+
+        private void connect(InetAddress[] addrs, int i, Throwable last,
+                             CompletableFuture<HttpClientConnection> f) {
+            if (i == addrs.length) {
+                f.completeExceptionally(last);
+                return;
+            }
+            AsynchronousSocketChannel ch;
+            try {
+                ch = AsynchronousSocketChannel.open(group);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException | RuntimeException x) {
+                f.completeExceptionally(x);
+                return;
+            }
+            ch.connect(new InetSocketAddress(addrs[i], port), null,
+                       new CompletionHandler<Void, Void>() {
+                public void completed(Void v, Void att) {
+                    if (!f.complete(new HttpClientConnection(ch, timeout)))
+                        closeQuietly(ch);
+                }
+                public void failed(Throwable exc, Void att) {
+                    closeQuietly(ch);
+                    connect(addrs, i + 1, exc, f);
+                }
+            });
+        }
+
+        /*
+         * A connection could not be opened: gives the next waiting
+         * request, if any, the chance to open one.
+         */
+        private void connectFailed() {
+            CompletableFuture<HttpClientConnection> waiter;
+            synchronized (this) {
+                waiter = waiters.poll();
+                if (waiter == null) {
+                    open--;
+                    return;
+                }
+            }
+            connect(waiter);
+        }
+
+        /**
+         * Closes the idle connections that have expired.
+         */
+        void closeExpired(long now) {
+            List<HttpClientConnection> expired = new ArrayList<>();
+            synchronized (this) {
+                // the least recently used connections are first
+                HttpClientConnection conn;
+                while ((conn = idle.peekFirst()) != null && !isUsable(conn, now)) {
+                    idle.pollFirst();
+                    expired.add(conn);
+                    open--;
+                }
+            }
+            for (HttpClientConnection conn : expired)
+                conn.close();
+        }
+
+        void close() {
+            List<HttpClientConnection> conns;
+            List<CompletableFuture<HttpClientConnection>> pending;
+            synchronized (this) {
+                conns = new ArrayList<>(idle);
+                open -= idle.size();
+                idle.clear();
+                pending = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            for (HttpClientConnection conn : conns)
+                conn.close();
+            for (CompletableFuture<HttpClientConnection> f : pending)
+                f.completeExceptionally(new IOException("HttpClient is closed"));
+        }
+    }
+
+    private static void closeQuietly(AsynchronousSocketChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignore) { }
+    }
+
+    /**
+     * A builder of {@link HttpClient}s.
+     *
+     * @since 1.8
+     */
+    public static final class Builder {
+        private int maxConnectionsPerHost = 5;
+        private long keepAliveTime = 5000L;
+        private long timeout;
+        private AsynchronousChannelGroup group;
+
+        private Builder() { }
+
+        /**
+         * Sets the maximum number of connections to each origin server.
+         * The default is 5.
+         *
+         * @param  max
+         *         the maximum number of connections per host
+         *
+         * @return  this builder
+         *
+         * @throws  IllegalArgumentException
+         *          if {@code max} is less than 1
+         */
+        public Builder maxConnectionsPerHost(int max) {
+            if (max < 1)
+                throw new IllegalArgumentException("max < 1");
+            this.maxConnectionsPerHost = max;
+            return this;
+        }
+
+        /**
+         * Sets the time for which an idle connection may be reused.  The
+         * default is 5 seconds.
+         *
+         * @param  time
+         *         the keep-alive time, zero to close connections as soon as
+         *         they are idle
+         * @param  unit
+         *         the unit of {@code time}
+         *
+         * @return  this builder
+         *
+         * @throws  IllegalArgumentException
+         *          if {@code time} is negative
+         */
+        public Builder keepAliveTime(long time, TimeUnit unit) {
+            if (time < 0)
+                throw new IllegalArgumentException("time < 0");
+            this.keepAliveTime = unit.toMillis(time);
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for each read or write on a
+         * connection.  An operation that times out fails its request with
+         * an {@link java.nio.channels.InterruptedByTimeoutException}.  By
+         * default there is no timeout.
+         *
+         * @param  time
+         *         the timeout, or zero for no timeout
+         * @param  unit
+         *         the unit of {@code time}
+         *
+         * @return  this builder
+         *
+         * @throws  IllegalArgumentException
+         *          if {@code time} is negative
+         */
+        public Builder timeout(long time, TimeUnit unit) {
+            if (time < 0)
+                throw new IllegalArgumentException("time < 0");
+            this.timeout = unit.toMillis(time);
+            return this;
+        }
+
+        /**
+         * Sets the group of the connections, whose threads complete the
+         * I/O operations.  By default connections belong to the {@link
+         * AsynchronousChannelGroup system-wide default group}.
+         *
+         * @param  group
+         *         the group, or {@code null} for the default group
+         *
+         * @return  this builder
+         */
+        public Builder channelGroup(AsynchronousChannelGroup group) {
+            this.group = group;
+            return this;
+        }
+
+        /**
+         * Builds the client.
+         *
+         * @return  a new client
+         */
+        public HttpClient build() {
+            return new HttpClient(this);
+        }
+    }
+}
@@ -0,0 +1,591 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+package java.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection of an {@link HttpClient} to an origin server.  It writes
+ * requests and parses response heads and bodies, for one exchange at a
+ * time, with asynchronous reads and writes on an {@link
+ * AsynchronousSocketChannel}.
+ *
+ * <p> Unread bytes of the response are kept in a buffer between its
+ * position and its limit.  The buffer grows, up to {@link #MAX_HEAD_SIZE},
+ * only when a response head or a chunk-size line does not fit.
+ */
+final class HttpClientConnection {
+
+    private static final int BUFFER_SIZE = 8192;
+    static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    /* body modes */
+    static final int NO_BODY = 0;
+    static final int FIXED_LENGTH = 1;
+    static final int CHUNKED = 2;
+    static final int UNTIL_CLOSE = 3;
+
+    /* states of a chunked body */
+    private static final int CHUNK_SIZE = 0;
+    private static final int CHUNK_DATA = 1;
+    private static final int CHUNK_END = 2;
+    private static final int TRAILER = 3;
+
+    private final AsynchronousSocketChannel channel;
+    private final long timeout;     // read and write timeout, in ms, or 0
+    private ByteBuffer buf;
+
+    // whether the connection served an earlier exchange, and since when
+    // it has been idle
+    boolean reused;
+    long idleSince;
+
+    // whether bytes of the response to the current request were received
+    private boolean received;
+
+    // the body being read
+    private int mode;
+    private long remaining;
+    private int chunkState;
+    private boolean bodyDone;
+
+    HttpClientConnection(AsynchronousSocketChannel channel, long timeout) {
+        this.channel = channel;
+        this.timeout = timeout;
+        this.buf = ByteBuffer.allocate(BUFFER_SIZE);
+        buf.flip();
+    }
+
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException ignore) { }
+    }
+
+    /**
+     * Tells whether any byte of the response to the current request has
+     * been received.
+     */
+    boolean responseReceived() {
+        return received;
+    }
+
+    /**
+     * Tells whether the server has sent bytes that were not expected, such
+     * as a response nobody asked for, on an idle connection.
+     */
+    boolean hasUnreadData() {
+        return buf.hasRemaining();
+    }
+
+    // -- requests --
+
+    /**
+     * Sends the head and the body of a request.
+     */
+    CompletableFuture<Void> send(HttpRequest request) {
+        received = false;
+        bodyDone = false;
+        ByteBuffer head = ByteBuffer.wrap(requestHead(request));
+        ByteBuffer[] body = request.bodyBuffers();
+        ReadableByteChannel source = request.bodyChannel();
+        if (source != null) {
+            CompletableFuture<Void> f = new CompletableFuture<>();
+            write(new ByteBuffer[] { head }).whenComplete((v, exc) -> {
+                if (exc != null) {
+                    f.completeExceptionally(exc);
+                } else {
+                    sendChunks(source, ByteBuffer.allocate(BUFFER_SIZE), f);
+                }
+            });
+            return f;
+        }
+        int n = (body != null) ? body.length : 0;
+        ByteBuffer[] bufs = new ByteBuffer[n + 1];
+        bufs[0] = head;
+        if (body != null)
+            System.arraycopy(body, 0, bufs, 1, n);
+        return write(bufs);
+    }
+
+    private static byte[] requestHead(HttpRequest request) {
+        URI uri = request.uri();
+        StringBuilder sb = new StringBuilder(256);
+        String path = uri.getRawPath();
+        sb.append(request.method()).append(' ')
+          .append((path == null || path.isEmpty()) ? "/" : path);
+        if (uri.getRawQuery() != null)
+            sb.append('?').append(uri.getRawQuery());
+        sb.append(" HTTP/1.1\r\nHost: ").append(uri.getHost());
+        if (uri.getPort() != -1 && uri.getPort() != 80)
+            sb.append(':').append(uri.getPort());
+        sb.append("\r\n");
+        for (Map.Entry<String, List<String>> e : request.headers().entrySet()) {
+            for (String value : e.getValue())
+                sb.append(e.getKey()).append(": ").append(value).append("\r\n");
+        }
+        ByteBuffer[] body = request.bodyBuffers();
+        if (request.bodyChannel() != null) {
+            sb.append("Transfer-Encoding: chunked\r\n");
+        } else if (body != null) {
+            long length = 0;
+            for (ByteBuffer b : body)
+                length += b.remaining();
+            sb.append("Content-Length: ").append(length).append("\r\n");
+        } else if (request.method().equals("POST") || request.method().equals("PUT")) {
+            sb.append("Content-Length: 0\r\n");
+        }
+        sb.append("\r\n");
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /*
+     * Reads the next portion of a streamed body and sends it as a chunk,
+     * or sends the last chunk at end-of-stream.
+     */
+    private void sendChunks(ReadableByteChannel source, ByteBuffer data,
+                            CompletableFuture<Void> f) {
+        int n;
+        try {
+            data.clear();
+            n = source.read(data);
+        } catch (IOException | RuntimeException x) {
+            f.completeExceptionally(x);
+            return;
+        }
+        ByteBuffer[] bufs;
+        if (n < 0) {
+            bufs = new ByteBuffer[] { ascii("0\r\n\r\n") };
+        } else {
+            data.flip();
+            bufs = new ByteBuffer[] {
+                ascii(Integer.toHexString(n) + "\r\n"), data, ascii("\r\n") };
+        }
+        write(bufs).whenComplete((v, exc) -> {
+            if (exc != null) {
+                f.completeExceptionally(exc);
+            } else if (n < 0) {
+                f.complete(null);
+            } else {
+                sendChunks(source, data, f);
+            }
+        });
+    }
+
+    private static ByteBuffer ascii(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Writes all the remaining bytes of the given buffers.
+     */
+    private CompletableFuture<Void> write(ByteBuffer[] bufs) {
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        write(bufs, 0, f);
+        return f;
+    }
+
+    private void write(ByteBuffer[] bufs, int offset, CompletableFuture<Void> f) {
+        while (offset < bufs.length && !bufs[offset].hasRemaining())
+            offset++;
+        if (offset == bufs.length) {
+            f.complete(null);
+            return;
+        }
+        final int first = offset;
+        try {
+            channel.write(bufs, first, bufs.length - first,
+                          timeout, TimeUnit.MILLISECONDS, null,
+                          new CompletionHandler<Long, Void>() {
+                public void completed(Long n, Void att) {
+                    write(bufs, first, f);
+                }
+                public void failed(Throwable exc, Void att) {
+                    f.completeExceptionally(exc);
+                }
+            });
+        } catch (RuntimeException x) {
+            f.completeExceptionally(x);
+        }
+    }
+
+    // -- responses --
+
+    /**
+     * The status line and header fields of a response.
+     */
+    static final class Head {
+        final String version;
+        final int status;
+        final String reason;
+        final Map<String, List<String>> headers;
+
+        Head(String version, int status, String reason,
+             Map<String, List<String>> headers) {
+            this.version = version;
+            this.status = status;
+            this.reason = reason;
+            this.headers = headers;
+        }
+
+        String first(String name) {
+            List<String> values = headers.get(name);
+            return (values == null) ? null : values.get(0);
+        }
+    }
+
+    /**
+     * Reads the head of the next response.
+     */
+    CompletableFuture<Head> readHead() {
+        CompletableFuture<Head> f = new CompletableFuture<>();
+        readHead(f);
+        return f;
+    }
+
+    private void readHead(CompletableFuture<Head> f) {
+        Head head;
+        try {
+            head = parseHead();
+            if (head == null && buf.limit() == buf.capacity() && buf.position() == 0)
+                grow("Response head");
+        } catch (IOException x) {
+            f.completeExceptionally(x);
+            return;
+        }
+        if (head != null) {
+            f.complete(head);
+            return;
+        }
+        fill().whenComplete((n, exc) -> {
+            if (exc != null) {
+                f.completeExceptionally(exc);
+            } else if (n < 0) {
+                f.completeExceptionally(new EOFException(received ?
+                    "Connection closed in response head" :
+                    "Connection closed before response"));
+            } else {
+                received = true;
+                readHead(f);
+            }
+        });
+    }
+
+    /*
+     * Parses the response head in the buffer, or returns null if the
+     * buffer does not hold a complete head.  Lines end with CRLF or LF.
+     */
+    private Head parseHead() throws IOException {
+        int start = buf.position();
+        int limit = buf.limit();
+        int end = -1;
+        for (int i = start; i < limit; i++) {
+            if (buf.get(i) != '\n')
+                continue;
+            int j = i + 1;
+            if (j < limit && buf.get(j) == '\r')
+                j++;
+            if (j < limit && buf.get(j) == '\n') {
+                end = j + 1;
+                break;
+            }
+        }
+        if (end < 0)
+            return null;
+        String text = new String(buf.array(), buf.arrayOffset() + start,
+                                 end - start, StandardCharsets.ISO_8859_1);
+        buf.position(end);
+
+        String[] lines = text.split("\r?\n");
+        String statusLine = lines[0];
+        int sp1 = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/1.") || sp1 < 0)
+            throw new ProtocolException("Invalid status line: " + statusLine);
+        int sp2 = statusLine.indexOf(' ', sp1 + 1);
+        int status;
+        try {
+            status = Integer.parseInt(statusLine.substring(sp1 + 1,
+                                      (sp2 < 0) ? statusLine.length() : sp2));
+        } catch (NumberFormatException x) {
+            throw new ProtocolException("Invalid status line: " + statusLine);
+        }
+        if (status < 100 || status > 999)
+            throw new ProtocolException("Invalid status line: " + statusLine);
+        String reason = (sp2 < 0) ? "" : statusLine.substring(sp2 + 1);
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String name = null;
+        StringBuilder value = null;
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            if (line.isEmpty())
+                continue;
+            char c = line.charAt(0);
+            if ((c == ' ' || c == '\t') && name != null) {
+                // obsolete line folding
+                value.append(' ').append(line.trim());
+                continue;
+            }
+            if (name != null)
+                addHeader(headers, name, value.toString());
+            int colon = line.indexOf(':');
+            if (colon <= 0)
+                throw new ProtocolException("Invalid header field: " + line);
+            name = line.substring(0, colon).trim();
+            value = new StringBuilder(line.substring(colon + 1).trim());
+        }
+        if (name != null)
+            addHeader(headers, name, value.toString());
+        for (Map.Entry<String, List<String>> e : headers.entrySet())
+            e.setValue(Collections.unmodifiableList(e.getValue()));
+        return new Head(statusLine.substring(0, sp1), status, reason,
+                        Collections.unmodifiableMap(headers));
+    }
+
+    private static void addHeader(Map<String, List<String>> headers,
+                                  String name, String value) {
+        List<String> values = headers.get(name);
+        if (values == null) {
+            values = new ArrayList<>(1);
+            headers.put(name, values);
+        }
+        values.add(value);
+    }
+
+    /**
+     * Prepares to read a response body.
+     *
+     * @param mode   the body mode
+     * @param length the length of a fixed-length body
+     */
+    void startBody(int mode, long length) {
+        this.mode = mode;
+        this.remaining = length;
+        this.chunkState = CHUNK_SIZE;
+        this.bodyDone = (mode == NO_BODY) || (mode == FIXED_LENGTH && length == 0);
+    }
+
+    /**
+     * Tells whether the whole body has been read.
+     */
+    boolean isBodyDone() {
+        return bodyDone;
+    }
+
+    /**
+     * Reads the next portion of the body.  The future completes with a new
+     * buffer, or with {@code null} once the whole body has been read.
+     */
+    CompletableFuture<ByteBuffer> readBody() {
+        CompletableFuture<ByteBuffer> f = new CompletableFuture<>();
+        readBody(f);
+        return f;
+    }
+
+    private void readBody(CompletableFuture<ByteBuffer> f) {
+        ByteBuffer data;
+        try {
+            data = nextPortion();
+        } catch (IOException x) {
+            f.completeExceptionally(x);
+            return;
+        }
+        if (data != null || bodyDone) {
+            f.complete(data);
+            return;
+        }
+        fill().whenComplete((n, exc) -> {
+            if (exc != null) {
+                f.completeExceptionally(exc);
+            } else if (n < 0) {
+                if (mode == UNTIL_CLOSE) {
+                    bodyDone = true;
+                    f.complete(null);
+                } else {
+                    f.completeExceptionally(
+                        new EOFException("Connection closed in response body"));
+                }
+            } else {
+                readBody(f);
+            }
+        });
+    }
+
+    /*
+     * Returns the next portion of the body from the buffer, or null if
+     * the body is done or the buffer does not hold enough bytes.
+     */
+    private ByteBuffer nextPortion() throws IOException {
+        for (;;) {
+            if (bodyDone)
+                return null;
+            switch (mode) {
+                case FIXED_LENGTH:
+                    return copyData();
+                case UNTIL_CLOSE:
+                    if (!buf.hasRemaining())
+                        return null;
+                    return copy(buf.remaining());
+                case CHUNKED:
+                    break;
+                default:
+                    throw new InternalError();
+            }
+            // chunked
+            if (chunkState == CHUNK_DATA) {
+                return copyData();
+            }
+            String line = readLine();
+            if (line == null)
+                return null;
+            switch (chunkState) {
+                case CHUNK_SIZE:
+                    int semi = line.indexOf(';');
+                    String size = ((semi < 0) ? line : line.substring(0, semi)).trim();
+                    try {
+                        remaining = Long.parseLong(size, 16);
+                    } catch (NumberFormatException x) {
+                        remaining = -1;
+                    }
+                    if (remaining < 0)
+                        throw new ProtocolException("Invalid chunk size: " + line);
+                    chunkState = (remaining == 0) ? TRAILER : CHUNK_DATA;
+                    break;
+                case CHUNK_END:
+                    if (!line.isEmpty())
+                        throw new ProtocolException("Missing chunk terminator");
+                    chunkState = CHUNK_SIZE;
+                    break;
+                case TRAILER:
+                    if (line.isEmpty())
+                        bodyDone = true;
+                    break;
+            }
+        }
+    }
+
+    /*
+     * Copies the buffered bytes of a fixed-length body or of a chunk, up
+     * to the number remaining.
+     */
+    private ByteBuffer copyData() {
+        if (!buf.hasRemaining())
+            return null;
+        int n = (int) Math.min(buf.remaining(), remaining);
+        ByteBuffer data = copy(n);
+        remaining -= n;
+        if (remaining == 0) {
+            if (mode == FIXED_LENGTH) {
+                bodyDone = true;
+            } else {
+                chunkState = CHUNK_END;
+            }
+        }
+        return data;
+    }
+
+    private ByteBuffer copy(int n) {
+        ByteBuffer data = ByteBuffer.allocate(n);
+        int lim = buf.limit();
+        buf.limit(buf.position() + n);
+        data.put(buf);
+        buf.limit(lim);
+        data.flip();
+        return data;
+    }
+
+    /*
+     * Reads a line from the buffer, or returns null if the buffer does
+     * not hold a complete line.
+     */
+    private String readLine() throws IOException {
+        int start = buf.position();
+        for (int i = start; i < buf.limit(); i++) {
+            if (buf.get(i) == '\n') {
+                int end = (i > start && buf.get(i - 1) == '\r') ? i - 1 : i;
+                String line = new String(buf.array(), buf.arrayOffset() + start,
+                                         end - start, StandardCharsets.ISO_8859_1);
+                buf.position(i + 1);
+                return line;
+            }
+        }
+        if (buf.position() == 0 && buf.limit() == buf.capacity())
+            grow("Chunk line");
+        return null;
+    }
+
+    private void grow(String what) throws IOException {
+        if (buf.capacity() >= MAX_HEAD_SIZE)
+            throw new ProtocolException(what + " too large");
+        ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+        bigger.put(buf);
+        bigger.flip();
+        buf = bigger;
+    }
+
+    /**
+     * Reads more bytes into the buffer, after its unread bytes.
+     */
+    private CompletableFuture<Integer> fill() {
+        CompletableFuture<Integer> f = new CompletableFuture<>();
+        buf.compact();
+        try {
+            channel.read(buf, timeout, TimeUnit.MILLISECONDS, null,
+                         new CompletionHandler<Integer, Void>() {
+                public void completed(Integer n, Void att) {
+                    buf.flip();
+                    f.complete(n);
+                }
+                public void failed(Throwable exc, Void att) {
+                    buf.flip();
+                    f.completeExceptionally(exc);
+                }
+            });
+        } catch (RuntimeException x) {
+            buf.flip();
+            f.completeExceptionally(x);
+        }
+        return f;
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+package java.net;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * An HTTP/1.1 request, sent with an {@link HttpClient}.
+ *
+ * <p> A request is created with a {@link Builder} and is immutable.  It
+ * has a method, an {@code http} URI, header fields and an optional body.
+ * The body is either a sequence of byte buffers, sent with a {@code
+ * Content-Length} header, or a {@link ReadableByteChannel} that is read
+ * until end-of-stream and sent with the {@code chunked} transfer coding.
+ * The {@code Host}, {@code Content-Length} and {@code Transfer-Encoding}
+ * header fields are generated by the client.
+ *
+ * <p> For example:
+ * <pre>
+ *     HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/items"))
+ *         .method("POST")
+ *         .header("Content-Type", "application/json")
+ *         .body(ByteBuffer.wrap(json))
+ *         .build();
+ * </pre>
+ *
+ * @see HttpClient
+ * @since 1.8
+ */
+public final class HttpRequest {
+
+    private final String method;
+    private final URI uri;
+    private final Map<String, List<String>> headers;
+    private final ByteBuffer[] body;
+    private final ReadableByteChannel bodyChannel;
+
+    private HttpRequest(Builder builder) {
+        this.method = builder.method;
+        this.uri = builder.uri;
+        Map<String, List<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> e : builder.headers.entrySet()) {
+            map.put(e.getKey(), Collections.unmodifiableList(new ArrayList<>(e.getValue())));
+        }
+        this.headers = Collections.unmodifiableMap(map);
+        this.body = builder.body;
+        this.bodyChannel = builder.bodyChannel;
+    }
+
+    /**
+     * Returns a builder of requests for the given URI.
+     *
+     * @param  uri
+     *         an absolute URI with the {@code http} scheme and a host
+     *
+     * @return  a new request builder, for a {@code GET} request
+     *
+     * @throws  IllegalArgumentException
+     *          if the URI is not an absolute {@code http} URI with a host
+     */
+    public static Builder newBuilder(URI uri) {
+        return new Builder(uri);
+    }
+
+    /**
+     * Returns the request method, for example {@code GET}.
+     *
+     * @return  the request method
+     */
+    public String method() {
+        return method;
+    }
+
+    /**
+     * Returns the request URI.
+     *
+     * @return  the request URI
+     */
+    public URI uri() {
+        return uri;
+    }
+
+    /**
+     * Returns an unmodifiable map of the header fields set on this request,
+     * keyed by case-insensitive field name.
+     *
+     * @return  the header fields of this request
+     */
+    public Map<String, List<String>> headers() {
+        return headers;
+    }
+
+    /**
+     * Tells whether this request may be sent again, on a new connection,
+     * after it failed on a reused connection before any response was
+     * received.  That is the case of idempotent methods whose body, if any,
+     * is held in buffers.
+     */
+    boolean isReplayable() {
+        if (bodyChannel != null)
+            return false;
+        switch (method) {
+            case "GET": case "HEAD": case "PUT": case "DELETE":
+            case "OPTIONS": case "TRACE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns duplicates of the buffers of the body, or {@code null} if
+     * the body of this request is not held in buffers.
+     */
+    ByteBuffer[] bodyBuffers() {
+        if (body == null)
+            return null;
+        ByteBuffer[] bufs = new ByteBuffer[body.length];
+        for (int i = 0; i < body.length; i++)
+            bufs[i] = body[i].duplicate();
+        return bufs;
+    }
+
+    /**
+     * Returns the channel the body is read from, or {@code null}.
+     */
+    ReadableByteChannel bodyChannel() {
+        return bodyChannel;
+    }
+
+    /**
+     * Returns a string describing this request.
+     *
+     * @return  the method and URI of this request
+     */
+    @Override
+    public String toString() {
+        return method + " " + uri;
+    }
+
+    /**
+     * A builder of {@link HttpRequest}s.  A builder may be used to build
+     * several requests; it is not safe for use by multiple concurrent
+     * threads.
+     *
+     * @since 1.8
+     */
+    public static final class Builder {
+        private final URI uri;
+        private String method = "GET";
+        private final Map<String, List<String>> headers =
+            new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private ByteBuffer[] body;
+        private ReadableByteChannel bodyChannel;
+
+        private Builder(URI uri) {
+            String scheme = uri.getScheme();
+            if (scheme == null || !scheme.equalsIgnoreCase("http"))
+                throw new IllegalArgumentException("Not an http URI: " + uri);
+            if (uri.getHost() == null)
+                throw new IllegalArgumentException("No host in URI: " + uri);
+            this.uri = uri;
+        }
+
+        /**
+         * Sets the request method.
+         *
+         * @param  method
+         *         the method, a token such as {@code GET} or {@code POST}
+         *
+         * @return  this builder
+         *
+         * @throws  IllegalArgumentException
+         *          if the method is not a valid token
+         */
+        public Builder method(String method) {
+            checkToken(method);
+            this.method = method;
+            return this;
+        }
+
+        /**
+         * Adds a header field to the request.  A field may be added more
+         * than once.
+         *
+         * @param  name
+         *         the field name
+         * @param  value
+         *         the field value
+         *
+         * @return  this builder
+         *
+         * @throws  IllegalArgumentException
+         *          if the name is not a valid token, if the value contains
+         *          a line break, or if the field is one the client
+         *          generates: {@code Host}, {@code Content-Length} or
+         *          {@code Transfer-Encoding}
+         */
+        public Builder header(String name, String value) {
+            checkToken(name);
+            if (value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0)
+                throw new IllegalArgumentException("Illegal header value: " + value);
+            if (name.equalsIgnoreCase("Host") ||
+                name.equalsIgnoreCase("Content-Length") ||
+                name.equalsIgnoreCase("Transfer-Encoding"))
+                throw new IllegalArgumentException("Restricted header: " + name);
+            List<String> values = headers.get(name);
+            if (values == null) {
+                values = new ArrayList<>(1);
+                headers.put(name, values);
+            }
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * Sets the body of the request to the remaining bytes of the given
+         * buffers.  The buffers are not modified; their content must not
+         * change until the request has been sent.
+         *
+         * @param  data
+         *         the buffers holding the body
+         *
+         * @return  this builder
+         */
+        public Builder body(ByteBuffer... data) {
+            ByteBuffer[] bufs = new ByteBuffer[data.length];
+            for (int i = 0; i < data.length; i++)
+                bufs[i] = data[i].duplicate();
+            this.body = bufs;
+            this.bodyChannel = null;
+            return this;
+        }
+
+        /**
+         * Sets the body of the request to the bytes read from the given
+         * channel until end-of-stream, sent with the {@code chunked}
+         * transfer coding.  The channel is read by the thread that sends
+         * the request, which may be an I/O thread of the client, and
+         * should therefore not block for long.  It is not closed.  A
+         * request with such a body can be sent only once.
+         *
+         * @param  channel
+         *         the channel the body is read from
+         *
+         * @return  this builder
+         */
+        public Builder body(ReadableByteChannel channel) {
+            this.bodyChannel = Objects.requireNonNull(channel);
+            this.body = null;
+            return this;
+        }
+
+        /**
+         * Builds the request.
+         *
+         * @return  a new request
+         */
+        public HttpRequest build() {
+            return new HttpRequest(this);
+        }
+
+        private static void checkToken(String s) {
+            if (s.isEmpty())
+                throw new IllegalArgumentException("Empty token");
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c <= ' ' || c >= 0x7f || "()<>@,;:\\\"/[]?={}".indexOf(c) >= 0)
+                    throw new IllegalArgumentException("Illegal token: " + s);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+package java.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The response to an {@link HttpRequest} sent with an {@link HttpClient}.
+ *
+ * <p> A response is obtained as soon as its status line and header fields
+ * have been received.  Its body is then streamed with the {@link #read
+ * read} method, which completes with the next portion of the body, or read
+ * at once with the {@link #body body} method.  The body is read from the
+ * connection only as it is requested, so a slow consumer is not
+ * overwhelmed.
+ *
+ * <p> The connection of a response returns to the pool of the client once
+ * the whole body has been read.  A response whose body is not read to the
+ * end must be {@link #close closed}, which closes its connection.  Closing
+ * a response whose body has been read has no effect.
+ *
+ * <p> This class is safe for use by multiple concurrent threads, but at
+ * most one read of the body may be outstanding at a time.
+ *
+ * @see HttpClient
+ * @since 1.8
+ */
+public final class HttpResponse implements Closeable {
+
+    /**
+     * The recipient of the connection of a response when its body is done.
+     */
+    interface Release {
+        void release(HttpClientConnection connection, boolean reusable);
+    }
+
+    private final HttpRequest request;
+    private final HttpClientConnection.Head head;
+    private final HttpClientConnection connection;
+    private final boolean keepAlive;
+    private final Release release;
+    private boolean reading;
+    private boolean closeRequested;
+    private boolean done;           // the whole body has been read
+    private boolean released;       // the connection has been released
+
+    HttpResponse(HttpRequest request, HttpClientConnection.Head head,
+                 HttpClientConnection connection, boolean keepAlive,
+                 Release release) {
+        this.request = request;
+        this.head = head;
+        this.connection = connection;
+        this.keepAlive = keepAlive;
+        this.release = release;
+        if (connection.isBodyDone()) {
+            done = true;
+            releaseConnection();
+        }
+    }
+
+    /**
+     * Returns the request this is the response to.
+     *
+     * @return  the request
+     */
+    public HttpRequest request() {
+        return request;
+    }
+
+    /**
+     * Returns the status code of the response, for example {@code 200}.
+     *
+     * @return  the status code
+     */
+    public int statusCode() {
+        return head.status;
+    }
+
+    /**
+     * Returns the reason phrase of the status line, possibly empty.
+     *
+     * @return  the reason phrase
+     */
+    public String reasonPhrase() {
+        return head.reason;
+    }
+
+    /**
+     * Returns the HTTP version of the response, for example {@code
+     * HTTP/1.1}.
+     *
+     * @return  the HTTP version
+     */
+    public String version() {
+        return head.version;
+    }
+
+    /**
+     * Returns an unmodifiable map of the header fields of the response,
+     * keyed by case-insensitive field name.
+     *
+     * @return  the header fields
+     */
+    public Map<String, List<String>> headers() {
+        return head.headers;
+    }
+
+    /**
+     * Returns the first value of the given header field.
+     *
+     * @param  name
+     *         the field name, in any case
+     *
+     * @return  the first value of the field, or {@code null} if the
+     *          response has no such field
+     */
+    public String header(String name) {
+        return head.first(name);
+    }
+
+    /**
+     * Reads the next portion of the body.  The returned future completes
+     * with a new buffer holding at least one byte of the body, or with
+     * {@code null} once the whole body has been read.  It completes
+     * exceptionally if the connection fails or times out, in which case
+     * the connection is closed.
+     *
+     * @return  a future for the next portion of the body
+     *
+     * @throws  IllegalStateException
+     *          if a read is already in progress, or the response is closed
+     *          before its body was read
+     */
+    public CompletableFuture<ByteBuffer> read() {
+        synchronized (this) {
+            if (reading)
+                throw new IllegalStateException("Read in progress");
+            if (released) {
+                if (done)
+                    return CompletableFuture.completedFuture(null);
+                throw new IllegalStateException("Response closed");
+            }
+            reading = true;
+        }
+        return connection.readBody().whenComplete((data, exc) -> {
+            boolean release;
+            synchronized (this) {
+                reading = false;
+                // the connection is not released yet, so its state is
+                // still that of this response
+                if (exc == null && connection.isBodyDone())
+                    done = true;
+                release = (exc != null) || done || closeRequested;
+            }
+            if (release)
+                releaseConnection();
+        });
+    }
+
+    /**
+     * Reads the remaining bytes of the body.
+     *
+     * @return  a future that completes with the remaining bytes of the body
+     *
+     * @throws  IllegalStateException
+     *          if a read is already in progress, or the response is closed
+     *          before its body was read
+     */
+    public CompletableFuture<byte[]> body() {
+        CompletableFuture<byte[]> f = new CompletableFuture<>();
+        readAll(new ByteArrayOutputStream(), f);
+        return f;
+    }
+
+    private void readAll(ByteArrayOutputStream out, CompletableFuture<byte[]> f) {
+        CompletableFuture<ByteBuffer> next;
+        try {
+            next = read();
+        } catch (IllegalStateException x) {
+            f.completeExceptionally(x);
+            return;
+        }
+        next.whenComplete((data, exc) -> {
+            if (exc != null) {
+                f.completeExceptionally(exc);
+            } else if (data == null) {
+                f.complete(out.toByteArray());
+            } else {
+                out.write(data.array(), data.arrayOffset() + data.position(),
+                          data.remaining());
+                readAll(out, f);
+            }
+        });
+    }
+
+    /**
+     * Closes this response.  If its body has not been read to the end then
+     * its connection is closed, once the read in progress, if any, has
+     * completed; otherwise this method has no effect.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (reading) {
+                // the read in progress releases the connection
+                closeRequested = true;
+                return;
+            }
+        }
+        releaseConnection();
+    }
+
+    private void releaseConnection() {
+        boolean reusable;
+        synchronized (this) {
+            if (released)
+                return;
+            released = true;
+            reusable = done && keepAlive;
+        }
+        release.release(connection, reusable);
+    }
+
+    /**
+     * Returns a string describing this response.
+     *
+     * @return  the status code and the request of this response
+     */
+    @Override
+    public String toString() {
+        return "(" + request + ") " + head.status;
+    }
+}
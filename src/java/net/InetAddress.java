@@ -25,14 +25,20 @@
 
 package java.net;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Random;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.security.AccessController;
 import java.io.ObjectStreamException;
 import java.io.ObjectStreamField;
@@ -177,6 +183,34 @@ import sun.net.spi.nameservice.*;
  * </dl>
  * </blockquote>
  *
+ * The address cache is concurrent: a cache hit takes no lock, and
+ * concurrent lookups of a host that is not cached share a single name
+ * service request.  A positive entry that is used during the last tenth
+ * of its time-to-live is refreshed in the background, so that hosts in
+ * constant use do not block their callers when their entries expire.
+ * The {@link #getAllByNameAsync getAllByNameAsync} method resolves a host
+ * name without ever blocking the calling thread.  Two further Java
+ * security properties control the cache:
+ *
+ * <blockquote>
+ * <dl>
+ * <dt><b>networkaddress.cache.stale.ttl</b> (default: 0)</dt>
+ * <dd>Indicates the number of seconds an expired positive entry may
+ * still be used while it is refreshed in the background. During that
+ * time a lookup of the host returns the expired addresses immediately
+ * rather than waiting for the name service, and a failed refresh does
+ * not remove them.
+ * <p>
+ * A value of 0 indicates that expired entries are never used.
+ * </dd>
+ * <dt><b>networkaddress.cache.negative.size</b> (default: 1024)</dt>
+ * <dd>Indicates the maximum number of un-successful name lookups held
+ * in the cache. When the cache is full, the failure that expires first
+ * is evicted.
+ * </dd>
+ * </dl>
+ * </blockquote>
+ *
  * @author  Chris Warth
  * @see     java.net.InetAddress#getByAddress(byte[])
  * @see     java.net.InetAddress#getByAddress(java.lang.String, byte[])
@@ -733,13 +767,71 @@ class InetAddress implements java.io.Serializable {
 
     private static Cache negativeCache = new Cache(Cache.Type.Negative);
 
-    private static boolean addressCacheInit = false;
+    private static volatile boolean addressCacheInit = false;
 
     static InetAddress[]    unknown_array; // put THIS in cache
 
     static InetAddressImpl  impl;
 
-    private static final HashMap<String, Void> lookupTable = new HashMap<>();
+    /*
+     * The lookups in progress, by lower-case host name.  The thread that
+     * installs the future performs the lookup and completes the future with
+     * the addresses, or unknown_array if the lookup failed; other threads
+     * looking up the same host wait for the future.
+     */
+    private static final ConcurrentHashMap<String, CompletableFuture<InetAddress[]>>
+        lookupTable = new ConcurrentHashMap<>();
+
+    /*
+     * The number of seconds an expired positive entry may still be used
+     * while it is refreshed in the background.
+     */
+    private static final int staleTTL =
+        getCacheProperty("networkaddress.cache.stale.ttl",
+                         "sun.net.inetaddr.stale.ttl", 0);
+
+    /*
+     * The maximum number of entries of the negative cache.
+     */
+    private static final int negativeCacheSize =
+        getCacheProperty("networkaddress.cache.negative.size",
+                         "sun.net.inetaddr.negative.size", 1024);
+
+    /*
+     * A positive entry is refreshed in the background when it is used
+     * during the last 1/REFRESH_AHEAD_FRACTION of its time-to-live.
+     */
+    private static final int REFRESH_AHEAD_FRACTION = 10;
+
+    /*
+     * The minimum time, in milliseconds, between two background refreshes
+     * of the same entry, for refreshes that fail.
+     */
+    private static final long REFRESH_RETRY_INTERVAL = 5000L;
+
+    /*
+     * Reads a non-negative integer security property, or the system property
+     * of the same meaning if the security property is not set.
+     */
+    private static int getCacheProperty(final String securityProperty,
+                                        final String systemProperty,
+                                        int defaultValue) {
+        String value = AccessController.doPrivileged(
+            new java.security.PrivilegedAction<String>() {
+                public String run() {
+                    String s = java.security.Security.getProperty(securityProperty);
+                    return (s != null) ? s : System.getProperty(systemProperty);
+                }
+            });
+        if (value != null) {
+            try {
+                int n = Integer.parseInt(value.trim());
+                if (n >= 0)
+                    return n;
+            } catch (NumberFormatException e) { }
+        }
+        return defaultValue;
+    }
 
     /**
      * Represents a cache entry
@@ -747,21 +839,32 @@ class InetAddress implements java.io.Serializable {
     static final class CacheEntry {
 
         CacheEntry(InetAddress[] addresses, long expiration) {
+            this(addresses, expiration, expiration, expiration);
+        }
+
+        CacheEntry(InetAddress[] addresses, long expiration,
+                   long refreshTime, long staleExpiration) {
             this.addresses = addresses;
             this.expiration = expiration;
+            this.refreshTime = refreshTime;
+            this.staleExpiration = staleExpiration;
         }
 
-        InetAddress[] addresses;
-        long expiration;
+        final InetAddress[] addresses;
+        final long expiration;          // -1 if the entry never expires
+        final long staleExpiration;     // the entry is usable until then
+        volatile long refreshTime;      // refresh when used from then on
     }
 
     /**
      * A cache that manages entries based on a policy specified
-     * at creation time.
+     * at creation time.  The cache is a concurrent map: lookups take no
+     * lock, and expired entries are purged at most once a second.
      */
     static final class Cache {
-        private LinkedHashMap<String, CacheEntry> cache;
-        private Type type;
+        private final ConcurrentHashMap<String, CacheEntry> cache;
+        private final Type type;
+        private volatile long nextPurge;
 
         enum Type {Positive, Negative};
 
@@ -770,7 +873,7 @@ class InetAddress implements java.io.Serializable {
          */
         public Cache(Type type) {
             this.type = type;
-            cache = new LinkedHashMap<String, CacheEntry>();
+            cache = new ConcurrentHashMap<String, CacheEntry>();
         }
 
         private int getPolicy() {
@@ -792,47 +895,34 @@ class InetAddress implements java.io.Serializable {
                 return this;
             }
 
-            // purge any expired entries
-
-            if (policy != InetAddressCachePolicy.FOREVER) {
-
-                // As we iterate in insertion order we can
-                // terminate when a non-expired entry is found.
-                LinkedList<String> expired = new LinkedList<>();
-                long now = System.currentTimeMillis();
-                for (String key : cache.keySet()) {
-                    CacheEntry entry = cache.get(key);
-
-                    if (entry.expiration >= 0 && entry.expiration < now) {
-                        expired.add(key);
-                    } else {
-                        break;
-                    }
-                }
-
-                for (String key : expired) {
-                    cache.remove(key);
-                }
-            }
-
-            // create new entry and add it to the cache
-            // -- as a HashMap replaces existing entries we
-            //    don't need to explicitly check if there is
-            //    already an entry for this host.
-            long expiration;
+            long now = System.currentTimeMillis();
+            CacheEntry entry;
             if (policy == InetAddressCachePolicy.FOREVER) {
-                expiration = -1;
+                entry = new CacheEntry(addresses, -1);
             } else {
-                expiration = System.currentTimeMillis() + (policy * 1000);
+                long ttl = policy * 1000L;
+                long expiration = now + ttl;
+                if (type == Type.Positive) {
+                    entry = new CacheEntry(addresses, expiration,
+                                           expiration - ttl / REFRESH_AHEAD_FRACTION,
+                                           expiration + staleTTL * 1000L);
+                } else {
+                    entry = new CacheEntry(addresses, expiration);
+                }
+                purge(now);
+            }
+            if (type == Type.Negative && cache.size() >= negativeCacheSize
+                    && !cache.containsKey(host)) {
+                evict(now);
             }
-            CacheEntry entry = new CacheEntry(addresses, expiration);
             cache.put(host, entry);
             return this;
         }
 
         /**
          * Query the cache for the specific host. If found then
-         * return its CacheEntry, or null if not found.
+         * return its CacheEntry, or null if not found.  A positive entry
+         * that has expired is returned until the end of its stale period.
          */
         public CacheEntry get(String host) {
             int policy = getPolicy();
@@ -844,14 +934,56 @@ class InetAddress implements java.io.Serializable {
             // check if entry has expired
             if (entry != null && policy != InetAddressCachePolicy.FOREVER) {
                 if (entry.expiration >= 0 &&
-                    entry.expiration < System.currentTimeMillis()) {
-                    cache.remove(host);
+                    entry.staleExpiration < System.currentTimeMillis()) {
+                    cache.remove(host, entry);
                     entry = null;
                 }
             }
 
             return entry;
         }
+
+        /*
+         * Removes the entries that can no longer be used, at most once
+         * a second.
+         */
+        private void purge(long now) {
+            if (now < nextPurge)
+                return;
+            nextPurge = now + 1000L;
+            Iterator<CacheEntry> i = cache.values().iterator();
+            while (i.hasNext()) {
+                CacheEntry entry = i.next();
+                if (entry.expiration >= 0 && entry.staleExpiration < now)
+                    i.remove();
+            }
+        }
+
+        /*
+         * Makes room for one entry in a cache that is full: removes the
+         * expired entries or, if there are none, the entry that expires
+         * first.
+         */
+        private void evict(long now) {
+            nextPurge = 0L;
+            purge(now);
+            while (cache.size() >= negativeCacheSize) {
+                String first = null;
+                long firstExpiration = Long.MAX_VALUE;
+                for (Map.Entry<String, CacheEntry> e : cache.entrySet()) {
+                    long expiration = e.getValue().expiration;
+                    if (expiration < 0)
+                        expiration = Long.MAX_VALUE;
+                    if (first == null || expiration < firstExpiration) {
+                        first = e.getKey();
+                        firstExpiration = expiration;
+                    }
+                }
+                if (first == null)
+                    break;
+                cache.remove(first);
+            }
+        }
     }
 
     /*
@@ -859,17 +991,21 @@ class InetAddress implements java.io.Serializable {
      * unknown array with no expiry.
      */
     private static void cacheInitIfNeeded() {
-        assert Thread.holdsLock(addressCache);
         if (addressCacheInit) {
             return;
         }
-        unknown_array = new InetAddress[1];
-        unknown_array[0] = impl.anyLocalAddress();
+        synchronized (addressCache) {
+            if (addressCacheInit) {
+                return;
+            }
+            unknown_array = new InetAddress[1];
+            unknown_array[0] = impl.anyLocalAddress();
 
-        addressCache.put(impl.anyLocalAddress().getHostName(),
-                         unknown_array);
+            addressCache.put(impl.anyLocalAddress().getHostName(),
+                             unknown_array);
 
-        addressCacheInit = true;
+            addressCacheInit = true;
+        }
     }
 
     /*
@@ -879,36 +1015,41 @@ class InetAddress implements java.io.Serializable {
                                        InetAddress[] addresses,
                                        boolean success) {
         hostname = hostname.toLowerCase();
-        synchronized (addressCache) {
-            cacheInitIfNeeded();
-            if (success) {
-                addressCache.put(hostname, addresses);
-            } else {
-                negativeCache.put(hostname, addresses);
-            }
+        cacheInitIfNeeded();
+        if (success) {
+            addressCache.put(hostname, addresses);
+        } else {
+            negativeCache.put(hostname, addresses);
         }
     }
 
     /*
      * Lookup hostname in cache (positive & negative cache). If
-     * found return addresses, null if not found.
+     * found return addresses, null if not found.  A positive entry that
+     * is about to expire, or that has expired but is still usable, is
+     * refreshed in the background.
      */
     private static InetAddress[] getCachedAddresses(String hostname) {
         hostname = hostname.toLowerCase();
 
         // search both positive & negative caches
 
-        synchronized (addressCache) {
-            cacheInitIfNeeded();
+        cacheInitIfNeeded();
 
-            CacheEntry entry = addressCache.get(hostname);
-            if (entry == null) {
-                entry = negativeCache.get(hostname);
-            }
-
-            if (entry != null) {
-                return entry.addresses;
+        CacheEntry entry = addressCache.get(hostname);
+        if (entry != null) {
+            if (entry.expiration >= 0) {
+                long now = System.currentTimeMillis();
+                if (now >= entry.refreshTime) {
+                    entry.refreshTime = now + REFRESH_RETRY_INTERVAL;
+                    lookupAsync(hostname);
+                }
             }
+            return entry.addresses;
+        }
+        entry = negativeCache.get(hostname);
+        if (entry != null) {
+            return entry.addresses;
         }
 
         // not found
@@ -1126,8 +1267,92 @@ class InetAddress implements java.io.Serializable {
         return getAllByName(host, null);
     }
 
+    /**
+     * Resolves the given host name to its IP addresses asynchronously.
+     * The addresses are those that {@link #getAllByName(String)
+     * getAllByName} would return, but a host name that is not in the
+     * address cache is looked up in a resolver thread rather than in the
+     * calling thread, so this method never blocks on the name service.
+     *
+     * <p> The returned future is already complete if {@code host} is
+     * {@code null} or a literal IP address, or if the addresses of the host
+     * are cached.  Otherwise it completes when the lookup completes, and
+     * concurrent lookups of the same host, synchronous or not, share a
+     * single name service request.  If the host cannot be resolved then
+     * the future completes exceptionally with an {@link
+     * UnknownHostException}.  Dependent actions registered on a future that
+     * is not yet complete may run in a resolver thread; actions that block
+     * should be registered with one of the {@code async} methods of {@link
+     * CompletableFuture}.
+     *
+     * <p> If there is a security manager and {@code host} is a host name,
+     * its {@code checkConnect} method is called with the host name and
+     * {@code -1} as its arguments, in the calling thread, to see if the
+     * operation is allowed.
+     *
+     * @param      host   the name of the host, or {@code null}.
+     * @return     a future that completes with an array of all the IP
+     *             addresses of the host.
+     *
+     * @exception  SecurityException  if a security manager exists and its
+     *               {@code checkConnect} method doesn't allow the operation.
+     *
+     * @see #getAllByName(String)
+     * @since 1.8
+     */
+    public static CompletableFuture<InetAddress[]> getAllByNameAsync(final String host) {
+        final CompletableFuture<InetAddress[]> result = new CompletableFuture<>();
+        InetAddress[] addresses;
+        try {
+            addresses = getAllByLiteral(host);
+        } catch (UnknownHostException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        if (addresses == null) {
+            SecurityManager security = System.getSecurityManager();
+            if (security != null) {
+                security.checkConnect(host, -1);
+            }
+            addresses = getCachedAddresses(host);
+            if (addresses == null) {
+                lookupAsync(host).thenAccept(new Consumer<InetAddress[]>() {
+                    public void accept(InetAddress[] addresses) {
+                        completeLookup(result, host, addresses);
+                    }
+                });
+                return result;
+            }
+        }
+        completeLookup(result, host, addresses);
+        return result;
+    }
+
+    private static void completeLookup(CompletableFuture<InetAddress[]> result,
+                                       String host, InetAddress[] addresses) {
+        if (addresses == unknown_array) {
+            result.completeExceptionally(new UnknownHostException(host));
+        } else {
+            result.complete(addresses.clone());
+        }
+    }
+
     private static InetAddress[] getAllByName(String host, InetAddress reqAddr)
         throws UnknownHostException {
+        InetAddress[] ret = getAllByLiteral(host);
+        if (ret != null) {
+            return ret;
+        }
+        return getAllByName0(host, reqAddr, true);
+    }
+
+    /**
+     * Returns the address of the loopback interface if {@code host} is
+     * {@code null} or empty, the address of an IP address literal, or
+     * {@code null} if {@code host} is a host name that must be looked up.
+     */
+    private static InetAddress[] getAllByLiteral(String host)
+        throws UnknownHostException {
 
         if (host == null || host.length() == 0) {
             InetAddress[] ret = new InetAddress[1];
@@ -1189,7 +1414,7 @@ class InetAddress implements java.io.Serializable {
             // We were expecting an IPv6 Litteral, but got something else
             throw new UnknownHostException("["+host+"]");
         }
-        return getAllByName0(host, reqAddr, true);
+        return null;
     }
 
     /**
@@ -1284,137 +1509,153 @@ class InetAddress implements java.io.Serializable {
 
     private static InetAddress[] getAddressesFromNameService(String host, InetAddress reqAddr)
         throws UnknownHostException
+    {
+        // If another thread is looking up the host, wait for its result
+        // rather than looking the host up again. Otherwise this thread
+        // is the first to look up the host, or the cache entry for the
+        // host has expired, so this thread does the lookup.
+        CompletableFuture<InetAddress[]> lookup = new CompletableFuture<>();
+        CompletableFuture<InetAddress[]> inProgress =
+            lookupTable.putIfAbsent(host.toLowerCase(), lookup);
+        if (inProgress != null) {
+            return inProgress.join();
+        }
+        return lookup(host, reqAddr, lookup);
+    }
+
+    /*
+     * Looks up the addresses of the host, caches them, and completes the
+     * lookup with them (or with unknown_array if the lookup failed) once
+     * the lookup is removed from the lookupTable.
+     */
+    private static InetAddress[] lookup(String host, InetAddress reqAddr,
+                                        CompletableFuture<InetAddress[]> lookup)
+        throws UnknownHostException
     {
         InetAddress[] addresses = null;
         boolean success = false;
         UnknownHostException ex = null;
 
-        // Check whether the host is in the lookupTable.
-        // 1) If the host isn't in the lookupTable when
-        //    checkLookupTable() is called, checkLookupTable()
-        //    would add the host in the lookupTable and
-        //    return null. So we will do the lookup.
-        // 2) If the host is in the lookupTable when
-        //    checkLookupTable() is called, the current thread
-        //    would be blocked until the host is removed
-        //    from the lookupTable. Then this thread
-        //    should try to look up the addressCache.
-        //     i) if it found the addresses in the
-        //        addressCache, checkLookupTable()  would
-        //        return the addresses.
-        //     ii) if it didn't find the addresses in the
-        //         addressCache for any reason,
-        //         it should add the host in the
-        //         lookupTable and return null so the
-        //         following code would do  a lookup itself.
-        if ((addresses = checkLookupTable(host)) == null) {
-            try {
-                // This is the first thread which looks up the addresses
-                // this host or the cache entry for this host has been
-                // expired so this thread should do the lookup.
-                for (NameService nameService : nameServices) {
-                    try {
-                        /*
-                         * Do not put the call to lookup() inside the
-                         * constructor.  if you do you will still be
-                         * allocating space when the lookup fails.
-                         */
-
-                        addresses = nameService.lookupAllHostAddr(host);
+        try {
+            for (NameService nameService : nameServices) {
+                try {
+                    /*
+                     * Do not put the call to lookup() inside the
+                     * constructor.  if you do you will still be
+                     * allocating space when the lookup fails.
+                     */
+
+                    addresses = nameService.lookupAllHostAddr(host);
+                    success = true;
+                    break;
+                } catch (UnknownHostException uhe) {
+                    if (host.equalsIgnoreCase("localhost")) {
+                        InetAddress[] local = new InetAddress[] { impl.loopbackAddress() };
+                        addresses = local;
                         success = true;
                         break;
-                    } catch (UnknownHostException uhe) {
-                        if (host.equalsIgnoreCase("localhost")) {
-                            InetAddress[] local = new InetAddress[] { impl.loopbackAddress() };
-                            addresses = local;
-                            success = true;
-                            break;
-                        }
-                        else {
-                            addresses = unknown_array;
-                            success = false;
-                            ex = uhe;
-                        }
+                    }
+                    else {
+                        addresses = unknown_array;
+                        success = false;
+                        ex = uhe;
                     }
                 }
+            }
 
-                // More to do?
-                if (reqAddr != null && addresses.length > 1 && !addresses[0].equals(reqAddr)) {
-                    // Find it?
-                    int i = 1;
-                    for (; i < addresses.length; i++) {
-                        if (addresses[i].equals(reqAddr)) {
-                            break;
-                        }
+            // More to do?
+            if (reqAddr != null && addresses.length > 1 && !addresses[0].equals(reqAddr)) {
+                // Find it?
+                int i = 1;
+                for (; i < addresses.length; i++) {
+                    if (addresses[i].equals(reqAddr)) {
+                        break;
                     }
-                    // Rotate
-                    if (i < addresses.length) {
-                        InetAddress tmp, tmp2 = reqAddr;
-                        for (int j = 0; j < i; j++) {
-                            tmp = addresses[j];
-                            addresses[j] = tmp2;
-                            tmp2 = tmp;
-                        }
-                        addresses[i] = tmp2;
+                }
+                // Rotate
+                if (i < addresses.length) {
+                    InetAddress tmp, tmp2 = reqAddr;
+                    for (int j = 0; j < i; j++) {
+                        tmp = addresses[j];
+                        addresses[j] = tmp2;
+                        tmp2 = tmp;
                     }
+                    addresses[i] = tmp2;
                 }
-                // Cache the address.
-                cacheAddresses(host, addresses, success);
-
-                if (!success && ex != null)
-                    throw ex;
-
-            } finally {
-                // Delete host from the lookupTable and notify
-                // all threads waiting on the lookupTable monitor.
-                updateLookupTable(host);
             }
+            // Cache the address.
+            cacheAddresses(host, addresses, success);
+        } finally {
+            // Delete host from the lookupTable and release the threads
+            // waiting for this lookup.
+            lookupTable.remove(host.toLowerCase(), lookup);
+            lookup.complete(success ? addresses : unknown_array);
         }
 
+        if (!success && ex != null)
+            throw ex;
+
         return addresses;
     }
 
-
-    private static InetAddress[] checkLookupTable(String host) {
-        synchronized (lookupTable) {
-            // If the host isn't in the lookupTable, add it in the
-            // lookuptable and return null. The caller should do
-            // the lookup.
-            if (lookupTable.containsKey(host) == false) {
-                lookupTable.put(host, null);
-                return null;
-            }
-
-            // If the host is in the lookupTable, it means that another
-            // thread is trying to look up the addresses of this host.
-            // This thread should wait.
-            while (lookupTable.containsKey(host)) {
+    /*
+     * Starts a lookup of the host in a resolver thread, unless one is in
+     * progress, and returns the lookup.
+     */
+    private static CompletableFuture<InetAddress[]> lookupAsync(final String host) {
+        String key = host.toLowerCase();
+        CompletableFuture<InetAddress[]> lookup = lookupTable.get(key);
+        if (lookup != null) {
+            return lookup;
+        }
+        final CompletableFuture<InetAddress[]> newLookup = new CompletableFuture<>();
+        lookup = lookupTable.putIfAbsent(key, newLookup);
+        if (lookup != null) {
+            return lookup;
+        }
+        Resolver.executor.execute(new Runnable() {
+            public void run() {
                 try {
-                    lookupTable.wait();
-                } catch (InterruptedException e) {
+                    lookup(host, null, newLookup);
+                } catch (UnknownHostException e) {
+                    // the lookup is completed with unknown_array
                 }
             }
-        }
-
-        // The other thread has finished looking up the addresses of
-        // the host. This thread should retry to get the addresses
-        // from the addressCache. If it doesn't get the addresses from
-        // the cache, it will try to look up the addresses itself.
-        InetAddress[] addresses = getCachedAddresses(host);
-        if (addresses == null) {
-            synchronized (lookupTable) {
-                lookupTable.put(host, null);
-                return null;
-            }
-        }
-
-        return addresses;
+        });
+        return newLookup;
     }
 
-    private static void updateLookupTable(String host) {
-        synchronized (lookupTable) {
-            lookupTable.remove(host);
-            lookupTable.notifyAll();
+    /*
+     * The threads that perform asynchronous lookups and background
+     * refreshes.  They are daemon threads of the system thread group,
+     * created lazily and retired after a minute without work.
+     */
+    private static final class Resolver {
+        static final ThreadPoolExecutor executor;
+        static {
+            int nThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+            executor = new ThreadPoolExecutor(nThreads, nThreads,
+                                              60L, TimeUnit.SECONDS,
+                                              new LinkedBlockingQueue<Runnable>(),
+                                              new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                public Thread newThread(final Runnable r) {
+                    final String name = "InetAddress-Resolver-" + count.incrementAndGet();
+                    return AccessController.doPrivileged(
+                        new java.security.PrivilegedAction<Thread>() {
+                            public Thread run() {
+                                ThreadGroup group = Thread.currentThread().getThreadGroup();
+                                while (group.getParent() != null)
+                                    group = group.getParent();
+                                Thread t = new Thread(group, r, name);
+                                t.setDaemon(true);
+                                t.setContextClassLoader(null);
+                                return t;
+                            }
+                        });
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
         }
     }
 
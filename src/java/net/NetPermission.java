@@ -141,6 +141,14 @@ import java.util.StringTokenizer;
  *   </tr>
  *
  * <tr>
+ *   <td>setSocketStatistics</td>
+ *   <td>The ability to enable or disable the collection of
+ *   {@link SocketStatistics socket statistics}.</td>
+ *   <td>Malicious code could disable statistics that are monitored, or
+ *   enable them to slightly slow down the creation of sockets.</td>
+ * </tr>
+ *
+ * <tr>
  *   <td>specifyStreamHandler</td>
  *   <td>The ability
  * to specify a stream handler when constructing a URL</td>
@@ -853,6 +853,32 @@ class Socket implements java.io.Closeable {
         return null;
     }
 
+    /**
+     * Returns the statistics of this socket: the bytes transferred, the
+     * number of reads and writes, and the time blocked in them and in
+     * connecting.  Statistics are collected only for sockets created or
+     * accepted while {@link SocketStatistics#isEnabled socket statistics are
+     * enabled}.
+     *
+     * If this socket has an associated channel then the statistics of the
+     * channel are returned.
+     *
+     * @return  the statistics of this socket, or {@code null} if this
+     *          socket does not collect statistics
+     *
+     * @see SocketStatistics
+     * @since 1.8
+     */
+    public SocketStatistics getStatistics() {
+        SocketChannel sc = getChannel();
+        if (sc != null)
+            return sc.getStatistics();
+        SocketImpl impl = this.impl;
+        if (impl instanceof AbstractPlainSocketImpl)
+            return ((AbstractPlainSocketImpl) impl).stats;
+        return null;
+    }
+
     /**
      * Returns an input stream for this socket.
      *
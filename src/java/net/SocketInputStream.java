@@ -113,7 +113,18 @@ class SocketInputStream extends FileInputStream
                            byte b[], int off, int len,
                            int timeout)
         throws IOException {
-        return socketRead0(fd, b, off, len, timeout);
+        SocketStatistics stats = impl.stats;
+        if (stats == null) {
+            return socketRead0(fd, b, off, len, timeout);
+        }
+        long start = System.nanoTime();
+        int n = 0;
+        try {
+            n = socketRead0(fd, b, off, len, timeout);
+            return n;
+        } finally {
+            stats.readCompleted(n, start);
+        }
     }
 
     /**
@@ -104,9 +104,13 @@ class SocketOutputStream extends FileOutputStream
             throw new ArrayIndexOutOfBoundsException();
         }
 
+        SocketStatistics stats = impl.stats;
+        long start = (stats != null) ? System.nanoTime() : 0L;
+        int n = 0;
         FileDescriptor fd = impl.acquireFD();
         try {
             socketWrite0(fd, b, off, len);
+            n = len;
         } catch (SocketException se) {
             if (se instanceof sun.net.ConnectionResetException) {
                 impl.setConnectionResetPending();
@@ -119,6 +123,9 @@ class SocketOutputStream extends FileOutputStream
             }
         } finally {
             impl.releaseFD();
+            if (stats != null) {
+                stats.writeCompleted(n, start);
+            }
         }
     }
 
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+
+package java.net;
+
+import java.security.AccessController;
+import java.util.concurrent.atomic.LongAdder;
+import sun.security.action.GetBooleanAction;
+
+/**
+ * Latency and throughput counters of a stream socket.
+ *
+ * <p> Socket statistics are opt-in.  They are collected only for sockets
+ * that are created or accepted while statistics are {@link #isEnabled
+ * enabled}, either by setting the system property {@code
+ * java.net.socketStatistics} to {@code true} at startup or by invoking
+ * {@link #setEnabled setEnabled}.  A socket created while statistics are
+ * disabled carries no statistics object and the cost to its reads and
+ * writes is a single field test.
+ *
+ * <p> The statistics of a socket are obtained from its {@link
+ * Socket#getStatistics getStatistics} or, for a socket channel, {@link
+ * java.nio.channels.SocketChannel#getStatistics getStatistics} method.
+ * Every counter of an instrumented socket is also added to the {@link
+ * #aggregate aggregate} statistics of the Java virtual machine, which are
+ * exported by the {@link java.lang.management.SocketMXBean SocketMXBean}.
+ *
+ * <p> Each read or write counted is one call into the operating system
+ * (a single write of a byte array may transmit the array in several
+ * system calls, and is counted once).  The blocked time of an operation is
+ * the elapsed time of that call, including calls that time out or fail.
+ * Times are measured with {@link System#nanoTime} and reported in
+ * nanoseconds.
+ *
+ * <p> Statistics objects are created, and their counters updated, only by
+ * the socket implementations of the {@code java.net} package, so that the
+ * statistics of a socket, and the aggregate statistics, cannot be altered
+ * by other code.  Counters are updated without locking and may be read at
+ * any time; a set of counters read from one object is not an atomic
+ * snapshot.
+ *
+ * @since 1.8
+ */
+public final class SocketStatistics {
+
+    private static volatile boolean enabled =
+        AccessController.doPrivileged(
+            new GetBooleanAction("java.net.socketStatistics")).booleanValue();
+
+    private static final SocketStatistics AGGREGATE = new SocketStatistics(null);
+
+    private final SocketStatistics parent;
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder readCount = new LongAdder();
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder readTime = new LongAdder();
+    private final LongAdder writeTime = new LongAdder();
+    private final LongAdder connectCount = new LongAdder();
+    private final LongAdder connectFailureCount = new LongAdder();
+    private final LongAdder connectTime = new LongAdder();
+    private final LongAdder openCount = new LongAdder();
+    private boolean closed;
+
+    private SocketStatistics(SocketStatistics parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Tells whether statistics are collected for sockets created from now
+     * on.
+     *
+     * @return  {@code true} if socket statistics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the collection of statistics for sockets created
+     * from now on.  Sockets that already exist are not affected: those that
+     * carry statistics keep collecting them until they are closed.
+     *
+     * @param  on
+     *         {@code true} to enable socket statistics
+     *
+     * @throws  SecurityException
+     *          If a security manager has been installed and it denies
+     *          {@link NetPermission}{@code ("setSocketStatistics")}
+     */
+    public static void setEnabled(boolean on) {
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null)
+            sm.checkPermission(new NetPermission("setSocketStatistics"));
+        enabled = on;
+    }
+
+    /**
+     * Returns the statistics of all instrumented sockets of the Java
+     * virtual machine, including those that have been closed.  The {@link
+     * #getOpenCount open count} of the aggregate is the number of
+     * instrumented sockets that are open.
+     *
+     * @return  The aggregate socket statistics
+     */
+    public static SocketStatistics aggregate() {
+        return AGGREGATE;
+    }
+
+    /**
+     * Creates the statistics object of a new open socket, if statistics are
+     * enabled.
+     *
+     * @return  A new statistics object, or {@code null} if socket statistics
+     *          are disabled
+     */
+    static SocketStatistics create() {
+        if (!enabled)
+            return null;
+        SocketStatistics stats = new SocketStatistics(AGGREGATE);
+        stats.openCount.increment();
+        AGGREGATE.openCount.increment();
+        return stats;
+    }
+
+    /**
+     * Records a read operation.
+     *
+     * @param  n
+     *         The number of bytes read; a negative value, for the end of
+     *         stream, counts as zero
+     * @param  startTime
+     *         The value of {@link System#nanoTime} when the operation began
+     */
+    void readCompleted(long n, long startTime) {
+        long time = System.nanoTime() - startTime;
+        for (SocketStatistics s = this; s != null; s = s.parent) {
+            if (n > 0)
+                s.bytesRead.add(n);
+            s.readCount.increment();
+            s.readTime.add(time);
+        }
+    }
+
+    /**
+     * Records a write operation.
+     *
+     * @param  n
+     *         The number of bytes written
+     * @param  startTime
+     *         The value of {@link System#nanoTime} when the operation began
+     */
+    void writeCompleted(long n, long startTime) {
+        long time = System.nanoTime() - startTime;
+        for (SocketStatistics s = this; s != null; s = s.parent) {
+            if (n > 0)
+                s.bytesWritten.add(n);
+            s.writeCount.increment();
+            s.writeTime.add(time);
+        }
+    }
+
+    /**
+     * Records a connect operation.
+     *
+     * @param  startTime
+     *         The value of {@link System#nanoTime} when the operation began
+     * @param  connected
+     *         {@code true} if the connection was established
+     */
+    void connectCompleted(long startTime, boolean connected) {
+        long time = System.nanoTime() - startTime;
+        for (SocketStatistics s = this; s != null; s = s.parent) {
+            if (connected) {
+                s.connectCount.increment();
+            } else {
+                s.connectFailureCount.increment();
+            }
+            s.connectTime.add(time);
+        }
+    }
+
+    /**
+     * Records that the socket has been closed.  Invoking this method more
+     * than once has no further effect.
+     */
+    void closed() {
+        if (parent == null)
+            return;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        openCount.decrement();
+        parent.openCount.decrement();
+    }
+
+    /**
+     * Returns the number of bytes read.
+     *
+     * @return  The number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return  The number of bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Returns the number of read operations, including those that reached
+     * the end of stream, timed out or failed.
+     *
+     * @return  The number of read operations
+     */
+    public long getReadCount() {
+        return readCount.sum();
+    }
+
+    /**
+     * Returns the number of write operations, including those that failed.
+     *
+     * @return  The number of write operations
+     */
+    public long getWriteCount() {
+        return writeCount.sum();
+    }
+
+    /**
+     * Returns the total time spent in read operations.
+     *
+     * @return  The time blocked reading, in nanoseconds
+     */
+    public long getReadTime() {
+        return readTime.sum();
+    }
+
+    /**
+     * Returns the total time spent in write operations.
+     *
+     * @return  The time blocked writing, in nanoseconds
+     */
+    public long getWriteTime() {
+        return writeTime.sum();
+    }
+
+    /**
+     * Returns the number of connections established.
+     *
+     * @return  The number of connections established
+     */
+    public long getConnectCount() {
+        return connectCount.sum();
+    }
+
+    /**
+     * Returns the number of connect operations that failed.
+     *
+     * @return  The number of failed connect operations
+     */
+    public long getConnectFailureCount() {
+        return connectFailureCount.sum();
+    }
+
+    /**
+     * Returns the total time spent in connect operations, whether they
+     * succeeded or failed.
+     *
+     * @return  The connect time, in nanoseconds
+     */
+    public long getConnectTime() {
+        return connectTime.sum();
+    }
+
+    /**
+     * Returns the number of open sockets: for the statistics of a single
+     * socket, {@code 1} if it is open and {@code 0} once it is closed.
+     *
+     * @return  The number of open sockets
+     */
+    public long getOpenCount() {
+        return openCount.sum();
+    }
+
+    /**
+     * Returns a string describing these statistics.
+     *
+     * @return  A string describing these statistics
+     */
+    @Override
+    public String toString() {
+        return getClass().getName()
+            + "[open=" + getOpenCount()
+            + " read=" + getBytesRead() + "B/" + getReadCount()
+            + " written=" + getBytesWritten() + "B/" + getWriteCount()
+            + " readTime=" + getReadTime() + "ns"
+            + " writeTime=" + getWriteTime() + "ns"
+            + " connects=" + getConnectCount()
+            + " failed=" + getConnectFailureCount()
+            + " connectTime=" + getConnectTime() + "ns]";
+    }
+}
@@ -2763,7 +2763,7 @@ public final class URI
     // Exception: any "%" found between "[]" is left alone. It is an IPv6 literal
     //            with a scope_id
     //
-    private static String decode(String s) {
+    static String decode(String s) {
         if (s == null)
             return s;
         int n = s.length();
@@ -2824,6 +2824,29 @@ public final class URI
 
     // -- Parsing --
 
+    // Indices of the components whose bounds are recorded by parseBounds;
+    // the bounds of component c are at [2c] and [2c + 1]
+    static final int C_SCHEME = 0;
+    static final int C_SSP = 1;
+    static final int C_AUTHORITY = 2;
+    static final int C_USERINFO = 3;
+    static final int C_HOST = 4;
+    static final int C_PATH = 5;
+    static final int C_QUERY = 6;
+    static final int C_FRAGMENT = 7;
+    static final int C_COUNT = 8;
+
+    // Parses the given string exactly as URI(String) does, but records the
+    // start and end of each component in the given array, which must be
+    // filled with -1 on entry, rather than creating strings.  Returns the
+    // port, or -1 if undefined.
+    //
+    static int parseBounds(String s, int[] bounds) throws URISyntaxException {
+        URI u = new URI();
+        u.new Parser(s, bounds).parse(false);
+        return u.port;
+    }
+
     // For convenience we wrap the input URI string in a new instance of the
     // following internal class.  This saves always having to pass the input
     // string as an argument to each internal scan/parse method.
@@ -2832,12 +2855,21 @@ public final class URI
 
         private String input;           // URI input string
         private boolean requireServerAuthority = false;
+        private int[] bounds;           // Component bounds, if recording
 
         Parser(String s) {
             input = s;
             string = s;
         }
 
+        // Creates a parser that records the start and end of each component
+        // in the given array instead of setting the corresponding fields
+        //
+        Parser(String s, int[] bounds) {
+            this(s);
+            this.bounds = bounds;
+        }
+
         // -- Methods for throwing URISyntaxException in various ways --
 
         private void fail(String reason) throws URISyntaxException {
@@ -2869,6 +2901,25 @@ public final class URI
             return input.substring(start, end);
         }
 
+        // Return the given component of the input string, or record its
+        // bounds and return null if this parser is recording bounds
+        //
+        private String component(int c, int start, int end) {
+            if (bounds != null) {
+                bounds[c << 1] = start;
+                bounds[(c << 1) + 1] = end;
+                return null;
+            }
+            return input.substring(start, end);
+        }
+
+        // Forget the recorded bounds of the given component
+        //
+        private void clear(int c) {
+            bounds[c << 1] = -1;
+            bounds[(c << 1) + 1] = -1;
+        }
+
         // Return the char at position p,
         // assuming that p < input.length()
         //
@@ -3046,7 +3097,7 @@ public final class URI
                     failExpecting("scheme name", 0);
                 checkChar(0, L_ALPHA, H_ALPHA, "scheme name");
                 checkChars(1, p, L_SCHEME, H_SCHEME, "scheme name");
-                scheme = substring(0, p);
+                scheme = component(C_SCHEME, 0, p);
                 p++;                    // Skip ':'
                 ssp = p;
                 if (at(p, n, '/')) {
@@ -3062,10 +3113,10 @@ public final class URI
                 ssp = 0;
                 p = parseHierarchical(0, n);
             }
-            schemeSpecificPart = substring(ssp, p);
+            schemeSpecificPart = component(C_SSP, ssp, p);
             if (at(p, n, '#')) {
                 checkChars(p + 1, n, L_URIC, H_URIC, "fragment");
-                fragment = substring(p + 1, n);
+                fragment = component(C_FRAGMENT, p + 1, n);
                 p = n;
             }
             if (p < n)
@@ -3103,13 +3154,13 @@ public final class URI
             }
             int q = scan(p, n, "", "?#"); // DEVIATION: May be empty
             checkChars(p, q, L_PATH, H_PATH, "path");
-            path = substring(p, q);
+            path = component(C_PATH, p, q);
             p = q;
             if (at(p, n, '?')) {
                 p++;
                 q = scan(p, n, "", "#");
                 checkChars(p, q, L_URIC, H_URIC, "query");
-                query = substring(p, q);
+                query = component(C_QUERY, p, q);
                 p = q;
             }
             return p;
@@ -3143,7 +3194,7 @@ public final class URI
 
             if (regChars && !serverChars) {
                 // Must be a registry-based authority
-                authority = substring(p, n);
+                authority = component(C_AUTHORITY, p, n);
                 return n;
             }
 
@@ -3155,12 +3206,16 @@ public final class URI
                     q = parseServer(p, n);
                     if (q < n)
                         failExpecting("end of authority", q);
-                    authority = substring(p, n);
+                    authority = component(C_AUTHORITY, p, n);
                 } catch (URISyntaxException x) {
                     // Undo results of failed parse
                     userInfo = null;
                     host = null;
                     port = -1;
+                    if (bounds != null) {
+                        clear(C_USERINFO);
+                        clear(C_HOST);
+                    }
                     if (requireServerAuthority) {
                         // If we're insisting upon a server-based authority,
                         // then just re-throw the exception
@@ -3177,7 +3232,7 @@ public final class URI
             if (q < n) {
                 if (regChars) {
                     // Registry-based authority
-                    authority = substring(p, n);
+                    authority = component(C_AUTHORITY, p, n);
                 } else if (ex != null) {
                     // Re-throw exception; it was probably due to
                     // a malformed IPv6 address
@@ -3203,7 +3258,7 @@ public final class URI
             q = scan(p, n, "/?#", "@");
             if ((q >= p) && at(q, n, '@')) {
                 checkChars(p, q, L_USERINFO, H_USERINFO, "user info");
-                userInfo = substring(p, q);
+                userInfo = component(C_USERINFO, p, q);
                 p = q + 1;              // Skip '@'
             }
 
@@ -3225,7 +3280,7 @@ public final class URI
                     } else {
                         parseIPv6Reference(p, q);
                     }
-                    host = substring(p-1, q+1);
+                    host = component(C_HOST, p-1, q+1);
                     p = q + 1;
                 } else {
                     failExpecting("closing bracket for IPv6 address", q);
@@ -3346,7 +3401,7 @@ public final class URI
             }
 
             if (p > start)
-                host = substring(start, p);
+                host = component(C_HOST, start, p);
 
             return p;
         }
@@ -3395,7 +3450,7 @@ public final class URI
                 fail("Illegal character in hostname", l);
             }
 
-            host = substring(start, p);
+            host = component(C_HOST, start, p);
             return p;
         }
 
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.net;
+
+import java.util.Arrays;
+
+/**
+ * The components of a URI reference, recorded as positions in the string
+ * from which they were parsed.
+ *
+ * <p> A {@code URIComponents} object is created by the {@link #parse parse}
+ * method, which accepts exactly the strings accepted by the {@link
+ * URI#URI(String) URI(String)} constructor and interprets them in the same
+ * way.  Rather than extracting a string for each component, however, the
+ * parser records only where each component starts and ends.  A component
+ * is materialized as a string only when one of the accessor methods of this
+ * class is invoked, and then only that component.  This makes it cheap to
+ * validate a URI string and examine, for example, just its scheme and host,
+ * as is typical when dispatching a request, without constructing a {@link
+ * URI}.
+ *
+ * <p> Each invocation of an accessor method extracts the component afresh;
+ * callers that use a component repeatedly should retain the returned string,
+ * or use {@link #toURI toURI} to obtain a {@code URI}.
+ *
+ * <p> Instances of this class are immutable and are safe for use by multiple
+ * concurrent threads.
+ *
+ * @see URI
+ * @since 1.8
+ */
+public final class URIComponents {
+
+    private final String input;
+    private final int[] bounds;
+    private final int port;
+
+    private URIComponents(String input, int[] bounds, int port) {
+        this.input = input;
+        this.bounds = bounds;
+        this.port = port;
+    }
+
+    /**
+     * Parses the given string as a URI reference.
+     *
+     * @param  str   The string to be parsed
+     *
+     * @return  The components of the given string
+     *
+     * @throws  NullPointerException
+     *          If {@code str} is {@code null}
+     *
+     * @throws  URISyntaxException
+     *          If the given string violates RFC&nbsp;2396, as augmented
+     *          by the deviations described in {@link URI#URI(String)}
+     */
+    public static URIComponents parse(String str) throws URISyntaxException {
+        int[] bounds = new int[URI.C_COUNT << 1];
+        Arrays.fill(bounds, -1);
+        int port = URI.parseBounds(str, bounds);
+        return new URIComponents(str, bounds, port);
+    }
+
+    // Returns the given component, or null if it is undefined
+    private String component(int c) {
+        int start = bounds[c << 1];
+        if (start < 0)
+            return null;
+        return input.substring(start, bounds[(c << 1) + 1]);
+    }
+
+    /**
+     * Tells whether or not the URI is absolute, that is, whether it has a
+     * scheme component.
+     *
+     * @return  {@code true} if, and only if, the URI is absolute
+     */
+    public boolean isAbsolute() {
+        return bounds[URI.C_SCHEME << 1] >= 0;
+    }
+
+    /**
+     * Tells whether or not the URI is opaque, that is, whether it is
+     * absolute and its scheme-specific part does not begin with a slash
+     * character ({@code '/'}).
+     *
+     * @return  {@code true} if, and only if, the URI is opaque
+     */
+    public boolean isOpaque() {
+        return bounds[URI.C_PATH << 1] < 0;
+    }
+
+    /**
+     * Returns the scheme component of the URI.
+     *
+     * @return  The scheme component, or {@code null} if the scheme is
+     *          undefined
+     */
+    public String getScheme() {
+        return component(URI.C_SCHEME);
+    }
+
+    /**
+     * Returns the raw scheme-specific part of the URI.  The scheme-specific
+     * part is never undefined.
+     *
+     * @return  The raw scheme-specific part (never {@code null})
+     */
+    public String getRawSchemeSpecificPart() {
+        return component(URI.C_SSP);
+    }
+
+    /**
+     * Returns the decoded scheme-specific part of the URI, as
+     * {@link URI#getSchemeSpecificPart() URI.getSchemeSpecificPart} would.
+     *
+     * @return  The decoded scheme-specific part (never {@code null})
+     */
+    public String getSchemeSpecificPart() {
+        return URI.decode(getRawSchemeSpecificPart());
+    }
+
+    /**
+     * Returns the raw authority component of the URI.
+     *
+     * @return  The raw authority component, or {@code null} if the
+     *          authority is undefined
+     */
+    public String getRawAuthority() {
+        return component(URI.C_AUTHORITY);
+    }
+
+    /**
+     * Returns the decoded authority component of the URI, as
+     * {@link URI#getAuthority() URI.getAuthority} would.
+     *
+     * @return  The decoded authority component, or {@code null} if the
+     *          authority is undefined
+     */
+    public String getAuthority() {
+        return URI.decode(getRawAuthority());
+    }
+
+    /**
+     * Returns the raw user-information component of the URI.
+     *
+     * @return  The raw user-information component, or {@code null} if the
+     *          user information is undefined
+     */
+    public String getRawUserInfo() {
+        return component(URI.C_USERINFO);
+    }
+
+    /**
+     * Returns the decoded user-information component of the URI, as
+     * {@link URI#getUserInfo() URI.getUserInfo} would.
+     *
+     * @return  The decoded user-information component, or {@code null} if
+     *          the user information is undefined
+     */
+    public String getUserInfo() {
+        return URI.decode(getRawUserInfo());
+    }
+
+    /**
+     * Returns the host component of the URI.  As with {@link URI#getHost()
+     * URI.getHost}, the host is undefined if the authority is registry-based.
+     *
+     * @return  The host component, or {@code null} if the host is undefined
+     */
+    public String getHost() {
+        return component(URI.C_HOST);
+    }
+
+    /**
+     * Returns the port number of the URI.
+     *
+     * @return  The port component, or {@code -1} if the port is undefined
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the raw path component of the URI.
+     *
+     * @return  The raw path component, or {@code null} if the URI is opaque
+     */
+    public String getRawPath() {
+        return component(URI.C_PATH);
+    }
+
+    /**
+     * Returns the decoded path component of the URI, as {@link URI#getPath()
+     * URI.getPath} would.
+     *
+     * @return  The decoded path component, or {@code null} if the URI is
+     *          opaque
+     */
+    public String getPath() {
+        return URI.decode(getRawPath());
+    }
+
+    /**
+     * Returns the raw query component of the URI.
+     *
+     * @return  The raw query component, or {@code null} if the query is
+     *          undefined
+     */
+    public String getRawQuery() {
+        return component(URI.C_QUERY);
+    }
+
+    /**
+     * Returns the decoded query component of the URI, as {@link
+     * URI#getQuery() URI.getQuery} would.
+     *
+     * @return  The decoded query component, or {@code null} if the query is
+     *          undefined
+     */
+    public String getQuery() {
+        return URI.decode(getRawQuery());
+    }
+
+    /**
+     * Returns the raw fragment component of the URI.
+     *
+     * @return  The raw fragment component, or {@code null} if the fragment
+     *          is undefined
+     */
+    public String getRawFragment() {
+        return component(URI.C_FRAGMENT);
+    }
+
+    /**
+     * Returns the decoded fragment component of the URI, as {@link
+     * URI#getFragment() URI.getFragment} would.
+     *
+     * @return  The decoded fragment component, or {@code null} if the
+     *          fragment is undefined
+     */
+    public String getFragment() {
+        return URI.decode(getRawFragment());
+    }
+
+    /**
+     * Returns a {@code URI} for the parsed string.  The result is equal to
+     * the result of invoking {@link URI#URI(String) URI(String)} with the
+     * original string.
+     *
+     * @return  A URI for the parsed string
+     */
+    public URI toURI() {
+        return URI.create(input);
+    }
+
+    /**
+     * Returns the string from which these components were parsed.
+     *
+     * @return  The original string
+     */
+    public String toString() {
+        return input;
+    }
+}
@@ -26,6 +26,11 @@
 package java.net;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Objects;
 
 /**
  * Utility class for HTML form decoding. This class contains static methods
@@ -132,26 +137,183 @@ public class URLDecoder {
     public static String decode(String s, String enc)
         throws UnsupportedEncodingException{
 
-        boolean needToChange = false;
-        int numChars = s.length();
-        StringBuffer sb = new StringBuffer(numChars > 500 ? numChars / 2 : numChars);
-        int i = 0;
-
         if (enc.length() == 0) {
             throw new UnsupportedEncodingException ("URLDecoder: empty string enc parameter");
         }
 
-        char c;
+        // The encoding need only be supported if it is consulted
+        Charset charset = null;
+        if (s.indexOf('%') >= 0) {
+            try {
+                charset = Charset.forName(enc);
+            } catch (IllegalCharsetNameException e) {
+                throw new UnsupportedEncodingException(enc);
+            } catch (UnsupportedCharsetException e) {
+                throw new UnsupportedEncodingException(enc);
+            }
+        }
+
+        return decodeString(s, charset);
+    }
+
+    /**
+     * Decodes a {@code application/x-www-form-urlencoded} string using the
+     * given charset to determine what characters are represented by any
+     * consecutive sequences of the form "<i>{@code %xy}</i>".  The result is
+     * the same as that of {@link #decode(String,String) decode(s,
+     * charset.name())}.
+     * <p>
+     * If {@code s} contains neither escaped octets nor plus signs then
+     * {@code s} itself is returned.
+     *
+     * @param s the {@code String} to decode
+     * @param charset the charset used to decode escaped octets
+     * @return the newly decoded {@code String}
+     * @throws IllegalArgumentException if {@code s} contains an illegal or
+     *         incomplete escape pattern
+     * @see URLEncoder#encode(String, Charset)
+     * @since 1.8
+     */
+    public static String decode(String s, Charset charset) {
+        Objects.requireNonNull(charset, "charset");
+        return decodeString(s, charset);
+    }
+
+    /**
+     * Decodes a {@code application/x-www-form-urlencoded} character
+     * sequence using the given charset, appending the result to the given
+     * {@code Appendable}.  The characters appended are those of the string
+     * that {@link #decode(String,Charset) decode(s.toString(), charset)}
+     * would return.  If an illegal escape pattern is found then characters
+     * preceding it may already have been appended.
+     *
+     * @param s the character sequence to decode
+     * @param charset the charset used to decode escaped octets
+     * @param out the {@code Appendable} to which the result is appended
+     * @throws IllegalArgumentException if {@code s} contains an illegal or
+     *         incomplete escape pattern
+     * @throws IOException if an I/O error is thrown by {@code out}
+     * @see URLEncoder#encode(CharSequence, Charset, Appendable)
+     * @since 1.8
+     */
+    public static void decode(CharSequence s, Charset charset, Appendable out)
+        throws IOException
+    {
+        Objects.requireNonNull(charset, "charset");
+        Objects.requireNonNull(out, "out");
+        decode(s, 0, s.length(), charset, out);
+    }
+
+    /**
+     * Decodes the {@code application/x-www-form-urlencoded} bytes remaining
+     * in the given buffer using the given charset, appending the result to
+     * the given {@code Appendable}.  Each byte is interpreted as a US-ASCII
+     * character, except that consecutive escaped octets are decoded together
+     * with any bytes outside the US-ASCII range that they adjoin, so that
+     * content which has already been encoded with {@code charset}, rather
+     * than escaped, is decoded correctly.
+     * <p>
+     * Upon successful return the buffer's position is equal to its limit.
+     * If an exception is thrown then the buffer's position is unchanged,
+     * though characters may already have been appended.
+     *
+     * @param src the buffer containing the bytes to decode
+     * @param charset the charset used to decode escaped octets
+     * @param out the {@code Appendable} to which the result is appended
+     * @throws IllegalArgumentException if the bytes contain an illegal or
+     *         incomplete escape pattern
+     * @throws IOException if an I/O error is thrown by {@code out}
+     * @see URLEncoder#encode(CharSequence, Charset, ByteBuffer)
+     * @since 1.8
+     */
+    public static void decode(ByteBuffer src, Charset charset, Appendable out)
+        throws IOException
+    {
+        Objects.requireNonNull(charset, "charset");
+        Objects.requireNonNull(out, "out");
+        int n = src.limit();
+        int i = src.position();
         byte[] bytes = null;
-        while (i < numChars) {
-            c = s.charAt(i);
-            switch (c) {
-            case '+':
-                sb.append(' ');
+        while (i < n) {
+            byte b = src.get(i);
+            if (b == '+') {
+                out.append(' ');
                 i++;
-                needToChange = true;
+            } else if (b >= 0 && b != '%') {
+                out.append((char) b);
+                i++;
+            } else {
+                if (bytes == null)
+                    bytes = new byte[n - i];
+                int pos = 0;
+                while (i < n && ((b = src.get(i)) < 0 || b == '%')) {
+                    if (b < 0) {
+                        bytes[pos++] = b;
+                        i++;
+                        continue;
+                    }
+                    if (i + 2 >= n)
+                        throw new IllegalArgumentException(
+                         "URLDecoder: Incomplete trailing escape (%) pattern");
+                    int hi = Character.digit((char) (src.get(i + 1) & 0xff), 16);
+                    int lo = Character.digit((char) (src.get(i + 2) & 0xff), 16);
+                    if (hi < 0 || lo < 0)
+                        throw illegalHex((char) (src.get(i + 1) & 0xff),
+                                         (char) (src.get(i + 2) & 0xff));
+                    bytes[pos++] = (byte) ((hi << 4) | lo);
+                    i += 3;
+                }
+                out.append(new String(bytes, 0, pos, charset));
+            }
+        }
+        src.position(n);
+    }
+
+    /*
+     * Decodes s, returning s itself if it contains neither '+' nor '%'.
+     * The charset may be null if s contains no '%'.
+     */
+    private static String decodeString(String s, Charset charset) {
+        int n = s.length();
+        int i = 0;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c == '+' || c == '%')
                 break;
-            case '%':
+            i++;
+        }
+        if (i == n)
+            return s;
+
+        StringBuilder sb = new StringBuilder(n > 500 ? n / 2 : n);
+        sb.append(s, 0, i);
+        try {
+            decode(s, i, n, charset, sb);
+        } catch (IOException e) {
+            // StringBuilder does not throw IOException
+            throw new InternalError(e);
+        }
+        return sb.toString();
+    }
+
+    private static void decode(CharSequence s, int start, int end,
+                               Charset charset, Appendable out)
+        throws IOException
+    {
+        byte[] bytes = null;
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (c == '+') {
+                out.append(' ');
+                i++;
+            } else if (c != '%') {
+                int j = i + 1;
+                while (j < end && (c = s.charAt(j)) != '+' && c != '%')
+                    j++;
+                out.append(s, i, j);
+                i = j;
+            } else {
                 /*
                  * Starting with this instance of %, process all
                  * consecutive substrings of the form %xy. Each
@@ -161,47 +323,40 @@ public class URLDecoder {
                  * encoding.
                  */
 
-                try {
-
-                    // (numChars-i)/3 is an upper bound for the number
-                    // of remaining bytes
-                    if (bytes == null)
-                        bytes = new byte[(numChars-i)/3];
-                    int pos = 0;
-
-                    while ( ((i+2) < numChars) &&
-                            (c=='%')) {
-                        int v = Integer.parseInt(s.substring(i+1,i+3),16);
-                        if (v < 0)
-                            throw new IllegalArgumentException("URLDecoder: Illegal hex characters in escape (%) pattern - negative value");
-                        bytes[pos++] = (byte) v;
-                        i+= 3;
-                        if (i < numChars)
-                            c = s.charAt(i);
-                    }
+                // (end-i)/3 is an upper bound for the number
+                // of remaining bytes
+                if (bytes == null)
+                    bytes = new byte[(end - i) / 3];
+                int pos = 0;
 
-                    // A trailing, incomplete byte encoding such as
-                    // "%x" will cause an exception to be thrown
+                while ((i + 2 < end) && (c == '%')) {
+                    char x = s.charAt(i + 1);
+                    char y = s.charAt(i + 2);
+                    int hi = Character.digit(x, 16);
+                    int lo = Character.digit(y, 16);
+                    if (hi < 0 || lo < 0)
+                        throw illegalHex(x, y);
+                    bytes[pos++] = (byte) ((hi << 4) | lo);
+                    i += 3;
+                    if (i < end)
+                        c = s.charAt(i);
+                }
 
-                    if ((i < numChars) && (c=='%'))
-                        throw new IllegalArgumentException(
-                         "URLDecoder: Incomplete trailing escape (%) pattern");
+                // A trailing, incomplete byte encoding such as
+                // "%x" will cause an exception to be thrown
 
-                    sb.append(new String(bytes, 0, pos, enc));
-                } catch (NumberFormatException e) {
+                if ((i < end) && (c == '%'))
                     throw new IllegalArgumentException(
-                    "URLDecoder: Illegal hex characters in escape (%) pattern - "
-                    + e.getMessage());
-                }
-                needToChange = true;
-                break;
-            default:
-                sb.append(c);
-                i++;
-                break;
+                     "URLDecoder: Incomplete trailing escape (%) pattern");
+
+                out.append(new String(bytes, 0, pos, charset));
             }
         }
+    }
 
-        return (needToChange? sb.toString() : s);
+    private static IllegalArgumentException illegalHex(char x, char y) {
+        return new IllegalArgumentException(
+            "URLDecoder: Illegal hex characters in escape (%) pattern - "
+            + "For input string: \"" + x + y + "\"");
     }
 }
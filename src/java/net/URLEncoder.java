@@ -30,11 +30,14 @@ import java.io.BufferedWriter;
 import java.io.OutputStreamWriter;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.io.CharArrayWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException ;
+import java.nio.charset.StandardCharsets;
 import java.util.BitSet;
+import java.util.Objects;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import sun.security.action.GetBooleanAction;
@@ -84,6 +87,14 @@ public class URLEncoder {
     static final int caseDiff = ('a' - 'A');
     static String dfltEncName = null;
 
+    // dontNeedEncoding as a table for the US-ASCII characters
+    private static final boolean[] safe = new boolean[128];
+
+    private static final char[] hexDigits = {
+        '0', '1', '2', '3', '4', '5', '6', '7',
+        '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
     static {
 
         /* The list of characters that are not encoded has been
@@ -140,6 +151,10 @@ public class URLEncoder {
         dontNeedEncoding.set('.');
         dontNeedEncoding.set('*');
 
+        for (i = 0; i < safe.length; i++) {
+            safe[i] = dontNeedEncoding.get(i);
+        }
+
         dfltEncName = AccessController.doPrivileged(
             new GetPropertyAction("file.encoding")
         );
@@ -200,10 +215,7 @@ public class URLEncoder {
     public static String encode(String s, String enc)
         throws UnsupportedEncodingException {
 
-        boolean needToChange = false;
-        StringBuffer out = new StringBuffer(s.length());
         Charset charset;
-        CharArrayWriter charArrayWriter = new CharArrayWriter();
 
         if (enc == null)
             throw new NullPointerException("charsetName");
@@ -216,77 +228,209 @@ public class URLEncoder {
             throw new UnsupportedEncodingException(enc);
         }
 
-        for (int i = 0; i < s.length();) {
-            int c = (int) s.charAt(i);
-            //System.out.println("Examining character: " + c);
-            if (dontNeedEncoding.get(c)) {
-                if (c == ' ') {
-                    c = '+';
-                    needToChange = true;
-                }
-                //System.out.println("Storing: " + c);
-                out.append((char)c);
+        return encode(s, charset);
+    }
+
+    /**
+     * Translates a string into {@code application/x-www-form-urlencoded}
+     * format using the given charset to obtain the bytes for unsafe
+     * characters.  The result is the same as that of {@link
+     * #encode(String,String) encode(s, charset.name())}.
+     * <p>
+     * If no character of {@code s} needs to be translated then {@code s}
+     * itself is returned.  When the charset is UTF-8, unsafe characters
+     * are encoded directly into the result, without creating intermediate
+     * strings or byte arrays.
+     *
+     * @param   s   {@code String} to be translated.
+     * @param   charset   The charset used to obtain the bytes for unsafe
+     *    characters.
+     * @return  the translated {@code String}.
+     * @see URLDecoder#decode(String, Charset)
+     * @since 1.8
+     */
+    public static String encode(String s, Charset charset) {
+        Objects.requireNonNull(charset, "charset");
+        int n = s.length();
+        int i = 0;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c >= 128 || !safe[c] || c == ' ')
+                break;
+            i++;
+        }
+        if (i == n)
+            return s;
+
+        StringBuilder out = new StringBuilder(n + 16);
+        out.append(s, 0, i);
+        try {
+            encode(s, i, n, charset, out);
+        } catch (IOException e) {
+            // StringBuilder does not throw IOException
+            throw new InternalError(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Translates a character sequence into {@code
+     * application/x-www-form-urlencoded} format using the given charset,
+     * appending the result to the given {@code Appendable}.  The characters
+     * appended are those of the string that {@link #encode(String,Charset)
+     * encode(s.toString(), charset)} would return.
+     *
+     * @param   s   The character sequence to be translated.
+     * @param   charset   The charset used to obtain the bytes for unsafe
+     *    characters.
+     * @param   out   The {@code Appendable} to which the result is appended.
+     * @throws  IOException
+     *          If an I/O error is thrown by {@code out}
+     * @see URLDecoder#decode(CharSequence, Charset, Appendable)
+     * @since 1.8
+     */
+    public static void encode(CharSequence s, Charset charset, Appendable out)
+        throws IOException
+    {
+        Objects.requireNonNull(charset, "charset");
+        Objects.requireNonNull(out, "out");
+        encode(s, 0, s.length(), charset, out);
+    }
+
+    /**
+     * Translates a character sequence into {@code
+     * application/x-www-form-urlencoded} format using the given charset,
+     * writing the result as US-ASCII bytes into the given buffer.  The
+     * bytes are written starting at the buffer's current position, which is
+     * advanced by the number of bytes written.
+     * <p>
+     * If the buffer has insufficient space for the whole result then a
+     * {@code BufferOverflowException} is thrown and the buffer's position is
+     * left unchanged, though the content of the buffer beyond its position
+     * may have been modified.
+     *
+     * @param   s   The character sequence to be translated.
+     * @param   charset   The charset used to obtain the bytes for unsafe
+     *    characters.
+     * @param   dst   The buffer into which the result is written.
+     * @return  The number of bytes written
+     * @throws  BufferOverflowException
+     *          If there is insufficient space in the buffer
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If the buffer is read-only
+     * @see URLDecoder#decode(ByteBuffer, Charset, Appendable)
+     * @since 1.8
+     */
+    public static int encode(CharSequence s, Charset charset, ByteBuffer dst) {
+        Objects.requireNonNull(charset, "charset");
+        int pos = dst.position();
+        try {
+            encode(s, 0, s.length(), charset, new ByteBufferAppender(dst));
+        } catch (BufferOverflowException e) {
+            dst.position(pos);
+            throw e;
+        } catch (IOException e) {
+            // ByteBufferAppender does not throw IOException
+            throw new InternalError(e);
+        }
+        return dst.position() - pos;
+    }
+
+    /*
+     * Encodes the characters of s from start to end.  Each maximal run of
+     * unsafe characters is converted to bytes with the charset in one go,
+     * as the charset may be stateful; for UTF-8, which is not, each
+     * character is encoded directly as String.getBytes would encode it.
+     */
+    private static void encode(CharSequence s, int start, int end,
+                               Charset charset, Appendable out)
+        throws IOException
+    {
+        boolean utf8 = charset.equals(StandardCharsets.UTF_8);
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (c < 128 && safe[c]) {
+                out.append(c == ' ' ? '+' : c);
                 i++;
+            } else if (utf8) {
+                i = encodeUTF8(s, i, end, out);
             } else {
-                // convert to external encoding before hex conversion
-                do {
-                    charArrayWriter.write(c);
-                    /*
-                     * If this character represents the start of a Unicode
-                     * surrogate pair, then pass in two characters. It's not
-                     * clear what should be done if a bytes reserved in the
-                     * surrogate pairs range occurs outside of a legal
-                     * surrogate pair. For now, just treat it as if it were
-                     * any other character.
-                     */
-                    if (c >= 0xD800 && c <= 0xDBFF) {
-                        /*
-                          System.out.println(Integer.toHexString(c)
-                          + " is high surrogate");
-                        */
-                        if ( (i+1) < s.length()) {
-                            int d = (int) s.charAt(i+1);
-                            /*
-                              System.out.println("\tExamining "
-                              + Integer.toHexString(d));
-                            */
-                            if (d >= 0xDC00 && d <= 0xDFFF) {
-                                /*
-                                  System.out.println("\t"
-                                  + Integer.toHexString(d)
-                                  + " is low surrogate");
-                                */
-                                charArrayWriter.write(d);
-                                i++;
-                            }
-                        }
-                    }
-                    i++;
-                } while (i < s.length() && !dontNeedEncoding.get((c = (int) s.charAt(i))));
-
-                charArrayWriter.flush();
-                String str = new String(charArrayWriter.toCharArray());
-                byte[] ba = str.getBytes(charset);
-                for (int j = 0; j < ba.length; j++) {
-                    out.append('%');
-                    char ch = Character.forDigit((ba[j] >> 4) & 0xF, 16);
-                    // converting to use uppercase letter as part of
-                    // the hex value if ch is a letter.
-                    if (Character.isLetter(ch)) {
-                        ch -= caseDiff;
-                    }
-                    out.append(ch);
-                    ch = Character.forDigit(ba[j] & 0xF, 16);
-                    if (Character.isLetter(ch)) {
-                        ch -= caseDiff;
-                    }
-                    out.append(ch);
-                }
-                charArrayWriter.reset();
-                needToChange = true;
+                int j = i + 1;
+                while (j < end && ((c = s.charAt(j)) >= 128 || !safe[c]))
+                    j++;
+                byte[] ba = s.subSequence(i, j).toString().getBytes(charset);
+                for (int k = 0; k < ba.length; k++)
+                    appendEscaped(out, ba[k]);
+                i = j;
             }
         }
+    }
+
+    /*
+     * Encodes the character, or surrogate pair, at s[i] as escaped UTF-8
+     * and returns the index of the next character.  Malformed surrogates
+     * are replaced by '?', as by String.getBytes.
+     */
+    private static int encodeUTF8(CharSequence s, int i, int end,
+                                  Appendable out)
+        throws IOException
+    {
+        char c = s.charAt(i++);
+        if (c < 0x80) {
+            appendEscaped(out, c);
+        } else if (c < 0x800) {
+            appendEscaped(out, 0xC0 | (c >> 6));
+            appendEscaped(out, 0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i < end
+                   && Character.isLowSurrogate(s.charAt(i))) {
+            int cp = Character.toCodePoint(c, s.charAt(i++));
+            appendEscaped(out, 0xF0 | (cp >> 18));
+            appendEscaped(out, 0x80 | ((cp >> 12) & 0x3F));
+            appendEscaped(out, 0x80 | ((cp >> 6) & 0x3F));
+            appendEscaped(out, 0x80 | (cp & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            appendEscaped(out, '?');
+        } else {
+            appendEscaped(out, 0xE0 | (c >> 12));
+            appendEscaped(out, 0x80 | ((c >> 6) & 0x3F));
+            appendEscaped(out, 0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private static void appendEscaped(Appendable out, int b)
+        throws IOException
+    {
+        out.append('%');
+        out.append(hexDigits[(b >> 4) & 0xF]);
+        out.append(hexDigits[b & 0xF]);
+    }
+
+    /*
+     * An Appendable that writes characters, all of which are US-ASCII, as
+     * bytes into a buffer
+     */
+    private static class ByteBufferAppender implements Appendable {
+        private final ByteBuffer dst;
+
+        ByteBufferAppender(ByteBuffer dst) {
+            this.dst = dst;
+        }
+
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
 
-        return (needToChange? out.toString() : s);
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++)
+                dst.put((byte) csq.charAt(i));
+            return this;
+        }
+
+        public Appendable append(char c) {
+            dst.put((byte) c);
+            return this;
+        }
     }
 }
@@ -0,0 +1,711 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+import sun.security.action.GetPropertyAction;
+import sun.util.logging.PlatformLogger;
+
+/**
+ * A pool of direct byte buffers, from which users of short-lived direct
+ * buffers, such as network layers, may lease buffers instead of allocating
+ * them with {@link ByteBuffer#allocateDirect allocateDirect}.
+ *
+ * <p> The pool keeps buffers in size classes whose capacities are powers of
+ * two, from 512 bytes to a maximum capacity given at construction time. The
+ * buffers of a class are carved out of <em>chunks</em> of direct memory, each
+ * allocated once with {@code allocateDirect}, so that leasing and releasing a
+ * buffer neither reserves nor frees direct memory, and never waits for the
+ * garbage collector to free it. Each thread keeps a small cache of the
+ * buffers of the smaller classes that it has released, from which it leases
+ * buffers without contending with other threads. Buffers larger than the
+ * largest class, and buffers leased when the pool already holds as much
+ * memory as it is allowed, are allocated as requested and freed as soon as
+ * they are released.
+ *
+ * <p> {@link #allocate allocate} returns a {@link Lease}, which holds the
+ * buffer and a reference count, initially one. Each user of the buffer
+ * should {@link Lease#retain retain} the lease, and {@link Lease#release
+ * release} it once done with the buffer; the buffer returns to the pool when
+ * the count drops to zero. A buffer must not be used after its lease has been
+ * released, as it may then be leased again.
+ *
+ * <p> A lease that becomes unreachable without being released is a
+ * <em>leak</em>: its buffer is lost to the pool. To help find leaks, the
+ * pool tracks one lease in every {@link #setLeakSamplingInterval sampling
+ * interval}, on average, recording where it was leased; when a tracked lease
+ * leaks, the pool logs a warning with the stack trace of its allocation. The
+ * default interval is 128, and may be set with the system property {@code
+ * java.nio.DirectBufferPool.leakSamplingInterval}; an interval of zero
+ * disables tracking.
+ *
+ * <p> Each pool has a name, which must differ from those of the other pools
+ * that have not been {@link #close closed}, from that of the {@link
+ * #sharedPool shared} pool, and from {@code "direct"} and {@code "mapped"},
+ * the names of the buffer pools of the Java virtual machine. The pools that
+ * have not been closed are among the {@link
+ * java.lang.management.BufferPoolMXBean BufferPoolMXBean}s of the Java
+ * virtual machine, named {@code java.nio:type=BufferPool,name=}<i>pool
+ * name</i>; the count and total capacity of such a bean are those of the
+ * buffers leased, and its memory used is all direct memory held by the pool,
+ * including the buffers that are pooled.
+ *
+ * <p> This class is safe for use by multiple concurrent threads.
+ *
+ * @see ByteBuffer#allocateDirect
+ * @since 1.8
+ */
+public final class DirectBufferPool {
+
+    /*
+     * The shift of the capacity of the smallest size class, 512 bytes.
+     */
+    private static final int MIN_SHIFT = 9;
+
+    private static final int DEFAULT_MAX_BUFFER_SIZE = 1 << 20;
+    private static final int CHUNK_SIZE = 4 << 20;
+
+    /*
+     * The number of bytes of each class that a thread may cache; classes
+     * whose buffers are larger than half of it are not cached.
+     */
+    private static final int THREAD_CACHE_BYTES = 256 << 10;
+    private static final int MAX_THREAD_CACHE_COUNT = 64;
+
+    private static final int DEFAULT_LEAK_SAMPLING_INTERVAL;
+    static {
+        String s = AccessController.doPrivileged(new GetPropertyAction(
+            "java.nio.DirectBufferPool.leakSamplingInterval"));
+        int interval = 128;
+        if (s != null) {
+            try {
+                interval = Math.max(0, Integer.parseInt(s));
+            } catch (NumberFormatException ignore) { }
+        }
+        DEFAULT_LEAK_SAMPLING_INTERVAL = interval;
+    }
+
+    private static final String SHARED_POOL_NAME = "shared";
+
+    // the pools that have not been closed, by name
+    private static final ConcurrentHashMap<String, DirectBufferPool> openPools =
+        new ConcurrentHashMap<>();
+
+    private final String name;
+    private final boolean shared;
+    private final int maxShift;
+    private final long maxMemory;
+    private volatile int leakSamplingInterval = DEFAULT_LEAK_SAMPLING_INTERVAL;
+    private volatile boolean closed;
+
+    /*
+     * The idle buffers of each class; a class is locked while chunks are
+     * carved into its buffers.
+     */
+    private final ConcurrentLinkedQueue<ByteBuffer>[] classes;
+
+    /*
+     * The number of buffers of each class that a thread may cache, the
+     * caches of the threads, and all caches, so that the caches of threads
+     * that have terminated can be returned to the pool.
+     */
+    private final int[] cacheCounts;
+    private final ThreadLocal<Cache> cache;
+    private final ConcurrentLinkedQueue<Cache> caches =
+        new ConcurrentLinkedQueue<>();
+
+    private final ReferenceQueue<Lease> leakQueue = new ReferenceQueue<>();
+    private final Set<LeakTracker> trackers = ConcurrentHashMap.newKeySet();
+
+    // statistics
+    private final AtomicLong chunkMemory = new AtomicLong();
+    private final AtomicLong unpooledMemory = new AtomicLong();
+    private final AtomicLong leasedMemory = new AtomicLong();
+    private final AtomicLong leasedCount = new AtomicLong();
+    private final AtomicLong leakedMemory = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private static class Holder {
+        static final DirectBufferPool SHARED =
+            new DirectBufferPool(SHARED_POOL_NAME, DEFAULT_MAX_BUFFER_SIZE,
+                                 Long.MAX_VALUE, true);
+    }
+
+    /**
+     * Returns a pool shared by the whole virtual machine, named
+     * {@code "shared"}, with default limits.
+     *
+     * @return the shared pool
+     */
+    public static DirectBufferPool sharedPool() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Returns the pools that have not been closed.
+     *
+     * @return an unmodifiable list of the pools that have not been closed
+     */
+    public static List<DirectBufferPool> openPools() {
+        return Collections.unmodifiableList(new ArrayList<>(openPools.values()));
+    }
+
+    /**
+     * Creates a pool of buffers of up to 1M bytes, without a limit on the
+     * memory that it holds other than that on direct memory.
+     *
+     * @param name the name of the pool
+     * @throws NullPointerException if {@code name} is null
+     * @throws IllegalArgumentException if {@code name} is that of another
+     *         open pool, or is reserved
+     */
+    public DirectBufferPool(String name) {
+        this(name, DEFAULT_MAX_BUFFER_SIZE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a pool with the specified limits.
+     *
+     * @param name the name of the pool
+     * @param maxBufferSize the capacity of the largest buffers pooled; it
+     *        is rounded up to a power of two
+     * @param maxMemory the maximum number of bytes of direct memory held
+     *        in chunks by the pool
+     * @throws NullPointerException if {@code name} is null
+     * @throws IllegalArgumentException if {@code name} is that of another
+     *         open pool, or is reserved, if {@code maxBufferSize} is less
+     *         than 512 or greater than 2<sup>30</sup>, or if
+     *         {@code maxMemory} is negative
+     */
+    public DirectBufferPool(String name, int maxBufferSize, long maxMemory) {
+        this(name, maxBufferSize, maxMemory, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DirectBufferPool(String name, int maxBufferSize, long maxMemory,
+                             boolean shared) {
+        if (name == null)
+            throw new NullPointerException();
+        if (maxBufferSize < (1 << MIN_SHIFT) || maxBufferSize > (1 << 30))
+            throw new IllegalArgumentException("Illegal maximum size: " +
+                                               maxBufferSize);
+        if (maxMemory < 0)
+            throw new IllegalArgumentException("Illegal maximum memory: " +
+                                               maxMemory);
+        if (!shared && (name.equals(SHARED_POOL_NAME) ||
+                        name.equals("direct") || name.equals("mapped")))
+            throw new IllegalArgumentException("Reserved pool name: " + name);
+        this.name = name;
+        this.shared = shared;
+        this.maxShift = shift(maxBufferSize);
+        this.maxMemory = maxMemory;
+        int n = maxShift - MIN_SHIFT + 1;
+        classes = (ConcurrentLinkedQueue<ByteBuffer>[])
+            new ConcurrentLinkedQueue<?>[n];
+        cacheCounts = new int[n];
+        for (int i = 0; i < n; i++) {
+            classes[i] = new ConcurrentLinkedQueue<>();
+            int count = (THREAD_CACHE_BYTES >> (MIN_SHIFT + i));
+            cacheCounts[i] = (count < 2) ? 0 : Math.min(count, MAX_THREAD_CACHE_COUNT);
+        }
+        cache = ThreadLocal.withInitial(() -> {
+            Cache c = new Cache(Thread.currentThread(), cacheCounts);
+            caches.add(c);
+            return c;
+        });
+        if (openPools.putIfAbsent(name, this) != null)
+            throw new IllegalArgumentException("Pool name in use: " + name);
+    }
+
+    /*
+     * Returns the shift of the smallest class holding the given capacity.
+     */
+    private static int shift(int capacity) {
+        if (capacity <= (1 << MIN_SHIFT))
+            return MIN_SHIFT;
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1);
+    }
+
+    /**
+     * The buffers of the smaller classes cached by a thread.
+     */
+    private static final class Cache {
+        final WeakReference<Thread> owner;
+        final ByteBuffer[][] stacks;
+        final int[] sizes;
+
+        Cache(Thread owner, int[] counts) {
+            this.owner = new WeakReference<>(owner);
+            this.stacks = new ByteBuffer[counts.length][];
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0)
+                    stacks[i] = new ByteBuffer[counts[i]];
+            }
+            this.sizes = new int[counts.length];
+        }
+
+        ByteBuffer pop(int i) {
+            int n = sizes[i];
+            if (n == 0)
+                return null;
+            ByteBuffer[] stack = stacks[i];
+            ByteBuffer b = stack[--n];
+            stack[n] = null;
+            sizes[i] = n;
+            return b;
+        }
+
+        boolean push(int i, ByteBuffer b) {
+            ByteBuffer[] stack = stacks[i];
+            int n = sizes[i];
+            if (n == stack.length)
+                return false;
+            stack[n] = b;
+            sizes[i] = n + 1;
+            return true;
+        }
+
+        boolean isOwnerAlive() {
+            Thread t = owner.get();
+            return t != null && t.isAlive();
+        }
+    }
+
+    /**
+     * Records where a sampled lease was allocated, and detects that it
+     * becomes unreachable without being released.
+     */
+    private static final class LeakTracker extends PhantomReference<Lease> {
+        final Throwable allocation;
+        final int size;                     // -1 if not pooled
+
+        LeakTracker(Lease lease, ReferenceQueue<Lease> queue, int size) {
+            super(lease, queue);
+            this.allocation = new Throwable("Lease allocated");
+            this.size = size;
+        }
+    }
+
+    /**
+     * The lease of a buffer of a pool, with a reference count.
+     *
+     * <p> This class is safe for use by multiple concurrent threads.
+     */
+    public static final class Lease implements AutoCloseable {
+        private static final AtomicIntegerFieldUpdater<Lease> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(Lease.class, "refCount");
+
+        private final DirectBufferPool pool;
+        private final ByteBuffer buffer;
+        private final int sizeClass;        // -1 if not pooled
+        private LeakTracker tracker;
+        private Cleaner unpooled;           // null if pooled
+        private volatile int refCount = 1;
+
+        Lease(DirectBufferPool pool, ByteBuffer buffer, int sizeClass) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+        }
+
+        /**
+         * Returns the buffer of this lease. Its position was zero, its limit
+         * the capacity requested, and its byte order {@link
+         * ByteOrder#BIG_ENDIAN BIG_ENDIAN} when the lease was allocated; its
+         * capacity may be greater than requested, and its content is
+         * unspecified.
+         *
+         * @return the buffer
+         * @throws IllegalStateException if this lease has been released
+         */
+        public ByteBuffer buffer() {
+            if (refCount <= 0)
+                throw new IllegalStateException("Lease released");
+            return buffer;
+        }
+
+        /**
+         * Returns the reference count of this lease.
+         *
+         * @return the reference count, zero if this lease has been released
+         */
+        public int refCount() {
+            return refCount;
+        }
+
+        /**
+         * Increments the reference count of this lease.
+         *
+         * @return this lease
+         * @throws IllegalStateException if this lease has been released
+         */
+        public Lease retain() {
+            for (;;) {
+                int n = refCount;
+                if (n <= 0)
+                    throw new IllegalStateException("Lease released");
+                if (n == Integer.MAX_VALUE)
+                    throw new IllegalStateException("Reference count overflow");
+                if (REF_COUNT.compareAndSet(this, n, n + 1))
+                    return this;
+            }
+        }
+
+        /**
+         * Decrements the reference count of this lease, and returns its
+         * buffer to the pool if the count drops to zero.
+         *
+         * @return {@code true} if the count dropped to zero
+         * @throws IllegalStateException if this lease has been released
+         */
+        public boolean release() {
+            for (;;) {
+                int n = refCount;
+                if (n <= 0)
+                    throw new IllegalStateException("Lease released");
+                if (REF_COUNT.compareAndSet(this, n, n - 1)) {
+                    if (n > 1)
+                        return false;
+                    pool.free(this);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Releases this lease, as if by invoking {@link #release release},
+         * so that a lease may be released by a {@code try}-with-resources
+         * statement.
+         *
+         * @throws IllegalStateException if this lease has been released
+         */
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    /**
+     * Returns the name of this pool.
+     *
+     * @return the name of this pool
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the leak sampling interval of this pool.
+     *
+     * @return the average number of leases allocated per lease tracked,
+     *         zero if leases are not tracked
+     */
+    public int getLeakSamplingInterval() {
+        return leakSamplingInterval;
+    }
+
+    /**
+     * Sets the leak sampling interval of this pool.
+     *
+     * @param interval the average number of leases allocated per lease
+     *        tracked, zero to not track leases
+     * @throws IllegalArgumentException if {@code interval} is negative
+     */
+    public void setLeakSamplingInterval(int interval) {
+        if (interval < 0)
+            throw new IllegalArgumentException("Negative interval: " +
+                                               interval);
+        leakSamplingInterval = interval;
+    }
+
+    /**
+     * Leases a buffer with at least the specified capacity.  Buffers up to
+     * the maximum capacity of the pool have a power of two capacity, and
+     * are taken from the pool if possible.
+     *
+     * @param capacity the minimum capacity of the buffer
+     * @return the lease of the buffer, with a reference count of one
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     * @throws IllegalStateException if this pool has been closed
+     * @throws OutOfMemoryError if the buffer cannot be allocated
+     */
+    public Lease allocate(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " +
+                                               capacity);
+        if (closed)
+            throw new IllegalStateException("Pool closed");
+        if (!trackers.isEmpty())
+            processLeaks();
+
+        int shift = shift(capacity);
+        ByteBuffer b = null;
+        int i = shift - MIN_SHIFT;
+        if (shift <= maxShift) {
+            if (cacheCounts[i] > 0)
+                b = cache.get().pop(i);
+            if (b == null)
+                b = classes[i].poll();
+            if (b == null)
+                b = carve(i);
+        }
+        Lease lease;
+        int size;
+        if (b != null) {
+            size = 1 << shift;
+            b.clear();
+            lease = new Lease(this, b, i);
+        } else {
+            size = capacity;
+            b = ByteBuffer.allocateDirect(capacity);
+            lease = new Lease(this, b, -1);
+            // the buffer may leak, and then be freed by the garbage collector
+            lease.unpooled = Cleaner.create(b, new UnpooledRelease(this, capacity));
+            unpooledMemory.addAndGet(capacity);
+        }
+        b.limit(capacity);
+        b.order(ByteOrder.BIG_ENDIAN);
+        leasedMemory.addAndGet(size);
+        leasedCount.incrementAndGet();
+
+        int interval = leakSamplingInterval;
+        if (interval > 0 &&
+            (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0)) {
+            LeakTracker t = new LeakTracker(lease, leakQueue,
+                                            lease.sizeClass < 0 ? -1 : size);
+            lease.tracker = t;
+            trackers.add(t);
+        }
+        return lease;
+    }
+
+    /*
+     * Allocates a chunk for the given class and returns one of its buffers,
+     * queueing the others; returns null if the pool already holds as much
+     * memory as it may.
+     */
+    private ByteBuffer carve(int i) {
+        ConcurrentLinkedQueue<ByteBuffer> queue = classes[i];
+        synchronized (queue) {
+            ByteBuffer b = queue.poll();
+            if (b != null)
+                return b;
+            reclaimCaches();
+            if ((b = queue.poll()) != null)
+                return b;
+
+            int size = 1 << (MIN_SHIFT + i);
+            int chunkSize = Math.max(size, CHUNK_SIZE);
+            if (chunkMemory.addAndGet(chunkSize) > maxMemory) {
+                chunkMemory.addAndGet(-chunkSize);
+                return null;
+            }
+            ByteBuffer chunk;
+            try {
+                chunk = ByteBuffer.allocateDirect(chunkSize);
+            } catch (OutOfMemoryError x) {
+                chunkMemory.addAndGet(-chunkSize);
+                throw x;
+            }
+            for (int off = size; off < chunkSize; off += size) {
+                chunk.limit(off + size).position(off);
+                queue.offer(chunk.slice());
+            }
+            chunk.limit(size).position(0);
+            return chunk.slice();
+        }
+    }
+
+    /*
+     * Returns the buffers cached by threads that have terminated to the
+     * pool.
+     */
+    private void reclaimCaches() {
+        for (Cache c: caches) {
+            if (!c.isOwnerAlive() && caches.remove(c)) {
+                for (int i = 0; i < c.stacks.length; i++) {
+                    ByteBuffer b;
+                    while ((b = c.pop(i)) != null)
+                        classes[i].offer(b);
+                }
+            }
+        }
+    }
+
+    /*
+     * Removes an unpooled buffer from the statistics, once it has been
+     * released or has become unreachable.
+     */
+    private static final class UnpooledRelease implements Runnable {
+        private final DirectBufferPool pool;
+        private final int capacity;
+
+        UnpooledRelease(DirectBufferPool pool, int capacity) {
+            this.pool = pool;
+            this.capacity = capacity;
+        }
+
+        public void run() {
+            pool.leasedCount.decrementAndGet();
+            pool.leasedMemory.addAndGet(-capacity);
+            pool.unpooledMemory.addAndGet(-capacity);
+        }
+    }
+
+    /*
+     * Returns the buffer of a lease whose reference count dropped to zero.
+     */
+    private void free(Lease lease) {
+        LeakTracker t = lease.tracker;
+        if (t != null) {
+            trackers.remove(t);
+            t.clear();
+        }
+        ByteBuffer b = lease.buffer;
+        int i = lease.sizeClass;
+        if (i < 0) {
+            lease.unpooled.clean();
+            Cleaner cleaner = ((DirectBuffer)b).cleaner();
+            if (cleaner != null)
+                cleaner.clean();
+            return;
+        }
+        leasedCount.decrementAndGet();
+        leasedMemory.addAndGet(-(1 << (MIN_SHIFT + i)));
+        if (closed)
+            return;
+        if (cacheCounts[i] == 0 || !cache.get().push(i, b))
+            classes[i].offer(b);
+    }
+
+    /*
+     * Reports the tracked leases that have become unreachable without being
+     * released.
+     */
+    private void processLeaks() {
+        LeakTracker t;
+        while ((t = (LeakTracker)leakQueue.poll()) != null) {
+            if (trackers.remove(t)) {
+                leakCount.incrementAndGet();
+                // the buffer of an unpooled lease is freed, and removed
+                // from the statistics, once it is unreachable
+                if (t.size >= 0) {
+                    leasedCount.decrementAndGet();
+                    leasedMemory.addAndGet(-t.size);
+                    leakedMemory.addAndGet(t.size);
+                }
+                PlatformLogger.getLogger("java.nio").warning(
+                    "Lease of DirectBufferPool \"" + name + "\" " +
+                    "became unreachable without being released", t.allocation);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of buffers leased and not yet released.
+     *
+     * @return the number of buffers leased
+     */
+    public long getLeasedCount() {
+        return leasedCount.get();
+    }
+
+    /**
+     * Returns the total capacity of the buffers leased and not yet released.
+     *
+     * @return the capacity of the buffers leased, in bytes
+     */
+    public long getLeasedMemory() {
+        return leasedMemory.get();
+    }
+
+    /**
+     * Returns the total capacity of the buffers held by the pool for future
+     * leases, including those cached by threads.
+     *
+     * @return the capacity of the pooled buffers, in bytes
+     */
+    public long getPooledMemory() {
+        return chunkMemory.get() + unpooledMemory.get()
+            - leasedMemory.get() - leakedMemory.get();
+    }
+
+    /**
+     * Returns the direct memory held by the pool: its chunks and the
+     * buffers leased that are not pooled.
+     *
+     * @return the direct memory held, in bytes
+     */
+    public long getMemoryUsed() {
+        return chunkMemory.get() + unpooledMemory.get();
+    }
+
+    /**
+     * Returns the number of leaks detected among the tracked leases.
+     *
+     * @return the number of leaks detected
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * Closes this pool.  Further leases fail, and buffers released are no
+     * longer pooled; the direct memory held by the pool is freed by the
+     * garbage collector once the buffers leased have been released, and
+     * the name of the pool may be given to a new pool.  Closing a pool that
+     * is already closed has no effect.
+     *
+     * @throws UnsupportedOperationException if this is the shared pool
+     */
+    public void close() {
+        if (shared)
+            throw new UnsupportedOperationException("Shared pool");
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        for (ConcurrentLinkedQueue<ByteBuffer> queue: classes)
+            queue.clear();
+        caches.clear();
+        openPools.remove(name, this);
+    }
+}
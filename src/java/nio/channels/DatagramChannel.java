@@ -463,6 +463,316 @@ public abstract class DatagramChannel
     public abstract int send(ByteBuffer src, SocketAddress target)
         throws IOException;
 
+    /**
+     * Receives a sequence of datagrams via this channel into a subsequence
+     * of the given buffers.
+     *
+     * <p> An invocation of this method attempts to receive up to
+     * <i>length</i> datagrams, where <i>length</i> is the number of buffers
+     * in the given subsequence.  The <i>k</i>th datagram received is
+     * transferred into buffer <tt>dsts[offset+k]</tt>, as if by an
+     * invocation of the {@link #receive(ByteBuffer) receive} method, and its
+     * source address is stored in <tt>sources[offset+k]</tt>.  The elements
+     * of the <tt>sources</tt> array beyond those for the datagrams received
+     * are not modified.
+     *
+     * <p> If this channel is in blocking mode then this method blocks until
+     * at least one datagram has been received; any further datagrams are
+     * received only if they are immediately available.  If this channel is
+     * in non-blocking mode then this method receives only the datagrams that
+     * are immediately available, and returns zero if there are none.
+     *
+     * <p> If an I/O error occurs after at least one datagram has been
+     * received then this method returns the number of datagrams received;
+     * the error, if it persists, will be reported by the next I/O operation
+     * upon this channel.  Other exceptions are thrown even when datagrams
+     * have been received, their contents then being in the buffers.
+     *
+     * <p> The default implementation of this method invokes the {@link
+     * #receive(ByteBuffer) receive} method once for each datagram and, when
+     * this channel is in blocking mode, returns after receiving the first.
+     * Implementations are encouraged to override it to receive the whole
+     * batch with a single system call where the operating system provides
+     * one, such as <tt>recvmmsg</tt> on Linux.  </p>
+     *
+     * @param  dsts
+     *         The buffers into which the datagrams are to be transferred
+     *
+     * @param  sources
+     *         The array into which the source addresses of the datagrams
+     *         are to be stored, or <tt>null</tt> if they are not required
+     *
+     * @param  offset
+     *         The offset within the arrays of the first buffer into which
+     *         a datagram is to be transferred; must be non-negative and no
+     *         larger than <tt>dsts.length</tt>
+     *
+     * @param  length
+     *         The maximum number of datagrams to be received; must be
+     *         non-negative and no larger than <tt>dsts.length</tt>
+     *         &nbsp;-&nbsp;<tt>offset</tt>
+     *
+     * @return  The number of datagrams received, possibly zero if this
+     *          channel is in non-blocking mode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt> and
+     *          <tt>length</tt> parameters do not hold, or if
+     *          <tt>sources</tt> is not <tt>null</tt> and is shorter than
+     *          <tt>offset+length</tt>
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the read operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the read operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  SecurityException
+     *          If a security manager has been installed
+     *          and it does not permit datagrams to be accepted
+     *          from the sender of a datagram
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public int receive(ByteBuffer[] dsts, SocketAddress[] sources,
+                       int offset, int length)
+        throws IOException
+    {
+        checkBatch(dsts.length, sources, offset, length);
+        boolean blocking = isBlocking();
+        int n = 0;
+        while (n < length) {
+            SocketAddress sa;
+            try {
+                sa = receive(dsts[offset + n]);
+            } catch (IOException x) {
+                if (n == 0)
+                    throw x;
+                break;
+            }
+            if (sa == null)
+                break;
+            if (sources != null)
+                sources[offset + n] = sa;
+            n++;
+            if (blocking)
+                break;
+        }
+        return n;
+    }
+
+    /**
+     * Receives a sequence of datagrams via this channel into the given
+     * buffers.
+     *
+     * <p> An invocation of this method of the form
+     * <tt>c.receive(dsts,&nbsp;sources)</tt> behaves in exactly the same
+     * manner as the invocation
+     *
+     * <blockquote><pre>
+     * c.receive(dsts, sources, 0, dsts.length);</pre></blockquote>
+     *
+     * @param  dsts
+     *         The buffers into which the datagrams are to be transferred
+     *
+     * @param  sources
+     *         The array into which the source addresses of the datagrams
+     *         are to be stored, or <tt>null</tt> if they are not required
+     *
+     * @return  The number of datagrams received, possibly zero if this
+     *          channel is in non-blocking mode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>sources</tt> is not <tt>null</tt> and is shorter
+     *          than <tt>dsts</tt>
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @see #receive(ByteBuffer[], SocketAddress[], int, int)
+     * @since 1.8
+     */
+    public final int receive(ByteBuffer[] dsts, SocketAddress[] sources)
+        throws IOException
+    {
+        return receive(dsts, sources, 0, dsts.length);
+    }
+
+    /**
+     * Sends a sequence of datagrams via this channel from a subsequence of
+     * the given buffers.
+     *
+     * <p> An invocation of this method attempts to send up to <i>length</i>
+     * datagrams, where <i>length</i> is the number of buffers in the given
+     * subsequence.  The <i>k</i>th datagram consists of the remaining bytes
+     * of buffer <tt>srcs[offset+k]</tt> and is sent to the address
+     * <tt>targets[offset+k]</tt>, as if by an invocation of the {@link
+     * #send(ByteBuffer,SocketAddress) send} method.  If <tt>targets</tt> is
+     * <tt>null</tt> then this channel's socket must be connected and each
+     * datagram is sent to the socket's peer, as if by an invocation of the
+     * {@link #write(ByteBuffer) write} method.
+     *
+     * <p> If this channel is in blocking mode then this method sends every
+     * datagram of the subsequence.  If this channel is in non-blocking mode
+     * then it stops at the first datagram for which there is insufficient
+     * room in the underlying output buffer.  Datagrams are sent in order,
+     * so the datagrams sent are always those of the first buffers of the
+     * subsequence.
+     *
+     * <p> If an I/O error occurs after at least one datagram has been sent
+     * then this method returns the number of datagrams sent; the error, if
+     * it persists, will be reported by the next I/O operation upon this
+     * channel.  Any other exception, such as a <tt>SecurityException</tt>
+     * for a later target, is thrown even though datagrams have been sent.
+     *
+     * <p> The default implementation of this method invokes the {@link
+     * #send(ByteBuffer,SocketAddress) send} or {@link #write(ByteBuffer)
+     * write} method once for each datagram.  Implementations are encouraged
+     * to override it to send the whole batch with a single system call
+     * where the operating system provides one, such as <tt>sendmmsg</tt> on
+     * Linux.  </p>
+     *
+     * @param  srcs
+     *         The buffers containing the datagrams to be sent
+     *
+     * @param  targets
+     *         The addresses to which the datagrams are to be sent, or
+     *         <tt>null</tt> to send them to the peer of this channel's
+     *         connected socket
+     *
+     * @param  offset
+     *         The offset within the arrays of the first buffer from which
+     *         a datagram is to be sent; must be non-negative and no larger
+     *         than <tt>srcs.length</tt>
+     *
+     * @param  length
+     *         The maximum number of datagrams to be sent; must be
+     *         non-negative and no larger than <tt>srcs.length</tt>
+     *         &nbsp;-&nbsp;<tt>offset</tt>
+     *
+     * @return  The number of datagrams sent, which will be <tt>length</tt>
+     *          unless this channel is in non-blocking mode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt> and
+     *          <tt>length</tt> parameters do not hold, or if
+     *          <tt>targets</tt> is not <tt>null</tt> and is shorter than
+     *          <tt>offset+length</tt>
+     *
+     * @throws  NotYetConnectedException
+     *          If <tt>targets</tt> is <tt>null</tt> and this channel's
+     *          socket is not connected
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the write operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the write operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  SecurityException
+     *          If a security manager has been installed
+     *          and it does not permit datagrams to be sent
+     *          to one of the target addresses
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public int send(ByteBuffer[] srcs, SocketAddress[] targets,
+                    int offset, int length)
+        throws IOException
+    {
+        checkBatch(srcs.length, targets, offset, length);
+        int n = 0;
+        while (n < length) {
+            ByteBuffer src = srcs[offset + n];
+            boolean empty = !src.hasRemaining();
+            int sent;
+            try {
+                if (targets == null) {
+                    sent = write(src);
+                } else {
+                    sent = send(src, targets[offset + n]);
+                }
+            } catch (IOException x) {
+                if (n == 0)
+                    throw x;
+                break;
+            }
+            // zero is also returned when an empty datagram is sent
+            if (sent == 0 && !empty)
+                break;
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Sends a sequence of datagrams via this channel from the given
+     * buffers.
+     *
+     * <p> An invocation of this method of the form
+     * <tt>c.send(srcs,&nbsp;targets)</tt> behaves in exactly the same manner
+     * as the invocation
+     *
+     * <blockquote><pre>
+     * c.send(srcs, targets, 0, srcs.length);</pre></blockquote>
+     *
+     * @param  srcs
+     *         The buffers containing the datagrams to be sent
+     *
+     * @param  targets
+     *         The addresses to which the datagrams are to be sent, or
+     *         <tt>null</tt> to send them to the peer of this channel's
+     *         connected socket
+     *
+     * @return  The number of datagrams sent, which will be
+     *          <tt>srcs.length</tt> unless this channel is in non-blocking
+     *          mode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>targets</tt> is not <tt>null</tt> and is shorter
+     *          than <tt>srcs</tt>
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @see #send(ByteBuffer[], SocketAddress[], int, int)
+     * @since 1.8
+     */
+    public final int send(ByteBuffer[] srcs, SocketAddress[] targets)
+        throws IOException
+    {
+        return send(srcs, targets, 0, srcs.length);
+    }
+
+    private static void checkBatch(int count, SocketAddress[] addresses,
+                                   int offset, int length)
+    {
+        if ((offset < 0) || (length < 0) || (offset > count - length))
+            throw new IndexOutOfBoundsException();
+        if ((addresses != null) && (addresses.length - length < offset))
+            throw new IndexOutOfBoundsException();
+    }
+
 
     // -- ByteChannel operations --
 
@@ -620,6 +620,163 @@ public abstract class FileChannel
                                     WritableByteChannel target)
         throws IOException;
 
+    /**
+     * Size up to which the file region of a gathering transfer is read into
+     * memory and written together with the headers and trailers.
+     */
+    private static final int GATHER_THRESHOLD = 32 * 1024;
+
+    /**
+     * Transfers a region of this channel's file to the given writable byte
+     * channel, preceded by the remaining bytes of the given header buffers
+     * and followed by the remaining bytes of the given trailer buffers, as
+     * for a response made of a protocol header, a file, and a trailer.
+     *
+     * <p> The transfer uses as few operations as possible.  If the target is
+     * a {@link GatheringByteChannel}, the headers are written with a single
+     * gathering write, the region with {@link
+     * #transferTo(long,long,WritableByteChannel) transferTo}, which many
+     * operating systems perform without copying the file data, and the
+     * trailers with a single gathering write.  A small region is instead
+     * read into memory and written with the headers and trailers in a
+     * single gathering write.  Several regions, of the same or different
+     * files, may be pipelined by passing the header of each region along
+     * with the trailer of the previous one.
+     *
+     * <p> If the target channel is in blocking mode then all of the bytes
+     * are transferred, unless this channel's file contains fewer than
+     * <tt>count</tt> bytes starting at the given <tt>position</tt>.  If it
+     * is non-blocking then fewer bytes may be transferred; the positions of
+     * the header and trailer buffers are updated to reflect the bytes
+     * written from them, and the number of bytes transferred from the file
+     * is the returned value less those bytes, so that the transfer may be
+     * resumed.  This method does not modify this channel's position.  </p>
+     *
+     * @param  headers
+     *         The buffers to write before the file region, or <tt>null</tt>
+     *
+     * @param  position
+     *         The position within the file at which the transfer is to begin;
+     *         must be non-negative
+     *
+     * @param  count
+     *         The maximum number of bytes to be transferred from the file;
+     *         must be non-negative
+     *
+     * @param  trailers
+     *         The buffers to write after the file region, or <tt>null</tt>
+     *
+     * @param  target
+     *         The target channel
+     *
+     * @return  The number of bytes, possibly zero, that were actually
+     *          written to the target channel, from the headers, the file
+     *          and the trailers
+     *
+     * @throws IllegalArgumentException
+     *         If the preconditions on the parameters do not hold
+     *
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     *
+     * @throws  NonWritableChannelException
+     *          If the target channel was not opened for writing
+     *
+     * @throws  ClosedChannelException
+     *          If either this channel or the target channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes either channel
+     *          while the transfer is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread while the
+     *          transfer is in progress, thereby closing both channels and
+     *          setting the current thread's interrupt status
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public long transferTo(ByteBuffer[] headers, long position, long count,
+                           ByteBuffer[] trailers, WritableByteChannel target)
+        throws IOException
+    {
+        if (position < 0 || count < 0)
+            throw new IllegalArgumentException();
+        if (headers == null)
+            headers = new ByteBuffer[0];
+        if (trailers == null)
+            trailers = new ByteBuffer[0];
+        long size = size();
+        count = (position > size) ? 0 : Math.min(count, size - position);
+
+        if (count <= GATHER_THRESHOLD) {
+            // one read of the region, and one gathering write of everything
+            ByteBuffer body = ByteBuffer.allocate((int)count);
+            while (body.hasRemaining()) {
+                if (read(body, position + body.position()) < 0)
+                    break;
+            }
+            body.flip();
+            ByteBuffer[] srcs = new ByteBuffer[headers.length + 1 +
+                                               trailers.length];
+            System.arraycopy(headers, 0, srcs, 0, headers.length);
+            srcs[headers.length] = body;
+            System.arraycopy(trailers, 0, srcs, headers.length + 1,
+                             trailers.length);
+            return drainTo(srcs, target);
+        }
+
+        long written = drainTo(headers, target);
+        for (ByteBuffer header : headers) {
+            if (header.hasRemaining())
+                return written;         // target is full
+        }
+        long transferred = 0;
+        while (transferred < count) {
+            long n = transferTo(position + transferred, count - transferred,
+                                target);
+            if (n <= 0)
+                break;
+            transferred += n;
+        }
+        written += transferred;
+        if (transferred < count && position + transferred < size())
+            return written;             // target is full
+        return written + drainTo(trailers, target);
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffers to the target, with
+     * gathering writes if possible, until they are all written or the target
+     * accepts no more, and returns the number of bytes written.
+     */
+    private static long drainTo(ByteBuffer[] srcs, WritableByteChannel target)
+        throws IOException
+    {
+        long written = 0;
+        int first = 0;
+        while (first < srcs.length) {
+            if (!srcs[first].hasRemaining()) {
+                first++;
+                continue;
+            }
+            long n;
+            if (target instanceof GatheringByteChannel) {
+                n = ((GatheringByteChannel)target).write(srcs, first,
+                                                         srcs.length - first);
+            } else {
+                n = target.write(srcs[first]);
+            }
+            if (n <= 0)
+                break;
+            written += n;
+        }
+        return written;
+    }
+
     /**
      * Transfers bytes into this channel's file from the given readable byte
      * channel.
@@ -916,6 +1073,71 @@ public abstract class FileChannel
                                          long position, long size)
         throws IOException;
 
+    /**
+     * Maps a region of this channel's file, of any size, directly into
+     * memory.
+     *
+     * <p> This method behaves as the {@link #map map} method does, except
+     * that the size of the region is not limited to {@link
+     * java.lang.Integer#MAX_VALUE} bytes: the region is returned as a
+     * {@link MappedMemory}, whose content is addressed by <tt>long</tt>
+     * offsets, rather than as a single buffer.  The mapping remains valid
+     * until the returned object is {@link MappedMemory#unmap() unmapped} or
+     * garbage-collected.  </p>
+     *
+     * <p> A region cannot be mapped in {@link MapMode#PRIVATE PRIVATE} mode:
+     * it is implemented by several overlapping mappings of the file, and a
+     * private change made through one of them would not be visible through
+     * the others.  </p>
+     *
+     * @param  mode
+     *         One of the constants {@link MapMode#READ_ONLY READ_ONLY} or
+     *         {@link MapMode#READ_WRITE READ_WRITE} defined in the {@link
+     *         MapMode} class
+     *
+     * @param  position
+     *         The position within the file at which the mapped region
+     *         is to start; must be non-negative
+     *
+     * @param  size
+     *         The size of the region to be mapped; must be non-negative
+     *
+     * @return  The mapped region
+     *
+     * @throws NonReadableChannelException
+     *         If the <tt>mode</tt> is {@link MapMode#READ_ONLY READ_ONLY} but
+     *         this channel was not opened for reading
+     *
+     * @throws NonWritableChannelException
+     *         If the <tt>mode</tt> is {@link MapMode#READ_WRITE READ_WRITE}
+     *         but this channel was not opened for both reading and writing
+     *
+     * @throws IllegalArgumentException
+     *         If the preconditions on the parameters do not hold, or the
+     *         <tt>mode</tt> is {@link MapMode#PRIVATE PRIVATE}
+     *
+     * @throws IOException
+     *         If some other I/O error occurs
+     *
+     * @see #map
+     * @since 1.8
+     */
+    public MappedMemory mapMemory(MapMode mode, long position, long size)
+        throws IOException
+    {
+        if (mode == null)
+            throw new NullPointerException();
+        if (mode == MapMode.PRIVATE)
+            throw new IllegalArgumentException("Private mode not supported");
+        if (position < 0L)
+            throw new IllegalArgumentException("Negative position");
+        if (size < 0L)
+            throw new IllegalArgumentException("Negative size");
+        if (position + size < 0)
+            throw new IllegalArgumentException("Position + size overflow");
+        return new MappedMemory(this, mode, position, size);
+    }
+
 
     // -- Locks --
 
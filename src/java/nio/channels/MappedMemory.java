@@ -0,0 +1,867 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.channels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A region of a file mapped into memory, addressed by {@code long}
+ * offsets, so that a region of any size can be mapped at once.
+ *
+ * <p> A mapped memory region is created by the {@link
+ * FileChannel#mapMemory FileChannel.mapMemory} method.  Its offsets range
+ * from zero to its {@link #size() size}, exclusive, and correspond to the
+ * positions of the file from the position at which it was mapped.  It
+ * provides absolute get and put operations for all of the primitive types,
+ * bulk copies between the region and arrays or buffers, and {@link
+ * #slice(long,int) views} of parts of the region as byte buffers.  Values
+ * of more than one byte are read and written in the {@link #order() byte
+ * order} of the region, initially {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}.
+ *
+ * <p> The region is implemented by a sequence of mapped byte buffers,
+ * each starting a multiple of 2<sup>30</sup> bytes into the region and,
+ * except at its end, mapping 2<sup>31</sup>&nbsp;-&nbsp;1 bytes.  The
+ * buffers overlap, so that any value, bulk access or view of up to
+ * {@link #MAX_SLICE_SIZE} bytes lies within a single buffer; a region
+ * therefore uses about twice its size in virtual address space, but not
+ * in memory.  Since the buffers are distinct mappings of the same part of
+ * the file, they share their content only if the region is not private,
+ * and so a region cannot be mapped in {@link FileChannel.MapMode#PRIVATE
+ * PRIVATE} mode.
+ *
+ * <p> The content of the region, and the {@link #isOpen() unmapping} of
+ * the region, behave as described for {@link MappedByteBuffer}.  A region
+ * may be used by multiple concurrent threads, except that it must not be
+ * accessed, by any thread, once {@link #unmap() unmap} has been invoked.
+ *
+ * @see FileChannel#mapMemory
+ * @see MappedByteBuffer
+ * @since 1.8
+ */
+public final class MappedMemory {
+
+    /**
+     * The distance between the starts of consecutive buffers.
+     */
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    /**
+     * The maximum length of a view, and of the part of a bulk operation
+     * that is performed on a single buffer.
+     */
+    public static final int MAX_SLICE_SIZE = (int)(Integer.MAX_VALUE - CHUNK_SIZE);
+
+    private final long size;
+    private final boolean readOnly;
+    private volatile ByteBuffer[] buffers;   // null once unmapped
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+    /**
+     * Maps the given region of the file of the given channel.
+     */
+    MappedMemory(FileChannel channel, FileChannel.MapMode mode,
+                 long position, long size)
+        throws java.io.IOException
+    {
+        int n = (int)((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        ByteBuffer[] bufs = new ByteBuffer[Math.max(n, 1)];
+        try {
+            for (int i = 0; i < bufs.length; i++) {
+                long start = i * CHUNK_SIZE;
+                long length = Math.min(size - start, Integer.MAX_VALUE);
+                bufs[i] = channel.map(mode, position + start, length);
+            }
+        } catch (java.io.IOException | RuntimeException | Error x) {
+            unmap(bufs);
+            throw x;
+        }
+        this.size = size;
+        this.readOnly = (mode == FileChannel.MapMode.READ_ONLY);
+        this.buffers = bufs;
+    }
+
+    /**
+     * Returns the size of this region.
+     *
+     * @return  The number of bytes in this region
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Tells whether this region is read-only, having been mapped with
+     * {@link FileChannel.MapMode#READ_ONLY READ_ONLY}.
+     *
+     * @return  <tt>true</tt> if this region is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Tells whether this region is still mapped.
+     *
+     * @return  <tt>true</tt> if {@link #unmap() unmap} has not been invoked
+     */
+    public boolean isOpen() {
+        return buffers != null;
+    }
+
+    /**
+     * Retrieves the byte order of this region.
+     *
+     * @return  This region's byte order
+     */
+    public ByteOrder order() {
+        return order;
+    }
+
+    /**
+     * Modifies the byte order of this region, in which its multi-byte values
+     * are read and written.  The byte order must not be modified while
+     * other threads access the region.
+     *
+     * @param  bo
+     *         The new byte order
+     *
+     * @return  This region
+     */
+    public MappedMemory order(ByteOrder bo) {
+        if (bo == null)
+            throw new NullPointerException();
+        for (ByteBuffer b : buffers())
+            b.order(bo);
+        order = bo;
+        return this;
+    }
+
+    private ByteBuffer[] buffers() {
+        ByteBuffer[] bufs = buffers;
+        if (bufs == null)
+            throw new IllegalStateException("Region is unmapped");
+        return bufs;
+    }
+
+    /*
+     * Checks that the given range is within the region, and returns the
+     * buffer in which it lies; the range starts at offset & (CHUNK_SIZE - 1)
+     * in that buffer.
+     */
+    private ByteBuffer buffer(long offset, int length) {
+        if (offset < 0 || length > size - offset)
+            throw new IndexOutOfBoundsException(
+                "offset " + offset + ", length " + length + ", size " + size);
+        ByteBuffer[] bufs = buffers();
+        // an empty range at the end of the region may lie past the start
+        // of the last buffer
+        return bufs[(int)Math.min(offset / CHUNK_SIZE, bufs.length - 1)];
+    }
+
+    private static int index(long offset) {
+        return (int)(offset & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Reads the byte at the given offset.
+     *
+     * @param  offset
+     *         The offset from which the byte will be read
+     *
+     * @return  The byte at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public byte get(long offset) {
+        return buffer(offset, 1).get(index(offset));
+    }
+
+    /**
+     * Writes the given byte at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the byte will be written
+     *
+     * @param  b
+     *         The byte value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory put(long offset, byte b) {
+        buffer(offset, 1).put(index(offset), b);
+        return this;
+    }
+
+    /**
+     * Reads the char value at the given offset, composing two bytes
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The char value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus one
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public char getChar(long offset) {
+        return buffer(offset, 2).getChar(index(offset));
+    }
+
+    /**
+     * Writes two bytes containing the given char value, in the current
+     * byte order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The char value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus one
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory putChar(long offset, char value) {
+        buffer(offset, 2).putChar(index(offset), value);
+        return this;
+    }
+
+    /**
+     * Reads the short value at the given offset, composing two bytes
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The short value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus one
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public short getShort(long offset) {
+        return buffer(offset, 2).getShort(index(offset));
+    }
+
+    /**
+     * Writes two bytes containing the given short value, in the current
+     * byte order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The short value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus one
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory putShort(long offset, short value) {
+        buffer(offset, 2).putShort(index(offset), value);
+        return this;
+    }
+
+    /**
+     * Reads the int value at the given offset, composing four bytes
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The int value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus three
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public int getInt(long offset) {
+        return buffer(offset, 4).getInt(index(offset));
+    }
+
+    /**
+     * Writes four bytes containing the given int value, in the current
+     * byte order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The int value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus three
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory putInt(long offset, int value) {
+        buffer(offset, 4).putInt(index(offset), value);
+        return this;
+    }
+
+    /**
+     * Reads the long value at the given offset, composing eight bytes
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The long value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus seven
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public long getLong(long offset) {
+        return buffer(offset, 8).getLong(index(offset));
+    }
+
+    /**
+     * Writes eight bytes containing the given long value, in the current
+     * byte order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The long value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus seven
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory putLong(long offset, long value) {
+        buffer(offset, 8).putLong(index(offset), value);
+        return this;
+    }
+
+    /**
+     * Reads the float value at the given offset, composing four bytes
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The float value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus three
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public float getFloat(long offset) {
+        return buffer(offset, 4).getFloat(index(offset));
+    }
+
+    /**
+     * Writes four bytes containing the given float value, in the current
+     * byte order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The float value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus three
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory putFloat(long offset, float value) {
+        buffer(offset, 4).putFloat(index(offset), value);
+        return this;
+    }
+
+    /**
+     * Reads the double value at the given offset, composing eight bytes
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The double value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus seven
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public double getDouble(long offset) {
+        return buffer(offset, 8).getDouble(index(offset));
+    }
+
+    /**
+     * Writes eight bytes containing the given double value, in the current
+     * byte order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The double value to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     *          of this region, minus seven
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory putDouble(long offset, double value) {
+        buffer(offset, 8).putDouble(index(offset), value);
+        return this;
+    }
+
+    /**
+     * Creates a byte buffer whose content is the given part of this region.
+     * Changes to the content of this region will be visible in the buffer,
+     * and vice versa.  The buffer is direct, read-only if this region is
+     * read-only, and has the current byte order of this region; its
+     * position is zero and its capacity and limit are the given length.
+     * The buffer must not be accessed once this region has been unmapped.
+     *
+     * @param  offset
+     *         The offset in this region of the content of the buffer
+     *
+     * @param  length
+     *         The capacity of the buffer; must be no greater than
+     *         {@link #MAX_SLICE_SIZE}
+     *
+     * @return  The new byte buffer
+     *
+     * @throws  IllegalArgumentException
+     *          If <tt>length</tt> is negative or greater than
+     *          {@link #MAX_SLICE_SIZE}
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the given part is not within this region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public ByteBuffer slice(long offset, int length) {
+        if (length < 0 || length > MAX_SLICE_SIZE)
+            throw new IllegalArgumentException("Illegal length: " + length);
+        ByteBuffer b = buffer(offset, length).duplicate();
+        int index = Math.min(index(offset), b.capacity() - length);
+        b.limit(index + length);
+        b.position(index);
+        return b.slice().order(order);
+    }
+
+    /**
+     * Copies bytes from this region into the given array.
+     *
+     * @param  offset
+     *         The offset in this region of the first byte to copy
+     *
+     * @param  dst
+     *         The array into which bytes are to be written
+     *
+     * @param  off
+     *         The offset within the array of the first byte to be written
+     *
+     * @param  length
+     *         The number of bytes to copy
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the given parts of this region or of the array do not
+     *          exist
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory get(long offset, byte[] dst, int off, int length) {
+        checkBounds(off, length, dst.length);
+        while (length > 0) {
+            int n = Math.min(length, MAX_SLICE_SIZE);
+            slice(offset, n).get(dst, off, n);
+            offset += n;
+            off += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes from the given array into this region.
+     *
+     * @param  offset
+     *         The offset in this region at which the first byte is to be
+     *         written
+     *
+     * @param  src
+     *         The array from which bytes are to be read
+     *
+     * @param  off
+     *         The offset within the array of the first byte to be read
+     *
+     * @param  length
+     *         The number of bytes to copy
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the given parts of this region or of the array do not
+     *          exist
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory put(long offset, byte[] src, int off, int length) {
+        checkBounds(off, length, src.length);
+        while (length > 0) {
+            int n = Math.min(length, MAX_SLICE_SIZE);
+            slice(offset, n).put(src, off, n);
+            offset += n;
+            off += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes from this region into the given buffer: the remaining
+     * bytes of the buffer are written, and its position is set to its
+     * limit.
+     *
+     * @param  offset
+     *         The offset in this region of the first byte to copy
+     *
+     * @param  dst
+     *         The buffer into which bytes are to be written
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the given part of this region does not exist
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If the buffer is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory get(long offset, ByteBuffer dst) {
+        buffer(offset, dst.remaining());
+        while (dst.hasRemaining()) {
+            int n = Math.min(dst.remaining(), MAX_SLICE_SIZE);
+            dst.put(slice(offset, n));
+            offset += n;
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes from the given buffer into this region: the remaining
+     * bytes of the buffer are read, and its position is set to its limit.
+     *
+     * @param  offset
+     *         The offset in this region at which the first byte is to be
+     *         written
+     *
+     * @param  src
+     *         The buffer from which bytes are to be read
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the given part of this region does not exist
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory put(long offset, ByteBuffer src) {
+        buffer(offset, src.remaining());
+        while (src.hasRemaining()) {
+            int n = Math.min(src.remaining(), MAX_SLICE_SIZE);
+            ByteBuffer part = src.duplicate();
+            part.limit(part.position() + n);
+            slice(offset, n).put(part);
+            src.position(src.position() + n);
+            offset += n;
+        }
+        return this;
+    }
+
+    /**
+     * Copies bytes between two parts of this region, as if the bytes were
+     * first copied to a temporary array; the parts may overlap.
+     *
+     * @param  srcOffset
+     *         The offset of the first byte to be copied
+     *
+     * @param  dstOffset
+     *         The offset at which the first byte is to be written
+     *
+     * @param  length
+     *         The number of bytes to copy
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the given parts of this region do not exist
+     *
+     * @throws  java.nio.ReadOnlyBufferException
+     *          If this region is read-only
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory copy(long srcOffset, long dstOffset, long length) {
+        if (length < 0 || srcOffset < 0 || dstOffset < 0 ||
+            srcOffset > size - length || dstOffset > size - length)
+            throw new IndexOutOfBoundsException();
+        int step = MAX_SLICE_SIZE / 2;
+        if (dstOffset <= srcOffset || dstOffset >= srcOffset + length) {
+            // forward, in pieces that do not overlap beyond a piece
+            for (long done = 0; done < length; ) {
+                int n = (int)Math.min(length - done, step);
+                copyPiece(srcOffset + done, dstOffset + done, n);
+                done += n;
+            }
+        } else {
+            // backward, so that bytes are read before being overwritten
+            for (long left = length; left > 0; ) {
+                int n = (int)Math.min(left, step);
+                left -= n;
+                copyPiece(srcOffset + left, dstOffset + left, n);
+            }
+        }
+        return this;
+    }
+
+    /*
+     * Copies a piece within one slice covering source and destination if
+     * they are close, so that overlapping copies are correct; otherwise
+     * between two slices.
+     */
+    private void copyPiece(long src, long dst, int n) {
+        long lo = Math.min(src, dst);
+        long span = Math.max(src, dst) + n - lo;
+        if (span <= MAX_SLICE_SIZE) {
+            ByteBuffer b = slice(lo, (int)span);
+            ByteBuffer from = b.duplicate();
+            from.position((int)(src - lo)).limit((int)(src - lo) + n);
+            b.position((int)(dst - lo));
+            // a buffer's bulk put of an overlapping duplicate behaves as
+            // if the bytes were copied to a temporary array first
+            b.put(from);
+        } else {
+            slice(dst, n).put(slice(src, n));
+        }
+    }
+
+    /**
+     * Loads the content of this region into physical memory, as
+     * {@link MappedByteBuffer#load()} does.
+     *
+     * @return  This region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory load() {
+        for (ByteBuffer b : buffers())
+            ((MappedByteBuffer)b).load();
+        return this;
+    }
+
+    /**
+     * Forces any changes made to the content of this region to be written
+     * to the storage device containing the mapped file, as
+     * {@link MappedByteBuffer#force()} does.
+     *
+     * @return  This region
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory force() {
+        return force(0, size);
+    }
+
+    /**
+     * Forces any changes made to the given part of this region to be
+     * written to the storage device containing the mapped file, as
+     * {@link MappedByteBuffer#force()} does.  Each of the underlying
+     * buffers that contain the given part is forced in full, so changes to
+     * other parts of the region, within 2<sup>31</sup> bytes of the given
+     * part, may also be written.
+     *
+     * @param  offset
+     *         The offset of the first byte of the part
+     *
+     * @param  length
+     *         The length of the part
+     *
+     * @return  This region
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the given part of this region does not exist
+     *
+     * @throws  IllegalStateException
+     *          If this region has been unmapped
+     */
+    public MappedMemory force(long offset, long length) {
+        if (offset < 0 || length < 0 || length > size - offset)
+            throw new IndexOutOfBoundsException();
+        ByteBuffer[] bufs = buffers();
+        if (readOnly || length == 0)
+            return this;
+        // the buffers whose first CHUNK_SIZE bytes hold the part
+        int first = (int)(offset / CHUNK_SIZE);
+        int last = (int)((offset + length - 1) / CHUNK_SIZE);
+        for (int i = first; i <= last; i++)
+            ((MappedByteBuffer)bufs[i]).force();
+        return this;
+    }
+
+    /**
+     * Unmaps this region, releasing its virtual address space without
+     * waiting for it to be garbage collected.  Once this method has been
+     * invoked, this region and any buffer obtained from its {@link
+     * #slice(long,int) slice} method must not be accessed: subsequent
+     * operations on the region throw {@link IllegalStateException}, but
+     * an access to a slice, or an access by another thread concurrent with
+     * this method, may cause unspecified behaviour, including the abnormal
+     * termination of the virtual machine.  Invoking this method on an
+     * unmapped region has no effect.
+     */
+    public void unmap() {
+        ByteBuffer[] bufs;
+        synchronized (this) {
+            bufs = buffers;
+            buffers = null;
+        }
+        if (bufs != null)
+            unmap(bufs);
+    }
+
+    private static void unmap(ByteBuffer[] bufs) {
+        for (ByteBuffer b : bufs) {
+            if (b instanceof DirectBuffer) {
+                Cleaner cl = ((DirectBuffer)b).cleaner();
+                if (cl != null)
+                    cl.clean();
+            }
+        }
+    }
+
+    private static void checkBounds(int off, int len, int size) {
+        if ((off | len | (off + len) | (size - (off + len))) < 0)
+            throw new IndexOutOfBoundsException();
+    }
+}
@@ -28,7 +28,10 @@ package java.nio.channels;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 
 /**
@@ -349,6 +352,151 @@ public abstract class Selector implements Closeable {
      */
     public abstract int select() throws IOException;
 
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.
+     *
+     * This method performs a blocking <a href="#selop">selection
+     * operation</a>, as the {@link #select(long)} method does, except that the
+     * selected keys are not left in the selected-key set: the given action is
+     * invoked, in the current thread, with each key whose channel was
+     * detected to be ready by the operation, and the selected-key set is
+     * empty when this method returns.  The action may be invoked for a key
+     * whose channel is ready for an operation for which it was already ready
+     * before the selection operation.  If the action closes this selector
+     * then a {@link ClosedSelectorException} is thrown once it returns.
+     *
+     * The selected keys are copied into an array that the selector reuses
+     * from one selection operation to the next, rather than allocating one
+     * for each operation.  The action may itself invoke a selection operation
+     * on this selector, which selects and handles its own keys.  Keys in the
+     * selected-key set before the operation are removed from it without the
+     * action being invoked. </p>
+     *
+     * @param  action   The action to perform
+     *
+     * @param  timeout  If positive, block for up to <tt>timeout</tt>
+     *                  milliseconds, more or less, while waiting for a
+     *                  channel to become ready; if zero, block indefinitely;
+     *                  must not be negative
+     *
+     * @return  The number of keys on which the action was performed
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     *
+     * @throws  IllegalArgumentException
+     *          If the value of the timeout argument is negative
+     *
+     * @since 1.8
+     */
+    public int select(Consumer<SelectionKey> action, long timeout)
+        throws IOException
+    {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Negative timeout");
+        return doSelect(Objects.requireNonNull(action), timeout);
+    }
+
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.
+     *
+     * This method performs a blocking <a href="#selop">selection
+     * operation</a>, as the {@link #select()} method does, and then invokes
+     * the given action with each selected key as specified by the {@link
+     * #select(Consumer,long)} method.  </p>
+     *
+     * @param  action   The action to perform
+     *
+     * @return  The number of keys on which the action was performed
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     *
+     * @since 1.8
+     */
+    public int select(Consumer<SelectionKey> action) throws IOException {
+        return select(action, 0);
+    }
+
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.
+     *
+     * This method performs a non-blocking <a href="#selop">selection
+     * operation</a>, as the {@link #selectNow()} method does, and then invokes
+     * the given action with each selected key as specified by the {@link
+     * #select(Consumer,long)} method.  </p>
+     *
+     * @param  action   The action to perform
+     *
+     * @return  The number of keys on which the action was performed
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     *
+     * @since 1.8
+     */
+    public int selectNow(Consumer<SelectionKey> action) throws IOException {
+        return doSelect(Objects.requireNonNull(action), -1);
+    }
+
+    // The array into which selection operations with an action copy the
+    // selected keys, or null while one is using it, so that a selection
+    // operation invoked by the action uses an array of its own; guarded by
+    // this selector
+    private SelectionKey[] readyKeys = new SelectionKey[16];
+
+    /**
+     * Performs a selection operation, a non-blocking one if the timeout is
+     * negative, and invokes the action with each selected key.
+     */
+    private int doSelect(Consumer<SelectionKey> action, long timeout)
+        throws IOException
+    {
+        synchronized (this) {
+            Set<SelectionKey> selectedKeys = selectedKeys();
+            SelectionKey[] keys;
+            int n;
+            synchronized (selectedKeys) {
+                selectedKeys.clear();
+                if (timeout < 0) {
+                    selectNow();
+                } else {
+                    select(timeout);
+                }
+                n = selectedKeys.size();
+                keys = readyKeys;
+                readyKeys = null;
+                if (keys == null)
+                    keys = new SelectionKey[n];
+                keys = selectedKeys.toArray(keys);
+                selectedKeys.clear();
+            }
+            try {
+                for (int i = 0; i < n; i++) {
+                    action.accept(keys[i]);
+                    if (!isOpen())
+                        throw new ClosedSelectorException();
+                }
+            } finally {
+                Arrays.fill(keys, 0, n, null);
+                readyKeys = keys;
+            }
+            return n;
+        }
+    }
+
     /**
      * Causes the first selection operation that has not yet returned to return
      * immediately.
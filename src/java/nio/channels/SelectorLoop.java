@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.channels;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A thread that selects the ready channels of a {@link Selector} and
+ * dispatches them to handlers.
+ *
+ * <p> An event loop owns a selector and a thread, its <em>loop thread</em>,
+ * which repeatedly runs the tasks {@link #execute submitted} to the loop,
+ * applies pending {@link #interestOps interest set} changes, selects, and
+ * invokes the handler of each key that is ready. A channel is {@link
+ * #register registered} with the loop together with its handler, a {@code
+ * Consumer<SelectionKey>} which is the key's {@link SelectionKey#attachment
+ * attachment}. All handlers, and all tasks submitted to the loop, are run by
+ * the loop thread, so that the state of a channel handled by a loop needs no
+ * further synchronization.
+ *
+ * <p> Event loops are created, and shut down, as members of a {@link
+ * SelectorLoopGroup}.
+ *
+ * <p> Other threads interact with the loop by submitting tasks, which are
+ * held in a queue and run in the order submitted, and by changing the
+ * interest sets of its keys with the {@link #interestOps interestOps} method.
+ * The selector is woken up at most once per loop turn, however many tasks
+ * and changes are submitted, and changes made to the interest set of a key
+ * before the loop applies them are coalesced. A handler that throws an
+ * exception causes its key to be cancelled and its channel to be closed; the
+ * exception is then passed to the {@link Thread#getUncaughtExceptionHandler
+ * uncaught exception handler} of the loop thread, and the loop continues.
+ *
+ * @see SelectorLoopGroup
+ * @since 1.8
+ */
+
+public final class SelectorLoop implements Executor {
+    private final SelectorLoopGroup group;
+    private final Selector selector;
+    private final Thread thread;
+
+    // tasks, and pending interest set changes, submitted by other threads
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Map<SelectionKey,Integer> pendingOps = new ConcurrentHashMap<>();
+
+    // true if the selector has been, or is about to be, woken up
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean shutdown;
+    private volatile boolean closeChannels;
+    private volatile int keyCount;
+
+    SelectorLoop(SelectorLoopGroup group, Selector selector,
+                 ThreadFactory threadFactory)
+    {
+        this.group = group;
+        this.selector = selector;
+        this.thread = threadFactory.newThread(this::run);
+        if (thread == null)
+            throw new RejectedExecutionException("Thread not created");
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Returns the group of this event loop.
+     *
+     * @return  The group of this event loop
+     */
+    public SelectorLoopGroup group() {
+        return group;
+    }
+
+    /**
+     * Returns the selector of this event loop. The selector must only be
+     * used by the loop thread, except for the methods that a {@link Selector}
+     * allows any thread to invoke.
+     *
+     * @return  The selector of this event loop
+     */
+    public Selector selector() {
+        return selector;
+    }
+
+    /**
+     * Tells whether the current thread is the loop thread of this event loop.
+     *
+     * @return  <tt>true</tt> if, and only if, the current thread is the loop
+     *          thread
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Returns the number of keys registered with the selector of this event
+     * loop, as of the loop's last turn.
+     *
+     * @return  The approximate number of registered keys
+     */
+    public int keyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Submits a task to be run by the loop thread. Tasks are run in the
+     * order in which they are submitted.
+     *
+     * @param  task
+     *         The task
+     *
+     * @throws  RejectedExecutionException
+     *          If this event loop has been shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task == null)
+            throw new NullPointerException();
+        if (shutdown)
+            throw new RejectedExecutionException("Event loop shut down");
+        tasks.offer(task);
+        // the loop may have drained its queue for the last time since the
+        // test above; the task is rejected unless the loop has taken it
+        if (shutdown && tasks.remove(task))
+            throw new RejectedExecutionException("Event loop shut down");
+        if (!inEventLoop())
+            wakeup();
+    }
+
+    private void wakeup() {
+        if (wakenUp.compareAndSet(false, true))
+            selector.wakeup();
+    }
+
+    /**
+     * Registers a channel with the selector of this event loop. The channel
+     * is registered by the loop thread, and is placed in non-blocking mode if
+     * necessary.
+     *
+     * @param  ch
+     *         The channel to be registered
+     *
+     * @param  ops
+     *         The interest set for the resulting key
+     *
+     * @param  handler
+     *         The handler to be invoked, by the loop thread, with the key
+     *         whenever it is selected
+     *
+     * @return  A future that is completed with the resulting key, or
+     *          exceptionally if the channel cannot be registered
+     *
+     * @throws  RejectedExecutionException
+     *          If this event loop has been shut down
+     */
+    public CompletableFuture<SelectionKey> register(SelectableChannel ch,
+                                                    int ops,
+                                                    Consumer<SelectionKey> handler)
+    {
+        if (ch == null || handler == null)
+            throw new NullPointerException();
+        CompletableFuture<SelectionKey> result = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                if (ch.isBlocking())
+                    ch.configureBlocking(false);
+                result.complete(ch.register(selector, ops, handler));
+            } catch (Throwable x) {
+                result.completeExceptionally(x);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sets the interest set of a key of this event loop. If invoked by the
+     * loop thread, the interest set is set immediately; otherwise it is set
+     * by the loop thread before it next selects, and, if this method is
+     * invoked several times for the same key in the meantime, the last
+     * invocation determines the interest set.
+     *
+     * @param  key
+     *         A key registered with the selector of this event loop
+     *
+     * @param  ops
+     *         The new interest set
+     *
+     * @throws  IllegalArgumentException
+     *          If the key was not registered with the selector of this event
+     *          loop, or if a bit in the set does not correspond to an
+     *          operation that is supported by the key's channel
+     *
+     * @throws  CancelledKeyException
+     *          If the key has been cancelled
+     */
+    public void interestOps(SelectionKey key, int ops) {
+        if (key.selector() != selector)
+            throw new IllegalArgumentException("Key of another selector");
+        if ((ops & ~key.channel().validOps()) != 0)
+            throw new IllegalArgumentException();
+        if (!key.isValid())
+            throw new CancelledKeyException();
+        if (inEventLoop()) {
+            key.interestOps(ops);
+        } else {
+            pendingOps.put(key, ops);
+            wakeup();
+        }
+    }
+
+    /**
+     * Runs the tasks submitted so far, and applies the pending interest set
+     * changes. Returns true if tasks remain.
+     */
+    private boolean runTasks() {
+        if (!pendingOps.isEmpty()) {
+            Iterator<Map.Entry<SelectionKey,Integer>> i =
+                pendingOps.entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<SelectionKey,Integer> e = i.next();
+                SelectionKey key = e.getKey();
+                int ops = e.getValue();
+                // remove only if not changed since read
+                pendingOps.remove(key, ops);
+                try {
+                    key.interestOps(ops);
+                } catch (CancelledKeyException ignore) {
+                    // cancelled since the change was requested
+                }
+            }
+        }
+        // run no more than the tasks present on entry, so that tasks
+        // submitting tasks do not starve the selector
+        for (int n = tasks.size(); n > 0; n--) {
+            Runnable task = tasks.poll();
+            if (task == null)
+                break;
+            try {
+                task.run();
+            } catch (Throwable x) {
+                uncaught(x);
+            }
+        }
+        return !tasks.isEmpty() || !pendingOps.isEmpty();
+    }
+
+    private final Consumer<SelectionKey> dispatcher = this::dispatch;
+
+    /**
+     * Invokes the handler of a selected key.
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatch(SelectionKey key) {
+        Object handler = key.attachment();
+        try {
+            if (key.isValid())
+                ((Consumer<SelectionKey>)handler).accept(key);
+        } catch (Throwable x) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignore) { }
+            uncaught(x);
+        }
+    }
+
+    private void uncaught(Throwable x) {
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, x);
+    }
+
+    private void run() {
+        try {
+            while (!shutdown) {
+                wakenUp.set(false);
+                boolean more = runTasks();
+                keyCount = selector.keys().size();
+                if (more || shutdown) {
+                    selector.selectNow(dispatcher);
+                } else {
+                    selector.select(dispatcher);
+                }
+            }
+            // run the tasks submitted before shutdown
+            while (runTasks());
+        } catch (IOException | ClosedSelectorException x) {
+            uncaught(x);
+        } finally {
+            // the loop may also end with an unexpected exception: no more
+            // tasks are accepted, and those already queued are run, with
+            // the selector closed, so that they do not wait forever
+            shutdown = true;
+            closeSelector();
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable x) {
+                    uncaught(x);
+                }
+            }
+            terminated.countDown();
+        }
+    }
+
+    private void closeSelector() {
+        if (closeChannels) {
+            for (SelectionKey key: selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ignore) { }
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignore) { }
+    }
+
+    /**
+     * Initiates the shutdown of this event loop: tasks submitted before
+     * shutdown are run, the selector is closed, and the loop thread then
+     * terminates. Channels remain open, unless <tt>closeChannels</tt> is
+     * <tt>true</tt>.
+     */
+    void shutdown(boolean closeChannels) {
+        if (closeChannels)
+            this.closeChannels = true;
+        shutdown = true;
+        wakeup();
+    }
+
+    boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException
+    {
+        return terminated.await(timeout, unit);
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.channels;
+
+import java.io.IOException;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A group of {@link SelectorLoop event loops}, among which channels are
+ * distributed.
+ *
+ * <p> A group is created by invoking one of the {@link #open(int,ThreadFactory)
+ * open} methods, which opens a selector, and starts a loop thread, for each
+ * event loop of the group. A channel is {@link #register registered} with the
+ * group together with its handler: the group registers it with the event loop
+ * that has the fewest registered keys, and the channel then remains with that
+ * loop, whose thread invokes the handler whenever the channel is ready. Tasks
+ * that concern a channel may be submitted to its loop, found by the {@link
+ * #loopOf loopOf} method, so that they are run by the thread that handles the
+ * channel. The {@link #next next} method returns the loops in turn.
+ *
+ * <p> A server might, for example, accept connections in one loop and
+ * distribute them among the others:
+ * <pre>
+ *     SelectorLoopGroup group = SelectorLoopGroup.open(4, threadFactory);
+ *     group.register(listener, SelectionKey.OP_ACCEPT, key -&gt; {
+ *         SocketChannel ch = ((ServerSocketChannel)key.channel()).accept();
+ *         if (ch != null)
+ *             group.register(ch, SelectionKey.OP_READ, new Connection(ch));
+ *     });
+ * </pre>
+ *
+ * <a name="shutdown"></a><h2>Shutdown and Termination</h2>
+ *
+ * <p> The {@link #shutdown() shutdown} method initiates an <em>orderly
+ * shutdown</em> of the group: further registrations and tasks are rejected,
+ * each event loop runs the tasks submitted to it before shutdown, closes its
+ * selector, thereby cancelling its keys, and terminates. Channels are not
+ * closed. The {@link #shutdownNow() shutdownNow} method initiates a
+ * <em>forceful shutdown</em>, which also closes all channels registered with
+ * the group. The {@link #awaitTermination awaitTermination} method can be used
+ * to block until all event loops have terminated.
+ *
+ * @see SelectorLoop
+ * @since 1.8
+ */
+
+public final class SelectorLoopGroup {
+    private final SelectorLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    private SelectorLoopGroup(int nLoops, ThreadFactory threadFactory,
+                              SelectorProvider provider)
+        throws IOException
+    {
+        loops = new SelectorLoop[nLoops];
+        try {
+            for (int i = 0; i < nLoops; i++)
+                loops[i] = new SelectorLoop(this, provider.openSelector(),
+                                            threadFactory);
+        } catch (IOException | RuntimeException | Error x) {
+            for (SelectorLoop loop: loops) {
+                if (loop != null) {
+                    try {
+                        loop.selector().close();
+                    } catch (IOException ignore) { }
+                }
+            }
+            throw x;
+        }
+        for (SelectorLoop loop: loops)
+            loop.start();
+    }
+
+    /**
+     * Creates a group of event loops with the selectors of the system-wide
+     * default {@link SelectorProvider}.
+     *
+     * @param   nLoops
+     *          The number of event loops
+     * @param   threadFactory
+     *          The factory to use when creating the loop threads
+     *
+     * @return  A new group of event loops
+     *
+     * @throws  IllegalArgumentException
+     *          If {@code nLoops <= 0}
+     * @throws  IOException
+     *          If an I/O error occurs
+     */
+    public static SelectorLoopGroup open(int nLoops, ThreadFactory threadFactory)
+        throws IOException
+    {
+        return open(nLoops, threadFactory, SelectorProvider.provider());
+    }
+
+    /**
+     * Creates a group of event loops with the selectors of the given
+     * provider.
+     *
+     * @param   nLoops
+     *          The number of event loops
+     * @param   threadFactory
+     *          The factory to use when creating the loop threads
+     * @param   provider
+     *          The provider with which to open the selectors
+     *
+     * @return  A new group of event loops
+     *
+     * @throws  IllegalArgumentException
+     *          If {@code nLoops <= 0}
+     * @throws  IOException
+     *          If an I/O error occurs
+     */
+    public static SelectorLoopGroup open(int nLoops, ThreadFactory threadFactory,
+                                         SelectorProvider provider)
+        throws IOException
+    {
+        if (nLoops <= 0)
+            throw new IllegalArgumentException("'nLoops' must be > 0");
+        if (threadFactory == null || provider == null)
+            throw new NullPointerException();
+        return new SelectorLoopGroup(nLoops, threadFactory, provider);
+    }
+
+    /**
+     * Returns the event loops of this group.
+     *
+     * @return  An unmodifiable list of the event loops
+     */
+    public List<SelectorLoop> loops() {
+        return Collections.unmodifiableList(Arrays.asList(loops));
+    }
+
+    /**
+     * Returns the next event loop of this group, taking the loops in turn.
+     *
+     * @return  An event loop
+     */
+    public SelectorLoop next() {
+        return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+    }
+
+    /**
+     * Returns the event loop of this group with the fewest registered keys,
+     * preferring the loops in turn among those with equally few.
+     */
+    private SelectorLoop leastLoaded() {
+        int start = Math.floorMod(next.getAndIncrement(), loops.length);
+        SelectorLoop least = loops[start];
+        for (int i = 1; i < loops.length; i++) {
+            SelectorLoop loop = loops[(start + i) % loops.length];
+            if (loop.keyCount() < least.keyCount())
+                least = loop;
+        }
+        return least;
+    }
+
+    /**
+     * Returns the event loop of this group with whose selector the given key
+     * is registered.
+     *
+     * @param   key
+     *          A selection key
+     *
+     * @return  The event loop of the key, or {@code null} if the key is not
+     *          registered with an event loop of this group
+     */
+    public SelectorLoop loopOf(SelectionKey key) {
+        Selector sel = key.selector();
+        for (SelectorLoop loop: loops) {
+            if (loop.selector() == sel)
+                return loop;
+        }
+        return null;
+    }
+
+    /**
+     * Registers a channel with the event loop of this group with the fewest
+     * registered keys, as if by invoking that loop's {@link
+     * SelectorLoop#register register} method.
+     *
+     * @param  ch
+     *         The channel to be registered
+     * @param  ops
+     *         The interest set for the resulting key
+     * @param  handler
+     *         The handler to be invoked, by the loop thread, with the key
+     *         whenever it is selected
+     *
+     * @return  A future that is completed with the resulting key, or
+     *          exceptionally if the channel cannot be registered
+     *
+     * @throws  java.util.concurrent.RejectedExecutionException
+     *          If this group has been shut down
+     */
+    public CompletableFuture<SelectionKey> register(SelectableChannel ch,
+                                                    int ops,
+                                                    Consumer<SelectionKey> handler)
+    {
+        return leastLoaded().register(ch, ops, handler);
+    }
+
+    /**
+     * Sets the interest set of a key registered with an event loop of this
+     * group, as if by invoking that loop's {@link SelectorLoop#interestOps
+     * interestOps} method.
+     *
+     * @param  key
+     *         A key registered with an event loop of this group
+     * @param  ops
+     *         The new interest set
+     *
+     * @throws  IllegalArgumentException
+     *          If the key is not registered with an event loop of this group,
+     *          or if a bit in the set does not correspond to an operation
+     *          that is supported by the key's channel
+     * @throws  CancelledKeyException
+     *          If the key has been cancelled
+     */
+    public void interestOps(SelectionKey key, int ops) {
+        SelectorLoop loop = loopOf(key);
+        if (loop == null)
+            throw new IllegalArgumentException("Key of another selector");
+        loop.interestOps(key, ops);
+    }
+
+    /**
+     * Tells whether or not this group is shutdown.
+     *
+     * @return  {@code true} if this group is shutdown
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Tells whether or not all event loops of this group have terminated.
+     *
+     * @return  {@code true} if this group has terminated
+     */
+    public boolean isTerminated() {
+        for (SelectorLoop loop: loops) {
+            if (!loop.isTerminated())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Initiates an orderly shutdown of the group. This method has no effect
+     * if the group is already shutdown.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (SelectorLoop loop: loops)
+            loop.shutdown(false);
+    }
+
+    /**
+     * Shuts down the group and closes all channels registered with it.
+     */
+    public void shutdownNow() {
+        shutdown = true;
+        for (SelectorLoop loop: loops)
+            loop.shutdown(true);
+    }
+
+    /**
+     * Awaits termination of the group.
+     *
+     * This method blocks until all event loops have terminated after a
+     * shutdown request, or the timeout occurs, or the current thread is
+     * interrupted, whichever happens first.
+     *
+     * @param   timeout
+     *          The maximum time to wait, or zero or less to not wait
+     * @param   unit
+     *          The time unit of the timeout argument
+     *
+     * @return  {@code true} if the group has terminated; {@code false} if the
+     *          timeout elapsed before termination
+     *
+     * @throws  InterruptedException
+     *          If interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (SelectorLoop loop: loops) {
+            long remaining = deadline - System.nanoTime();
+            if (!loop.awaitTermination(remaining, TimeUnit.NANOSECONDS))
+                return false;
+        }
+        return true;
+    }
+}
@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketOption;
 import java.net.SocketAddress;
+import java.net.SocketStatistics;
 import java.nio.ByteBuffer;
 import java.nio.channels.spi.AbstractSelectableChannel;
 import java.nio.channels.spi.SelectorProvider;
@@ -301,6 +302,27 @@ public abstract class SocketChannel
      */
     public abstract Socket socket();
 
+    /**
+     * Returns the statistics of this channel's socket.
+     *
+     * <p> Statistics are only created by the socket implementations of the
+     * {@code java.net} package, for sockets opened or accepted while {@link
+     * SocketStatistics#isEnabled statistics are enabled}.  A channel may
+     * return the statistics of such a socket, if its I/O operations are
+     * performed by that socket.  </p>
+     *
+     * <p> The default implementation of this method returns {@code null}.
+     * </p>
+     *
+     * @return  The statistics of this channel's socket, or {@code null} if
+     *          this channel does not collect statistics
+     *
+     * @since 1.8
+     */
+    public SocketStatistics getStatistics() {
+        return null;
+    }
+
     /**
      * Tells whether or not this channel's network socket is connected.
      *
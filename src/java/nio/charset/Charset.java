@@ -287,6 +287,24 @@ public abstract class Charset
         return level.equals(bl);
     }
 
+    // Returns the value below which every char is encoded as the byte of
+    // the same value, and every such byte is decoded as that char, by the
+    // given coder for the given charset; or zero if that is not known to
+    // hold, as when either is not one of the platform's implementations.
+    // Used by the coders to copy such runs directly.
+    //
+    static int directCodingLimit(Charset cs, Object coder) { // package-private
+        if (cs.getClass().getClassLoader() != null
+            || coder.getClass().getClassLoader() != null)
+            return 0;
+        String name = cs.name();
+        if (name.equals("UTF-8") || name.equals("US-ASCII"))
+            return 0x80;
+        if (name.equals("ISO-8859-1"))
+            return 0x100;
+        return 0;
+    }
+
     /**
      * Checks that the given string is a legal charset name. </p>
      *
@@ -32,6 +32,7 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.nio.ReadOnlyBufferException;
 import java.lang.ref.WeakReference;
 import java.nio.charset.CoderMalfunctionError;                  // javadoc
 import java.util.Arrays;
@@ -155,6 +156,10 @@ public abstract class CharsetDecoder {
 
     private int state = ST_RESET;
 
+    // Inputs below this value are decoded directly, or zero if none are; see
+    // Charset.directCodingLimit
+    private final int directLimit;
+
     private static String stateNames[]
         = { "RESET", "CODING", "CODING_END", "FLUSHED" };
 
@@ -202,6 +207,7 @@ public abstract class CharsetDecoder {
                                                    + "maxCharsPerByte");
         }
         this.replacement = replacement;
+        this.directLimit = (cs == null) ? 0 : Charset.directCodingLimit(cs, this);
         this.averageCharsPerByte = averageCharsPerByte;
         this.maxCharsPerByte = maxCharsPerByte;
         replaceWith(replacement);
@@ -572,6 +578,9 @@ public abstract class CharsetDecoder {
             throwIllegalStateException(state, newState);
         state = newState;
 
+        if (directLimit != 0)
+            decodeDirect(in, out);
+
         for (;;) {
 
             CoderResult cr;
@@ -624,6 +633,31 @@ public abstract class CharsetDecoder {
 
     }
 
+    // Copies the leading run of bytes below directLimit, each of which
+    // decodes to the char of the same value, straight from in to out.  This is
+    // done only when one of the buffers has no accessible array, as the
+    // platform's coders then fall back to a loop that goes through the
+    // relative get and put methods for every byte.
+    //
+    private void decodeDirect(ByteBuffer in, CharBuffer out) {
+        if (in.hasArray() && out.hasArray())
+            return;
+        int n = Math.min(in.remaining(), out.remaining());
+        int limit = directLimit;
+        int ip = in.position();
+        int op = out.position();
+        int i = 0;
+        while (i < n) {
+            int c = in.get(ip + i) & 0xff;
+            if (c >= limit)
+                break;
+            out.put(op + i, (char)c);
+            i++;
+        }
+        in.position(ip + i);
+        out.position(op + i);
+    }
+
     /**
      * Flushes this decoder.
      *
@@ -819,6 +853,86 @@ public abstract class CharsetDecoder {
         return out;
     }
 
+    /**
+     * Convenience method that decodes the remaining content of a single input
+     * byte buffer into the given character buffer, allocating a larger
+     * one only if the given one is too small.
+     *
+     * This method implements an entire <a href="#steps">decoding
+     * operation</a>, in the same way as {@link #decode(ByteBuffer) decode(in)},
+     * except that the result is written to the given buffer after it has
+     * been cleared.  If the result does not fit then it is copied to a
+     * newly-allocated heap buffer, with room to spare, and the decoding
+     * operation continues there.  Passing the buffer returned by one
+     * invocation to the next thus allows a sequence of decoding operations
+     * to run without allocating a new buffer for each.  </p>
+     *
+     * @param  in
+     *         The input byte buffer
+     *
+     * @param  out
+     *         The output character buffer to be reused; its content is
+     *         discarded
+     *
+     * @return The buffer containing the result of the decoding operation,
+     *         either {@code out} or a newly-allocated buffer.  The buffer's
+     *         position will be zero and its limit will follow the last
+     *         character written.
+     *
+     * @throws  IllegalStateException
+     *          If a decoding operation is already in progress
+     *
+     * @throws  ReadOnlyBufferException
+     *          If {@code out} is read-only
+     *
+     * @throws  MalformedInputException
+     *          If the byte sequence starting at the input buffer's current
+     *          position is not legal for this charset and the current
+     *          malformed-input action is {@link CodingErrorAction#REPORT}
+     *
+     * @throws  UnmappableCharacterException
+     *          If the byte sequence starting at the input buffer's current
+     *          position cannot be mapped to an equivalent character sequence and
+     *          the current unmappable-character action is {@link
+     *          CodingErrorAction#REPORT}
+     *
+     * @since 1.8
+     */
+    public final CharBuffer decode(ByteBuffer in, CharBuffer out)
+        throws CharacterCodingException
+    {
+        if (out.isReadOnly())
+            throw new ReadOnlyBufferException();
+        out.clear();
+
+        if (!in.hasRemaining()) {
+            out.flip();
+            return out;
+        }
+        reset();
+        for (;;) {
+            CoderResult cr = in.hasRemaining() ?
+                decode(in, out, true) : CoderResult.UNDERFLOW;
+            if (cr.isUnderflow())
+                cr = flush(out);
+
+            if (cr.isUnderflow())
+                break;
+            if (cr.isOverflow()) {
+                int n = 2*out.capacity()
+                    + (int)(in.remaining() * averageCharsPerByte()) + 1;
+                CharBuffer o = CharBuffer.allocate(n);
+                out.flip();
+                o.put(out);
+                out = o;
+                continue;
+            }
+            cr.throwException();
+        }
+        out.flip();
+        return out;
+    }
+
 
 
     /**
@@ -32,6 +32,7 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.nio.ReadOnlyBufferException;
 import java.lang.ref.WeakReference;
 import java.nio.charset.CoderMalfunctionError;                  // javadoc
 import java.util.Arrays;
@@ -155,6 +156,10 @@ public abstract class CharsetEncoder {
 
     private int state = ST_RESET;
 
+    // Inputs below this value are encoded directly, or zero if none are; see
+    // Charset.directCodingLimit
+    private final int directLimit;
+
     private static String stateNames[]
         = { "RESET", "CODING", "CODING_END", "FLUSHED" };
 
@@ -202,6 +207,7 @@ public abstract class CharsetEncoder {
                                                    + "maxBytesPerChar");
         }
         this.replacement = replacement;
+        this.directLimit = (cs == null) ? 0 : Charset.directCodingLimit(cs, this);
         this.averageBytesPerChar = averageBytesPerChar;
         this.maxBytesPerChar = maxBytesPerChar;
         replaceWith(replacement);
@@ -572,6 +578,9 @@ public abstract class CharsetEncoder {
             throwIllegalStateException(state, newState);
         state = newState;
 
+        if (directLimit != 0)
+            encodeDirect(in, out);
+
         for (;;) {
 
             CoderResult cr;
@@ -624,6 +633,31 @@ public abstract class CharsetEncoder {
 
     }
 
+    // Copies the leading run of chars below directLimit, each of which
+    // encodes to the byte of the same value, straight from in to out.  This is
+    // done only when one of the buffers has no accessible array, as the
+    // platform's coders then fall back to a loop that goes through the
+    // relative get and put methods for every char.
+    //
+    private void encodeDirect(CharBuffer in, ByteBuffer out) {
+        if (in.hasArray() && out.hasArray())
+            return;
+        int n = Math.min(in.remaining(), out.remaining());
+        int limit = directLimit;
+        int ip = in.position();
+        int op = out.position();
+        int i = 0;
+        while (i < n) {
+            int c = in.get(ip + i);
+            if (c >= limit)
+                break;
+            out.put(op + i, (byte)c);
+            i++;
+        }
+        in.position(ip + i);
+        out.position(op + i);
+    }
+
     /**
      * Flushes this encoder.
      *
@@ -819,6 +853,86 @@ public abstract class CharsetEncoder {
         return out;
     }
 
+    /**
+     * Convenience method that encodes the remaining content of a single input
+     * character buffer into the given byte buffer, allocating a larger
+     * one only if the given one is too small.
+     *
+     * This method implements an entire <a href="#steps">encoding
+     * operation</a>, in the same way as {@link #encode(CharBuffer) encode(in)},
+     * except that the result is written to the given buffer after it has
+     * been cleared.  If the result does not fit then it is copied to a
+     * newly-allocated heap buffer, with room to spare, and the encoding
+     * operation continues there.  Passing the buffer returned by one
+     * invocation to the next thus allows a sequence of encoding operations
+     * to run without allocating a new buffer for each.  </p>
+     *
+     * @param  in
+     *         The input character buffer
+     *
+     * @param  out
+     *         The output byte buffer to be reused; its content is
+     *         discarded
+     *
+     * @return The buffer containing the result of the encoding operation,
+     *         either {@code out} or a newly-allocated buffer.  The buffer's
+     *         position will be zero and its limit will follow the last
+     *         byte written.
+     *
+     * @throws  IllegalStateException
+     *          If an encoding operation is already in progress
+     *
+     * @throws  ReadOnlyBufferException
+     *          If {@code out} is read-only
+     *
+     * @throws  MalformedInputException
+     *          If the character sequence starting at the input buffer's current
+     *          position is not legal for this charset and the current
+     *          malformed-input action is {@link CodingErrorAction#REPORT}
+     *
+     * @throws  UnmappableCharacterException
+     *          If the character sequence starting at the input buffer's current
+     *          position cannot be mapped to an equivalent byte sequence and
+     *          the current unmappable-character action is {@link
+     *          CodingErrorAction#REPORT}
+     *
+     * @since 1.8
+     */
+    public final ByteBuffer encode(CharBuffer in, ByteBuffer out)
+        throws CharacterCodingException
+    {
+        if (out.isReadOnly())
+            throw new ReadOnlyBufferException();
+        out.clear();
+
+        if (!in.hasRemaining()) {
+            out.flip();
+            return out;
+        }
+        reset();
+        for (;;) {
+            CoderResult cr = in.hasRemaining() ?
+                encode(in, out, true) : CoderResult.UNDERFLOW;
+            if (cr.isUnderflow())
+                cr = flush(out);
+
+            if (cr.isUnderflow())
+                break;
+            if (cr.isOverflow()) {
+                int n = 2*out.capacity()
+                    + (int)(in.remaining() * averageBytesPerChar()) + 1;
+                ByteBuffer o = ByteBuffer.allocate(n);
+                out.flip();
+                o.put(out);
+                out = o;
+                continue;
+            }
+            cr.throwException();
+        }
+        out.flip();
+        return out;
+    }
+
 
 
 
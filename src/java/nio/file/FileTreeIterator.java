@@ -79,6 +79,22 @@ class FileTreeIterator implements Iterator<Event>, Closeable {
             throw ioe;
     }
 
+    /**
+     * Creates a new iterator to continue the walk of the given walker, whose
+     * walk has returned the given event.
+     */
+    FileTreeIterator(FileTreeWalker walker, Event first) {
+        this.walker = walker;
+        this.next = first;
+    }
+
+    /**
+     * Returns the walker of this iterator.
+     */
+    FileTreeWalker walker() {
+        return walker;
+    }
+
     private void fetchNextIfNeeded() {
         if (next == null) {
             FileTreeWalker.Event ev = walker.next();
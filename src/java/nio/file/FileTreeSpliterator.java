@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.nio.file.FileTreeWalker.DirectoryNode;
+import java.nio.file.FileTreeWalker.Event;
+
+/**
+ * A {@code Spliterator} over the nodes of a file tree, which splits at
+ * directory boundaries.
+ *
+ * <p> The spliterator walks the tree depth-first with a {@link FileTreeWalker},
+ * exactly as a {@link FileTreeIterator} does. When split, it hands the
+ * remaining entries of the outermost directory that it has open to the new
+ * spliterator, which walks each entry, and the files below it, with walkers
+ * of its own; the entries are read in batches of increasing size, so that a
+ * large directory is read once rather than entry by entry. When a stream
+ * over the spliterator is parallel, the directories of the tree are thus read
+ * concurrently by the tasks of the stream, in the {@code ForkJoinPool} in
+ * which the stream is evaluated.
+ *
+ * <p> All spliterators split from a spliterator share its state; closing any
+ * of them closes the directories opened by all of them.
+ *
+ * <pre>{@code
+ *     FileTreeSpliterator spliterator = new FileTreeSpliterator(start, maxDepth, options);
+ *     try (Stream<Event> s = StreamSupport.stream(spliterator, true)
+ *                                         .onClose(spliterator::close)) {
+ *         ...
+ *     }
+ * }</pre>
+ */
+
+class FileTreeSpliterator implements Spliterator<Event>, Closeable {
+    private static final int BATCH_UNIT = 1 << 10;  // batch array size increment
+    private static final int MAX_BATCH = 1 << 16;   // max batch array size
+
+    /**
+     * The state shared by a spliterator and those split from it.
+     */
+    private static class Shared {
+        final Collection<FileVisitOption> options;
+        final int maxDepth;
+        final Set<FileTreeIterator> open = ConcurrentHashMap.newKeySet();
+        volatile boolean closed;
+
+        Shared(Collection<FileVisitOption> options, int maxDepth) {
+            this.options = options;
+            this.maxDepth = maxDepth;
+        }
+    }
+
+    private final Shared shared;
+    private final ArrayDeque<Path> roots;       // files not yet walked
+    private final int depth;                    // the depth of the roots
+    private final List<DirectoryNode> ancestors;
+    private FileTreeIterator current;           // the walk of a root
+    private int batch = BATCH_UNIT;             // the size of the next split
+    private long est;                           // halved on each split
+
+    /**
+     * Creates a new spliterator to walk the file tree starting at the given
+     * file.
+     *
+     * @throws  IllegalArgumentException
+     *          if {@code maxDepth} is negative
+     * @throws  IOException
+     *          if an I/O errors occurs opening the starting file
+     * @throws  SecurityException
+     *          if the security manager denies access to the starting file
+     * @throws  NullPointerException
+     *          if {@code start} or {@code options} is {@code null} or
+     *          the options array contains a {@code null} element
+     */
+    FileTreeSpliterator(Path start, int maxDepth, FileVisitOption... options)
+        throws IOException
+    {
+        this.shared = new Shared(Arrays.asList(options.clone()), maxDepth);
+        this.roots = new ArrayDeque<>();
+        this.depth = 0;
+        this.ancestors = Collections.emptyList();
+        this.est = Long.MAX_VALUE;
+        this.current = new FileTreeIterator(start, maxDepth, options);
+        shared.open.add(current);
+    }
+
+    private FileTreeSpliterator(Shared shared, ArrayDeque<Path> roots,
+                                int depth, List<DirectoryNode> ancestors,
+                                long est)
+    {
+        this.shared = shared;
+        this.roots = roots;
+        this.depth = depth;
+        this.ancestors = ancestors;
+        this.est = est;
+    }
+
+    /**
+     * Starts the walk of the next root, returning {@code false} if there
+     * are no more roots.
+     */
+    private boolean startNext() {
+        Path root;
+        while ((root = roots.poll()) != null) {
+            FileTreeWalker walker =
+                new FileTreeWalker(shared.options, shared.maxDepth - depth,
+                                   ancestors);
+            Event ev = walker.walkEntry(root);
+            if (ev == null)
+                continue;   // denied by the security manager
+            IOException ioe = ev.ioeException();
+            if (ioe != null) {
+                walker.close();
+                throw new UncheckedIOException(ioe);
+            }
+            current = new FileTreeIterator(walker, ev);
+            shared.open.add(current);
+            if (shared.closed) {
+                close();
+                throw new IllegalStateException();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void finishCurrent() {
+        current.close();
+        shared.open.remove(current);
+        current = null;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Event> action) {
+        Objects.requireNonNull(action);
+        if (shared.closed)
+            throw new IllegalStateException();
+        for (;;) {
+            if (current == null && !startNext())
+                return false;
+            if (current.hasNext()) {
+                action.accept(current.next());
+                return true;
+            }
+            finishCurrent();
+        }
+    }
+
+    @Override
+    public Spliterator<Event> trySplit() {
+        if (shared.closed)
+            return null;
+
+        // split the roots that have not been walked
+        int n = roots.size();
+        if (n > 1) {
+            ArrayDeque<Path> half = new ArrayDeque<>(n / 2);
+            while (half.size() < n / 2)
+                half.addFirst(roots.pollLast());
+            return new FileTreeSpliterator(shared, half, depth, ancestors,
+                                           est >>>= 1);
+        }
+
+        // split the remaining entries of the outermost open directory
+        if (current == null && !startNext())
+            return null;
+        FileTreeWalker.Split split = current.walker().split(batch);
+        if (split == null)
+            return null;
+        batch = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+        return new FileTreeSpliterator(shared,
+                                       new ArrayDeque<>(split.entries()),
+                                       depth + split.depth(),
+                                       split.ancestors(),
+                                       est >>>= 1);
+    }
+
+    /**
+     * Returns an estimate of the number of events: the size of a file tree
+     * is not known until it is walked, so the estimate is unbounded at
+     * first and is halved on each split, each part being assumed to hold
+     * half of the events.  A parallel stream thus splits the tree into a
+     * number of parts that depends on its parallelism, rather than into as
+     * many parts as there are directories.
+     */
+    @Override
+    public long estimateSize() {
+        return est;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
+
+    /**
+     * Closes the directories opened by this spliterator and by all
+     * spliterators sharing its state.
+     */
+    @Override
+    public void close() {
+        shared.closed = true;
+        for (FileTreeIterator iterator: shared.open) {
+            iterator.close();
+            shared.open.remove(iterator);
+        }
+    }
+}
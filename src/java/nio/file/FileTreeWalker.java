@@ -28,9 +28,13 @@ package java.nio.file;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import sun.nio.fs.BasicFileAttributesHolder;
 
 /**
@@ -59,12 +63,15 @@ class FileTreeWalker implements Closeable {
     private final LinkOption[] linkOptions;
     private final int maxDepth;
     private final ArrayDeque<DirectoryNode> stack = new ArrayDeque<>();
+    private final Collection<DirectoryNode> ancestors;
     private boolean closed;
 
     /**
      * The element on the walking stack corresponding to a directory node.
+     * A node without a stream is an ancestor of the starting file, walked by
+     * another walker.
      */
-    private static class DirectoryNode {
+    static class DirectoryNode {
         private final Path dir;
         private final Object key;
         private final DirectoryStream<Path> stream;
@@ -78,6 +85,13 @@ class FileTreeWalker implements Closeable {
             this.iterator = stream.iterator();
         }
 
+        DirectoryNode(Path dir, Object key) {
+            this.dir = dir;
+            this.key = key;
+            this.stream = null;
+            this.iterator = null;
+        }
+
         Path directory() {
             return dir;
         }
@@ -162,6 +176,44 @@ class FileTreeWalker implements Closeable {
         }
     }
 
+    /**
+     * The remaining entries of a directory, removed from a walker by the
+     * {@link #split} method so that they may be walked by other walkers.
+     */
+    static class Split {
+        private final List<Path> entries;
+        private final int depth;
+        private final List<DirectoryNode> ancestors;
+
+        Split(List<Path> entries, int depth, List<DirectoryNode> ancestors) {
+            this.entries = entries;
+            this.depth = depth;
+            this.ancestors = ancestors;
+        }
+
+        /**
+         * Returns the entries.
+         */
+        List<Path> entries() {
+            return entries;
+        }
+
+        /**
+         * Returns the depth of the entries, relative to the starting file of
+         * the walker.
+         */
+        int depth() {
+            return depth;
+        }
+
+        /**
+         * Returns the directories enclosing the entries, outermost first.
+         */
+        List<DirectoryNode> ancestors() {
+            return ancestors;
+        }
+    }
+
     /**
      * Creates a {@code FileTreeWalker}.
      *
@@ -175,6 +227,16 @@ class FileTreeWalker implements Closeable {
      *          array contains a {@code null} element
      */
     FileTreeWalker(Collection<FileVisitOption> options, int maxDepth) {
+        this(options, maxDepth, Collections.<DirectoryNode>emptyList());
+    }
+
+    /**
+     * Creates a {@code FileTreeWalker} to walk files in the given
+     * directories, which are taken into account to detect cycles.
+     */
+    FileTreeWalker(Collection<FileVisitOption> options, int maxDepth,
+                   Collection<DirectoryNode> ancestors)
+    {
         boolean fl = false;
         for (FileVisitOption option: options) {
             // will throw NPE if options contains null
@@ -191,6 +253,7 @@ class FileTreeWalker implements Closeable {
         this.linkOptions = (fl) ? new LinkOption[0] :
             new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
         this.maxDepth = maxDepth;
+        this.ancestors = ancestors;
     }
 
     /**
@@ -234,29 +297,36 @@ class FileTreeWalker implements Closeable {
      * file system loop/cycle.
      */
     private boolean wouldLoop(Path dir, Object key) {
-        // if this directory and ancestor has a file key then we compare
-        // them; otherwise we use less efficient isSameFile test.
         for (DirectoryNode ancestor: stack) {
-            Object ancestorKey = ancestor.key();
-            if (key != null && ancestorKey != null) {
-                if (key.equals(ancestorKey)) {
-                    // cycle detected
-                    return true;
-                }
-            } else {
-                try {
-                    if (Files.isSameFile(dir, ancestor.directory())) {
-                        // cycle detected
-                        return true;
-                    }
-                } catch (IOException | SecurityException x) {
-                    // ignore
-                }
-            }
+            if (isSameDirectory(dir, key, ancestor))
+                return true;
+        }
+        for (DirectoryNode ancestor: ancestors) {
+            if (isSameDirectory(dir, key, ancestor))
+                return true;
         }
         return false;
     }
 
+    /**
+     * Returns true if the given directory is the same as the given ancestor.
+     */
+    private static boolean isSameDirectory(Path dir, Object key,
+                                           DirectoryNode ancestor)
+    {
+        // if this directory and ancestor has a file key then we compare
+        // them; otherwise we use less efficient isSameFile test.
+        Object ancestorKey = ancestor.key();
+        if (key != null && ancestorKey != null)
+            return key.equals(ancestorKey);
+        try {
+            return Files.isSameFile(dir, ancestor.directory());
+        } catch (IOException | SecurityException x) {
+            // ignore
+            return false;
+        }
+    }
+
     /**
      * Visits the given file, returning the {@code Event} corresponding to that
      * visit.
@@ -326,6 +396,21 @@ class FileTreeWalker implements Closeable {
         return ev;
     }
 
+    /**
+     * Start walking from the given file, an entry of a directory of a
+     * {@link #split split}, which is visited as if by the walker from which
+     * it was split. Returns {@code null} if the security manager denies
+     * access to the file.
+     */
+    Event walkEntry(Path entry) {
+        if (closed)
+            throw new IllegalStateException("Closed");
+
+        return visit(entry,
+                     true,    // ignoreSecurityException
+                     true);   // canUseCached
+    }
+
     /**
      * Returns the next Event or {@code null} if there are no more events or
      * the walker is closed.
@@ -403,6 +488,40 @@ class FileTreeWalker implements Closeable {
         }
     }
 
+    /**
+     * Removes up to {@code max} of the remaining entries of the outermost
+     * directory on the stack that has any, so that they, and the files below
+     * them, are walked by other walkers rather than by this walker. Returns
+     * {@code null} if there are no remaining entries.
+     *
+     * @throws  UncheckedIOException
+     *          if an I/O error occurs reading the directory
+     */
+    Split split(int max) {
+        List<DirectoryNode> path = new ArrayList<>(ancestors);
+        Iterator<DirectoryNode> nodes = stack.descendingIterator();
+        int depth = 0;
+        while (nodes.hasNext()) {
+            DirectoryNode node = nodes.next();
+            depth++;
+            path.add(new DirectoryNode(node.directory(), node.key()));
+            if (node.skipped())
+                continue;
+
+            List<Path> entries = new ArrayList<>();
+            Iterator<Path> iterator = node.iterator();
+            try {
+                while (entries.size() < max && iterator.hasNext())
+                    entries.add(iterator.next());
+            } catch (DirectoryIteratorException x) {
+                throw new UncheckedIOException(x.getCause());
+            }
+            if (!entries.isEmpty())
+                return new Split(entries, depth, new ArrayList<>(path));
+        }
+        return null;
+    }
+
     /**
      * Returns {@code true} if the walker is open.
      */
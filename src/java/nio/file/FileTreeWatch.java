@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * The registration of a file tree with a {@link WatchService}, so that all
+ * directories in the tree are watched.
+ *
+ * <p> A file tree is registered by invoking the {@link #register register}
+ * method, which registers each directory in the tree with the watch service
+ * and returns a {@code FileTreeWatch} that keeps track of the {@link
+ * WatchKey watch keys} of the directories. The directories are found by a
+ * {@link Stream#parallel parallel} {@link Files#find find} of the tree, so
+ * that trees with very many directories are read, and registered, by
+ * multiple threads.
+ *
+ * <p> The events of a directory in the tree are retrieved from the watch
+ * service, and are {@link WatchEvent#context relative} to the directory, as
+ * for a directory registered by itself. The {@link #update update} method
+ * keeps the registration up to date as directories are created in the tree:
+ * when given an {@link StandardWatchEventKinds#ENTRY_CREATE ENTRY_CREATE}
+ * event for a directory, it registers the directory and its subdirectories.
+ * The {@link #pollAll pollAll} method retrieves events and updates the
+ * registration in one step:
+ * <pre>
+ *     FileTreeWatch tree = FileTreeWatch.register(watcher, dir, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+ *     for (;;) {
+ *         tree.pollAll(1, TimeUnit.SECONDS).forEach((key, events) -&gt; {
+ *             Path parent = tree.directory(key);
+ *             for (WatchEvent&lt;?&gt; event: events) {
+ *                 Path child = parent.resolve((Path)event.context());
+ *                 :
+ *             }
+ *         });
+ *     }
+ * </pre>
+ *
+ * <p> Files may be created in a new directory before it is registered;
+ * events for such files are not reported. The consumer may examine a new
+ * directory after it has been registered to find them. Similarly, when a
+ * key's events have {@link StandardWatchEventKinds#OVERFLOW overflowed}, the
+ * {@code update} method registers the tree below its directory again, and
+ * the consumer may re-examine the tree.
+ *
+ * <p> Directories are only registered when they are created if the tree is
+ * registered for {@code ENTRY_CREATE} events. Keys that are no longer
+ * {@link WatchKey#isValid valid}, typically because their directory has been
+ * deleted, are forgotten when they are given to the {@code update} method.
+ *
+ * <p> A {@code FileTreeWatch} is safe for use by multiple concurrent threads.
+ *
+ * @since 1.8
+ */
+
+public final class FileTreeWatch {
+    private final WatchService watcher;
+    private final Path start;
+    private final WatchEvent.Kind<?>[] events;
+    private final WatchEvent.Modifier[] modifiers;
+    private final Map<WatchKey,Path> directories = new ConcurrentHashMap<>();
+
+    private FileTreeWatch(WatchService watcher, Path start,
+                          WatchEvent.Kind<?>[] events,
+                          WatchEvent.Modifier[] modifiers)
+    {
+        this.watcher = watcher;
+        this.start = start;
+        this.events = events;
+        this.modifiers = modifiers;
+    }
+
+    /**
+     * Registers the directories of the file tree rooted at the given
+     * directory with a watch service. Symbolic links are not followed.
+     *
+     * @param   watcher
+     *          the watch service with which the directories are to be
+     *          registered
+     * @param   start
+     *          the directory at the root of the tree
+     * @param   events
+     *          the events for which the directories are to be registered
+     * @param   modifiers
+     *          the modifiers, if any, that modify how the directories are
+     *          registered
+     *
+     * @return  the registration of the tree
+     *
+     * @throws  UnsupportedOperationException
+     *          if unsupported events or modifiers are specified
+     * @throws  IllegalArgumentException
+     *          if an invalid combination of events or modifiers is specified
+     * @throws  ClosedWatchServiceException
+     *          if the watch service is closed
+     * @throws  NotDirectoryException
+     *          if {@code start} is not a directory
+     * @throws  IOException
+     *          if an I/O error occurs
+     * @throws  SecurityException
+     *          In the case of the default provider, and a security manager is
+     *          installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *          method is invoked to check read access to the directories.
+     */
+    public static FileTreeWatch register(WatchService watcher,
+                                         Path start,
+                                         WatchEvent.Kind<?>[] events,
+                                         WatchEvent.Modifier... modifiers)
+        throws IOException
+    {
+        if (watcher == null || start == null)
+            throw new NullPointerException();
+        if (!Files.isDirectory(start, LinkOption.NOFOLLOW_LINKS))
+            throw new NotDirectoryException(start.toString());
+        FileTreeWatch tree = new FileTreeWatch(watcher, start,
+                                               events.clone(),
+                                               modifiers.clone());
+        tree.registerTree(start);
+        return tree;
+    }
+
+    /**
+     * Registers the directories of the file tree rooted at the given
+     * directory with a watch service. Symbolic links are not followed.
+     *
+     * <p> An invocation of this method behaves in exactly the same way as the
+     * invocation
+     * <pre>
+     *     FileTreeWatch.{@link #register(WatchService,Path,WatchEvent.Kind[],WatchEvent.Modifier[]) register}(watcher, start, events, new WatchEvent.Modifier[0]);
+     * </pre>
+     *
+     * @param   watcher
+     *          the watch service with which the directories are to be
+     *          registered
+     * @param   start
+     *          the directory at the root of the tree
+     * @param   events
+     *          the events for which the directories are to be registered
+     *
+     * @return  the registration of the tree
+     *
+     * @throws  UnsupportedOperationException
+     *          if unsupported events are specified
+     * @throws  IllegalArgumentException
+     *          if an invalid combination of events is specified
+     * @throws  ClosedWatchServiceException
+     *          if the watch service is closed
+     * @throws  NotDirectoryException
+     *          if {@code start} is not a directory
+     * @throws  IOException
+     *          if an I/O error occurs
+     * @throws  SecurityException
+     *          In the case of the default provider, and a security manager is
+     *          installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *          method is invoked to check read access to the directories.
+     */
+    public static FileTreeWatch register(WatchService watcher,
+                                         Path start,
+                                         WatchEvent.Kind<?>... events)
+        throws IOException
+    {
+        return register(watcher, start, events, new WatchEvent.Modifier[0]);
+    }
+
+    /**
+     * Registers the directories of the tree rooted at the given directory.
+     * Directories that are deleted after they are found are ignored.
+     */
+    private void registerTree(Path dir) throws IOException {
+        try (Stream<Path> s = Files.find(dir, Integer.MAX_VALUE,
+                                         (p, attrs) -> attrs.isDirectory())) {
+            s.parallel().forEach(d -> {
+                try {
+                    directories.put(d.register(watcher, events, modifiers), d);
+                } catch (NoSuchFileException | NotDirectoryException x) {
+                    // deleted or replaced since found
+                } catch (IOException x) {
+                    throw new UncheckedIOException(x);
+                }
+            });
+        } catch (UncheckedIOException x) {
+            throw x.getCause();
+        }
+    }
+
+    /**
+     * Returns the directory at the root of the tree.
+     *
+     * @return  the directory at the root of the tree
+     */
+    public Path start() {
+        return start;
+    }
+
+    /**
+     * Returns the directory of the tree for which the given key was
+     * registered.
+     *
+     * @param   key
+     *          a watch key
+     *
+     * @return  the directory, or {@code null} if the key was not registered
+     *          for a directory of the tree, or has been forgotten
+     */
+    public Path directory(WatchKey key) {
+        return directories.get(key);
+    }
+
+    /**
+     * Returns the keys of the directories of the tree that are registered.
+     *
+     * @return  an unmodifiable view of the keys
+     */
+    public Set<WatchKey> keys() {
+        return Collections.unmodifiableSet(directories.keySet());
+    }
+
+    /**
+     * Updates the registration of the tree with the given events of a key:
+     * if the key is a key of the tree, the directories created in its
+     * directory, and their subdirectories, are registered; if its events
+     * have overflowed, the tree below its directory is registered again; and
+     * if it is no longer valid, it is forgotten.
+     *
+     * @param   key
+     *          the watch key
+     * @param   events
+     *          the events retrieved from the key
+     *
+     * @throws  ClosedWatchServiceException
+     *          if the watch service is closed
+     * @throws  IOException
+     *          if an I/O error occurs
+     */
+    public void update(WatchKey key, List<WatchEvent<?>> events)
+        throws IOException
+    {
+        Path dir = directories.get(key);
+        if (dir == null)
+            return;
+        for (WatchEvent<?> event: events) {
+            WatchEvent.Kind<?> kind = event.kind();
+            try {
+                if (kind == OVERFLOW) {
+                    registerTree(dir);
+                } else if (kind == ENTRY_CREATE) {
+                    Path child = dir.resolve((Path)event.context());
+                    if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS))
+                        registerTree(child);
+                }
+            } catch (NoSuchFileException x) {
+                // deleted since the event
+            }
+        }
+        if (!key.isValid())
+            directories.remove(key, dir);
+    }
+
+    /**
+     * Retrieves all queued keys and their events from the watch service, as
+     * if by invoking its {@link WatchService#pollAll pollAll} method, and
+     * {@link #update updates} the registration of the tree with the events of
+     * each key of the tree. Keys that are not keys of the tree are returned
+     * unchanged.
+     *
+     * @param   timeout
+     *          how to wait before giving up, in units of unit
+     * @param   unit
+     *          a {@code TimeUnit} determining how to interpret the timeout
+     *          parameter
+     *
+     * @return  a map from each key retrieved, in the order retrieved, to its
+     *          coalesced events; empty if no key was retrieved
+     *
+     * @throws  ClosedWatchServiceException
+     *          if the watch service is closed, or it is closed while waiting
+     *          for the first key
+     * @throws  InterruptedException
+     *          if interrupted while waiting
+     * @throws  IOException
+     *          if an I/O error occurs updating the registration
+     */
+    public Map<WatchKey,List<WatchEvent<?>>> pollAll(long timeout, TimeUnit unit)
+        throws InterruptedException, IOException
+    {
+        Map<WatchKey,List<WatchEvent<?>>> batch = watcher.pollAll(timeout, unit);
+        for (Map.Entry<WatchKey,List<WatchEvent<?>>> e: batch.entrySet())
+            update(e.getKey(), e.getValue());
+        return batch;
+    }
+
+    /**
+     * Cancels the registrations of all directories of the tree.
+     */
+    public void cancel() {
+        for (WatchKey key: directories.keySet()) {
+            key.cancel();
+            directories.remove(key);
+        }
+    }
+}
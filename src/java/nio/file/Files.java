@@ -3534,6 +3534,15 @@ public final class Files {
      * When a security manager is installed and it denies access to a file
      * (or directory), then it is ignored and not included in the stream.
      *
+     * If the stream is made {@link Stream#parallel parallel}, the file tree
+     * is split at directory boundaries: the remaining entries of a directory,
+     * and their descendants, may be walked concurrently with the rest of the
+     * tree by other tasks of the stream's {@code ForkJoinPool}, so that the
+     * directories of the tree are read in parallel. The elements of a
+     * parallel stream are not in depth-first order. Where the file system
+     * provides the attributes of the entries of a directory when reading the
+     * directory, they are used rather than read again for each entry.
+     *
      * The returned stream encapsulates one or more {@link DirectoryStream}s.
      * If timely disposal of file system resources is required, the
      * {@code try}-with-resources construct should be used to ensure that the
@@ -3571,13 +3580,13 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator = new FileTreeSpliterator(start, maxDepth, options);
         try {
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT), false)
-                                .onClose(iterator::close)
+            return StreamSupport.stream(spliterator, false)
+                                .onClose(spliterator::close)
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
@@ -3684,14 +3693,14 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator = new FileTreeSpliterator(start, maxDepth, options);
         try {
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT), false)
-                                .onClose(iterator::close)
+            return StreamSupport.stream(spliterator, false)
+                                .onClose(spliterator::close)
                                 .filter(entry -> matcher.test(entry.file(), entry.attributes()))
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
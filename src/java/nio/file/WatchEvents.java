@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility methods for the events of watch keys.
+ */
+
+final class WatchEvents {
+    private WatchEvents() { }
+
+    /**
+     * An event that stands for a number of consecutive events of the same
+     * kind and context.
+     */
+    private static class CoalescedEvent<T> implements WatchEvent<T> {
+        private final WatchEvent<T> first;
+        private int count;
+
+        CoalescedEvent(WatchEvent<T> first) {
+            this.first = first;
+            this.count = first.count();
+        }
+
+        void add(WatchEvent<?> event) {
+            int n = count + event.count();
+            count = (n < 0) ? Integer.MAX_VALUE : n;
+        }
+
+        @Override
+        public WatchEvent.Kind<T> kind() {
+            return first.kind();
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public T context() {
+            return first.context();
+        }
+
+        @Override
+        public String toString() {
+            return kind().name() + ": " + context() + " (" + count + ")";
+        }
+    }
+
+    /**
+     * Returns the given events of a key, with each run of
+     * {@code ENTRY_MODIFY} events for the same context, with no other event
+     * for that context in between, replaced by a single event.
+     */
+    static List<WatchEvent<?>> coalesce(List<WatchEvent<?>> events) {
+        if (events.size() < 2)
+            return events;
+        List<WatchEvent<?>> result = new ArrayList<>(events.size());
+        // the index in the result of the last event for each context
+        Map<Object,Integer> last = new HashMap<>();
+        for (WatchEvent<?> event: events) {
+            Object context = event.context();
+            if (context == null) {
+                // OVERFLOW
+                result.add(event);
+                continue;
+            }
+            Integer i = last.put(context, result.size());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY && i != null) {
+                WatchEvent<?> previous = result.get(i);
+                if (previous.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                    CoalescedEvent<?> coalesced = (previous instanceof CoalescedEvent)
+                        ? (CoalescedEvent<?>)previous
+                        : new CoalescedEvent<>(previous);
+                    coalesced.add(event);
+                    result.set(i, coalesced);
+                    last.put(context, i);
+                    continue;
+                }
+            }
+            result.add(event);
+        }
+        return result;
+    }
+}
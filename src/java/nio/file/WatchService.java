@@ -2,6 +2,10 @@ package java.nio.file;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -145,4 +149,69 @@ public interface WatchService
      *          if interrupted while waiting
      */
     WatchKey take() throws InterruptedException;
+
+    /**
+     * Retrieves and removes all queued watch keys, and their pending events,
+     * waiting if necessary up to the specified wait time if none are yet
+     * present.
+     *
+     * <p> This method waits, as if by invoking {@link #poll(long,TimeUnit)
+     * poll}, for the first key, and then retrieves each key that is queued,
+     * as if by invoking {@link #poll() poll}, until none remain. The pending
+     * events of each key are retrieved and the key is then {@link
+     * WatchKey#reset reset}, after all keys have been retrieved so that a key
+     * is retrieved at most once. The events of each key are coalesced:
+     * consecutive {@link StandardWatchEventKinds#ENTRY_MODIFY ENTRY_MODIFY}
+     * events with the same context, with no other event for that context in
+     * between, are replaced by a single event whose {@link WatchEvent#count
+     * count} is the sum of their counts. The events of a burst of changes may
+     * thus be processed in one pass:
+     * <pre>
+     *     for (;;) {
+     *         Map&lt;WatchKey,List&lt;WatchEvent&lt;?&gt;&gt;&gt; batch = watcher.pollAll(1, TimeUnit.SECONDS);
+     *         batch.forEach((key, events) -&gt; {
+     *             :
+     *         });
+     *     }
+     * </pre>
+     *
+     * <p> Keys that are invalid are included, with their pending events, so
+     * that the consumer is notified; their {@link WatchKey#isValid isValid}
+     * method returns {@code false}.
+     *
+     * @implSpec
+     * The default implementation invokes {@code poll}, {@link
+     * WatchKey#pollEvents pollEvents} and {@code reset} as described above.
+     *
+     * @param   timeout
+     *          how to wait before giving up, in units of unit
+     * @param   unit
+     *          a {@code TimeUnit} determining how to interpret the timeout
+     *          parameter
+     *
+     * @return  a map from each key retrieved, in the order retrieved, to its
+     *          coalesced events; empty if no key was retrieved
+     *
+     * @throws  ClosedWatchServiceException
+     *          if this watch service is closed, or it is closed while waiting
+     *          for the first key
+     * @throws  InterruptedException
+     *          if interrupted while waiting
+     *
+     * @since 1.8
+     */
+    default Map<WatchKey,List<WatchEvent<?>>> pollAll(long timeout, TimeUnit unit)
+        throws InterruptedException
+    {
+        WatchKey key = poll(timeout, unit);
+        if (key == null)
+            return Collections.emptyMap();
+        Map<WatchKey,List<WatchEvent<?>>> batch = new LinkedHashMap<>();
+        do {
+            batch.put(key, WatchEvents.coalesce(key.pollEvents()));
+        } while ((key = poll()) != null);
+        for (WatchKey k: batch.keySet())
+            k.reset();
+        return batch;
+    }
 }
@@ -162,6 +162,28 @@ public class ArrayDeque<E> extends AbstractCollection<E>
         tail = n;
     }
 
+    /**
+     * Ensures that this deque can hold the given number of elements in
+     * addition to its current ones without becoming full, reallocating
+     * the array at most once.
+     *
+     * @param numElements the number of elements about to be added
+     */
+    private void ensureRoom(int numElements) {
+        int required = size() + numElements + 1;
+        if (required < 0)
+            throw new IllegalStateException("Sorry, deque too big");
+        if (required <= elements.length)
+            return;
+        int newCapacity = Integer.highestOneBit(required - 1) << 1;
+        if (newCapacity < 0)
+            throw new IllegalStateException("Sorry, deque too big");
+        int size = size();
+        elements = copyElements(new Object[newCapacity]);
+        head = 0;
+        tail = size;
+    }
+
     /**
      * Copies the elements from our element array into the specified array,
      * in order (from first to last element in the deque).  It is assumed
@@ -247,6 +269,76 @@ public class ArrayDeque<E> extends AbstractCollection<E>
             doubleCapacity();
     }
 
+    /**
+     * Adds all of the elements in the specified collection at the end
+     * of this deque, in the order they are returned by the collection's
+     * iterator.  The backing array is grown at most once and the
+     * elements are copied into it in bulk.
+     *
+     * @param c the elements to be inserted into this deque
+     * @return {@code true} if this deque changed as a result of the call
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case this deque is
+     *         left unchanged
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] a = c.toArray();
+        int n = a.length;
+        for (int i = 0; i < n; i++)
+            if (a[i] == null)
+                throw new NullPointerException();
+        if (n == 0)
+            return false;
+        ensureRoom(n);
+        int t = tail;
+        int first = Math.min(n, elements.length - t);
+        System.arraycopy(a, 0, elements, t, first);
+        System.arraycopy(a, first, elements, 0, n - first);
+        tail = (t + n) & (elements.length - 1);
+        return true;
+    }
+
+    /**
+     * Removes at most the given number of elements from the front of
+     * this deque and adds them, in order, to the given collection, using
+     * a single call to its {@code addAll} method.  If that call throws
+     * an exception, this deque is left unchanged.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @return the number of elements transferred
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is
+     *         this deque
+     * @since 1.8
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = Math.min(size(), maxElements);
+        if (n <= 0)
+            return 0;
+        int h = head;
+        int mask = elements.length - 1;
+        Object[] a = new Object[n];
+        int first = Math.min(n, elements.length - h);
+        System.arraycopy(elements, h, a, 0, first);
+        System.arraycopy(elements, 0, a, first, n - first);
+        @SuppressWarnings("unchecked")
+        List<E> list = (List<E>) Arrays.asList(a);
+        c.addAll(list);
+        if (first == n) {
+            Arrays.fill(elements, h, h + n, null);
+        } else {
+            Arrays.fill(elements, h, elements.length, null);
+            Arrays.fill(elements, 0, n - first, null);
+        }
+        head = (h + n) & mask;
+        return n;
+    }
+
     /**
      * Inserts the specified element at the front of this deque.
      *
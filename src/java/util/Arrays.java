@@ -36,6 +36,8 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -1505,6 +1507,327 @@ public class Arrays {
         }
     }
 
+    // Sorting by extracted keys
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code int} keys extracted from them by the specified function.
+     * The key extractor is applied exactly once to each element.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * <p>Implementation note: The keys are extracted into a primitive
+     * array, each paired with the position of its element, and the pairs
+     * are sorted with the primitive sort used by {@link #sort(long[])}
+     * before the elements are rearranged accordingly. This avoids the
+     * O(n log(n)) comparator invocations, and the repeated key
+     * extraction they often imply, of
+     * {@code sort(a, Comparator.comparingInt(keyExtractor))}. The
+     * implementation requires temporary storage for n keys and n object
+     * references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void sortByInt(T[] a, ToIntFunction<? super T> keyExtractor) {
+        sortByInt(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code int} keys extracted from them by the
+     * specified function. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * The key extractor is applied exactly once to each element in the
+     * range.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * <p>Implementation note: see {@link #sortByInt(Object[], ToIntFunction)}.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void sortByInt(T[] a, int fromIndex, int toIndex,
+            ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = packKey(keyExtractor.applyAsInt(a[fromIndex + i]), i);
+        }
+        DualPivotQuicksort.sort(keys, 0, n - 1, null, 0, 0);
+        Object[] aux = copyOfRange(a, fromIndex, toIndex, Object[].class);
+        Object[] dest = a;
+        for (int i = 0; i < n; i++) {
+            dest[fromIndex + i] = aux[(int) keys[i]];
+        }
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code long} keys extracted from them by the specified function.
+     * The key extractor is applied exactly once to each element.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * <p>Implementation note: The keys are extracted into a primitive
+     * array and sorted by a stable radix sort together with the positions
+     * of their elements, before the elements are rearranged accordingly.
+     * This avoids the O(n log(n)) comparator invocations, and the repeated
+     * key extraction they often imply, of
+     * {@code sort(a, Comparator.comparingLong(keyExtractor))}. The
+     * implementation requires temporary storage for 2n keys, 2n positions
+     * and n object references.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void sortByLong(T[] a, ToLongFunction<? super T> keyExtractor) {
+        sortByLong(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code long} keys extracted from them by the
+     * specified function. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * The key extractor is applied exactly once to each element in the
+     * range.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * <p>Implementation note: see {@link #sortByLong(Object[], ToLongFunction)}.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void sortByLong(T[] a, int fromIndex, int toIndex,
+            ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        long[] keys = new long[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = keyExtractor.applyAsLong(a[fromIndex + i]);
+            order[i] = i;
+        }
+        DualPivotQuicksort.sort(keys, order, 0, n - 1, null, null, 0, 0);
+        Object[] aux = copyOfRange(a, fromIndex, toIndex, Object[].class);
+        Object[] dest = a;
+        for (int i = 0; i < n; i++) {
+            dest[fromIndex + i] = aux[order[i]];
+        }
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code int} keys extracted from them by the specified function,
+     * extracting the keys and sorting them in parallel. The key extractor
+     * is applied exactly once to each element, possibly concurrently, and
+     * so should be side-effect-free.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The keys, each paired with the position of its element,
+     * are sorted as by {@link #parallelSort(long[])}. The elements are then
+     * rearranged accordingly, in parallel. If the length of the specified
+     * array is less than the minimum granularity, it is sorted using
+     * {@link #sortByInt(Object[], ToIntFunction)}.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void parallelSortByInt(T[] a, ToIntFunction<? super T> keyExtractor) {
+        parallelSortByInt(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code int} keys extracted from them by the
+     * specified function, extracting the keys and sorting them in
+     * parallel. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * The key extractor is applied exactly once to each element in the
+     * range, possibly concurrently, and so should be side-effect-free.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote see {@link #parallelSortByInt(Object[], ToIntFunction)}.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void parallelSortByInt(T[] a, int fromIndex, int toIndex,
+            ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+                (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
+            sortByInt(a, fromIndex, toIndex, keyExtractor);
+        } else {
+            long[] keys = new long[n];
+            IntStream.range(0, n).parallel().forEach(i -> {
+                keys[i] = packKey(keyExtractor.applyAsInt(a[fromIndex + i]), i);
+            });
+            new ArraysParallelSortHelpers.FJLong.Sorter
+                    (null, keys, new long[n], 0, n, 0,
+                            ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                                    MIN_ARRAY_SORT_GRAN : g).invoke();
+            Object[] aux = copyOfRange(a, fromIndex, toIndex, Object[].class);
+            Object[] dest = a;
+            IntStream.range(0, n).parallel().forEach(i -> {
+                dest[fromIndex + i] = aux[(int) keys[i]];
+            });
+        }
+    }
+
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code long} keys extracted from them by the specified function,
+     * extracting the keys and sorting them in parallel. The key extractor
+     * is applied exactly once to each element, possibly concurrently, and
+     * so should be side-effect-free.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The sorting algorithm is a parallel sort-merge of the keys
+     * together with the positions of their elements, whose leaf sorts are
+     * the stable radix sort used by
+     * {@link #sortByLong(Object[], ToLongFunction)}. The elements are then
+     * rearranged accordingly, in parallel. If the length of the specified
+     * array is less than the minimum granularity, it is sorted using
+     * {@link #sortByLong(Object[], ToLongFunction)}.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void parallelSortByLong(T[] a, ToLongFunction<? super T> keyExtractor) {
+        parallelSortByLong(a, 0, a.length, keyExtractor);
+    }
+
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code long} keys extracted from them by the
+     * specified function, extracting the keys and sorting them in
+     * parallel. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * The key extractor is applied exactly once to each element in the
+     * range, possibly concurrently, and so should be side-effect-free.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>:  elements with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote see {@link #parallelSortByLong(Object[], ToLongFunction)}.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param keyExtractor the function used to extract the sort key
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if the specified array or key extractor
+     *         is null
+     * @since 1.8
+     */
+    public static <T> void parallelSortByLong(T[] a, int fromIndex, int toIndex,
+            ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+                (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
+            sortByLong(a, fromIndex, toIndex, keyExtractor);
+        } else {
+            long[] keys = new long[n];
+            int[] order = new int[n];
+            IntStream.range(0, n).parallel().forEach(i -> {
+                keys[i] = keyExtractor.applyAsLong(a[fromIndex + i]);
+                order[i] = i;
+            });
+            new ArraysParallelSortHelpers.FJLongKey.Sorter
+                    (null, keys, order, new long[n], new int[n], 0, n, 0,
+                            ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                                    MIN_ARRAY_SORT_GRAN : g).invoke();
+            Object[] aux = copyOfRange(a, fromIndex, toIndex, Object[].class);
+            Object[] dest = a;
+            IntStream.range(0, n).parallel().forEach(i -> {
+                dest[fromIndex + i] = aux[order[i]];
+            });
+        }
+    }
+
+    /**
+     * Packs an int key and a non-negative position into a long whose
+     * signed order is that of the key, and then that of the position.
+     */
+    private static long packKey(int key, int position) {
+        return ((long) key << 32) | position;
+    }
+
     // Parallel prefix
 
     /**
@@ -64,7 +64,9 @@ import java.util.concurrent.CountedCompleter;
  * so don't hold any task state.
  *
  * The primitive class versions (FJByte... FJDouble) are
- * identical to each other except for type declarations.
+ * identical to each other except for type declarations. FJLongKey
+ * sorts long keys together with a parallel array of int indices, and
+ * is used to sort objects by extracted primitive keys.
  *
  * The base sequential sorts rely on non-public versions of TimSort,
  * ComparableTimSort, and DualPivotQuicksort sort methods that accept
@@ -785,6 +787,136 @@ import java.util.concurrent.CountedCompleter;
         }
     } // FJLong
 
+    /**
+     * long key + int index support class, used to sort objects by
+     * extracted long keys. Pairs are ordered by key and then by index,
+     * which is a total order since indices are distinct, so the
+     * resulting permutation of the indices is a stable sort.
+     */
+    static final class FJLongKey {
+        static final class Sorter extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a, w;
+            final int[] ai, wi;
+            final int base, size, wbase, gran;
+            Sorter(CountedCompleter<?> par, long[] a, int[] ai, long[] w,
+                   int[] wi, int base, int size, int wbase, int gran) {
+                super(par);
+                this.a = a; this.ai = ai; this.w = w; this.wi = wi;
+                this.base = base; this.size = size;
+                this.wbase = wbase; this.gran = gran;
+            }
+            public final void compute() {
+                CountedCompleter<?> s = this;
+                long[] a = this.a, w = this.w; // localize all params
+                int[] ai = this.ai, wi = this.wi;
+                int b = this.base, n = this.size, wb = this.wbase, g = this.gran;
+                while (n > g) {
+                    int h = n >>> 1, q = h >>> 1, u = h + q; // quartiles
+                    Relay fc = new Relay(new Merger(s, w, wi, a, ai, wb, h,
+                                                    wb+h, n-h, b, g));
+                    Relay rc = new Relay(new Merger(fc, a, ai, w, wi, b+h, q,
+                                                    b+u, n-u, wb+h, g));
+                    new Sorter(rc, a, ai, w, wi, b+u, n-u, wb+u, g).fork();
+                    new Sorter(rc, a, ai, w, wi, b+h, q, wb+h, g).fork();
+                    Relay bc = new Relay(new Merger(fc, a, ai, w, wi, b, q,
+                                                    b+q, h-q, wb, g));
+                    new Sorter(bc, a, ai, w, wi, b+q, h-q, wb+q, g).fork();
+                    s = new EmptyCompleter(bc);
+                    n = q;
+                }
+                DualPivotQuicksort.sort(a, ai, b, b + n - 1, w, wi, wb, n);
+                s.tryComplete();
+            }
+        }
+
+        static final class Merger extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a, w; // main and workspace key arrays
+            final int[] ai, wi; // main and workspace index arrays
+            final int lbase, lsize, rbase, rsize, wbase, gran;
+            Merger(CountedCompleter<?> par, long[] a, int[] ai, long[] w,
+                   int[] wi, int lbase, int lsize, int rbase,
+                   int rsize, int wbase, int gran) {
+                super(par);
+                this.a = a; this.ai = ai; this.w = w; this.wi = wi;
+                this.lbase = lbase; this.lsize = lsize;
+                this.rbase = rbase; this.rsize = rsize;
+                this.wbase = wbase; this.gran = gran;
+            }
+
+            public final void compute() {
+                long[] a = this.a, w = this.w; // localize all params
+                int[] ai = this.ai, wi = this.wi;
+                int lb = this.lbase, ln = this.lsize, rb = this.rbase,
+                    rn = this.rsize, k = this.wbase, g = this.gran;
+                if (a == null || w == null || ai == null || wi == null ||
+                    lb < 0 || rb < 0 || k < 0)
+                    throw new IllegalStateException(); // hoist checks
+                for (int lh, rh;;) {  // split larger, find point in smaller
+                    if (ln >= rn) {
+                        if (ln <= g)
+                            break;
+                        rh = rn;
+                        long split = a[(lh = ln >>> 1) + lb];
+                        int spliti = ai[lh + lb];
+                        for (int lo = 0; lo < rh; ) {
+                            int rm = (lo + rh) >>> 1;
+                            long x = a[rm + rb];
+                            if (split < x || split == x && spliti <= ai[rm + rb])
+                                rh = rm;
+                            else
+                                lo = rm + 1;
+                        }
+                    }
+                    else {
+                        if (rn <= g)
+                            break;
+                        lh = ln;
+                        long split = a[(rh = rn >>> 1) + rb];
+                        int spliti = ai[rh + rb];
+                        for (int lo = 0; lo < lh; ) {
+                            int lm = (lo + lh) >>> 1;
+                            long x = a[lm + lb];
+                            if (split < x || split == x && spliti <= ai[lm + lb])
+                                lh = lm;
+                            else
+                                lo = lm + 1;
+                        }
+                    }
+                    Merger m = new Merger(this, a, ai, w, wi, lb + lh, ln - lh,
+                                          rb + rh, rn - rh,
+                                          k + lh + rh, g);
+                    rn = rh;
+                    ln = lh;
+                    addToPendingCount(1);
+                    m.fork();
+                }
+
+                int lf = lb + ln, rf = rb + rn; // index bounds
+                while (lb < lf && rb < rf) {
+                    long al = a[lb], ar = a[rb];
+                    int il = ai[lb], ir = ai[rb];
+                    if (al < ar || al == ar && il <= ir) {
+                        lb++; w[k] = al; wi[k++] = il;
+                    }
+                    else {
+                        rb++; w[k] = ar; wi[k++] = ir;
+                    }
+                }
+                if (rb < rf) {
+                    System.arraycopy(a, rb, w, k, rf - rb);
+                    System.arraycopy(ai, rb, wi, k, rf - rb);
+                }
+                else if (lb < lf) {
+                    System.arraycopy(a, lb, w, k, lf - lb);
+                    System.arraycopy(ai, lb, wi, k, lf - lb);
+                }
+                tryComplete();
+            }
+        }
+    } // FJLongKey
+
     /** float support class */
     static final class FJFloat {
         static final class Sorter extends CountedCompleter<Void> {
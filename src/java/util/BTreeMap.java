@@ -0,0 +1,1829 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A B-tree based {@link NavigableMap} implementation.
+ * The map is sorted according to the {@linkplain Comparable natural
+ * ordering} of its keys, or by a {@link Comparator} provided at map
+ * creation time, depending on which constructor is used.
+ *
+ * <p>This implementation is a B<sup>+</sup>-tree: the mappings are stored
+ * in leaf nodes holding up to {@value #MAX_KEYS} keys and values in two
+ * arrays, and the leaves are indexed by inner nodes holding up to as many
+ * keys and child references.  Every node other than the root is kept
+ * about half full.  Compared with {@link TreeMap}, which allocates one entry
+ * object per mapping and follows one reference per comparison, this
+ * representation needs about a quarter of the memory per mapping for large
+ * maps and performs most comparisons of a lookup within a few contiguous
+ * arrays, so that lookups in large maps incur far fewer cache misses.
+ * It provides guaranteed log(n) time cost for the {@code containsKey},
+ * {@code get}, {@code put} and {@code remove} operations, with a base of
+ * the logarithm between 32 and 64.  Inserting or removing a mapping moves
+ * up to {@value #MAX_KEYS} array elements, so a {@code TreeMap} may be
+ * faster for small maps that are modified much more often than they are
+ * read.
+ *
+ * <p>Note that the ordering maintained by a B-tree map, like any sorted
+ * map, and whether or not an explicit comparator is provided, must be
+ * <em>consistent with {@code equals}</em> if this sorted map is to
+ * correctly implement the {@code Map} interface.  (See {@code Comparable}
+ * or {@code Comparator} for a precise definition of <em>consistent with
+ * equals</em>.)
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a map concurrently, and at least one of the
+ * threads modifies the map structurally, it <em>must</em> be synchronized
+ * externally.  (A structural modification is any operation that adds or
+ * deletes one or more mappings; merely changing the value associated
+ * with an existing key is not a structural modification.)  If no suitable
+ * object exists to synchronize on, the map should be "wrapped" using the
+ * {@link Collections#synchronizedSortedMap Collections.synchronizedSortedMap}
+ * method.
+ *
+ * <p>The iterators returned by the {@code iterator} method of the
+ * collections returned by all of this class's "collection view methods"
+ * are <em>fail-fast</em>: if the map is structurally modified at any time
+ * after the iterator is created, in any way except through the iterator's
+ * own {@code remove} method, the iterator will throw a {@link
+ * ConcurrentModificationException}.  Fail-fast iterators throw
+ * {@code ConcurrentModificationException} on a best-effort basis.
+ *
+ * <p>All {@code Map.Entry} pairs returned by methods in this class
+ * and its views represent snapshots of mappings at the time they were
+ * produced.  Only the entries returned by the iterators of the entry set
+ * views support the {@code Entry.setValue} method, which writes the value
+ * through to the map.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see TreeMap
+ * @see BTreeSet
+ * @since 1.8
+ */
+public class BTreeMap<K,V>
+    extends AbstractMap<K,V>
+    implements NavigableMap<K,V>, Cloneable, java.io.Serializable
+{
+    private static final long serialVersionUID = -2375140513466785839L;
+
+    /**
+     * The maximum number of keys of a node.  Every node other than the
+     * root holds at least half as many keys.  MUST be even.
+     */
+    static final int MAX_KEYS = 64;
+
+    /**
+     * The minimum number of keys of a node other than the root.  As the
+     * key separating the halves of a split inner node moves up to its
+     * parent, an inner node may briefly hold one key less.
+     */
+    static final int MIN_KEYS = MAX_KEYS / 2;
+
+    /**
+     * The initial capacity of the arrays of a root leaf, which grow up to
+     * MAX_KEYS, so that small maps stay small.
+     */
+    private static final int INITIAL_LEAF_CAPACITY = 4;
+
+    /**
+     * The comparator used to maintain order in this B-tree map, or
+     * null if it uses the natural ordering of its keys.
+     *
+     * @serial
+     */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * The root node, or null if the map is empty.
+     */
+    private transient Node root;
+
+    /**
+     * The number of entries in the tree
+     */
+    private transient int size = 0;
+
+    /**
+     * The number of structural modifications to the tree.
+     */
+    private transient int modCount = 0;
+
+    /**
+     * Constructs a new, empty B-tree map, using the natural ordering of its
+     * keys.  All keys inserted into the map must implement the {@link
+     * Comparable} interface, and must be <em>mutually comparable</em>.
+     */
+    public BTreeMap() {
+        comparator = null;
+    }
+
+    /**
+     * Constructs a new, empty B-tree map, ordered according to the given
+     * comparator.  All keys inserted into the map must be <em>mutually
+     * comparable</em> by the given comparator.
+     *
+     * @param comparator the comparator that will be used to order this map.
+     *        If {@code null}, the {@linkplain Comparable natural
+     *        ordering} of the keys will be used.
+     */
+    public BTreeMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Constructs a new B-tree map containing the same mappings as the given
+     * map, ordered according to the <em>natural ordering</em> of its keys.
+     *
+     * @param  m the map whose mappings are to be placed in this map
+     * @throws ClassCastException if the keys in m are not {@link Comparable},
+     *         or are not mutually comparable
+     * @throws NullPointerException if the specified map is null
+     */
+    public BTreeMap(Map<? extends K, ? extends V> m) {
+        comparator = null;
+        putAll(m);
+    }
+
+    /**
+     * Constructs a new B-tree map containing the same mappings and
+     * using the same ordering as the specified sorted map.
+     *
+     * @param  m the sorted map whose mappings are to be placed in this map,
+     *         and whose comparator is to be used to sort this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public BTreeMap(SortedMap<K, ? extends V> m) {
+        comparator = m.comparator();
+        putAll(m);
+    }
+
+    // Nodes
+
+    /**
+     * A node of the tree, holding its keys in ascending order in the
+     * first size slots of an array.
+     */
+    abstract static class Node {
+        Object[] keys;
+        int size;
+
+        Node(int capacity) {
+            keys = new Object[capacity];
+        }
+    }
+
+    /**
+     * A leaf, holding the mappings whose keys are at least the key of the
+     * inner node separating it from its predecessor, and less than that
+     * separating it from its successor.  Leaves are linked in key order.
+     */
+    static final class Leaf extends Node {
+        Object[] vals;
+        Leaf next, prev;
+
+        Leaf(int capacity) {
+            super(capacity);
+            vals = new Object[capacity];
+        }
+    }
+
+    /**
+     * An inner node, whose child i holds the keys that are at least
+     * keys[i - 1] and less than keys[i].  It has size + 1 children.
+     */
+    static final class Inner extends Node {
+        final Node[] children = new Node[MAX_KEYS + 1];
+
+        Inner() {
+            super(MAX_KEYS);
+        }
+    }
+
+    /**
+     * A position in a leaf.
+     */
+    static final class Pos {
+        final Leaf leaf;
+        final int index;
+
+        Pos(Leaf leaf, int index) {
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        Object key() {
+            return leaf.keys[index];
+        }
+    }
+
+    /**
+     * Compares two keys using the correct comparison method for this map.
+     */
+    @SuppressWarnings("unchecked")
+    final int compare(Object k1, Object k2) {
+        return comparator==null ? ((Comparable<? super K>)k1).compareTo((K)k2)
+            : comparator.compare((K)k1, (K)k2);
+    }
+
+    /**
+     * Searches the first n keys of a node for the given key.  Returns its
+     * index if present, and (-(insertion point) - 1) otherwise.
+     */
+    private int search(Node node, Object key) {
+        Object[] a = node.keys;
+        int low = 0, high = node.size - 1;
+        if (comparator == null) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> k = (Comparable<Object>) key;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = k.compareTo(a[mid]);
+                if (cmp > 0)
+                    low = mid + 1;
+                else if (cmp < 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+        } else {
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(key, a[mid]);
+                if (cmp > 0)
+                    low = mid + 1;
+                else if (cmp < 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the child of the given inner node that may
+     * hold the given key.
+     */
+    private int childIndex(Inner node, Object key) {
+        int i = search(node, key);
+        return (i >= 0) ? i + 1 : -(i + 1);
+    }
+
+    /**
+     * Returns the leaf that holds the given key if it is present, or
+     * would hold it otherwise.  The map must not be empty.
+     */
+    private Leaf leafFor(Object key) {
+        Node n = root;
+        while (n instanceof Inner) {
+            Inner in = (Inner) n;
+            n = in.children[childIndex(in, key)];
+        }
+        return (Leaf) n;
+    }
+
+    /**
+     * Returns the leftmost leaf, or null if the map is empty.
+     */
+    private Leaf firstLeaf() {
+        Node n = root;
+        while (n instanceof Inner)
+            n = ((Inner) n).children[0];
+        return (Leaf) n;
+    }
+
+    /**
+     * Returns the rightmost leaf, or null if the map is empty.
+     */
+    private Leaf lastLeaf() {
+        Node n = root;
+        while (n instanceof Inner)
+            n = ((Inner) n).children[n.size];
+        return (Leaf) n;
+    }
+
+    /*
+     * Relations for findNear, as in ConcurrentSkipListMap.
+     */
+    static final int EQ = 1;
+    static final int LT = 2;
+    static final int GT = 0; // Actually checked as !LT
+
+    /**
+     * Returns the position of the key nearest to the given key, according
+     * to the given relation: GT for the least greater key, GT|EQ for the
+     * least greater or equal key, LT for the greatest lesser key, and
+     * LT|EQ for the greatest lesser or equal key.  Returns null if there
+     * is no such key.
+     */
+    final Pos findNear(Object key, int rel) {
+        if (root == null) {
+            compare(key, key); // type (and possibly null) check
+            return null;
+        }
+        Leaf leaf = leafFor(key);
+        int i = search(leaf, key);
+        int index;
+        if (i >= 0) {
+            if ((rel & EQ) != 0)
+                return new Pos(leaf, i);
+            index = ((rel & LT) != 0) ? i - 1 : i + 1;
+        } else {
+            index = ((rel & LT) != 0) ? -(i + 1) - 1 : -(i + 1);
+        }
+        return normalize(leaf, index);
+    }
+
+    /**
+     * Returns the position of the given key, or null if it is absent.
+     */
+    final Pos getPos(Object key) {
+        if (root == null) {
+            compare(key, key); // type (and possibly null) check
+            return null;
+        }
+        Leaf leaf = leafFor(key);
+        int i = search(leaf, key);
+        return (i >= 0) ? new Pos(leaf, i) : null;
+    }
+
+    /**
+     * Returns the position of the given index of the given leaf, moving
+     * to the last slot of the previous leaf if the index is negative and
+     * to the first slot of the next leaf if it is past the last key of
+     * the leaf.  Returns null if there is no such leaf.
+     */
+    static Pos normalize(Leaf leaf, int index) {
+        if (index < 0) {
+            leaf = leaf.prev;
+            return (leaf == null) ? null : new Pos(leaf, leaf.size - 1);
+        }
+        if (index >= leaf.size) {
+            leaf = leaf.next;
+            return (leaf == null) ? null : new Pos(leaf, 0);
+        }
+        return new Pos(leaf, index);
+    }
+
+    /**
+     * Returns the position of the first key, or null if empty.
+     */
+    final Pos firstPos() {
+        Leaf leaf = firstLeaf();
+        return (leaf == null) ? null : new Pos(leaf, 0);
+    }
+
+    /**
+     * Returns the position of the last key, or null if empty.
+     */
+    final Pos lastPos() {
+        Leaf leaf = lastLeaf();
+        return (leaf == null) ? null : new Pos(leaf, leaf.size - 1);
+    }
+
+    /**
+     * Returns an immutable snapshot of the mapping at the given position,
+     * or null if the position is null.
+     */
+    @SuppressWarnings("unchecked")
+    final Map.Entry<K,V> exportEntry(Pos p) {
+        return (p == null) ? null :
+            new AbstractMap.SimpleImmutableEntry<>((K) p.leaf.keys[p.index],
+                                                   (V) p.leaf.vals[p.index]);
+    }
+
+    /**
+     * Returns the key at the given position, or null if the position
+     * is null.
+     */
+    @SuppressWarnings("unchecked")
+    static <K> K keyOrNull(Pos p) {
+        return (p == null) ? null : (K) p.key();
+    }
+
+    /**
+     * Returns the key at the given position, throwing
+     * NoSuchElementException if the position is null.
+     */
+    @SuppressWarnings("unchecked")
+    static <K> K key(Pos p) {
+        if (p == null)
+            throw new NoSuchElementException();
+        return (K) p.key();
+    }
+
+    // Query Operations
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the specified
+     * key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the
+     *         specified key
+     * @throws ClassCastException if the specified key cannot be compared
+     *         with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public boolean containsKey(Object key) {
+        return getPos(key) != null;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @throws ClassCastException if the specified key cannot be compared
+     *         with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Pos p = getPos(key);
+        return (p == null) ? null : (V) p.leaf.vals[p.index];
+    }
+
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K firstKey() {
+        return key(firstPos());
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K lastKey() {
+        return key(lastPos());
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     *         (A {@code null} return can also indicate that the map
+     *         previously associated {@code null} with {@code key}.)
+     * @throws ClassCastException if the specified key cannot be compared
+     *         with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public V put(K key, V value) {
+        if (root == null) {
+            compare(key, key); // type (and possibly null) check
+            Leaf leaf = new Leaf(INITIAL_LEAF_CAPACITY);
+            leaf.keys[0] = key;
+            leaf.vals[0] = value;
+            leaf.size = 1;
+            root = leaf;
+            size = 1;
+            modCount++;
+            return null;
+        }
+        Leaf leaf = leafFor(key);
+        int i = search(leaf, key);
+        if (i >= 0) {
+            @SuppressWarnings("unchecked")
+            V oldValue = (V) leaf.vals[i];
+            leaf.vals[i] = value;
+            return oldValue;
+        }
+        if (leaf.size < MAX_KEYS) {
+            insertInLeaf(leaf, -(i + 1), key, value);
+        } else {
+            insertSplitting(key, value);
+        }
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Inserts a mapping at the given index of a leaf that is not full.
+     */
+    private static void insertInLeaf(Leaf leaf, int index, Object key, Object value) {
+        int n = leaf.size;
+        if (n == leaf.keys.length) {
+            int capacity = Math.min(2 * n, MAX_KEYS);
+            leaf.keys = Arrays.copyOf(leaf.keys, capacity);
+            leaf.vals = Arrays.copyOf(leaf.vals, capacity);
+        }
+        System.arraycopy(leaf.keys, index, leaf.keys, index + 1, n - index);
+        System.arraycopy(leaf.vals, index, leaf.vals, index + 1, n - index);
+        leaf.keys[index] = key;
+        leaf.vals[index] = value;
+        leaf.size = n + 1;
+    }
+
+    /**
+     * Inserts a mapping for an absent key whose leaf is full, splitting
+     * each full node on the way down, so that every split node has a
+     * parent with room for the new separator.
+     */
+    private void insertSplitting(Object key, Object value) {
+        if (root.size == MAX_KEYS) {
+            Inner r = new Inner();
+            r.children[0] = root;
+            root = r;
+            splitChild(r, 0);
+        }
+        Node n = root;
+        while (n instanceof Inner) {
+            Inner in = (Inner) n;
+            int ci = childIndex(in, key);
+            if (in.children[ci].size == MAX_KEYS) {
+                splitChild(in, ci);
+                if (compare(key, in.keys[ci]) >= 0)
+                    ci++;
+            }
+            n = in.children[ci];
+        }
+        Leaf leaf = (Leaf) n;
+        insertInLeaf(leaf, -(search(leaf, key) + 1), key, value);
+    }
+
+    /**
+     * Splits the full child ci of the given inner node, which is not full,
+     * into two half-full nodes.
+     */
+    private static void splitChild(Inner parent, int ci) {
+        Node child = parent.children[ci];
+        Object separator;
+        Node right;
+        int h = MAX_KEYS / 2;
+        if (child instanceof Leaf) {
+            Leaf l = (Leaf) child, r = new Leaf(MAX_KEYS);
+            System.arraycopy(l.keys, h, r.keys, 0, MAX_KEYS - h);
+            System.arraycopy(l.vals, h, r.vals, 0, MAX_KEYS - h);
+            Arrays.fill(l.keys, h, MAX_KEYS, null);
+            Arrays.fill(l.vals, h, MAX_KEYS, null);
+            r.size = MAX_KEYS - h;
+            l.size = h;
+            r.next = l.next;
+            if (r.next != null)
+                r.next.prev = r;
+            r.prev = l;
+            l.next = r;
+            separator = r.keys[0];
+            right = r;
+        } else {
+            // The middle key moves up; h keys stay, MAX_KEYS - h - 1 move
+            Inner l = (Inner) child, r = new Inner();
+            separator = l.keys[h];
+            System.arraycopy(l.keys, h + 1, r.keys, 0, MAX_KEYS - h - 1);
+            System.arraycopy(l.children, h + 1, r.children, 0, MAX_KEYS - h);
+            Arrays.fill(l.keys, h, MAX_KEYS, null);
+            Arrays.fill(l.children, h + 1, MAX_KEYS + 1, null);
+            r.size = MAX_KEYS - h - 1;
+            l.size = h;
+            right = r;
+        }
+        int n = parent.size;
+        System.arraycopy(parent.keys, ci, parent.keys, ci + 1, n - ci);
+        System.arraycopy(parent.children, ci + 1, parent.children, ci + 2, n - ci);
+        parent.keys[ci] = separator;
+        parent.children[ci + 1] = right;
+        parent.size = n + 1;
+    }
+
+    /**
+     * Removes the mapping for this key from this map if present.
+     *
+     * @param  key key for which mapping should be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     *         (A {@code null} return can also indicate that the map
+     *         previously associated {@code null} with {@code key}.)
+     * @throws ClassCastException if the specified key cannot be compared
+     *         with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        Pos p = getPos(key);
+        if (p == null)
+            return null;
+        V oldValue = (V) p.leaf.vals[p.index];
+        delete(key);
+        return oldValue;
+    }
+
+    /**
+     * Deletes the mapping for a key known to be present, rebalancing the
+     * nodes on its path that become less than half full.
+     */
+    private void delete(Object key) {
+        delete(root, key);
+        modCount++;
+        if (--size == 0) {
+            root = null;
+        } else if (root instanceof Inner && root.size == 0) {
+            root = ((Inner) root).children[0];
+        }
+    }
+
+    private void delete(Node n, Object key) {
+        if (n instanceof Leaf) {
+            Leaf leaf = (Leaf) n;
+            int i = search(leaf, key);
+            int m = leaf.size - i - 1;
+            System.arraycopy(leaf.keys, i + 1, leaf.keys, i, m);
+            System.arraycopy(leaf.vals, i + 1, leaf.vals, i, m);
+            int s = --leaf.size;
+            leaf.keys[s] = null;
+            leaf.vals[s] = null;
+        } else {
+            Inner in = (Inner) n;
+            int ci = childIndex(in, key);
+            Node child = in.children[ci];
+            delete(child, key);
+            if (child.size < MIN_KEYS)
+                rebalance(in, ci);
+        }
+    }
+
+    /**
+     * Restores the minimum size of child ci of the given inner node by
+     * moving a key from a sibling with keys to spare, or otherwise by
+     * merging the child with a sibling.
+     */
+    private static void rebalance(Inner parent, int ci) {
+        Node child = parent.children[ci];
+        Node left = (ci > 0) ? parent.children[ci - 1] : null;
+        Node right = (ci < parent.size) ? parent.children[ci + 1] : null;
+        if (left != null && left.size > MIN_KEYS)
+            moveFromLeft(parent, ci, left, child);
+        else if (right != null && right.size > MIN_KEYS)
+            moveFromRight(parent, ci, child, right);
+        else if (left != null)
+            merge(parent, ci - 1, left, child);
+        else
+            merge(parent, ci, child, right);
+    }
+
+    private static void moveFromLeft(Inner parent, int ci, Node left, Node child) {
+        int n = child.size, ln = left.size - 1;
+        System.arraycopy(child.keys, 0, child.keys, 1, n);
+        if (child instanceof Leaf) {
+            Leaf c = (Leaf) child, l = (Leaf) left;
+            System.arraycopy(c.vals, 0, c.vals, 1, n);
+            c.keys[0] = l.keys[ln];
+            c.vals[0] = l.vals[ln];
+            l.vals[ln] = null;
+            parent.keys[ci - 1] = c.keys[0];
+        } else {
+            Inner c = (Inner) child, l = (Inner) left;
+            System.arraycopy(c.children, 0, c.children, 1, n + 1);
+            c.keys[0] = parent.keys[ci - 1];
+            c.children[0] = l.children[ln + 1];
+            l.children[ln + 1] = null;
+            parent.keys[ci - 1] = l.keys[ln];
+        }
+        left.keys[ln] = null;
+        left.size = ln;
+        child.size = n + 1;
+    }
+
+    private static void moveFromRight(Inner parent, int ci, Node child, Node right) {
+        int n = child.size, rn = right.size - 1;
+        if (child instanceof Leaf) {
+            Leaf c = (Leaf) child, r = (Leaf) right;
+            c.keys[n] = r.keys[0];
+            c.vals[n] = r.vals[0];
+            System.arraycopy(r.vals, 1, r.vals, 0, rn);
+            r.vals[rn] = null;
+            System.arraycopy(r.keys, 1, r.keys, 0, rn);
+            parent.keys[ci] = r.keys[0];
+        } else {
+            Inner c = (Inner) child, r = (Inner) right;
+            c.keys[n] = parent.keys[ci];
+            c.children[n + 1] = r.children[0];
+            parent.keys[ci] = r.keys[0];
+            System.arraycopy(r.keys, 1, r.keys, 0, rn);
+            System.arraycopy(r.children, 1, r.children, 0, rn + 1);
+            r.children[rn + 1] = null;
+        }
+        right.keys[rn] = null;
+        right.size = rn;
+        child.size = n + 1;
+    }
+
+    /**
+     * Merges child i + 1 of the given inner node into child i, removing
+     * the separator between them.
+     */
+    private static void merge(Inner parent, int i, Node left, Node right) {
+        int ln = left.size, rn = right.size;
+        if (left instanceof Leaf) {
+            Leaf l = (Leaf) left, r = (Leaf) right;
+            System.arraycopy(r.keys, 0, l.keys, ln, rn);
+            System.arraycopy(r.vals, 0, l.vals, ln, rn);
+            l.size = ln + rn;
+            l.next = r.next;
+            if (l.next != null)
+                l.next.prev = l;
+        } else {
+            Inner l = (Inner) left, r = (Inner) right;
+            l.keys[ln] = parent.keys[i];
+            System.arraycopy(r.keys, 0, l.keys, ln + 1, rn);
+            System.arraycopy(r.children, 0, l.children, ln + 1, rn + 1);
+            l.size = ln + rn + 1;
+        }
+        int n = parent.size - 1;
+        System.arraycopy(parent.keys, i + 1, parent.keys, i, n - i);
+        System.arraycopy(parent.children, i + 2, parent.children, i + 1, n - i);
+        parent.keys[n] = null;
+        parent.children[n + 1] = null;
+        parent.size = n;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        size = 0;
+        root = null;
+    }
+
+    /**
+     * Returns a shallow copy of this {@code BTreeMap} instance. (The keys and
+     * values themselves are not cloned.)
+     *
+     * @return a shallow copy of this map
+     */
+    public Object clone() {
+        BTreeMap<?,?> clone;
+        try {
+            clone = (BTreeMap<?,?>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+
+        // Put clone into "virgin" state (except for comparator)
+        clone.root = null;
+        clone.size = 0;
+        clone.modCount = 0;
+        clone.entrySet = null;
+        clone.navigableKeySet = null;
+        clone.descendingMap = null;
+        clone.keySet = null;
+        clone.values = null;
+
+        // Copy the tree, linking the copied leaves in order
+        if (root != null)
+            clone.root = copy(root, new Leaf[1]);
+        clone.size = size;
+        return clone;
+    }
+
+    /**
+     * Returns a copy of the given subtree, whose leaves are linked after
+     * last[0], the last leaf copied so far.
+     */
+    private static Node copy(Node n, Leaf[] last) {
+        if (n instanceof Leaf) {
+            Leaf l = (Leaf) n, c = new Leaf(0);
+            c.keys = l.keys.clone();
+            c.vals = l.vals.clone();
+            c.size = l.size;
+            c.prev = last[0];
+            if (last[0] != null)
+                last[0].next = c;
+            last[0] = c;
+            return c;
+        }
+        Inner in = (Inner) n, c = new Inner();
+        System.arraycopy(in.keys, 0, c.keys, 0, in.size);
+        for (int i = 0; i <= in.size; i++)
+            c.children[i] = copy(in.children[i], last);
+        c.size = in.size;
+        return c;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; i++) {
+                @SuppressWarnings("unchecked") K k = (K) leaf.keys[i];
+                @SuppressWarnings("unchecked") V v = (V) leaf.vals[i];
+                action.accept(k, v);
+                if (expectedModCount != modCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // NavigableMap API methods
+
+    public Map.Entry<K,V> firstEntry() {
+        return exportEntry(firstPos());
+    }
+
+    public Map.Entry<K,V> lastEntry() {
+        return exportEntry(lastPos());
+    }
+
+    public Map.Entry<K,V> pollFirstEntry() {
+        Map.Entry<K,V> result = exportEntry(firstPos());
+        if (result != null)
+            delete(result.getKey());
+        return result;
+    }
+
+    public Map.Entry<K,V> pollLastEntry() {
+        Map.Entry<K,V> result = exportEntry(lastPos());
+        if (result != null)
+            delete(result.getKey());
+        return result;
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public Map.Entry<K,V> lowerEntry(K key) {
+        return exportEntry(findNear(key, LT));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public K lowerKey(K key) {
+        return keyOrNull(findNear(key, LT));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public Map.Entry<K,V> floorEntry(K key) {
+        return exportEntry(findNear(key, LT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public K floorKey(K key) {
+        return keyOrNull(findNear(key, LT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public Map.Entry<K,V> ceilingEntry(K key) {
+        return exportEntry(findNear(key, GT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public K ceilingKey(K key) {
+        return keyOrNull(findNear(key, GT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public Map.Entry<K,V> higherEntry(K key) {
+        return exportEntry(findNear(key, GT));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    public K higherKey(K key) {
+        return keyOrNull(findNear(key, GT));
+    }
+
+    // Views
+
+    /**
+     * Fields initialized to contain an instance of the entry set view
+     * the first time this view is requested.  Views are stateless, so
+     * there's no reason to create more than one.
+     */
+    private transient EntrySet entrySet;
+    private transient KeySet<K> navigableKeySet;
+    private transient NavigableMap<K,V> descendingMap;
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.
+     * The set's iterator returns the keys in ascending order.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The set supports element
+     * removal, which removes the corresponding mapping from the map, via
+     * the {@code Iterator.remove}, {@code Set.remove}, {@code removeAll},
+     * {@code retainAll}, and {@code clear} operations.  It does not support
+     * the {@code add} or {@code addAll} operations.
+     */
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    public NavigableSet<K> navigableKeySet() {
+        KeySet<K> nks = navigableKeySet;
+        return (nks != null) ? nks : (navigableKeySet = new KeySet<>(this));
+    }
+
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this map.
+     * The collection's iterator returns the values in ascending order
+     * of the corresponding keys.  The collection is backed by the map, so
+     * changes to the map are reflected in the collection, and vice-versa.
+     * The collection supports element removal, which removes the
+     * corresponding mapping from the map, via the {@code Iterator.remove},
+     * {@code Collection.remove}, {@code removeAll}, {@code retainAll} and
+     * {@code clear} operations.  It does not support the {@code add} or
+     * {@code addAll} operations.
+     */
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        return (vs != null) ? vs : (values = new Values<>(this));
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set's iterator returns the entries in ascending key order.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The set supports element
+     * removal, which removes the corresponding mapping from the map, via
+     * the {@code Iterator.remove}, {@code Set.remove}, {@code removeAll},
+     * {@code retainAll} and {@code clear} operations.  It does not support
+     * the {@code add} or {@code addAll} operations.
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySet es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySet());
+    }
+
+    public NavigableMap<K, V> descendingMap() {
+        NavigableMap<K, V> km = descendingMap;
+        return (km != null) ? km :
+            (descendingMap = new SubMap<>(this, true, null, true,
+                                          true, null, true, true));
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} or {@code toKey} is
+     *         null and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                    K toKey,   boolean toInclusive) {
+        return new SubMap<>(this, false, fromKey, fromInclusive,
+                            false, toKey, toInclusive, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code toKey} is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+        return new SubMap<>(this, true, null, true,
+                            false, toKey, inclusive, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+        return new SubMap<>(this, false, fromKey, inclusive,
+                            true, null, true, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} or {@code toKey} is
+     *         null and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public SortedMap<K,V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code toKey} is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public SortedMap<K,V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public SortedMap<K,V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    // View class support
+
+    static final class Values<V> extends AbstractCollection<V> {
+        private final NavigableMap<?,V> m;
+        Values(NavigableMap<?,V> map) { m = map; }
+
+        public Iterator<V> iterator() {
+            if (m instanceof BTreeMap)
+                return ((BTreeMap<?,V>)m).valueIterator();
+            else
+                return ((SubMap<?,V>)m).valueIterator();
+        }
+
+        public int size() { return m.size(); }
+        public boolean isEmpty() { return m.isEmpty(); }
+        public void clear() { m.clear(); }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator(firstPos(), false, true, null, false);
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+            Pos p = getPos(entry.getKey());
+            return p != null && Objects.equals(p.leaf.vals[p.index], entry.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            delete(((Map.Entry<?,?>) o).getKey());
+            return true;
+        }
+
+        public int size() {
+            return BTreeMap.this.size();
+        }
+
+        public void clear() {
+            BTreeMap.this.clear();
+        }
+    }
+
+    Iterator<K> keyIterator() {
+        return new KeyIterator(firstPos(), false, true, null, false);
+    }
+
+    Iterator<K> descendingKeyIterator() {
+        return new KeyIterator(lastPos(), true, true, null, false);
+    }
+
+    Iterator<V> valueIterator() {
+        return new ValueIterator(firstPos(), false, true, null, false);
+    }
+
+    static final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+        private final NavigableMap<E, ?> m;
+        KeySet(NavigableMap<E,?> map) { m = map; }
+
+        public Iterator<E> iterator() {
+            if (m instanceof BTreeMap)
+                return ((BTreeMap<E,?>)m).keyIterator();
+            else
+                return ((SubMap<E,?>)m).keyIterator();
+        }
+
+        public Iterator<E> descendingIterator() {
+            if (m instanceof BTreeMap)
+                return ((BTreeMap<E,?>)m).descendingKeyIterator();
+            else
+                return ((SubMap<E,?>)m).descendingKeyIterator();
+        }
+
+        public int size() { return m.size(); }
+        public boolean isEmpty() { return m.isEmpty(); }
+        public boolean contains(Object o) { return m.containsKey(o); }
+        public void clear() { m.clear(); }
+        public E lower(E e) { return m.lowerKey(e); }
+        public E floor(E e) { return m.floorKey(e); }
+        public E ceiling(E e) { return m.ceilingKey(e); }
+        public E higher(E e) { return m.higherKey(e); }
+        public E first() { return m.firstKey(); }
+        public E last() { return m.lastKey(); }
+        public Comparator<? super E> comparator() { return m.comparator(); }
+        public E pollFirst() {
+            Map.Entry<E,?> e = m.pollFirstEntry();
+            return (e == null) ? null : e.getKey();
+        }
+        public E pollLast() {
+            Map.Entry<E,?> e = m.pollLastEntry();
+            return (e == null) ? null : e.getKey();
+        }
+        public boolean remove(Object o) {
+            int oldSize = size();
+            m.remove(o);
+            return size() != oldSize;
+        }
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+                                      E toElement,   boolean toInclusive) {
+            return new KeySet<>(m.subMap(fromElement, fromInclusive,
+                                          toElement,   toInclusive));
+        }
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return new KeySet<>(m.headMap(toElement, inclusive));
+        }
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return new KeySet<>(m.tailMap(fromElement, inclusive));
+        }
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+        public NavigableSet<E> descendingSet() {
+            return new KeySet<>(m.descendingMap());
+        }
+    }
+
+    /**
+     * Base class for BTreeMap iterators, which walk the linked leaves in
+     * either direction up to an optional fence key.
+     */
+    abstract class PrivateEntryIterator<T> implements Iterator<T> {
+        Leaf leaf;          // leaf of the next mapping, null if none
+        int index;          // index of the next mapping in leaf
+        Object lastReturned;
+        boolean canRemove;
+        int expectedModCount;
+        final boolean descending;
+        final boolean unbounded;
+        final Object fenceKey;
+        final boolean fenceInclusive;
+
+        PrivateEntryIterator(Pos first, boolean descending, boolean unbounded,
+                             Object fenceKey, boolean fenceInclusive) {
+            this.descending = descending;
+            this.unbounded = unbounded;
+            this.fenceKey = fenceKey;
+            this.fenceInclusive = fenceInclusive;
+            expectedModCount = modCount;
+            moveTo(first);
+        }
+
+        /**
+         * Sets the next position to the given one, or to none if it is null
+         * or beyond the fence.
+         */
+        private void moveTo(Pos p) {
+            if (p == null || !unbounded && beyondFence(p.key())) {
+                leaf = null;
+            } else {
+                leaf = p.leaf;
+                index = p.index;
+            }
+        }
+
+        private boolean beyondFence(Object key) {
+            int c = compare(key, fenceKey);
+            if (descending)
+                c = -c;
+            return c > 0 || (c == 0 && !fenceInclusive);
+        }
+
+        public final boolean hasNext() {
+            return leaf != null;
+        }
+
+        /**
+         * Advances past the next mapping, returning its leaf position.
+         */
+        final int nextIndex() {
+            if (leaf == null)
+                throw new NoSuchElementException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            Leaf l = leaf;
+            int i = index;
+            lastReturned = l.keys[i];
+            canRemove = true;
+            Pos p = normalize(l, descending ? i - 1 : i + 1);
+            moveTo(p);
+            current = l;
+            return i;
+        }
+
+        Leaf current; // leaf of the mapping last returned by nextIndex
+
+        public void remove() {
+            if (!canRemove)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            canRemove = false;
+            Object key = lastReturned;
+            delete(key);
+            // Rebalancing may have moved the following mappings
+            if (leaf != null)
+                moveTo(findNear(key, descending ? LT : GT));
+            expectedModCount = modCount;
+        }
+    }
+
+    final class EntryIterator extends PrivateEntryIterator<Map.Entry<K,V>> {
+        EntryIterator(Pos first, boolean descending, boolean unbounded,
+                      Object fenceKey, boolean fenceInclusive) {
+            super(first, descending, unbounded, fenceKey, fenceInclusive);
+        }
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K,V> next() {
+            int i = nextIndex();
+            return new IteratorEntry((K) current.keys[i], (V) current.vals[i]);
+        }
+    }
+
+    final class ValueIterator extends PrivateEntryIterator<V> {
+        ValueIterator(Pos first, boolean descending, boolean unbounded,
+                      Object fenceKey, boolean fenceInclusive) {
+            super(first, descending, unbounded, fenceKey, fenceInclusive);
+        }
+        @SuppressWarnings("unchecked")
+        public V next() {
+            int i = nextIndex();
+            return (V) current.vals[i];
+        }
+    }
+
+    final class KeyIterator extends PrivateEntryIterator<K> {
+        KeyIterator(Pos first, boolean descending, boolean unbounded,
+                    Object fenceKey, boolean fenceInclusive) {
+            super(first, descending, unbounded, fenceKey, fenceInclusive);
+        }
+        @SuppressWarnings("unchecked")
+        public K next() {
+            int i = nextIndex();
+            return (K) current.keys[i];
+        }
+    }
+
+    /**
+     * An entry returned by an entry set iterator, whose setValue method
+     * writes through to the map.
+     */
+    final class IteratorEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 7138329143949025153L;
+
+        IteratorEntry(K key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            Pos p = getPos(getKey());
+            if (p == null)
+                throw new IllegalStateException("Entry was removed");
+            p.leaf.vals[p.index] = value;
+            return super.setValue(value);
+        }
+    }
+
+    // SubMaps
+
+    /**
+     * A bounded and/or descending view of a BTreeMap.  Bounds are
+     * expressed, as in TreeMap, by fromStart and toEnd flags and by the
+     * lo and hi keys, which are only meaningful if the corresponding flag
+     * is false.
+     *
+     * @serial include
+     */
+    static final class SubMap<K,V> extends AbstractMap<K,V>
+        implements NavigableMap<K,V>, java.io.Serializable {
+        private static final long serialVersionUID = -7647078645895051609L;
+
+        /** The backing map. */
+        final BTreeMap<K,V> m;
+
+        /** Endpoints are represented as triples (fromStart, lo, loInclusive)
+         * and (toEnd, hi, hiInclusive), as in TreeMap.NavigableSubMap. */
+        final K lo, hi;
+        final boolean fromStart, toEnd;
+        final boolean loInclusive, hiInclusive;
+
+        /** Whether this view is descending. */
+        final boolean isDescending;
+
+        // Lazily initialized view holders
+        private transient KeySet<K> keySetView;
+        private transient Set<Map.Entry<K,V>> entrySetView;
+        private transient Collection<V> valuesView;
+
+        SubMap(BTreeMap<K,V> m,
+               boolean fromStart, K lo, boolean loInclusive,
+               boolean toEnd,     K hi, boolean hiInclusive,
+               boolean isDescending) {
+            if (!fromStart && !toEnd) {
+                if (m.compare(lo, hi) > 0)
+                    throw new IllegalArgumentException("fromKey > toKey");
+            } else {
+                if (!fromStart) // type check
+                    m.compare(lo, lo);
+                if (!toEnd)
+                    m.compare(hi, hi);
+            }
+            this.m = m;
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.isDescending = isDescending;
+        }
+
+        // Range checks, in terms of the ascending backing map
+
+        final boolean tooLow(Object key) {
+            if (!fromStart) {
+                int c = m.compare(key, lo);
+                if (c < 0 || (c == 0 && !loInclusive))
+                    return true;
+            }
+            return false;
+        }
+
+        final boolean tooHigh(Object key) {
+            if (!toEnd) {
+                int c = m.compare(key, hi);
+                if (c > 0 || (c == 0 && !hiInclusive))
+                    return true;
+            }
+            return false;
+        }
+
+        final boolean inRange(Object key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        final boolean inClosedRange(Object key) {
+            return (fromStart || m.compare(key, lo) >= 0)
+                && (toEnd || m.compare(hi, key) >= 0);
+        }
+
+        final boolean inRange(Object key, boolean inclusive) {
+            return inclusive ? inRange(key) : inClosedRange(key);
+        }
+
+        final Pos checked(Pos p) {
+            return (p == null || !inRange(p.key())) ? null : p;
+        }
+
+        /*
+         * Absolute versions of relation operations, in terms of the
+         * ascending backing map.
+         */
+
+        final Pos absLowest() {
+            return checked(fromStart ? m.firstPos() :
+                           m.findNear(lo, loInclusive ? GT|EQ : GT));
+        }
+
+        final Pos absHighest() {
+            return checked(toEnd ? m.lastPos() :
+                           m.findNear(hi, hiInclusive ? LT|EQ : LT));
+        }
+
+        final Pos absNear(K key, int rel) {
+            if (tooLow(key))
+                return ((rel & LT) != 0) ? null : absLowest();
+            if (tooHigh(key))
+                return ((rel & LT) != 0) ? absHighest() : null;
+            return checked(m.findNear(key, rel));
+        }
+
+        /** Returns the relation for the backing map of a relation of this view. */
+        final int rel(int rel) {
+            return isDescending ? (rel ^ LT) : rel;
+        }
+
+        final Pos lowestPos() {
+            return isDescending ? absHighest() : absLowest();
+        }
+
+        final Pos highestPos() {
+            return isDescending ? absLowest() : absHighest();
+        }
+
+        // Map methods
+
+        public Comparator<? super K> comparator() {
+            Comparator<? super K> cmp = m.comparator();
+            if (isDescending)
+                return Collections.reverseOrder(cmp);
+            else
+                return cmp;
+        }
+
+        public boolean containsKey(Object key) {
+            return inRange(key) && m.containsKey(key);
+        }
+
+        public V put(K key, V value) {
+            if (!inRange(key))
+                throw new IllegalArgumentException("key out of range");
+            return m.put(key, value);
+        }
+
+        public V get(Object key) {
+            return !inRange(key) ? null : m.get(key);
+        }
+
+        public V remove(Object key) {
+            return !inRange(key) ? null : m.remove(key);
+        }
+
+        public int size() {
+            if (fromStart && toEnd)
+                return m.size();
+            int n = 0;
+            for (Iterator<K> it = keyIterator(); it.hasNext(); it.next())
+                n++;
+            return n;
+        }
+
+        public boolean isEmpty() {
+            return (fromStart && toEnd) ? m.isEmpty() : absLowest() == null;
+        }
+
+        public void clear() {
+            if (fromStart && toEnd) {
+                m.clear();
+                return;
+            }
+            for (Iterator<K> it = keyIterator(); it.hasNext(); ) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        // NavigableMap methods
+
+        public K firstKey() {
+            return key(lowestPos());
+        }
+
+        public K lastKey() {
+            return key(highestPos());
+        }
+
+        public Map.Entry<K,V> firstEntry() {
+            return m.exportEntry(lowestPos());
+        }
+
+        public Map.Entry<K,V> lastEntry() {
+            return m.exportEntry(highestPos());
+        }
+
+        public Map.Entry<K,V> pollFirstEntry() {
+            Map.Entry<K,V> e = m.exportEntry(lowestPos());
+            if (e != null)
+                m.delete(e.getKey());
+            return e;
+        }
+
+        public Map.Entry<K,V> pollLastEntry() {
+            Map.Entry<K,V> e = m.exportEntry(highestPos());
+            if (e != null)
+                m.delete(e.getKey());
+            return e;
+        }
+
+        public Map.Entry<K,V> ceilingEntry(K key) {
+            return m.exportEntry(absNear(key, rel(GT|EQ)));
+        }
+
+        public K ceilingKey(K key) {
+            return keyOrNull(absNear(key, rel(GT|EQ)));
+        }
+
+        public Map.Entry<K,V> higherEntry(K key) {
+            return m.exportEntry(absNear(key, rel(GT)));
+        }
+
+        public K higherKey(K key) {
+            return keyOrNull(absNear(key, rel(GT)));
+        }
+
+        public Map.Entry<K,V> floorEntry(K key) {
+            return m.exportEntry(absNear(key, rel(LT|EQ)));
+        }
+
+        public K floorKey(K key) {
+            return keyOrNull(absNear(key, rel(LT|EQ)));
+        }
+
+        public Map.Entry<K,V> lowerEntry(K key) {
+            return m.exportEntry(absNear(key, rel(LT)));
+        }
+
+        public K lowerKey(K key) {
+            return keyOrNull(absNear(key, rel(LT)));
+        }
+
+        // Views
+
+        public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                        K toKey,   boolean toInclusive) {
+            if (isDescending) {
+                // Swap to ascending terms
+                K k = fromKey; fromKey = toKey; toKey = k;
+                boolean b = fromInclusive; fromInclusive = toInclusive; toInclusive = b;
+            }
+            if (!inRange(fromKey, fromInclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            if (!inRange(toKey, toInclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            return new SubMap<>(m, false, fromKey, fromInclusive,
+                                false, toKey, toInclusive, isDescending);
+        }
+
+        public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(toKey, inclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            if (isDescending)
+                return new SubMap<>(m, false, toKey, inclusive,
+                                    toEnd, hi, hiInclusive, true);
+            return new SubMap<>(m, fromStart, lo, loInclusive,
+                                false, toKey, inclusive, false);
+        }
+
+        public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(fromKey, inclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            if (isDescending)
+                return new SubMap<>(m, fromStart, lo, loInclusive,
+                                    false, fromKey, inclusive, true);
+            return new SubMap<>(m, false, fromKey, inclusive,
+                                toEnd, hi, hiInclusive, false);
+        }
+
+        public SortedMap<K,V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        public SortedMap<K,V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        public SortedMap<K,V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+        public NavigableMap<K,V> descendingMap() {
+            return new SubMap<>(m, fromStart, lo, loInclusive,
+                                toEnd, hi, hiInclusive, !isDescending);
+        }
+
+        public NavigableSet<K> navigableKeySet() {
+            KeySet<K> ks = keySetView;
+            return (ks != null) ? ks : (keySetView = new KeySet<>(this));
+        }
+
+        public Set<K> keySet() {
+            return navigableKeySet();
+        }
+
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        public Collection<V> values() {
+            Collection<V> vs = valuesView;
+            return (vs != null) ? vs : (valuesView = new Values<>(this));
+        }
+
+        public Set<Map.Entry<K,V>> entrySet() {
+            Set<Map.Entry<K,V>> es = entrySetView;
+            return (es != null) ? es : (entrySetView = new SubMapEntrySet());
+        }
+
+        final class SubMapEntrySet extends AbstractSet<Map.Entry<K,V>> {
+            public Iterator<Map.Entry<K,V>> iterator() {
+                return entryIterator();
+            }
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                Object key = e.getKey();
+                return inRange(key) && m.entrySet().contains(e);
+            }
+            public boolean remove(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return inRange(e.getKey()) && m.entrySet().remove(e);
+            }
+            public int size() {
+                return SubMap.this.size();
+            }
+            public boolean isEmpty() {
+                return SubMap.this.isEmpty();
+            }
+            public void clear() {
+                SubMap.this.clear();
+            }
+        }
+
+        // Iterators, in terms of the direction of this view
+
+        private boolean fenceUnbounded(boolean descending) {
+            return descending ? fromStart : toEnd;
+        }
+
+        private K fenceKey(boolean descending) {
+            return descending ? lo : hi;
+        }
+
+        private boolean fenceInclusive(boolean descending) {
+            return descending ? loInclusive : hiInclusive;
+        }
+
+        private Pos start(boolean descending) {
+            return descending ? absHighest() : absLowest();
+        }
+
+        Iterator<K> keyIterator() {
+            boolean d = isDescending;
+            return m.new KeyIterator(start(d), d, fenceUnbounded(d),
+                                     fenceKey(d), fenceInclusive(d));
+        }
+
+        Iterator<K> descendingKeyIterator() {
+            boolean d = !isDescending;
+            return m.new KeyIterator(start(d), d, fenceUnbounded(d),
+                                     fenceKey(d), fenceInclusive(d));
+        }
+
+        Iterator<V> valueIterator() {
+            boolean d = isDescending;
+            return m.new ValueIterator(start(d), d, fenceUnbounded(d),
+                                       fenceKey(d), fenceInclusive(d));
+        }
+
+        Iterator<Map.Entry<K,V>> entryIterator() {
+            boolean d = isDescending;
+            return m.new EntryIterator(start(d), d, fenceUnbounded(d),
+                                       fenceKey(d), fenceInclusive(d));
+        }
+    }
+
+    /**
+     * Save the state of the {@code BTreeMap} instance to a stream (i.e.,
+     * serialize it).
+     *
+     * @serialData The <em>size</em> of the BTreeMap (the number of key-value
+     *             mappings) is emitted (int), followed by the key (Object)
+     *             and value (Object) for each key-value mapping represented
+     *             by the BTreeMap. The key-value mappings are emitted in
+     *             key-order (as determined by the BTreeMap's Comparator,
+     *             or by the keys' natural ordering if the BTreeMap has no
+     *             Comparator).
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        // Write out the Comparator and any hidden stuff
+        s.defaultWriteObject();
+
+        // Write out size (number of Mappings)
+        s.writeInt(size);
+
+        // Write out keys and values (alternating)
+        for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; i++) {
+                s.writeObject(leaf.keys[i]);
+                s.writeObject(leaf.vals[i]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the {@code BTreeMap} instance from a stream (i.e.,
+     * deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(final java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        // Read in the Comparator and any hidden stuff
+        s.defaultReadObject();
+
+        // Read in size
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+
+        for (int i = 0; i < n; i++)
+            put((K) s.readObject(), (V) s.readObject());
+        if (size != n)
+            throw new java.io.InvalidObjectException("Duplicate or unordered keys");
+    }
+}
@@ -1433,6 +1433,32 @@ public class Collections {
         return new UnmodifiableMap<>(m);
     }
 
+    /**
+     * Returns an unmodifiable map containing a snapshot of the mappings of
+     * the specified map.  Unlike {@link #unmodifiableMap(Map)}, later changes
+     * to the specified map are not reflected in the returned map.  Attempts
+     * to modify the returned map, whether direct or via its collection
+     * views, result in an <tt>UnsupportedOperationException</tt>.<p>
+     *
+     * The snapshot is held in a {@link CompactHashMap}, so that copies of
+     * small maps take a fraction of the memory of a {@code HashMap} copy.
+     * Empty maps share the {@linkplain #emptyMap empty map}.  The returned
+     * map is serializable if all of its keys and values are.
+     *
+     * @param <K> the class of the map keys
+     * @param <V> the class of the map values
+     * @param  m the map whose mappings are to be copied
+     * @return an unmodifiable map containing the mappings of the specified
+     *         map
+     * @throws NullPointerException if the specified map is null
+     * @since 1.8
+     */
+    public static <K,V> Map<K,V> unmodifiableMapCopy(Map<? extends K, ? extends V> m) {
+        if (m.isEmpty())
+            return emptyMap();
+        return new UnmodifiableMap<>(new CompactHashMap<K,V>(m));
+    }
+
     /**
      * @serial include
      */
@@ -4960,6 +4986,147 @@ public class Collections {
         }
     }
 
+    // Immutable collections
+
+    /**
+     * Returns an immutable list containing the specified elements, in
+     * order.  Unlike {@link #unmodifiableList(List)}, the returned list is
+     * not a view: it holds the elements directly, in a single array, and
+     * the list is neither backed by nor affected by the specified array.
+     * The returned list implements {@link RandomAccess}, and is
+     * serializable if all of its elements are.
+     *
+     * @param  <E> the class of the elements in the list
+     * @param  elements the elements of the list
+     * @return an immutable list containing the specified elements
+     * @throws NullPointerException if the array or any element is null
+     * @since 1.8
+     */
+    @SafeVarargs
+    public static <E> List<E> immutableListOf(E... elements) {
+        // copied element by element, so that the varargs array itself
+        // does not escape
+        Object[] a = new Object[elements.length];
+        for (int i = 0; i < a.length; i++)
+            a[i] = Objects.requireNonNull(elements[i]);
+        return ImmutableCollections.listOf(a);
+    }
+
+    /**
+     * Returns an immutable list containing the elements of the specified
+     * collection, in the order returned by its iterator.  If the specified
+     * collection is itself a list returned by {@link #immutableListOf} or
+     * by this method, it is returned.
+     *
+     * @param  <E> the class of the elements in the list
+     * @param  c the collection whose elements are to be copied
+     * @return an immutable list containing the specified elements
+     * @throws NullPointerException if the collection or any element is null
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> List<E> immutableListCopyOf(Collection<? extends E> c) {
+        // lists of fewer than two elements are empty and singleton lists
+        if (c instanceof ImmutableCollections.ListN || c instanceof EmptyList
+                || (c instanceof SingletonList
+                    && ((SingletonList<?>) c).element != null))
+            return (List<E>) c;
+        return ImmutableCollections.listOf(requireNonNullElements(c.toArray()));
+    }
+
+    /**
+     * Returns an immutable set containing the distinct elements among the
+     * specified ones.  The set holds the elements directly, in a single
+     * open-addressed hash table, and is neither backed by nor affected by
+     * the specified array.  Its iteration order is unspecified.  The
+     * returned set is serializable if all of its elements are.
+     *
+     * @param  <E> the class of the elements in the set
+     * @param  elements the elements of the set
+     * @return an immutable set containing the specified elements
+     * @throws NullPointerException if the array or any element is null
+     * @since 1.8
+     */
+    @SafeVarargs
+    public static <E> Set<E> immutableSetOf(E... elements) {
+        Object[] a = new Object[elements.length];
+        for (int i = 0; i < a.length; i++)
+            a[i] = Objects.requireNonNull(elements[i]);
+        return ImmutableCollections.setOf(a);
+    }
+
+    /**
+     * Returns an immutable set containing the distinct elements of the
+     * specified collection.  If the specified collection is itself a set
+     * returned by {@link #immutableSetOf} or by this method, or a
+     * {@link PersistentHashSet}, it is returned.
+     *
+     * @param  <E> the class of the elements in the set
+     * @param  c the collection whose elements are to be copied
+     * @return an immutable set containing the specified elements
+     * @throws NullPointerException if the collection or any element is null
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> Set<E> immutableSetCopyOf(Collection<? extends E> c) {
+        if (c instanceof ImmutableCollections.SetN || c instanceof PersistentHashSet
+                || c instanceof EmptySet
+                || (c instanceof SingletonSet
+                    && ((SingletonSet<?>) c).element != null))
+            return (Set<E>) c;
+        return ImmutableCollections.setOf(requireNonNullElements(c.toArray()));
+    }
+
+    /**
+     * Returns an immutable map containing the mappings of the specified
+     * map.  Unlike {@link #unmodifiableMapCopy(Map)}, which permits null
+     * keys and values, the returned map holds its keys and values directly
+     * in a single open-addressed hash table, without any entry objects.
+     * Its iteration order is unspecified.  If the specified map is itself
+     * a map returned by this method, or a {@link PersistentHashMap}, it is
+     * returned.  The returned map is serializable if all of its keys and
+     * values are.
+     *
+     * <p>Maps that are updated after they are created, and are large
+     * enough for copying them to be expensive, are better represented by a
+     * {@code PersistentHashMap}.
+     *
+     * @param <K> the class of the map keys
+     * @param <V> the class of the map values
+     * @param  m the map whose mappings are to be copied
+     * @return an immutable map containing the mappings of the specified map
+     * @throws NullPointerException if the map or any key or value is null
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <K,V> Map<K,V> immutableMapCopyOf(Map<? extends K, ? extends V> m) {
+        if (m instanceof ImmutableCollections.MapN || m instanceof PersistentHashMap
+                || m instanceof EmptyMap
+                || (m instanceof SingletonMap
+                    && ((SingletonMap<?,?>) m).k != null
+                    && ((SingletonMap<?,?>) m).v != null))
+            return (Map<K,V>) m;
+        Object[] a = new Object[2 * m.size()];
+        int i = 0;
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            if (i == a.length)
+                a = Arrays.copyOf(a, 2 * a.length + 2);
+            a[i++] = e.getKey();
+            a[i++] = e.getValue();
+        }
+        return ImmutableCollections.mapOf(requireNonNullElements(Arrays.copyOf(a, i)));
+    }
+
+    /**
+     * Checks that none of the elements of a freshly copied array is null,
+     * and returns the array.
+     */
+    private static Object[] requireNonNullElements(Object[] a) {
+        for (Object e : a)
+            Objects.requireNonNull(e);
+        return a;
+    }
+
     // Miscellaneous
 
     /**
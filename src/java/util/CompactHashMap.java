@@ -0,0 +1,852 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Hash table based implementation of the <tt>Map</tt> interface that is
+ * optimized for memory footprint when holding few mappings.  It provides
+ * the same semantics as {@link HashMap}: all of the optional map operations
+ * are supported, <tt>null</tt> values and the <tt>null</tt> key are
+ * permitted, and no guarantees are made as to the order of the map.
+ *
+ * <p>While it holds at most {@value #COMPACT_THRESHOLD} mappings, the map
+ * stores its keys and values alternately in a single flat array which is
+ * searched by linear probing, so that no per-entry objects are allocated.
+ * A map of five entries occupies a map object and one array of sixteen
+ * references, holding eight key-value slots, compared with a map object, a
+ * 16-bucket table and five nodes for a {@code HashMap}.  Once the map grows
+ * past that threshold it inflates to a {@code HashMap} based representation
+ * and stays there until it is {@linkplain #clear cleared}, so that large
+ * maps perform as well as a {@code HashMap} does.
+ *
+ * <p>This class is a good choice for the many small maps, such as headers,
+ * attributes or parsed objects, that dominate the heap of some
+ * applications.  Lookups in the compact representation call
+ * {@code equals} on the keys that share a probe sequence with the key
+ * looked up, which is cheap for small tables of keys with well-distributed
+ * hash codes.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a compact hash map concurrently, and at least
+ * one of the threads modifies the map structurally, it <i>must</i> be
+ * synchronized externally.  This is typically accomplished by synchronizing
+ * on some object that naturally encapsulates the map.  If no such object
+ * exists, the map should be "wrapped" using the
+ * {@link Collections#synchronizedMap Collections.synchronizedMap} method.
+ *
+ * <p>The iterators returned by all of this class's "collection view methods"
+ * are <i>fail-fast</i>: if the map is structurally modified at any time
+ * after the iterator is created, in any way except through the iterator's
+ * own <tt>remove</tt> method, the iterator will throw a
+ * {@link ConcurrentModificationException}.  Note that the fail-fast
+ * behavior of an iterator cannot be guaranteed as it is, generally
+ * speaking, impossible to make any hard guarantees in the presence of
+ * unsynchronized concurrent modification.  Fail-fast iterators throw
+ * <tt>ConcurrentModificationException</tt> on a best-effort basis.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see     HashMap
+ * @see     IdentityHashMap
+ * @see     Collections#unmodifiableMapCopy(Map)
+ * @since   1.8
+ */
+public class CompactHashMap<K,V>
+    extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, java.io.Serializable
+{
+    private static final long serialVersionUID = -4398305226245339812L;
+
+    /**
+     * The largest number of mappings held in the compact representation.
+     * Adding a mapping to a map of this size inflates it.
+     */
+    static final int COMPACT_THRESHOLD = 8;
+
+    /**
+     * The smallest number of slots of a non-empty compact table.
+     * MUST be a power of two.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * The largest number of slots of a compact table, which is the
+     * smallest power of two keeping the load factor of a table holding
+     * COMPACT_THRESHOLD mappings below 3/4.  MUST be a power of two.
+     */
+    private static final int MAXIMUM_CAPACITY = 16;
+
+    /**
+     * Shared empty table for empty compact maps.
+     */
+    private static final Object[] EMPTY_TABLE = {};
+
+    /**
+     * The compact table, holding each key (masked, see {@link #maskNull})
+     * at an even index and its value at the following index.  A slot
+     * whose key is null is free.  Length is twice a power of two, or zero.
+     * Unused once the map has inflated.
+     */
+    transient Object[] table = EMPTY_TABLE;
+
+    /**
+     * The inflated representation, or null while the map is compact.
+     */
+    transient HashMap<K,V> inflated;
+
+    /**
+     * The number of mappings in the compact representation.
+     */
+    transient int size;
+
+    /**
+     * The number of modifications of the compact representation, to
+     * support fast-fail iterators.
+     */
+    transient int modCount;
+
+    /**
+     * Value representing null keys inside tables.
+     */
+    static final Object NULL_KEY = new Object();
+
+    /**
+     * Use NULL_KEY for key if it is null.
+     */
+    private static Object maskNull(Object key) {
+        return (key == null ? NULL_KEY : key);
+    }
+
+    /**
+     * Returns internal representation of null key back to caller as null.
+     */
+    static final Object unmaskNull(Object key) {
+        return (key == NULL_KEY ? null : key);
+    }
+
+    /**
+     * Constructs an empty <tt>CompactHashMap</tt>.  No table is allocated
+     * until the first mapping is added.
+     */
+    public CompactHashMap() {
+    }
+
+    /**
+     * Constructs a new <tt>CompactHashMap</tt> with the same mappings as the
+     * specified <tt>Map</tt>.  The map is created in the compact
+     * representation if the specified map holds at most
+     * {@value #COMPACT_THRESHOLD} mappings, and in the inflated
+     * representation otherwise.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null
+     */
+    public CompactHashMap(Map<? extends K, ? extends V> m) {
+        putAll(m);
+    }
+
+    /**
+     * Returns the number of slots of a compact table able to hold the
+     * given number of mappings, which must be at most COMPACT_THRESHOLD.
+     * The load factor is kept below 3/4, which also leaves at least one
+     * free slot to terminate each probe sequence.
+     */
+    private static int capacity(int expectedSize) {
+        // assert expectedSize <= COMPACT_THRESHOLD;
+        int cap = MINIMUM_CAPACITY;
+        while (expectedSize >= cap - (cap >>> 2))
+            cap <<= 1;
+        return cap;
+    }
+
+    /**
+     * Returns the index of the first slot probed for the given masked key
+     * in a table of the given length.
+     */
+    private static int hash(Object k, int length) {
+        return (HashMap.hash(k) << 1) & (length - 1);
+    }
+
+    /**
+     * Circularly traverses table of size len.
+     */
+    private static int nextKeyIndex(int i, int len) {
+        return (i + 2 < len ? i + 2 : 0);
+    }
+
+    /**
+     * Returns the index of the slot holding the given masked key in the
+     * compact table, or -1 if it is absent.
+     */
+    private int indexOf(Object k) {
+        Object[] tab = table;
+        int len = tab.length;
+        if (len == 0)
+            return -1;
+        for (int i = hash(k, len);; i = nextKeyIndex(i, len)) {
+            Object item = tab[i];
+            if (item == null)
+                return -1;
+            if (item == k || k.equals(item))
+                return i;
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        HashMap<K,V> m = inflated;
+        return (m != null) ? m.size() : size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * <p>More formally, if this map contains a mapping from a key
+     * {@code k} to a value {@code v} such that {@code (key==null ? k==null :
+     * key.equals(k))}, then this method returns {@code v}; otherwise
+     * it returns {@code null}.  (There can be at most one such mapping.)
+     *
+     * <p>A return value of {@code null} does not <i>necessarily</i>
+     * indicate that the map contains no mapping for the key; it's also
+     * possible that the map explicitly maps the key to {@code null}.
+     * The {@link #containsKey containsKey} operation may be used to
+     * distinguish these two cases.
+     *
+     * @see #put(Object, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        HashMap<K,V> m = inflated;
+        if (m != null)
+            return m.get(key);
+        int i = indexOf(maskNull(key));
+        return (i < 0) ? null : (V) table[i + 1];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param   key   The key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified
+     * key.
+     */
+    public boolean containsKey(Object key) {
+        HashMap<K,V> m = inflated;
+        if (m != null)
+            return m.containsKey(key);
+        return indexOf(maskNull(key)) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(Object value) {
+        HashMap<K,V> m = inflated;
+        if (m != null)
+            return m.containsValue(value);
+        Object[] tab = table;
+        for (int i = 1; i < tab.length; i += 2)
+            if (tab[i - 1] != null && Objects.equals(value, tab[i]))
+                return true;
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.  If the map is compact and already holds
+     * {@value #COMPACT_THRESHOLD} mappings, adding a new mapping inflates
+     * it.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     *         (A <tt>null</tt> return can also indicate that the map
+     *         previously associated <tt>null</tt> with <tt>key</tt>.)
+     */
+    public V put(K key, V value) {
+        HashMap<K,V> m = inflated;
+        if (m != null)
+            return m.put(key, value);
+        Object k = maskNull(key);
+        int i = indexOf(k);
+        if (i >= 0) {
+            @SuppressWarnings("unchecked")
+                V oldValue = (V) table[i + 1];
+            table[i + 1] = value;
+            return oldValue;
+        }
+        int s = size + 1;
+        if (s > COMPACT_THRESHOLD) {
+            inflate().put(key, value);
+            return null;
+        }
+        if (2 * capacity(s) > table.length)
+            resize(capacity(s));
+        modCount++;
+        insert(table, k, value);
+        size = s;
+        return null;
+    }
+
+    /**
+     * Stores a masked key known to be absent, and its value, in the first
+     * free slot of its probe sequence in the given table.
+     */
+    private static void insert(Object[] tab, Object k, Object value) {
+        int len = tab.length;
+        int i = hash(k, len);
+        while (tab[i] != null)
+            i = nextKeyIndex(i, len);
+        tab[i] = k;
+        tab[i + 1] = value;
+    }
+
+    /**
+     * Rehashes the compact table into a table of the given number of slots.
+     *
+     * @param newCapacity the new capacity, must be a power of two.
+     */
+    private void resize(int newCapacity) {
+        // assert newCapacity <= MAXIMUM_CAPACITY;
+        Object[] oldTable = table;
+        Object[] newTable = new Object[2 * newCapacity];
+        for (int j = 0; j < oldTable.length; j += 2) {
+            Object k = oldTable[j];
+            if (k != null)
+                insert(newTable, k, oldTable[j + 1]);
+        }
+        table = newTable;
+    }
+
+    /**
+     * Moves all mappings of the compact table to a new HashMap, and
+     * switches this map to the inflated representation.
+     *
+     * @return the new HashMap
+     */
+    @SuppressWarnings("unchecked")
+    private HashMap<K,V> inflate() {
+        Object[] tab = table;
+        HashMap<K,V> m = new HashMap<>(2 * MAXIMUM_CAPACITY);
+        for (int i = 0; i < tab.length; i += 2) {
+            Object k = tab[i];
+            if (k != null)
+                m.put((K) unmaskNull(k), (V) tab[i + 1]);
+        }
+        modCount++;
+        inflated = m;
+        table = EMPTY_TABLE;
+        size = 0;
+        return m;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     * These mappings will replace any mappings that this map had for
+     * any of the keys currently in the specified map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public void putAll(Map<? extends K, ? extends V> m) {
+        int n = m.size();
+        if (n == 0)
+            return;
+        HashMap<K,V> im = inflated;
+        if (im == null && n > COMPACT_THRESHOLD)
+            im = inflate(); // would surely inflate anyway
+        if (im != null) {
+            im.putAll(m);
+            return;
+        }
+        if (2 * capacity(Math.min(size + n, COMPACT_THRESHOLD)) > table.length)
+            resize(capacity(Math.min(size + n, COMPACT_THRESHOLD)));
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     *         (A <tt>null</tt> return can also indicate that the map
+     *         previously associated <tt>null</tt> with <tt>key</tt>.)
+     */
+    public V remove(Object key) {
+        HashMap<K,V> m = inflated;
+        if (m != null)
+            return m.remove(key);
+        int i = indexOf(maskNull(key));
+        if (i < 0)
+            return null;
+        @SuppressWarnings("unchecked")
+            V oldValue = (V) table[i + 1];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * Removes the mapping in the given slot of the compact table.
+     */
+    private void removeAt(int i) {
+        modCount++;
+        size--;
+        table[i] = null;
+        table[i + 1] = null;
+        closeDeletion(i);
+    }
+
+    /**
+     * Rehash all possibly-colliding entries following a
+     * deletion. This preserves the linear-probe
+     * collision properties required by get, put, etc.
+     *
+     * @param d the index of a newly empty deleted slot
+     */
+    private void closeDeletion(int d) {
+        // Adapted from Knuth Section 6.4 Algorithm R, as in IdentityHashMap
+        Object[] tab = table;
+        int len = tab.length;
+        Object item;
+        for (int i = nextKeyIndex(d, len); (item = tab[i]) != null;
+             i = nextKeyIndex(i, len) ) {
+            int r = hash(item, len);
+            if ((i < r && (r <= d || d <= i)) || (r <= d && d <= i)) {
+                tab[d] = item;
+                tab[d + 1] = tab[i + 1];
+                tab[i] = null;
+                tab[i + 1] = null;
+                d = i;
+            }
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The map will be empty,
+     * and back in the compact representation, after this call returns.
+     */
+    public void clear() {
+        modCount++;
+        inflated = null;
+        table = EMPTY_TABLE;
+        size = 0;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        HashMap<K,V> m = inflated;
+        if (m != null) {
+            m.forEach(action);
+            return;
+        }
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        Object[] tab = table;
+        for (int i = 0; i < tab.length; i += 2) {
+            Object k = tab[i];
+            if (k != null) {
+                @SuppressWarnings("unchecked") K key = (K) unmaskNull(k);
+                @SuppressWarnings("unchecked") V value = (V) tab[i + 1];
+                action.accept(key, value);
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        HashMap<K,V> m = inflated;
+        if (m != null) {
+            m.replaceAll(function);
+            return;
+        }
+        Objects.requireNonNull(function);
+        int expectedModCount = modCount;
+        Object[] tab = table;
+        for (int i = 0; i < tab.length; i += 2) {
+            Object k = tab[i];
+            if (k != null) {
+                @SuppressWarnings("unchecked") K key = (K) unmaskNull(k);
+                @SuppressWarnings("unchecked") V value = (V) tab[i + 1];
+                tab[i + 1] = function.apply(key, value);
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this <tt>CompactHashMap</tt> instance: the
+     * keys and values themselves are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object clone() {
+        CompactHashMap<K,V> result;
+        try {
+            result = (CompactHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        result.entrySet = null;
+        result.keySet = null;
+        result.values = null;
+        if (inflated != null)
+            result.inflated = (HashMap<K,V>) inflated.clone();
+        else if (table.length != 0)
+            result.table = table.clone();
+        return result;
+    }
+
+    // Views
+
+    private abstract class CompactIterator<T> implements Iterator<T> {
+        int index;                       // next slot to examine
+        int lastReturnedIndex = -1;      // to allow remove()
+        int expectedModCount = modCount; // to support fast-fail
+        Object[] traversalTable = table; // main table or copy, see remove()
+
+        public boolean hasNext() {
+            Object[] tab = traversalTable;
+            for (int i = index; i < tab.length; i += 2) {
+                if (tab[i] != null) {
+                    index = i;
+                    return true;
+                }
+            }
+            index = tab.length;
+            return false;
+        }
+
+        protected int nextIndex() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            lastReturnedIndex = index;
+            index += 2;
+            return lastReturnedIndex;
+        }
+
+        public void remove() {
+            if (lastReturnedIndex == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            // Deletion may move a mapping not yet returned into a slot
+            // already passed, so finish the traversal on a copy of the
+            // table; it is no larger than 2 * MAXIMUM_CAPACITY slots.
+            Object[] tab = traversalTable;
+            if (tab == table)
+                traversalTable = tab.clone();
+            int i = indexOf(tab[lastReturnedIndex]);
+            lastReturnedIndex = -1;
+            if (i >= 0)
+                removeAt(i);
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class KeyIterator extends CompactIterator<K> {
+        @SuppressWarnings("unchecked")
+        public K next() {
+            return (K) unmaskNull(traversalTable[nextIndex()]);
+        }
+    }
+
+    private final class ValueIterator extends CompactIterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next() {
+            Object[] tab = traversalTable;
+            int i = nextIndex();
+            // Values of a copied table may be stale after replacement
+            return (V) (tab == table ? tab[i + 1] : get(unmaskNull(tab[i])));
+        }
+    }
+
+    private final class EntryIterator extends CompactIterator<Map.Entry<K,V>> {
+        public Map.Entry<K,V> next() {
+            return new Entry(traversalTable[nextIndex()]);
+        }
+    }
+
+    /**
+     * A map entry of the compact representation, reading and writing
+     * the value through the map, whichever representation it then has.
+     */
+    private final class Entry implements Map.Entry<K,V> {
+        private final Object key; // masked
+
+        Entry(Object key) {
+            this.key = key;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K getKey() {
+            return (K) unmaskNull(key);
+        }
+
+        public V getValue() {
+            return get(unmaskNull(key));
+        }
+
+        public V setValue(V value) {
+            K k = getKey();
+            if (!containsKey(k))
+                throw new IllegalStateException();
+            return put(k, value);
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return Objects.equals(getKey(), e.getKey()) &&
+                   Objects.equals(getValue(), e.getValue());
+        }
+
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  If the map is modified
+     * while an iteration over the set is in progress (except through
+     * the iterator's own <tt>remove</tt> operation), the results of
+     * the iteration are undefined.  The set supports element removal,
+     * which removes the corresponding mapping from the map, via the
+     * <tt>Iterator.remove</tt>, <tt>Set.remove</tt>,
+     * <tt>removeAll</tt>, <tt>retainAll</tt>, and <tt>clear</tt>
+     * operations.  It does not support the <tt>add</tt> or <tt>addAll</tt>
+     * operations.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        Set<K> ks = keySet;
+        if (ks == null) {
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        public Iterator<K> iterator() {
+            HashMap<K,V> m = inflated;
+            return (m != null) ? m.keySet().iterator() : new KeyIterator();
+        }
+        public int size() {
+            return CompactHashMap.this.size();
+        }
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+        public boolean remove(Object o) {
+            if (!containsKey(o))
+                return false;
+            CompactHashMap.this.remove(o);
+            return true;
+        }
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this map.
+     * The collection is backed by the map, so changes to the map are
+     * reflected in the collection, and vice-versa.  If the map is
+     * modified while an iteration over the collection is in progress
+     * (except through the iterator's own <tt>remove</tt> operation),
+     * the results of the iteration are undefined.  The collection
+     * supports element removal, which removes the corresponding
+     * mapping from the map, via the <tt>Iterator.remove</tt>,
+     * <tt>Collection.remove</tt>, <tt>removeAll</tt>,
+     * <tt>retainAll</tt> and <tt>clear</tt> operations.  It does not
+     * support the <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a view of the values contained in this map
+     */
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        public Iterator<V> iterator() {
+            HashMap<K,V> m = inflated;
+            return (m != null) ? m.values().iterator() : new ValueIterator();
+        }
+        public int size() {
+            return CompactHashMap.this.size();
+        }
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  If the map is modified
+     * while an iteration over the set is in progress (except through
+     * the iterator's own <tt>remove</tt> operation, or through the
+     * <tt>setValue</tt> operation on a map entry returned by the
+     * iterator) the results of the iteration are undefined.  The set
+     * supports element removal, which removes the corresponding
+     * mapping from the map, via the <tt>Iterator.remove</tt>,
+     * <tt>Set.remove</tt>, <tt>removeAll</tt>, <tt>retainAll</tt> and
+     * <tt>clear</tt> operations.  It does not support the
+     * <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es = entrySet;
+        if (es == null) {
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            HashMap<K,V> m = inflated;
+            return (m != null) ? m.entrySet().iterator() : new EntryIterator();
+        }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object key = e.getKey();
+            return containsKey(key) && Objects.equals(get(key), e.getValue());
+        }
+        public boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            CompactHashMap.this.remove(((Map.Entry<?,?>)o).getKey());
+            return true;
+        }
+        public int size() {
+            return CompactHashMap.this.size();
+        }
+        public void clear() {
+            CompactHashMap.this.clear();
+        }
+    }
+
+    /**
+     * Saves the state of the <tt>CompactHashMap</tt> instance to a stream
+     * (i.e., serializes it).
+     *
+     * @serialData The <i>size</i> of the map (the number of key-value
+     *          mappings) is emitted (int), followed by the key (Object)
+     *          and value (Object) for each key-value mapping represented
+     *          by the map.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(size());
+        for (Map.Entry<K,V> e : entrySet()) {
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+    }
+
+    /**
+     * Reconstitutes the <tt>CompactHashMap</tt> instance from a stream
+     * (i.e., deserializes it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException  {
+        s.defaultReadObject();
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                     mappings);
+        table = EMPTY_TABLE;
+        if (mappings > COMPACT_THRESHOLD)
+            inflated = new HashMap<>(mappings * 4 / 3 + 1);
+        for (int i = 0; i < mappings; i++)
+            put((K) s.readObject(), (V) s.readObject());
+    }
+}
@@ -32,6 +32,11 @@ package java.util;
  * quicksorts to degrade to quadratic performance, and is typically
  * faster than traditional (one-pivot) Quicksort implementations.
  *
+ * Large int, long, float and double arrays which turn out not to be
+ * highly structured are sorted by least-significant-digit radix sort
+ * with 8-bit digits instead, skipping the passes for digits that are
+ * the same in all elements.
+ *
  * All exposed methods are package-private, designed to be invoked
  * from public methods (in class Arrays) after performing any
  * necessary array bounds checks and expanding parameters into the
@@ -89,6 +94,23 @@ final class DualPivotQuicksort {
      */
     private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
 
+    /**
+     * If the length of an int or float array which is not highly
+     * structured is greater than this constant, radix sort is used
+     * in preference to Quicksort.
+     */
+    private static final int RADIX_SORT_THRESHOLD_FOR_INT_OR_FLOAT = 4000;
+
+    /**
+     * If the length of a long or double array which is not highly
+     * structured is greater than this constant, radix sort is used
+     * in preference to Quicksort.
+     */
+    private static final int RADIX_SORT_THRESHOLD_FOR_LONG_OR_DOUBLE = 12000;
+
+    /** The number of distinct values of a radix sort digit. */
+    private static final int NUM_RADIX_VALUES = 1 << 8;
+
     /*
      * Sorting methods for seven primitive types.
      */
@@ -131,7 +153,7 @@ final class DualPivotQuicksort {
             } else { // equal
                 for (int m = MAX_RUN_LENGTH; ++k <= right && a[k - 1] == a[k]; ) {
                     if (--m == 0) {
-                        sort(a, left, right, true);
+                        sortUnstructured(a, left, right, work, workBase, workLen);
                         return;
                     }
                 }
@@ -142,7 +164,7 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                sortUnstructured(a, left, right, work, workBase, workLen);
                 return;
             }
         }
@@ -203,6 +225,59 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array, which has been found
+     * not to be highly structured, by radix sort if the range is large
+     * enough and by Dual-Pivot Quicksort otherwise.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void sortUnstructured(int[] a, int left, int right,
+                                         int[] work, int workBase, int workLen) {
+        if (right - left < RADIX_SORT_THRESHOLD_FOR_INT_OR_FLOAT) {
+            sort(a, left, right, true);
+            return;
+        }
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new int[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all four digits in a single pass
+        int[] count = new int[4 * NUM_RADIX_VALUES];
+        for (int i = left; i <= right; ++i) {
+            int k = a[i] ^ Integer.MIN_VALUE;
+            count[k & 0xFF]++;
+            count[(k >>> 8) & 0xFF | 0x100]++;
+            count[(k >>> 16) & 0xFF | 0x200]++;
+            count[(k >>> 24) | 0x300]++;
+        }
+
+        // Distribute least significant digit first, skipping trivial passes
+        int[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int shift = 0, c = 0; shift < 32; shift += 8, c += NUM_RADIX_VALUES) {
+            if (!toOffsets(count, c, ((a[left] ^ Integer.MIN_VALUE) >>> shift) & 0xFF, n)) {
+                continue;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                int ai = src[i];
+                dst[dof + count[c + (((ai ^ Integer.MIN_VALUE) >>> shift) & 0xFF)]++] = ai;
+            }
+            int[] t = src; src = dst; dst = t;
+            int o = so; so = dof; dof = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
     /**
      * Sorts the specified range of the array by Dual-Pivot Quicksort.
      *
@@ -579,7 +654,7 @@ final class DualPivotQuicksort {
             } else { // equal
                 for (int m = MAX_RUN_LENGTH; ++k <= right && a[k - 1] == a[k]; ) {
                     if (--m == 0) {
-                        sort(a, left, right, true);
+                        sortUnstructured(a, left, right, work, workBase, workLen);
                         return;
                     }
                 }
@@ -590,7 +665,7 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                sortUnstructured(a, left, right, work, workBase, workLen);
                 return;
             }
         }
@@ -651,6 +726,58 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array, which has been found
+     * not to be highly structured, by radix sort if the range is large
+     * enough and by Dual-Pivot Quicksort otherwise.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void sortUnstructured(long[] a, int left, int right,
+                                         long[] work, int workBase, int workLen) {
+        if (right - left < RADIX_SORT_THRESHOLD_FOR_LONG_OR_DOUBLE) {
+            sort(a, left, right, true);
+            return;
+        }
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new long[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all eight digits in a single pass
+        int[] count = new int[8 * NUM_RADIX_VALUES];
+        for (int i = left; i <= right; ++i) {
+            long k = a[i] ^ Long.MIN_VALUE;
+            for (int c = 0; c < count.length; c += NUM_RADIX_VALUES, k >>>= 8) {
+                count[c + ((int) k & 0xFF)]++;
+            }
+        }
+
+        // Distribute least significant digit first, skipping trivial passes
+        long[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int shift = 0, c = 0; shift < 64; shift += 8, c += NUM_RADIX_VALUES) {
+            if (!toOffsets(count, c, (int) ((a[left] ^ Long.MIN_VALUE) >>> shift) & 0xFF, n)) {
+                continue;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                long ai = src[i];
+                dst[dof + count[c + ((int) ((ai ^ Long.MIN_VALUE) >>> shift) & 0xFF)]++] = ai;
+            }
+            long[] t = src; src = dst; dst = t;
+            int o = so; so = dof; dof = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
     /**
      * Sorts the specified range of the array by Dual-Pivot Quicksort.
      *
@@ -2127,7 +2254,7 @@ final class DualPivotQuicksort {
             } else { // equal
                 for (int m = MAX_RUN_LENGTH; ++k <= right && a[k - 1] == a[k]; ) {
                     if (--m == 0) {
-                        sort(a, left, right, true);
+                        sortUnstructured(a, left, right, work, workBase, workLen);
                         return;
                     }
                 }
@@ -2138,7 +2265,7 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                sortUnstructured(a, left, right, work, workBase, workLen);
                 return;
             }
         }
@@ -2199,6 +2326,69 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array, which has been found
+     * not to be highly structured, by radix sort if the range is large
+     * enough and by Dual-Pivot Quicksort otherwise. The range must not
+     * contain NaNs.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void sortUnstructured(float[] a, int left, int right,
+                                         float[] work, int workBase, int workLen) {
+        if (right - left < RADIX_SORT_THRESHOLD_FOR_INT_OR_FLOAT) {
+            sort(a, left, right, true);
+            return;
+        }
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new float[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all four digits in a single pass
+        int[] count = new int[4 * NUM_RADIX_VALUES];
+        for (int i = left; i <= right; ++i) {
+            int k = radixKey(a[i]);
+            count[k & 0xFF]++;
+            count[(k >>> 8) & 0xFF | 0x100]++;
+            count[(k >>> 16) & 0xFF | 0x200]++;
+            count[(k >>> 24) | 0x300]++;
+        }
+
+        // Distribute least significant digit first, skipping trivial passes
+        float[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int shift = 0, c = 0; shift < 32; shift += 8, c += NUM_RADIX_VALUES) {
+            if (!toOffsets(count, c, (radixKey(a[left]) >>> shift) & 0xFF, n)) {
+                continue;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                float ai = src[i];
+                dst[dof + count[c + ((radixKey(ai) >>> shift) & 0xFF)]++] = ai;
+            }
+            float[] t = src; src = dst; dst = t;
+            int o = so; so = dof; dof = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /**
+     * Returns an int whose unsigned order agrees with the numerical
+     * order of the given (non-NaN) float, with -0.0f below 0.0f.
+     */
+    private static int radixKey(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
     /**
      * Sorts the specified range of the array by Dual-Pivot Quicksort.
      *
@@ -2666,7 +2856,7 @@ final class DualPivotQuicksort {
             } else { // equal
                 for (int m = MAX_RUN_LENGTH; ++k <= right && a[k - 1] == a[k]; ) {
                     if (--m == 0) {
-                        sort(a, left, right, true);
+                        sortUnstructured(a, left, right, work, workBase, workLen);
                         return;
                     }
                 }
@@ -2677,7 +2867,7 @@ final class DualPivotQuicksort {
              * use Quicksort instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                sortUnstructured(a, left, right, work, workBase, workLen);
                 return;
             }
         }
@@ -2738,6 +2928,68 @@ final class DualPivotQuicksort {
         }
     }
 
+    /**
+     * Sorts the specified range of the array, which has been found
+     * not to be highly structured, by radix sort if the range is large
+     * enough and by Dual-Pivot Quicksort otherwise. The range must not
+     * contain NaNs.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     */
+    private static void sortUnstructured(double[] a, int left, int right,
+                                         double[] work, int workBase, int workLen) {
+        if (right - left < RADIX_SORT_THRESHOLD_FOR_LONG_OR_DOUBLE) {
+            sort(a, left, right, true);
+            return;
+        }
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new double[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all eight digits in a single pass
+        int[] count = new int[8 * NUM_RADIX_VALUES];
+        for (int i = left; i <= right; ++i) {
+            long k = radixKey(a[i]);
+            for (int c = 0; c < count.length; c += NUM_RADIX_VALUES, k >>>= 8) {
+                count[c + ((int) k & 0xFF)]++;
+            }
+        }
+
+        // Distribute least significant digit first, skipping trivial passes
+        double[] src = a, dst = work;
+        int so = left, dof = workBase;
+        for (int shift = 0, c = 0; shift < 64; shift += 8, c += NUM_RADIX_VALUES) {
+            if (!toOffsets(count, c, (int) (radixKey(a[left]) >>> shift) & 0xFF, n)) {
+                continue;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                double ai = src[i];
+                dst[dof + count[c + ((int) (radixKey(ai) >>> shift) & 0xFF)]++] = ai;
+            }
+            double[] t = src; src = dst; dst = t;
+            int o = so; so = dof; dof = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    /**
+     * Returns a long whose unsigned order agrees with the numerical
+     * order of the given (non-NaN) double, with -0.0d below 0.0d.
+     */
+    private static long radixKey(double d) {
+        long bits = Double.doubleToRawLongBits(d);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
     /**
      * Sorts the specified range of the array by Dual-Pivot Quicksort.
      *
@@ -3075,4 +3327,109 @@ final class DualPivotQuicksort {
             sort(a, great + 1, right, false);
         }
     }
+
+    /*
+     * Radix sort support.
+     */
+
+    /**
+     * Converts the histogram of one digit, stored at the given offset of
+     * the count array, to the starting positions of each digit value.
+     * Returns false, leaving the histogram unchanged, if all elements
+     * have the same digit value (with {@code sample} being one of them),
+     * so that the corresponding distribution pass can be skipped.
+     *
+     * @param count the histograms
+     * @param offset the offset of the histogram of this digit
+     * @param sample the digit value of any element of the range
+     * @param n the number of elements to be distributed
+     */
+    private static boolean toOffsets(int[] count, int offset, int sample, int n) {
+        if (count[offset + sample] == n) {
+            return false;
+        }
+        for (int i = offset, end = offset + NUM_RADIX_VALUES, sum = 0; i < end; ++i) {
+            int c = count[i];
+            count[i] = sum;
+            sum += c;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of an array of keys into ascending
+     * numerical order, applying the same permutation to the parallel
+     * array of indices. The sort is stable, so that pairs whose indices
+     * were in ascending order before the sort are ordered by key and
+     * then by index afterwards. This is the base sort for sorting
+     * objects by extracted {@code long} keys.
+     *
+     * @param a the keys to be sorted
+     * @param idx the indices to be permuted along with the keys
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice) for keys
+     * @param iwork a workspace array (slice) for indices
+     * @param workBase origin of usable space in work arrays
+     * @param workLen usable size of work arrays
+     */
+    static void sort(long[] a, int[] idx, int left, int right,
+                     long[] work, int[] iwork, int workBase, int workLen) {
+        // Use insertion sort on tiny arrays
+        if (right - left < INSERTION_SORT_THRESHOLD) {
+            for (int i = left, j = i; i < right; j = ++i) {
+                long ai = a[i + 1];
+                int ii = idx[i + 1];
+                while (ai < a[j]) {
+                    a[j + 1] = a[j];
+                    idx[j + 1] = idx[j];
+                    if (j-- == left) {
+                        break;
+                    }
+                }
+                a[j + 1] = ai;
+                idx[j + 1] = ii;
+            }
+            return;
+        }
+        int n = right - left + 1;
+        if (work == null || iwork == null || workLen < n ||
+                workBase + n > work.length || workBase + n > iwork.length) {
+            work = new long[n];
+            iwork = new int[n];
+            workBase = 0;
+        }
+
+        // Build the histograms of all eight digits in a single pass
+        int[] count = new int[8 * NUM_RADIX_VALUES];
+        for (int i = left; i <= right; ++i) {
+            long k = a[i] ^ Long.MIN_VALUE;
+            for (int c = 0; c < count.length; c += NUM_RADIX_VALUES, k >>>= 8) {
+                count[c + ((int) k & 0xFF)]++;
+            }
+        }
+
+        // Distribute least significant digit first, skipping trivial passes
+        long[] src = a, dst = work;
+        int[] isrc = idx, idst = iwork;
+        int so = left, dof = workBase;
+        for (int shift = 0, c = 0; shift < 64; shift += 8, c += NUM_RADIX_VALUES) {
+            if (!toOffsets(count, c, (int) ((a[left] ^ Long.MIN_VALUE) >>> shift) & 0xFF, n)) {
+                continue;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                long ai = src[i];
+                int p = dof + count[c + ((int) ((ai ^ Long.MIN_VALUE) >>> shift) & 0xFF)]++;
+                dst[p] = ai;
+                idst[p] = isrc[i];
+            }
+            long[] t = src; src = dst; dst = t;
+            int[] it = isrc; isrc = idst; idst = it;
+            int o = so; so = dof; dof = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+            System.arraycopy(isrc, so, idx, left, n);
+        }
+    }
 }
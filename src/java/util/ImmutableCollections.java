@@ -0,0 +1,586 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Array-backed immutable collections, returned by the
+ * {@code Collections.immutable*} factories.
+ *
+ * Unlike the unmodifiable wrappers, these classes hold their elements
+ * directly: a list is one array, and sets and maps are one open-addressed
+ * (linear-probe) table sized for a load factor of at most 1/2, holding
+ * keys and values alternately in the case of maps.  No per-element
+ * objects are allocated.  Empty and one-element collections are the
+ * fieldless or single-field instances of {@link Collections}, so they
+ * carry no array at all.
+ *
+ * None of these collections permit null elements, keys or values, so a
+ * null slot is always free.  Since the layout of the hash tables depends
+ * on hash codes that may differ between virtual machines, sets and maps
+ * are rebuilt on deserialization.
+ *
+ * All methods are package-private, and are invoked from the public
+ * factory methods in class Collections after the arguments have been
+ * null-checked and copied.
+ */
+final class ImmutableCollections {
+
+    /**
+     * Prevents instantiation.
+     */
+    private ImmutableCollections() {}
+
+    /**
+     * Returns a list of the given elements, which are neither null nor
+     * shared with the caller.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> List<E> listOf(Object[] elements) {
+        switch (elements.length) {
+            case 0:
+                return Collections.emptyList();
+            case 1:
+                return Collections.singletonList((E) elements[0]);
+            default:
+                return new ListN<>(elements);
+        }
+    }
+
+    /**
+     * Returns a set of the distinct elements among the given ones, which
+     * are neither null nor shared with the caller.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> setOf(Object[] elements) {
+        switch (elements.length) {
+            case 0:
+                return Collections.emptySet();
+            case 1:
+                return Collections.singleton((E) elements[0]);
+            default:
+                SetN<E> s = new SetN<>(elements);
+                return (s.size == 1) ? Collections.singleton(s.iterator().next()) : s;
+        }
+    }
+
+    /**
+     * Returns a map of the given keys and values, stored alternately,
+     * which are neither null nor shared with the caller.  Later values
+     * replace earlier ones for equal keys.
+     */
+    @SuppressWarnings("unchecked")
+    static <K,V> Map<K,V> mapOf(Object[] keysAndValues) {
+        switch (keysAndValues.length) {
+            case 0:
+                return Collections.emptyMap();
+            case 2:
+                return Collections.singletonMap((K) keysAndValues[0],
+                                                (V) keysAndValues[1]);
+            default:
+                MapN<K,V> m = new MapN<>(keysAndValues);
+                if (m.size == 1) {
+                    Map.Entry<K,V> e = m.entrySet().iterator().next();
+                    return Collections.singletonMap(e.getKey(), e.getValue());
+                }
+                return m;
+        }
+    }
+
+    /**
+     * Returns the number of slots of a hash table holding the given
+     * number of elements with a load factor of at most 1/2.
+     */
+    static int tableCapacity(int size) {
+        return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    }
+
+    /**
+     * Returns the first slot to probe for the given key in a table of the
+     * given number of slots.
+     */
+    static int probe(Object key, int capacity) {
+        return HashMap.hash(key) & (capacity - 1);
+    }
+
+    static UnsupportedOperationException uoe() {
+        return new UnsupportedOperationException();
+    }
+
+    /**
+     * A list of two or more elements.
+     */
+    static final class ListN<E> extends AbstractList<E>
+        implements RandomAccess, Serializable {
+        private static final long serialVersionUID = 6297016838217386614L;
+
+        private final Object[] elements;
+
+        ListN(Object[] elements) {
+            this.elements = elements;
+        }
+
+        public int size() {
+            return elements.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            return (E) elements[index];
+        }
+
+        public int indexOf(Object o) {
+            if (o != null) {
+                Object[] es = elements;
+                for (int i = 0; i < es.length; i++)
+                    if (o.equals(es[i]))
+                        return i;
+            }
+            return -1;
+        }
+
+        public int lastIndexOf(Object o) {
+            if (o != null) {
+                Object[] es = elements;
+                for (int i = es.length - 1; i >= 0; i--)
+                    if (o.equals(es[i]))
+                        return i;
+            }
+            return -1;
+        }
+
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        public Object[] toArray() {
+            return elements.clone();
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T[] toArray(T[] a) {
+            int size = elements.length;
+            if (a.length < size)
+                return (T[]) Arrays.copyOf(elements, size, a.getClass());
+            System.arraycopy(elements, 0, a, 0, size);
+            if (a.length > size)
+                a[size] = null;
+            return a;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEach(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            for (Object e : elements)
+                action.accept((E) e);
+        }
+
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliterator(elements, Spliterator.ORDERED |
+                                            Spliterator.IMMUTABLE |
+                                            Spliterator.NONNULL);
+        }
+
+        public void sort(Comparator<? super E> c) {
+            throw uoe();
+        }
+
+        public boolean removeIf(Predicate<? super E> filter) {
+            throw uoe();
+        }
+
+        public void replaceAll(UnaryOperator<E> operator) {
+            throw uoe();
+        }
+    }
+
+    /**
+     * A set of two or more elements, stored in an open-addressed table.
+     */
+    static final class SetN<E> extends AbstractSet<E> implements Serializable {
+        private static final long serialVersionUID = -6244370813011612405L;
+
+        final transient Object[] table;
+        final int size;
+
+        /**
+         * Creates a set of the distinct elements among the given ones.
+         */
+        SetN(Object[] elements) {
+            Object[] tab = new Object[tableCapacity(elements.length)];
+            int n = 0;
+            for (Object e : elements) {
+                int len = tab.length;
+                int i = probe(e, len);
+                for (Object x; (x = tab[i]) != null; i = (i + 1) & (len - 1)) {
+                    if (e.equals(x)) {
+                        i = -1;
+                        break;
+                    }
+                }
+                if (i >= 0) {
+                    tab[i] = e;
+                    n++;
+                }
+            }
+            this.table = tab;
+            this.size = n;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            if (o == null)
+                return false;
+            Object[] tab = table;
+            int len = tab.length;
+            for (int i = probe(o, len);; i = (i + 1) & (len - 1)) {
+                Object x = tab[i];
+                if (x == null)
+                    return false;
+                if (o.equals(x))
+                    return true;
+            }
+        }
+
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int index = nextIndex(0);
+
+                private int nextIndex(int i) {
+                    Object[] tab = table;
+                    while (i < tab.length && tab[i] == null)
+                        i++;
+                    return i;
+                }
+
+                public boolean hasNext() {
+                    return index < table.length;
+                }
+
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (index >= table.length)
+                        throw new NoSuchElementException();
+                    E e = (E) table[index];
+                    index = nextIndex(index + 1);
+                    return e;
+                }
+            };
+        }
+
+        public int hashCode() {
+            int h = 0;
+            for (Object e : table)
+                if (e != null)
+                    h += e.hashCode();
+            return h;
+        }
+
+        public boolean removeIf(Predicate<? super E> filter) {
+            throw uoe();
+        }
+
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.DISTINCT |
+                                            Spliterator.IMMUTABLE |
+                                            Spliterator.NONNULL);
+        }
+
+        /**
+         * Writes the elements, rather than the table, whose layout is only
+         * valid for the hash codes of this virtual machine.
+         *
+         * @serialData The elements of the set (Object[]).
+         */
+        private Object writeReplace() {
+            return new SerialForm(SerialForm.SET, toArray());
+        }
+
+        private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+            throw new java.io.InvalidObjectException("SerialForm required");
+        }
+    }
+
+    /**
+     * A map of two or more mappings, stored in an open-addressed table
+     * holding each key at an even index and its value at the next one.
+     */
+    static final class MapN<K,V> extends AbstractMap<K,V> implements Serializable {
+        private static final long serialVersionUID = -1409581813547327386L;
+
+        final transient Object[] table;
+        final int size;
+
+        /**
+         * Creates a map of the given alternating keys and values.
+         */
+        MapN(Object[] keysAndValues) {
+            Object[] tab = new Object[2 * tableCapacity(keysAndValues.length / 2)];
+            int n = 0;
+            for (int j = 0; j < keysAndValues.length; j += 2) {
+                Object k = keysAndValues[j];
+                int len = tab.length;
+                int i = probe(k, len >> 1) << 1;
+                for (Object x; (x = tab[i]) != null; i = (i + 2) & (len - 1)) {
+                    if (k.equals(x))
+                        break;
+                }
+                if (tab[i] == null)
+                    n++;
+                tab[i] = k;
+                tab[i + 1] = keysAndValues[j + 1];
+            }
+            this.table = tab;
+            this.size = n;
+        }
+
+        private int indexOf(Object k) {
+            if (k == null)
+                return -1;
+            Object[] tab = table;
+            int len = tab.length;
+            for (int i = probe(k, len >> 1) << 1;; i = (i + 2) & (len - 1)) {
+                Object x = tab[i];
+                if (x == null)
+                    return -1;
+                if (k.equals(x))
+                    return i;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            int i = indexOf(key);
+            return (i < 0) ? null : (V) table[i + 1];
+        }
+
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        public boolean containsValue(Object value) {
+            if (value != null) {
+                Object[] tab = table;
+                for (int i = 1; i < tab.length; i += 2)
+                    if (value.equals(tab[i]))
+                        return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            Objects.requireNonNull(action);
+            Object[] tab = table;
+            for (int i = 0; i < tab.length; i += 2)
+                if (tab[i] != null)
+                    action.accept((K) tab[i], (V) tab[i + 1]);
+        }
+
+        public int hashCode() {
+            int h = 0;
+            Object[] tab = table;
+            for (int i = 0; i < tab.length; i += 2)
+                if (tab[i] != null)
+                    h += tab[i].hashCode() ^ tab[i + 1].hashCode();
+            return h;
+        }
+
+        public V putIfAbsent(K key, V value) { throw uoe(); }
+        public boolean remove(Object key, Object value) { throw uoe(); }
+        public boolean replace(K key, V oldValue, V newValue) { throw uoe(); }
+        public V replace(K key, V value) { throw uoe(); }
+        public void replaceAll(BiFunction<? super K, ? super V, ? extends V> f) {
+            throw uoe();
+        }
+        public V computeIfAbsent(K key, Function<? super K, ? extends V> f) {
+            throw uoe();
+        }
+        public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> f) {
+            throw uoe();
+        }
+        public V compute(K key, BiFunction<? super K, ? super V, ? extends V> f) {
+            throw uoe();
+        }
+        public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> f) {
+            throw uoe();
+        }
+
+        private transient Set<Map.Entry<K,V>> entrySet;
+
+        public Set<Map.Entry<K,V>> entrySet() {
+            Set<Map.Entry<K,V>> es = entrySet;
+            if (es == null)
+                entrySet = es = new EntrySet();
+            return es;
+        }
+
+        private final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+            public int size() {
+                return size;
+            }
+
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                int i = indexOf(e.getKey());
+                return i >= 0 && table[i + 1].equals(e.getValue());
+            }
+
+            public Iterator<Map.Entry<K,V>> iterator() {
+                return new Iterator<Map.Entry<K,V>>() {
+                    private int index = nextIndex(0);
+
+                    private int nextIndex(int i) {
+                        Object[] tab = table;
+                        while (i < tab.length && tab[i] == null)
+                            i += 2;
+                        return i;
+                    }
+
+                    public boolean hasNext() {
+                        return index < table.length;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    public Map.Entry<K,V> next() {
+                        if (index >= table.length)
+                            throw new NoSuchElementException();
+                        Map.Entry<K,V> e = new AbstractMap.SimpleImmutableEntry<>(
+                                (K) table[index], (V) table[index + 1]);
+                        index = nextIndex(index + 2);
+                        return e;
+                    }
+                };
+            }
+
+            public int hashCode() {
+                return MapN.this.hashCode();
+            }
+        }
+
+        /**
+         * Writes the keys and values, rather than the table, whose layout
+         * is only valid for the hash codes of this virtual machine.
+         *
+         * @serialData The keys and values of the map, alternately (Object[]).
+         */
+        private Object writeReplace() {
+            Object[] a = new Object[2 * size];
+            Object[] tab = table;
+            for (int i = 0, j = 0; i < tab.length; i += 2) {
+                if (tab[i] != null) {
+                    a[j++] = tab[i];
+                    a[j++] = tab[i + 1];
+                }
+            }
+            return new SerialForm(SerialForm.MAP, a);
+        }
+
+        private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+            throw new java.io.InvalidObjectException("SerialForm required");
+        }
+    }
+
+    /**
+     * Serialized form of the hashed immutable collections and of the
+     * persistent collections.
+     *
+     * @serial include
+     */
+    static final class SerialForm implements Serializable {
+        private static final long serialVersionUID = 5046911263487185231L;
+
+        static final int SET = 1;
+        static final int MAP = 2;
+        static final int PERSISTENT_SET = 3;
+        static final int PERSISTENT_MAP = 4;
+
+        /**
+         * The kind of collection: SET, MAP, PERSISTENT_SET or
+         * PERSISTENT_MAP.
+         * @serial
+         */
+        private final int tag;
+
+        /**
+         * The elements, or the keys and values alternately.
+         * @serial
+         */
+        private final Object[] array;
+
+        SerialForm(int tag, Object[] array) {
+            this.tag = tag;
+            this.array = array;
+        }
+
+        private Object readResolve() throws java.io.ObjectStreamException {
+            Object[] a = array;
+            if (a == null)
+                throw new java.io.InvalidObjectException("null array");
+            a = a.clone();
+            for (Object o : a)
+                if (o == null)
+                    throw new java.io.InvalidObjectException("null element");
+            switch (tag) {
+                case SET:
+                    return setOf(a);
+                case MAP:
+                    if ((a.length & 1) != 0)
+                        throw new java.io.InvalidObjectException("odd length");
+                    return mapOf(a);
+                case PERSISTENT_SET:
+                    return PersistentHashSet.copyOf(Arrays.asList(a));
+                case PERSISTENT_MAP:
+                    if ((a.length & 1) != 0)
+                        throw new java.io.InvalidObjectException("odd length");
+                    PersistentHashMap<Object,Object> m = PersistentHashMap.empty();
+                    for (int i = 0; i < a.length; i += 2)
+                        m = m.with(a[i], a[i + 1]);
+                    return m;
+                default:
+                    throw new java.io.InvalidObjectException("unknown tag " + tag);
+            }
+        }
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * An unbounded priority queue of {@code long} values, based on a
+ * <em>d</em>-ary min-heap.  The head of the queue is its least value.
+ * Unlike a {@code PriorityQueue<Long>}, this queue stores its values in
+ * a {@code long[]} array, without boxing them.
+ *
+ * <p>The <em>arity</em> of the heap, the number of children of each node,
+ * is fixed at construction time and defaults to {@value #DEFAULT_ARITY}.
+ * A higher arity makes the heap shallower, so that insertions, which
+ * compare a value with its ancestors, are cheaper, and the children of a
+ * node, which removals compare with one another, share fewer cache lines
+ * per level; removals perform more comparisons per level.  An arity of 2
+ * gives a binary heap like that of {@link PriorityQueue}.
+ *
+ * <p>Values are ordered by {@link Long#compare}; a queue whose head is
+ * its greatest value may be obtained by inserting the complement
+ * ({@code ~v}) of each value and complementing the removed values.
+ *
+ * <p>Implementation note: this implementation provides O(log(n)) time
+ * for {@code add} and {@code remove}, and linear time to construct a
+ * queue from an array or to add a bulk of values at least as large as
+ * the queue.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ *
+ * @see PriorityQueue
+ * @see IntPriorityQueue
+ * @since 1.8
+ */
+public class LongPriorityQueue implements Cloneable, java.io.Serializable {
+
+    private static final long serialVersionUID = -1846390206419538017L;
+
+    /**
+     * The default arity of the heap.
+     */
+    public static final int DEFAULT_ARITY = 4;
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum size of array to allocate.
+     * Some VMs reserve some header words in an array.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The heap: the children of queue[k] are queue[arity*k+1] through
+     * queue[arity*k+arity], and each value is at most its children.
+     */
+    private transient long[] queue;
+
+    /**
+     * The number of values in the queue.
+     *
+     * @serial
+     */
+    private int size;
+
+    /**
+     * The arity of the heap.
+     *
+     * @serial
+     */
+    private final int arity;
+
+    /**
+     * Creates an empty queue with the default initial capacity and arity.
+     */
+    public LongPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates an empty queue with the specified initial capacity and the
+     * default arity.
+     *
+     * @param initialCapacity the initial capacity of the queue
+     * @throws IllegalArgumentException if {@code initialCapacity} is
+     *         negative
+     */
+    public LongPriorityQueue(int initialCapacity) {
+        this(initialCapacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates an empty queue with the specified initial capacity and arity.
+     *
+     * @param initialCapacity the initial capacity of the queue
+     * @param arity the number of children of each node of the heap
+     * @throws IllegalArgumentException if {@code initialCapacity} is
+     *         negative or {@code arity} is less than 2
+     */
+    public LongPriorityQueue(int initialCapacity, int arity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " +
+                                               initialCapacity);
+        if (arity < 2)
+            throw new IllegalArgumentException("Illegal arity: " + arity);
+        this.queue = new long[initialCapacity];
+        this.arity = arity;
+    }
+
+    /**
+     * Creates a queue with the default arity, holding the values of the
+     * specified array.  The heap is built in linear time.
+     *
+     * @param values the values to be placed in the queue
+     * @throws NullPointerException if the specified array is null
+     */
+    public LongPriorityQueue(long[] values) {
+        this(values, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates a queue with the specified arity, holding the values of the
+     * specified array.  The heap is built in linear time.
+     *
+     * @param values the values to be placed in the queue
+     * @param arity the number of children of each node of the heap
+     * @throws NullPointerException if the specified array is null
+     * @throws IllegalArgumentException if {@code arity} is less than 2
+     */
+    public LongPriorityQueue(long[] values, int arity) {
+        if (arity < 2)
+            throw new IllegalArgumentException("Illegal arity: " + arity);
+        this.queue = values.clone();
+        this.size = values.length;
+        this.arity = arity;
+        heapify();
+    }
+
+    /**
+     * Returns the arity of the heap of this queue.
+     *
+     * @return the number of children of each node of the heap
+     */
+    public int arity() {
+        return arity;
+    }
+
+    /**
+     * Returns the number of values in this queue.
+     *
+     * @return the number of values in this queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no values.
+     *
+     * @return {@code true} if this queue contains no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all of the values from this queue.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Increases the capacity of the array to at least the given one.
+     */
+    private void grow(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        int oldCapacity = queue.length;
+        // Double size if small; else grow by 50%
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                                         (oldCapacity + 2) :
+                                         (oldCapacity >> 1));
+        if (newCapacity - minCapacity < 0)
+            newCapacity = minCapacity;
+        if (newCapacity - MAX_ARRAY_SIZE > 0)
+            newCapacity = (minCapacity > MAX_ARRAY_SIZE) ?
+                Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        queue = Arrays.copyOf(queue, newCapacity);
+    }
+
+    /**
+     * Inserts the specified value into this queue.
+     *
+     * @param v the value to insert
+     */
+    public void add(long v) {
+        int k = size;
+        if (k >= queue.length)
+            grow(k + 1);
+        size = k + 1;
+        siftUp(k, v);
+    }
+
+    /**
+     * Inserts the values of the specified array into this queue.
+     *
+     * @param values the values to insert
+     * @throws NullPointerException if the specified array is null
+     */
+    public void addAll(long[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Inserts the specified range of values of the specified array into
+     * this queue.  If the number of values inserted is at least the
+     * current size of this queue, they are appended in one step and the
+     * heap is then rebuilt in linear time; otherwise they are inserted
+     * one at a time.
+     *
+     * @param values the array holding the values to insert
+     * @param fromIndex the index of the first value to insert, inclusive
+     * @param toIndex the index of the last value to insert, exclusive
+     * @throws NullPointerException if the specified array is null
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > values.length}
+     */
+    public void addAll(long[] values, int fromIndex, int toIndex) {
+        if (fromIndex > toIndex)
+            throw new IllegalArgumentException(
+                "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        if (fromIndex < 0)
+            throw new ArrayIndexOutOfBoundsException(fromIndex);
+        if (toIndex > values.length)
+            throw new ArrayIndexOutOfBoundsException(toIndex);
+        int n = toIndex - fromIndex, s = size;
+        if (s + n > queue.length)
+            grow(s + n);
+        if (n < s) {
+            for (int i = fromIndex; i < toIndex; i++)
+                siftUp(size++, values[i]);
+        } else {
+            System.arraycopy(values, fromIndex, queue, s, n);
+            size = s + n;
+            heapify();
+        }
+    }
+
+    /**
+     * Returns the least value of this queue, without removing it.
+     *
+     * @return the least value of this queue
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public long element() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return queue[0];
+    }
+
+    /**
+     * Removes and returns the least value of this queue.
+     *
+     * @return the least value of this queue
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public long remove() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        long[] q = queue;
+        long result = q[0];
+        int s = --size;
+        if (s != 0)
+            siftDown(0, q[s]);
+        return result;
+    }
+
+    /**
+     * Removes each value of this queue in ascending order and performs the
+     * given action on it, until the queue is empty.  Values added to this
+     * queue by the action are also removed, in their order relative to
+     * the remaining values.
+     *
+     * @param action the action to be performed on each value
+     * @return the number of values removed
+     * @throws NullPointerException if the specified action is null
+     */
+    public long drainSorted(LongConsumer action) {
+        Objects.requireNonNull(action);
+        long count = 0;
+        while (size != 0) {
+            action.accept(remove());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns an array containing all of the values in this queue, in no
+     * particular order.
+     *
+     * @return an array containing all of the values in this queue
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(queue, size);
+    }
+
+    /**
+     * Returns an array containing all of the values in this queue, in
+     * ascending order.  The queue is not modified.
+     *
+     * @return a sorted array containing all of the values in this queue
+     */
+    public long[] toSortedArray() {
+        long[] a = toArray();
+        Arrays.sort(a);
+        return a;
+    }
+
+    /**
+     * Inserts value v at position k, promoting it up the tree until it is
+     * greater than or equal to its parent, or is the root.
+     */
+    private void siftUp(int k, long v) {
+        long[] q = queue;
+        int d = arity;
+        while (k > 0) {
+            int parent = (k - 1) / d;
+            long p = q[parent];
+            if (v >= p)
+                break;
+            q[k] = p;
+            k = parent;
+        }
+        q[k] = v;
+    }
+
+    /**
+     * Inserts value v at position k, demoting it down the tree until it is
+     * less than or equal to its children, or is a leaf.
+     */
+    private void siftDown(int k, long v) {
+        long[] q = queue;
+        int d = arity, n = size;
+        int child;
+        while ((child = d * k + 1) < n && child > 0) {
+            int end = Math.min(child + d, n);
+            int least = child;
+            long c = q[child];
+            for (int i = child + 1; i < end; i++) {
+                if (q[i] < c) {
+                    c = q[i];
+                    least = i;
+                }
+            }
+            if (v <= c)
+                break;
+            q[k] = c;
+            k = least;
+        }
+        q[k] = v;
+    }
+
+    /**
+     * Establishes the heap invariant in the entire tree, assuming nothing
+     * about the order of the values prior to the call.
+     */
+    private void heapify() {
+        long[] q = queue;
+        for (int i = (size - 2) / arity; i >= 0; i--)
+            siftDown(i, q[i]);
+    }
+
+    /**
+     * Returns a copy of this queue.
+     *
+     * @return a copy of this queue
+     */
+    public LongPriorityQueue clone() {
+        try {
+            LongPriorityQueue clone = (LongPriorityQueue) super.clone();
+            clone.queue = Arrays.copyOf(queue, size);
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns a string representation of the values of this queue, in
+     * heap order.
+     *
+     * @return a string representation of this queue
+     */
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * Saves this queue to a stream (that is, serializes it).
+     *
+     * @serialData The size and arity, followed by all of the values
+     *             (each a {@code long}) in heap order.
+     * @param s the stream
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        for (int i = 0; i < size; i++)
+            s.writeLong(queue[i]);
+    }
+
+    /**
+     * Reconstitutes this queue from a stream (that is, deserializes it).
+     *
+     * @param s the stream
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (size < 0 || arity < 2)
+            throw new java.io.InvalidObjectException("Illegal size or arity");
+        queue = new long[size];
+        for (int i = 0; i < size; i++)
+            queue[i] = s.readLong();
+        heapify();
+    }
+}
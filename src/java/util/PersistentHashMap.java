@@ -0,0 +1,632 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable, persistent <tt>Map</tt> based on a hash array mapped trie.
+ * A persistent map is never modified; instead, {@link #with with} and
+ * {@link #without without} return a new map which shares all but
+ * O(log<sub>32</sub>&nbsp;n) of its structure with the original one, so
+ * that updated versions of a large map can be created cheaply, while
+ * every version remains valid and may be read by any number of threads
+ * without synchronization.  This makes persistent maps a good choice for
+ * configuration snapshots and other values that are published to other
+ * threads and occasionally updated.
+ *
+ * <p>Lookups and updates take O(log<sub>32</sub>&nbsp;n) time, which is at
+ * most seven levels of the trie for any number of mappings.  The trie is
+ * indexed by the {@linkplain Object#hashCode hash codes} of the keys, and
+ * keys whose hash codes are equal are compared using
+ * {@link Object#equals equals}.
+ *
+ * <p>This map does not permit <tt>null</tt> keys or values.  The mutator
+ * methods of the <tt>Map</tt> interface, and those of its collection views,
+ * throw {@link UnsupportedOperationException}.  The iteration order is
+ * unspecified.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see     PersistentHashSet
+ * @see     Collections#immutableMapCopyOf(Map)
+ * @since   1.8
+ */
+public final class PersistentHashMap<K,V>
+    extends AbstractMap<K,V>
+    implements Serializable
+{
+    private static final long serialVersionUID = 2257437307385624313L;
+
+    /** The number of hash bits consumed by each level of the trie. */
+    private static final int BITS = 5;
+
+    /** The mask extracting the hash bits of one level. */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * The maximum depth of the trie: seven levels of bitmap nodes
+     * consume all 32 hash bits, and may be followed by a collision node.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    private static final PersistentHashMap<?,?> EMPTY =
+        new PersistentHashMap<>(null, 0);
+
+    /** The root node, or null if this map is empty. */
+    private final transient Node root;
+
+    /** The number of mappings. */
+    private final transient int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty persistent map.
+     *
+     * @param <K> the type of keys maintained by the map
+     * @param <V> the type of mapped values
+     * @return the empty persistent map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K,V> PersistentHashMap<K,V> empty() {
+        return (PersistentHashMap<K,V>) EMPTY;
+    }
+
+    /**
+     * Returns a persistent map with the same mappings as the specified map.
+     * If the specified map is itself a persistent map, it is returned.
+     *
+     * @param <K> the type of keys maintained by the map
+     * @param <V> the type of mapped values
+     * @param m the map whose mappings are to be placed in the returned map
+     * @return a persistent map with the same mappings as the specified map
+     * @throws NullPointerException if the specified map is null or contains
+     *         a null key or value
+     */
+    @SuppressWarnings("unchecked")
+    public static <K,V> PersistentHashMap<K,V> copyOf(Map<? extends K, ? extends V> m) {
+        if (m instanceof PersistentHashMap)
+            return (PersistentHashMap<K,V>) m;
+        return PersistentHashMap.<K,V>empty().withAll(m);
+    }
+
+    /**
+     * Spreads higher bits of the hash code of the given key downward,
+     * as in HashMap.
+     */
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Node r = root;
+        if (r == null || key == null)
+            return null;
+        return (V) r.find(0, hash(key), key);
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified
+     *         key
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with the mappings of this map, and the specified value
+     * associated with the specified key, replacing any previous value for
+     * the key.  Returns this map if it already associates the specified
+     * value with the key.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return a map with the specified mapping added or replaced
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public PersistentHashMap<K,V> with(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int[] added = new int[1];
+        Node r = root;
+        Node n = (r == null) ?
+            new BitmapNode(bit(hash(key), 0), new Object[] { key, value }) :
+            r.with(0, hash(key), key, value, added);
+        if (r == null)
+            added[0] = 1;
+        return (n == r) ? this : new PersistentHashMap<>(n, size + added[0]);
+    }
+
+    /**
+     * Returns a map with the mappings of this map and of the specified map,
+     * the latter replacing the former for equal keys.
+     *
+     * @param m the mappings to be added
+     * @return a map with the specified mappings added or replaced
+     * @throws NullPointerException if the specified map is null or contains
+     *         a null key or value
+     */
+    public PersistentHashMap<K,V> withAll(Map<? extends K, ? extends V> m) {
+        Node r = root;
+        int s = size;
+        int[] added = new int[1];
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            K key = Objects.requireNonNull(e.getKey());
+            V value = Objects.requireNonNull(e.getValue());
+            if (r == null) {
+                r = new BitmapNode(bit(hash(key), 0), new Object[] { key, value });
+                s = 1;
+            } else {
+                added[0] = 0;
+                r = r.with(0, hash(key), key, value, added);
+                s += added[0];
+            }
+        }
+        return (r == root) ? this : new PersistentHashMap<>(r, s);
+    }
+
+    /**
+     * Returns a map with the mappings of this map except the mapping for
+     * the specified key.  Returns this map if it contains no mapping for
+     * the key.
+     *
+     * @param key key whose mapping is to be removed
+     * @return a map without a mapping for the specified key
+     */
+    public PersistentHashMap<K,V> without(Object key) {
+        Node r = root;
+        if (r == null || key == null)
+            return this;
+        Node n = r.without(0, hash(key), key);
+        if (n == r)
+            return this;
+        return (n == null) ? PersistentHashMap.<K,V>empty() :
+            new PersistentHashMap<>(n, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        if (root != null)
+            root.forEach((BiConsumer<Object,Object>) action);
+    }
+
+    private transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * Returns an unmodifiable {@link Set} view of the mappings contained in
+     * this map.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es = entrySet;
+        if (es == null)
+            entrySet = es = new EntrySet();
+        return es;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object value = get(e.getKey());
+            return value != null && value.equals(e.getValue());
+        }
+
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new TrieIterator<Map.Entry<K,V>>(root) {
+                @SuppressWarnings("unchecked")
+                Map.Entry<K,V> element(Object key, Object value) {
+                    return new AbstractMap.SimpleImmutableEntry<>((K) key, (V) value);
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns an iterator over the keys of this map, without the entry
+     * objects created by iterating over the key set view.
+     */
+    Iterator<K> keyIterator() {
+        return new TrieIterator<K>(root) {
+            @SuppressWarnings("unchecked")
+            K element(Object key, Object value) {
+                return (K) key;
+            }
+        };
+    }
+
+    // Trie nodes
+
+    /**
+     * Returns the bit of a bitmap node at the given shift that corresponds
+     * to the given hash.
+     */
+    static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Returns a copy of the given array with one element replaced.
+     */
+    static Object[] cloneAndSet(Object[] array, int i, Object x) {
+        Object[] a = array.clone();
+        a[i] = x;
+        return a;
+    }
+
+    /**
+     * Returns a copy of the given array with a pair of elements inserted
+     * at index i.
+     */
+    static Object[] insertPair(Object[] array, int i, Object x, Object y) {
+        Object[] a = new Object[array.length + 2];
+        System.arraycopy(array, 0, a, 0, i);
+        a[i] = x;
+        a[i + 1] = y;
+        System.arraycopy(array, i, a, i + 2, array.length - i);
+        return a;
+    }
+
+    /**
+     * Returns a copy of the given array without the pair of elements at
+     * index i.
+     */
+    static Object[] removePair(Object[] array, int i) {
+        Object[] a = new Object[array.length - 2];
+        System.arraycopy(array, 0, a, 0, i);
+        System.arraycopy(array, i + 2, a, i, array.length - i - 2);
+        return a;
+    }
+
+    /**
+     * A node of the trie.  Nodes hold pairs of elements in an array: a
+     * key and its value, or (in bitmap nodes only) null and a child node.
+     * Nodes are never modified once published.
+     */
+    abstract static class Node {
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        /** Returns the value of the given key, or null if absent. */
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * Returns a node with the given mapping added or replaced, or this
+         * node if unchanged, setting added[0] to 1 if a mapping was added.
+         */
+        abstract Node with(int shift, int hash, Object key, Object value,
+                           int[] added);
+
+        /**
+         * Returns a node without the given key, this node if unchanged,
+         * or null if the node would be empty.
+         */
+        abstract Node without(int shift, int hash, Object key);
+
+        /**
+         * Returns true if this node holds a single mapping, which may
+         * then be stored in its parent instead.
+         */
+        final boolean isSingleton() {
+            return array.length == 2 && array[0] != null;
+        }
+
+        final void forEach(BiConsumer<Object,Object> action) {
+            Object[] a = array;
+            for (int i = 0; i < a.length; i += 2) {
+                if (a[i] != null)
+                    action.accept(a[i], a[i + 1]);
+                else
+                    ((Node) a[i + 1]).forEach(action);
+            }
+        }
+    }
+
+    /**
+     * A node holding the pairs whose hash has each of the bits of its
+     * bitmap set at its level, in increasing order of those bits.
+     */
+    static final class BitmapNode extends Node {
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Object find(int shift, int hash, Object key) {
+            BitmapNode n = this;
+            for (;;) {
+                int bit = bit(hash, shift);
+                if ((n.bitmap & bit) == 0)
+                    return null;
+                int i = n.index(bit);
+                Object k = n.array[i], v = n.array[i + 1];
+                if (k != null)
+                    return (k == key || key.equals(k)) ? v : null;
+                if (!(v instanceof BitmapNode))
+                    return ((Node) v).find(shift + BITS, hash, key);
+                n = (BitmapNode) v;
+                shift += BITS;
+            }
+        }
+
+        Node with(int shift, int hash, Object key, Object value, int[] added) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = 1;
+                return new BitmapNode(bitmap | bit, insertPair(array, i, key, value));
+            }
+            Object k = array[i], v = array[i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node n = child.with(shift + BITS, hash, key, value, added);
+                return (n == child) ? this :
+                    new BitmapNode(bitmap, cloneAndSet(array, i + 1, n));
+            }
+            if (k == key || key.equals(k)) {
+                return (v == value) ? this :
+                    new BitmapNode(bitmap, cloneAndSet(array, i + 1, value));
+            }
+            added[0] = 1;
+            Node sub = pair(shift + BITS, k, v, hash(k), key, value, hash);
+            Object[] a = array.clone();
+            a[i] = null;
+            a[i + 1] = sub;
+            return new BitmapNode(bitmap, a);
+        }
+
+        Node without(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            int i = index(bit);
+            Object k = array[i], v = array[i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node n = child.without(shift + BITS, hash, key);
+                if (n == child)
+                    return this;
+                if (n != null) {
+                    if (!n.isSingleton())
+                        return new BitmapNode(bitmap, cloneAndSet(array, i + 1, n));
+                    // Pull the remaining mapping up into this node
+                    Object[] a = array.clone();
+                    a[i] = n.array[0];
+                    a[i + 1] = n.array[1];
+                    return new BitmapNode(bitmap, a);
+                }
+            } else if (k != key && !key.equals(k)) {
+                return this;
+            }
+            return (bitmap == bit) ? null :
+                new BitmapNode(bitmap ^ bit, removePair(array, i));
+        }
+
+        /**
+         * Returns a node at the given shift holding two mappings with
+         * distinct keys.
+         */
+        static Node pair(int shift, Object k1, Object v1, int h1,
+                         Object k2, Object v2, int h2) {
+            if (h1 == h2)
+                return new CollisionNode(h1, new Object[] { k1, v1, k2, v2 });
+            int b1 = bit(h1, shift), b2 = bit(h2, shift);
+            if (b1 == b2)
+                return new BitmapNode(b1, new Object[] {
+                        null, pair(shift + BITS, k1, v1, h1, k2, v2, h2) });
+            return new BitmapNode(b1 | b2, (Integer.compareUnsigned(b1, b2) < 0 ?
+                    new Object[] { k1, v1, k2, v2 } :
+                    new Object[] { k2, v2, k1, v1 }));
+        }
+    }
+
+    /**
+     * A node holding two or more mappings whose keys have the same hash.
+     */
+    static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            Object[] a = array;
+            for (int i = 0; i < a.length; i += 2)
+                if (a[i] == key || key.equals(a[i]))
+                    return i;
+            return -1;
+        }
+
+        Object find(int shift, int hash, Object key) {
+            if (hash != this.hash)
+                return null;
+            int i = indexOf(key);
+            return (i < 0) ? null : array[i + 1];
+        }
+
+        Node with(int shift, int hash, Object key, Object value, int[] added) {
+            if (hash != this.hash) {
+                // Nest this node in a bitmap node at this level
+                return new BitmapNode(bit(this.hash, shift), new Object[] { null, this })
+                    .with(shift, hash, key, value, added);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                return (array[i + 1] == value) ? this :
+                    new CollisionNode(hash, cloneAndSet(array, i + 1, value));
+            }
+            added[0] = 1;
+            return new CollisionNode(hash, insertPair(array, array.length, key, value));
+        }
+
+        Node without(int shift, int hash, Object key) {
+            if (hash != this.hash)
+                return this;
+            int i = indexOf(key);
+            if (i < 0)
+                return this;
+            // A node left with one mapping is pulled up by its parent
+            return (array.length == 2) ? null :
+                new CollisionNode(hash, removePair(array, i));
+        }
+    }
+
+    /**
+     * Depth-first iterator over the mappings of a trie.
+     */
+    abstract static class TrieIterator<E> implements Iterator<E> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] indices = new int[MAX_DEPTH];
+        private int depth = -1;
+        private Object nextKey, nextValue;
+
+        TrieIterator(Node root) {
+            if (root != null) {
+                arrays[depth = 0] = root.array;
+                advance();
+            }
+        }
+
+        /** Returns the element for the given mapping. */
+        abstract E element(Object key, Object value);
+
+        private void advance() {
+            while (depth >= 0) {
+                Object[] a = arrays[depth];
+                int i = indices[depth];
+                if (i >= a.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+                indices[depth] = i + 2;
+                if (a[i] != null) {
+                    nextKey = a[i];
+                    nextValue = a[i + 1];
+                    return;
+                }
+                arrays[++depth] = ((Node) a[i + 1]).array;
+                indices[depth] = 0;
+            }
+            nextKey = nextValue = null;
+        }
+
+        public final boolean hasNext() {
+            return nextKey != null;
+        }
+
+        public final E next() {
+            Object k = nextKey;
+            if (k == null)
+                throw new NoSuchElementException();
+            E e = element(k, nextValue);
+            advance();
+            return e;
+        }
+    }
+
+    /**
+     * Writes the keys and values, rather than the trie, whose layout is
+     * only valid for the hash codes of this virtual machine.
+     *
+     * @serialData The keys and values of the map, alternately (Object[]).
+     */
+    private Object writeReplace() {
+        Object[] a = new Object[2 * size];
+        int[] j = new int[1];
+        forEach((k, v) -> {
+            a[j[0]++] = k;
+            a[j[0]++] = v;
+        });
+        return new ImmutableCollections.SerialForm(
+            ImmutableCollections.SerialForm.PERSISTENT_MAP, a);
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("SerialForm required");
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Serializable;
+
+/**
+ * An immutable, persistent <tt>Set</tt>, backed by a
+ * {@link PersistentHashMap}.  A persistent set is never modified; instead,
+ * {@link #with with} and {@link #without without} return a new set which
+ * shares all but O(log<sub>32</sub>&nbsp;n) of its structure with the
+ * original one.  Every version may be read by any number of threads
+ * without synchronization.
+ *
+ * <p>This set does not permit <tt>null</tt> elements.  The mutator
+ * methods of the <tt>Set</tt> interface throw
+ * {@link UnsupportedOperationException}.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @param <E> the type of elements maintained by this set
+ *
+ * @see     PersistentHashMap
+ * @see     Collections#immutableSetCopyOf(Collection)
+ * @since   1.8
+ */
+public final class PersistentHashSet<E>
+    extends AbstractSet<E>
+    implements Serializable
+{
+    private static final long serialVersionUID = -5221364612289843093L;
+
+    private static final PersistentHashSet<?> EMPTY =
+        new PersistentHashSet<>(PersistentHashMap.empty());
+
+    /** The backing map, mapping each element to Boolean.TRUE. */
+    private final transient PersistentHashMap<E,Boolean> map;
+
+    private PersistentHashSet(PersistentHashMap<E,Boolean> map) {
+        this.map = map;
+    }
+
+    /**
+     * Returns the empty persistent set.
+     *
+     * @param <E> the type of elements maintained by the set
+     * @return the empty persistent set
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> empty() {
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    /**
+     * Returns a persistent set of the elements of the specified collection.
+     * If the specified collection is itself a persistent set, it is
+     * returned.
+     *
+     * @param <E> the type of elements maintained by the set
+     * @param c the collection whose elements are to be placed in the
+     *        returned set
+     * @return a persistent set of the elements of the specified collection
+     * @throws NullPointerException if the specified collection is null or
+     *         contains a null element
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> copyOf(Collection<? extends E> c) {
+        if (c instanceof PersistentHashSet)
+            return (PersistentHashSet<E>) c;
+        return PersistentHashSet.<E>empty().withAll(c);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    public Iterator<E> iterator() {
+        return map.keyIterator();
+    }
+
+    /**
+     * Returns a set with the elements of this set and the specified
+     * element.  Returns this set if it already contains the element.
+     *
+     * @param e the element to be added
+     * @return a set with the specified element added
+     * @throws NullPointerException if the specified element is null
+     */
+    public PersistentHashSet<E> with(E e) {
+        PersistentHashMap<E,Boolean> m = map.with(e, Boolean.TRUE);
+        return (m == map) ? this : new PersistentHashSet<>(m);
+    }
+
+    /**
+     * Returns a set with the elements of this set and of the specified
+     * collection.
+     *
+     * @param c the elements to be added
+     * @return a set with the specified elements added
+     * @throws NullPointerException if the specified collection is null or
+     *         contains a null element
+     */
+    public PersistentHashSet<E> withAll(Collection<? extends E> c) {
+        PersistentHashMap<E,Boolean> m = map;
+        for (E e : c)
+            m = m.with(e, Boolean.TRUE);
+        return (m == map) ? this : new PersistentHashSet<>(m);
+    }
+
+    /**
+     * Returns a set with the elements of this set except the specified
+     * element.  Returns this set if it does not contain the element.
+     *
+     * @param o the element to be removed
+     * @return a set without the specified element
+     */
+    public PersistentHashSet<E> without(Object o) {
+        PersistentHashMap<E,Boolean> m = map.without(o);
+        return (m == map) ? this :
+            m.isEmpty() ? PersistentHashSet.<E>empty() : new PersistentHashSet<>(m);
+    }
+
+    /**
+     * Writes the elements, rather than the trie, whose layout is only
+     * valid for the hash codes of this virtual machine.
+     *
+     * @serialData The elements of the set (Object[]).
+     */
+    private Object writeReplace() {
+        return new ImmutableCollections.SerialForm(
+            ImmutableCollections.SerialForm.PERSISTENT_SET, toArray());
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("SerialForm required");
+    }
+}
@@ -295,6 +295,8 @@ public class PriorityQueue<E> extends AbstractQueue<E>
                                          (oldCapacity + 2) :
                                          (oldCapacity >> 1));
         // overflow-conscious code
+        if (newCapacity - minCapacity < 0)
+            newCapacity = minCapacity;
         if (newCapacity - MAX_ARRAY_SIZE > 0)
             newCapacity = hugeCapacity(minCapacity);
         queue = Arrays.copyOf(queue, newCapacity);
@@ -345,6 +347,62 @@ public class PriorityQueue<E> extends AbstractQueue<E>
         return true;
     }
 
+    /**
+     * Adds all of the elements in the specified collection to this
+     * priority queue.  If the number of elements added is at least the
+     * current size of this queue, they are appended in one step and the
+     * heap is then rebuilt in linear time; otherwise they are inserted
+     * one at a time.
+     *
+     * @param c collection containing elements to be added to this queue
+     * @return {@code true} if this queue changed as a result of the call
+     * @throws ClassCastException if the elements of the specified
+     *         collection cannot be compared with one another or with the
+     *         elements currently in this priority queue according to the
+     *         priority queue's ordering, in which case some of the elements
+     *         may have been added, and this queue remains correctly ordered
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case this queue is
+     *         left unchanged
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue
+     */
+    @SuppressWarnings("unchecked")
+    public boolean addAll(Collection<? extends E> c) {
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        int n = a.length;
+        for (int i = 0; i < n; i++)
+            if (a[i] == null)
+                throw new NullPointerException();
+        if (n == 0)
+            return false;
+        int s = size;
+        if (n < s) {
+            for (int i = 0; i < n; i++)
+                offer((E) a[i]);
+            return true;
+        }
+        modCount++;
+        if (s + n > queue.length)
+            grow(s + n);
+        // the elements are compared only by heapify, so keep the heap to
+        // restore it if they cannot be
+        Object[] saved = Arrays.copyOf(queue, s);
+        System.arraycopy(a, 0, queue, s, n);
+        size = s + n;
+        try {
+            heapify();
+        } catch (RuntimeException x) {
+            System.arraycopy(saved, 0, queue, 0, s);
+            Arrays.fill(queue, s, s + n, null);
+            size = s;
+            throw x;
+        }
+        return true;
+    }
+
     @SuppressWarnings("unchecked")
     public E peek() {
         return (size == 0) ? null : (E) queue[0];
@@ -596,6 +654,73 @@ public class PriorityQueue<E> extends AbstractQueue<E>
         return result;
     }
 
+    /**
+     * Removes each element of this queue in priority order, as if by
+     * repeated calls to {@link #poll}, and performs the given action on
+     * it, until the queue is empty.  Elements added to this queue by the
+     * action are also removed, in their priority order relative to the
+     * remaining elements, so that this method can drive a discrete event
+     * simulation in which handling an event schedules further events.
+     *
+     * <p>This method removes each element with fewer comparisons than
+     * {@code poll}: it moves the hole left at the head down to a leaf,
+     * promoting the lesser child at each level, and only then sifts the
+     * last element up from that leaf, which it rarely has to move far.
+     *
+     * @param action the action to be performed on each element
+     * @return the number of elements removed
+     * @throws NullPointerException if the specified action is null
+     * @since 1.8
+     */
+    public long drainSorted(Consumer<? super E> action) {
+        if (action == null)
+            throw new NullPointerException();
+        long count = 0;
+        while (size != 0) {
+            action.accept(pollBottomUp());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes the head of a nonempty queue by moving the hole left at
+     * the head down to a leaf, and the last element up from there.
+     */
+    @SuppressWarnings("unchecked")
+    private E pollBottomUp() {
+        int s = --size;
+        modCount++;
+        Object[] q = queue;
+        E result = (E) q[0];
+        E x = (E) q[s];
+        q[s] = null;
+        if (s != 0) {
+            int k = 0, child;
+            if (comparator == null) {
+                while ((child = (k << 1) + 1) < s) {
+                    int right = child + 1;
+                    if (right < s &&
+                        ((Comparable<? super E>) q[child]).compareTo((E) q[right]) > 0)
+                        child = right;
+                    q[k] = q[child];
+                    k = child;
+                }
+            } else {
+                while ((child = (k << 1) + 1) < s) {
+                    int right = child + 1;
+                    if (right < s &&
+                        comparator.compare((E) q[child], (E) q[right]) > 0)
+                        child = right;
+                    q[k] = q[child];
+                    k = child;
+                }
+            }
+            siftUp(k, x);
+        }
+        return result;
+    }
+
     /**
      * Removes the ith element from queue.
      *
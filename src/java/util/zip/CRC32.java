@@ -110,9 +110,12 @@ class CRC32 implements Checksum {
         } else if (buffer.hasArray()) {
             crc = updateBytes(crc, buffer.array(), pos + buffer.arrayOffset(), rem);
         } else {
-            byte[] b = new byte[rem];
-            buffer.get(b);
-            crc = updateBytes(crc, b, 0, b.length);
+            byte[] b = new byte[Math.min(rem, 4096)];
+            while (buffer.hasRemaining()) {
+                int length = Math.min(buffer.remaining(), b.length);
+                buffer.get(b, 0, length);
+                crc = updateBytes(crc, b, 0, length);
+            }
         }
         buffer.position(limit);
     }
@@ -131,6 +134,79 @@ class CRC32 implements Checksum {
         return (long)crc & 0xffffffffL;
     }
 
+    /**
+     * Returns the CRC-32 of the concatenation of two sequences of bytes,
+     * given the CRC-32 of each and the length of the second.  This allows
+     * the CRC-32 of data to be computed from those of its parts, which may
+     * be computed independently, for instance in parallel.
+     *
+     * @param crc1 the CRC-32 of the first sequence
+     * @param crc2 the CRC-32 of the second sequence
+     * @param len2 the length of the second sequence
+     * @return the CRC-32 of the first sequence followed by the second
+     * @throws IllegalArgumentException if {@code len2} is negative
+     * @since 1.8
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        return combine(0xedb88320, crc1, crc2, len2);
+    }
+
+    /**
+     * Combines two CRC-32 values of a reflected CRC with the given
+     * polynomial.  This is the method of zlib's {@code crc32_combine}:
+     * the effect of {@code len2} zero bytes on {@code crc1} is applied as
+     * a power of a 32x32 matrix over GF(2), computed by repeated squaring.
+     */
+    static long combine(int poly, long crc1, long crc2, long len2) {
+        if (len2 < 0)
+            throw new IllegalArgumentException("len2 < 0");
+        if (len2 == 0)
+            return crc1 & 0xffffffffL;
+        int[] even = new int[32];   // even-power-of-two zeros operator
+        int[] odd = new int[32];    // odd-power-of-two zeros operator
+
+        // put operator for one zero bit in odd
+        odd[0] = poly;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd); // operator for two zero bits
+        gf2MatrixSquare(odd, even); // operator for four zero bits
+
+        // apply len2 zeros to crc1 (the first squaring gives the operator
+        // for one zero byte, eight zero bits, in even)
+        int c1 = (int) crc1;
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len2 & 1) != 0)
+                c1 = gf2MatrixTimes(even, c1);
+            len2 >>>= 1;
+            if (len2 == 0)
+                break;
+            gf2MatrixSquare(odd, even);
+            if ((len2 & 1) != 0)
+                c1 = gf2MatrixTimes(odd, c1);
+            len2 >>>= 1;
+        } while (len2 != 0);
+        return ((long) (c1 ^ (int) crc2)) & 0xffffffffL;
+    }
+
+    private static int gf2MatrixTimes(int[] mat, int vec) {
+        int sum = 0;
+        for (int i = 0; vec != 0; i++, vec >>>= 1) {
+            if ((vec & 1) != 0)
+                sum ^= mat[i];
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(int[] square, int[] mat) {
+        for (int n = 0; n < 32; n++)
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+    }
+
     private native static int update(int crc, int b);
     private native static int updateBytes(int crc, byte[] b, int off, int len);
 
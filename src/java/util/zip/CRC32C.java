@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import sun.misc.Unsafe;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A class that can be used to compute the CRC-32C of a data stream.
+ *
+ * <p>CRC-32C is a cyclic redundancy check with the Castagnoli polynomial
+ * 0x1EDC6F41, as used by iSCSI, SCTP, ext4 and others (RFC 3720).  It
+ * detects errors better than CRC-32 for the same cost.  This
+ * implementation processes eight bytes at a time, using eight lookup
+ * tables ("slicing-by-8"), both for arrays and for direct buffers.
+ *
+ * <p>Passing a {@code null} argument to a method in this class will cause
+ * a {@link NullPointerException} to be thrown.
+ *
+ * @see Checksum
+ * @see CRC32
+ * @since 1.8
+ */
+public final class CRC32C implements Checksum {
+
+    /*
+     * The reflected Castagnoli polynomial, 0x1EDC6F41 with its bits in
+     * reverse order.
+     */
+    private static final int CRC32C_POLY = 0x82F63B78;
+
+    /*
+     * byteTables[k * 256 + n] is the CRC of the byte n followed by k zero
+     * bytes, for k from 0 to 7.
+     */
+    private static final int[] byteTables = new int[8 * 256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int crc = n;
+            for (int i = 0; i < 8; i++)
+                crc = (crc >>> 1) ^ (-(crc & 1) & CRC32C_POLY);
+            byteTables[n] = crc;
+        }
+        for (int k = 1; k < 8; k++) {
+            for (int n = 0; n < 256; n++) {
+                int crc = byteTables[(k - 1) * 256 + n];
+                byteTables[k * 256 + n] =
+                    (crc >>> 8) ^ byteTables[crc & 0xff];
+            }
+        }
+    }
+
+    private static final Unsafe UNSAFE = Unsafe.getUnsafe();
+    private static final long ARRAY_BYTE_BASE_OFFSET =
+        UNSAFE.arrayBaseOffset(byte[].class);
+    private static final boolean BIG_ENDIAN =
+        ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+    /*
+     * The CRC being computed, with its bits inverted.
+     */
+    private int crc = 0xFFFFFFFF;
+
+    /**
+     * Creates a new CRC32C object.
+     */
+    public CRC32C() {
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified byte (the low
+     * eight bits of the argument b).
+     *
+     * @param b the byte to update the checksum with
+     */
+    public void update(int b) {
+        crc = (crc >>> 8) ^ byteTables[(crc ^ b) & 0xff];
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified array of bytes.
+     *
+     * @throws  ArrayIndexOutOfBoundsException
+     *          if {@code off} is negative, or {@code len} is negative,
+     *          or {@code off+len} is greater than the length of the
+     *          array {@code b}
+     */
+    public void update(byte[] b, int off, int len) {
+        if (b == null) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        crc = updateBytes(crc, b, off, off + len);
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified array of bytes.
+     *
+     * @param b the array of bytes to update the checksum with
+     */
+    public void update(byte[] b) {
+        crc = updateBytes(crc, b, 0, b.length);
+    }
+
+    /**
+     * Updates the checksum with the bytes from the specified buffer.
+     *
+     * The checksum is updated using
+     * buffer.{@link java.nio.Buffer#remaining() remaining()}
+     * bytes starting at
+     * buffer.{@link java.nio.Buffer#position() position()}
+     * Upon return, the buffer's position will
+     * be updated to its limit; its limit will not have been changed.
+     *
+     * @param buffer the ByteBuffer to update the checksum with
+     */
+    public void update(ByteBuffer buffer) {
+        int pos = buffer.position();
+        int limit = buffer.limit();
+        assert (pos <= limit);
+        int rem = limit - pos;
+        if (rem <= 0)
+            return;
+        if (buffer instanceof DirectBuffer) {
+            long address = ((DirectBuffer)buffer).address();
+            crc = updateDirectByteBuffer(crc, address + pos, address + limit);
+        } else if (buffer.hasArray()) {
+            int off = pos + buffer.arrayOffset();
+            crc = updateBytes(crc, buffer.array(), off, off + rem);
+        } else {
+            byte[] b = new byte[Math.min(rem, 4096)];
+            while (buffer.hasRemaining()) {
+                int length = Math.min(buffer.remaining(), b.length);
+                buffer.get(b, 0, length);
+                crc = updateBytes(crc, b, 0, length);
+            }
+        }
+        buffer.position(limit);
+    }
+
+    /**
+     * Resets CRC-32C to initial value.
+     */
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+
+    /**
+     * Returns CRC-32C value.
+     */
+    public long getValue() {
+        return (~crc) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns the CRC-32C of the concatenation of two sequences of bytes,
+     * given the CRC-32C of each and the length of the second.  This allows
+     * the CRC-32C of data to be computed from those of its parts, which
+     * may be computed independently, for instance in parallel.
+     *
+     * @param crc1 the CRC-32C of the first sequence
+     * @param crc2 the CRC-32C of the second sequence
+     * @param len2 the length of the second sequence
+     * @return the CRC-32C of the first sequence followed by the second
+     * @throws IllegalArgumentException if {@code len2} is negative
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        return CRC32.combine(CRC32C_POLY, crc1, crc2, len2);
+    }
+
+    /*
+     * Updates the inverted CRC with the eight bytes whose first four are
+     * the little-endian int lo and last four the little-endian int hi.
+     */
+    private static int update8(int crc, int lo, int hi) {
+        int[] t = byteTables;
+        crc ^= lo;
+        return t[7 * 256 + (crc & 0xff)] ^
+               t[6 * 256 + ((crc >>> 8) & 0xff)] ^
+               t[5 * 256 + ((crc >>> 16) & 0xff)] ^
+               t[4 * 256 + (crc >>> 24)] ^
+               t[3 * 256 + (hi & 0xff)] ^
+               t[2 * 256 + ((hi >>> 8) & 0xff)] ^
+               t[1 * 256 + ((hi >>> 16) & 0xff)] ^
+               t[hi >>> 24];
+    }
+
+    /*
+     * Updates the inverted CRC with the bytes of b from off to end.
+     */
+    private static int updateBytes(int crc, byte[] b, int off, int end) {
+        int[] t = byteTables;
+        if (end - off >= 8) {
+            // align the reads of ints to eight bytes
+            for (; ((ARRAY_BYTE_BASE_OFFSET + off) & 7) != 0; off++)
+                crc = (crc >>> 8) ^ t[(crc ^ b[off]) & 0xff];
+            for (; off <= end - 8; off += 8) {
+                int lo = UNSAFE.getInt(b, ARRAY_BYTE_BASE_OFFSET + off);
+                int hi = UNSAFE.getInt(b, ARRAY_BYTE_BASE_OFFSET + off + 4);
+                if (BIG_ENDIAN) {
+                    lo = Integer.reverseBytes(lo);
+                    hi = Integer.reverseBytes(hi);
+                }
+                crc = update8(crc, lo, hi);
+            }
+        }
+        for (; off < end; off++)
+            crc = (crc >>> 8) ^ t[(crc ^ b[off]) & 0xff];
+        return crc;
+    }
+
+    /*
+     * Updates the inverted CRC with the bytes of memory from address to
+     * end.
+     */
+    private static int updateDirectByteBuffer(int crc, long address,
+                                              long end) {
+        int[] t = byteTables;
+        if (end - address >= 8) {
+            // align the reads of ints to eight bytes
+            for (; (address & 7) != 0; address++)
+                crc = (crc >>> 8) ^ t[(crc ^ UNSAFE.getByte(address)) & 0xff];
+            for (; address <= end - 8; address += 8) {
+                int lo = UNSAFE.getInt(address);
+                int hi = UNSAFE.getInt(address + 4);
+                if (BIG_ENDIAN) {
+                    lo = Integer.reverseBytes(lo);
+                    hi = Integer.reverseBytes(hi);
+                }
+                crc = update8(crc, lo, hi);
+            }
+        }
+        for (; address < end; address++)
+            crc = (crc >>> 8) ^ t[(crc ^ UNSAFE.getByte(address)) & 0xff];
+        return crc;
+    }
+}
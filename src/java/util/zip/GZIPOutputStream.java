@@ -27,10 +27,23 @@ package java.util.zip;
 
 import java.io.OutputStream;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * This class implements a stream filter for writing compressed data in
  * the GZIP file format.
+ *
+ * <p>A stream created with a {@link ForkJoinPool} compresses its data in
+ * parallel: the data is split into blocks of a fixed size, which are
+ * compressed by tasks of the pool, each primed with the last 32K bytes of
+ * the preceding block as a preset dictionary, and written in order as one
+ * DEFLATE stream.  The output is a single GZIP member that any GZIP
+ * decompressor reads, and depends only on the data, the block size and
+ * the compression level, not on the scheduling of the tasks.  It is
+ * usually slightly larger than the output of a sequential stream.
+ *
  * @author      David Connelly
  *
  */
@@ -52,6 +65,32 @@ class GZIPOutputStream extends DeflaterOutputStream {
      */
     private final static int TRAILER_SIZE = 8;
 
+    /*
+     * Default block size of a parallel stream.
+     */
+    private final static int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    /*
+     * Size of the DEFLATE window, and so of the useful dictionary.
+     */
+    private final static int DICTIONARY_SIZE = 32 * 1024;
+
+    /*
+     * State of a parallel stream; the compressor is null for a
+     * sequential stream.
+     */
+    private final ParallelDeflater compressor;
+    private final ForkJoinPool pool;
+    private final int level;
+    private final ArrayDeque<ForkJoinTask<ParallelDeflater.Block>> pending;
+    private byte[] block;           // the block being filled
+    private int blockLen;           // number of bytes in block
+    private byte[] prev;            // the last block submitted
+    private int prevLen;            // number of bytes in prev
+    private long blockCrc;          // CRC-32 of the blocks written
+    private long totalIn;           // number of bytes in the blocks written
+    private boolean finished;
+
     /**
      * Creates a new output stream with the specified buffer size.
      *
@@ -91,6 +130,75 @@ class GZIPOutputStream extends DeflaterOutputStream {
               size,
               syncFlush);
         usesDefaultDeflater = true;
+        compressor = null;
+        pool = null;
+        level = Deflater.DEFAULT_COMPRESSION;
+        pending = null;
+        writeHeader();
+        crc.reset();
+    }
+
+    /**
+     * Creates a new output stream that compresses its data in parallel
+     * using the tasks of the specified pool, with a default block size
+     * and the default compression level.
+     *
+     * @param out the output stream
+     * @param pool the pool in which to compress the blocks
+     * @exception IOException If an I/O error has occurred.
+     * @exception NullPointerException if {@code pool} is null
+     *
+     * @since 1.8
+     */
+    public GZIPOutputStream(OutputStream out, ForkJoinPool pool)
+        throws IOException
+    {
+        this(out, pool, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a new output stream that compresses its data in parallel
+     * using the tasks of the specified pool, with the specified block
+     * size and compression level.
+     *
+     * <p>Each block but the last is compressed independently of the data
+     * that follows it and ends with a {@link Deflater#SYNC_FLUSH sync
+     * flush}, so small blocks compress less well.  The number of blocks
+     * held in memory is bounded by a small multiple of the parallelism of
+     * the pool.  The {@link DeflaterOutputStream#flush() flush()} method
+     * of the stream compresses the data written so far, writes it and
+     * flushes the output stream.
+     *
+     * @param out the output stream
+     * @param pool the pool in which to compress the blocks
+     * @param blockSize the number of bytes of data in each block
+     * @param level the compression level (0-9), or
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     * @exception IOException If an I/O error has occurred.
+     * @exception NullPointerException if {@code pool} is null
+     * @exception IllegalArgumentException if {@code blockSize <= 0} or
+     *            the compression level is invalid
+     *
+     * @since 1.8
+     */
+    public GZIPOutputStream(OutputStream out, ForkJoinPool pool,
+                            int blockSize, int level)
+        throws IOException
+    {
+        super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true), 512,
+              false);
+        if (pool == null)
+            throw new NullPointerException();
+        if (blockSize <= 0)
+            throw new IllegalArgumentException("blockSize <= 0");
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION)
+            throw new IllegalArgumentException("invalid compression level");
+        usesDefaultDeflater = true;
+        compressor = new ParallelDeflater();
+        this.pool = pool;
+        this.level = level;
+        pending = new ArrayDeque<>();
+        block = new byte[blockSize];
         writeHeader();
         crc.reset();
     }
@@ -142,8 +250,82 @@ class GZIPOutputStream extends DeflaterOutputStream {
     public synchronized void write(byte[] buf, int off, int len)
         throws IOException
     {
-        super.write(buf, off, len);
-        crc.update(buf, off, len);
+        if (compressor == null) {
+            super.write(buf, off, len);
+            crc.update(buf, off, len);
+            return;
+        }
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+        if ((off | len | (off + len) | (buf.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int n = Math.min(len, block.length - blockLen);
+            System.arraycopy(buf, off, block, blockLen, n);
+            blockLen += n;
+            off += n;
+            len -= n;
+            if (blockLen == block.length)
+                submitBlock(false);
+        }
+    }
+
+    /**
+     * Flushes the compressed output stream.  A parallel stream first
+     * compresses and writes all of the data written to it so far.
+     *
+     * @exception IOException if an I/O error has occurred
+     */
+    public void flush() throws IOException {
+        if (compressor == null) {
+            super.flush();
+            return;
+        }
+        synchronized (this) {
+            if (!finished) {
+                if (blockLen > 0)
+                    submitBlock(false);
+                writeBlocks(0);
+            }
+        }
+        out.flush();
+    }
+
+    /*
+     * Submits the block being filled for compression, primed with the
+     * tail of the previous block, and writes the blocks that are done.
+     */
+    private void submitBlock(boolean last) throws IOException {
+        int dictLen = Math.min(prevLen, DICTIONARY_SIZE);
+        pending.add(compressor.submit(pool, block, 0, blockLen, level,
+                                      prev, prevLen - dictLen, dictLen,
+                                      last));
+        if (blockLen > 0) {
+            prev = block;
+            prevLen = blockLen;
+            block = new byte[block.length];
+        }
+        blockLen = 0;
+        writeBlocks(ParallelDeflater.maxPending(pool));
+    }
+
+    /*
+     * Writes the compressed blocks in order, waiting for them until no
+     * more than max blocks are pending, and then writing those that are
+     * already done.
+     */
+    private void writeBlocks(int max) throws IOException {
+        ForkJoinTask<ParallelDeflater.Block> task;
+        while ((task = pending.peek()) != null &&
+               (pending.size() > max || task.isDone())) {
+            ParallelDeflater.Block b = task.join();
+            pending.poll();
+            blockCrc = CRC32.combine(blockCrc, b.crc, b.inLen);
+            totalIn += b.inLen;
+            out.write(b.data, 0, b.len);
+        }
     }
 
     /**
@@ -153,6 +335,27 @@ class GZIPOutputStream extends DeflaterOutputStream {
      * @exception IOException if an I/O error has occurred
      */
     public void finish() throws IOException {
+        if (compressor != null) {
+            synchronized (this) {
+                if (!finished) {
+                    try {
+                        submitBlock(true);
+                        writeBlocks(0);
+                    } finally {
+                        finished = true;
+                        // wait for the tasks so their deflaters can be ended
+                        for (ForkJoinTask<?> task : pending)
+                            task.quietlyJoin();
+                        pending.clear();
+                        compressor.end();
+                    }
+                    byte[] trailer = new byte[TRAILER_SIZE];
+                    writeTrailer(trailer, 0);
+                    out.write(trailer);
+                }
+            }
+            return;
+        }
         if (!def.finished()) {
             def.finish();
             while (!def.finished()) {
@@ -198,6 +401,11 @@ class GZIPOutputStream extends DeflaterOutputStream {
      * offset.
      */
     private void writeTrailer(byte[] buf, int offset) throws IOException {
+        if (compressor != null) {
+            writeInt((int)blockCrc, buf, offset);
+            writeInt((int)totalIn, buf, offset + 4);
+            return;
+        }
         writeInt((int)crc.getValue(), buf, offset); // CRC-32 of uncompr. data
         writeInt(def.getTotalIn(), buf, offset + 4); // Number of uncompr. bytes
     }
@@ -0,0 +1,933 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.zip.ZipConstants64.*;
+
+/**
+ * This class is used to read entries from a zip file, like {@link ZipFile},
+ * but is implemented in Java on top of a memory mapping of the file, so
+ * that it can be read by many threads without locking.
+ *
+ * <p>When the zip file is opened, its central directory is memory-mapped
+ * and indexed by an open-addressed hash table of the entry names.  All of
+ * the state thus built is immutable, so that {@link #getEntry getEntry}
+ * and {@link #getInputStream getInputStream} take no lock; the streams of
+ * {@code DEFLATED} entries are recorded in a concurrent set, so that they
+ * can be closed with the file.  The data of an entry is read from the
+ * mapping: the input stream of a {@code STORED}
+ * entry, and the buffer returned by {@link #getByteBuffer getByteBuffer},
+ * are views of a slice of the mapping, while the input stream of a
+ * {@code DEFLATED} entry inflates that slice with an {@link Inflater}
+ * taken from a small pool owned by the current thread.  A file larger
+ * than the largest mappable region is read with positional reads of its
+ * channel instead, which do not lock either.
+ *
+ * <p>Each input stream returned by this class must only be used by one
+ * thread at a time, but the streams of a file may be used concurrently.
+ * Closing the file closes the streams of {@code DEFLATED} entries, ending
+ * their inflaters, and makes the other streams throw {@code IOException}
+ * on subsequent reads.  The mapping is released when
+ * this object, and any buffer returned by {@code getByteBuffer}, become
+ * unreachable, as no thread may then still read it.
+ *
+ * <p>Unless otherwise noted, passing a <tt>null</tt> argument to a
+ * constructor or method in this class will cause a {@link
+ * NullPointerException} to be thrown.
+ *
+ * @see ZipFile
+ * @since 1.8
+ */
+public class MappedZipFile implements ZipConstants, Closeable {
+
+    private static final int STORED = ZipEntry.STORED;
+    private static final int DEFLATED = ZipEntry.DEFLATED;
+
+    /**
+     * The maximum number of unused inflaters pooled by a thread.
+     */
+    private static final int MAX_POOLED_INFLATERS = 4;
+
+    /**
+     * The unused inflaters of each thread.  A pool is only ever accessed
+     * by its own thread, so that it needs no lock.
+     */
+    private static final ThreadLocal<ArrayDeque<Inflater>> inflaterPool =
+        new ThreadLocal<ArrayDeque<Inflater>>() {
+            protected ArrayDeque<Inflater> initialValue() {
+                return new ArrayDeque<>(MAX_POOLED_INFLATERS);
+            }
+        };
+
+    private final String name;      // zip file name
+    private final FileChannel ch;
+    private final long length;      // length of the file
+
+    /**
+     * A little-endian mapping of the whole file, or null if it is too
+     * large to be mapped as a single buffer.
+     */
+    private final ByteBuffer map;
+
+    /**
+     * A little-endian buffer holding the central directory.
+     */
+    private final ByteBuffer cen;
+
+    private final int total;        // total number of entries
+    private final long prefix;      // length of any data preceding the zip
+                                    // file proper, such as a stub program
+    private final int[] entryPos;   // position in cen of each CEN header
+    private final int[] entryHash;  // hash of the name of each entry
+
+    /**
+     * The index of the entries: an open-addressed hash table, with
+     * linear probing, of entry numbers plus one, where 0 marks an empty
+     * slot.  Its length is a power of two at least twice the number of
+     * entries.
+     */
+    private final int[] table;
+
+    private final byte[] comment;   // zip file comment, or null
+    private final Charset charset;
+    private final boolean isUTF8;
+
+    /**
+     * Per-thread coders for the charset, as a ZipCoder may not be used
+     * by more than one thread at a time.
+     */
+    private final ThreadLocal<ZipCoder> coder;
+
+    // the inflater streams that are not closed, whose inflaters are
+    // ended when the file is closed; whichever of the stream and the file
+    // removes a stream from this set owns its inflater
+    private final Set<StreamRef> streams = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closeRequested = false;
+
+    /**
+     * Opens a zip file for reading, decoding the entry names and comments
+     * using UTF-8.
+     *
+     * @param name the name of the zip file
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws SecurityException if a security manager exists and its
+     *         <code>checkRead</code> method doesn't allow read access to
+     *         the file.
+     */
+    public MappedZipFile(String name) throws IOException {
+        this(new File(name), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a zip file for reading, decoding the entry names and comments
+     * using UTF-8.
+     *
+     * @param file the ZIP file to be opened for reading
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws SecurityException if a security manager exists and its
+     *         <code>checkRead</code> method doesn't allow read access to
+     *         the file.
+     */
+    public MappedZipFile(File file) throws IOException {
+        this(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a zip file for reading.
+     *
+     * @param file the ZIP file to be opened for reading
+     * @param charset
+     *        The {@linkplain java.nio.charset.Charset charset} to be
+     *        used to decode the ZIP entry name and comment (ignored if
+     *        the <a href="package-summary.html#lang_encoding"> language
+     *        encoding bit</a> of the ZIP entry's general purpose bit
+     *        flag is set).
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws SecurityException if a security manager exists and its
+     *         <code>checkRead</code> method doesn't allow read access to
+     *         the file.
+     */
+    public MappedZipFile(File file, Charset charset) throws IOException {
+        String name = file.getPath();
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null)
+            sm.checkRead(name);
+        if (charset == null)
+            throw new NullPointerException("charset is null");
+        this.name = name;
+        this.charset = charset;
+        this.isUTF8 = charset.name().equals(StandardCharsets.UTF_8.name());
+        this.coder = new ThreadLocal<ZipCoder>() {
+            protected ZipCoder initialValue() {
+                return ZipCoder.get(MappedZipFile.this.charset);
+            }
+        };
+        FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            this.ch = ch;
+            this.length = ch.size();
+            this.map = (length <= Integer.MAX_VALUE)
+                ? ch.map(FileChannel.MapMode.READ_ONLY, 0, length)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                : null;
+
+            // Locate the END header, and the ZIP64 END header if any
+            long endPos = findEND();
+            ByteBuffer end = read(endPos, ENDHDR);
+            long cenLen = end.getInt(ENDSIZ) & 0xffffffffL;
+            long cenOff = end.getInt(ENDOFF) & 0xffffffffL;
+            long count = end.getShort(ENDTOT) & 0xffff;
+            int commentLen = end.getShort(ENDCOM) & 0xffff;
+            if (cenLen == ZIP64_MAGICVAL || cenOff == ZIP64_MAGICVAL ||
+                count == ZIP64_MAGICCOUNT) {
+                long locPos = endPos - ZIP64_LOCHDR;
+                if (locPos >= 0 &&
+                    read(locPos, 4).getInt(0) == (int) ZIP64_LOCSIG) {
+                    long end64Pos = read(locPos, ZIP64_LOCHDR).getLong(ZIP64_LOCOFF);
+                    if (end64Pos < 0 || end64Pos > locPos - ZIP64_ENDHDR)
+                        throw new ZipException("invalid END header (bad zip64 offset)");
+                    ByteBuffer end64 = read(end64Pos, ZIP64_ENDHDR);
+                    if (end64.getInt(0) != (int) ZIP64_ENDSIG)
+                        throw new ZipException("invalid zip64 END header");
+                    cenLen = end64.getLong(ZIP64_ENDSIZ);
+                    cenOff = end64.getLong(ZIP64_ENDOFF);
+                    count = end64.getLong(ZIP64_ENDTOT);
+                    endPos = end64Pos;
+                }
+            }
+            if (cenLen > endPos || cenLen > Integer.MAX_VALUE)
+                throw new ZipException("invalid END header (bad central directory size)");
+            // The central directory immediately precedes the END header;
+            // any difference with its recorded offset is a prefix, such
+            // as that of a self-extracting archive.
+            long cenPos = endPos - cenLen;
+            if (cenOff > cenPos)
+                throw new ZipException("invalid END header (bad central directory offset)");
+            long prefix = cenPos - cenOff;
+            if (count < 0 || count > cenLen / CENHDR)
+                throw new ZipException("invalid END header (bad entry count)");
+            this.cen = read(cenPos, (int) cenLen);
+            this.comment = (commentLen == 0) ? null :
+                bytes(read(endPos + ENDHDR, Math.min(commentLen,
+                      (int) Math.max(0, length - endPos - ENDHDR))));
+            this.total = (int) count;
+            this.entryPos = new int[total];
+            this.entryHash = new int[total];
+            this.table = new int[tableSizeFor(total)];
+            this.prefix = prefix;
+            initIndex();
+        } catch (IOException | RuntimeException | Error e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the length of a hash table for the given number of entries.
+     */
+    private static int tableSizeFor(int n) {
+        int cap = Integer.highestOneBit(Math.max(n, 1)) << 2;
+        return (cap < 0) ? 1 << 30 : cap;
+    }
+
+    /**
+     * Returns the position of the END header, searching backwards from
+     * the end of the file over at most the largest possible comment.
+     */
+    private long findEND() throws IOException {
+        long minPos = Math.max(0, length - ENDHDR - 0xFFFF);
+        if (length < ENDHDR)
+            throw new ZipException("zip file is empty");
+        int n = (int) (length - minPos);
+        ByteBuffer buf = read(minPos, n);
+        for (int i = n - ENDHDR; i >= 0; i--) {
+            if (buf.getInt(i) == (int) ENDSIG) {
+                // Check that the comment, if any, fits in the file
+                int commentLen = buf.getShort(i + ENDCOM) & 0xffff;
+                if (i + ENDHDR + commentLen <= n)
+                    return minPos + i;
+            }
+        }
+        throw new ZipException("zip END header not found");
+    }
+
+    /**
+     * Validates the central directory headers, recording their position
+     * and the hash of their name, and builds the index.
+     */
+    private void initIndex() throws ZipException {
+        int pos = 0, limit = cen.limit();
+        int mask = table.length - 1;
+        for (int i = 0; i < total; i++) {
+            if (pos + CENHDR > limit)
+                throw new ZipException("invalid CEN header (bad header size)");
+            if (cen.getInt(pos) != (int) CENSIG)
+                throw new ZipException("invalid CEN header (bad signature)");
+            int method = cen.getShort(pos + CENHOW) & 0xffff;
+            if (method != STORED && method != DEFLATED)
+                throw new ZipException("invalid CEN header (bad compression method: " + method + ")");
+            int nlen = cen.getShort(pos + CENNAM) & 0xffff;
+            int elen = cen.getShort(pos + CENEXT) & 0xffff;
+            int clen = cen.getShort(pos + CENCOM) & 0xffff;
+            int next = pos + CENHDR + nlen + elen + clen;
+            if (next > limit || next < 0)
+                throw new ZipException("invalid CEN header (bad header size)");
+            int hash = hash(cen, pos + CENHDR, nlen);
+            entryPos[i] = pos;
+            entryHash[i] = hash;
+            int j = hash & mask;
+            while (table[j] != 0)
+                j = (j + 1) & mask;
+            table[j] = i + 1;
+            pos = next;
+        }
+    }
+
+    /**
+     * Returns a hash of the given bytes of a buffer.
+     */
+    private static int hash(ByteBuffer buf, int off, int len) {
+        int h = 0;
+        for (int i = off, end = off + len; i < end; i++)
+            h = 31 * h + buf.get(i);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns a hash of the given bytes.
+     */
+    private static int hash(byte[] b) {
+        int h = 0;
+        for (byte x : b)
+            h = 31 * h + x;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the given number of bytes of the file from the given
+     * position, as a little-endian buffer.
+     */
+    private ByteBuffer read(long pos, int len) throws IOException {
+        if (pos < 0 || len < 0 || pos + len > length)
+            throw new ZipException("invalid zip file offset");
+        if (map != null) {
+            ByteBuffer b = map.duplicate();
+            b.position((int) pos).limit((int) pos + len);
+            return b.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (ch.read(b, pos + b.position()) < 0)
+                throw new EOFException("Unexpected end of zip file");
+        }
+        b.flip();
+        return b;
+    }
+
+    private static byte[] bytes(ByteBuffer buf) {
+        byte[] b = new byte[buf.remaining()];
+        buf.duplicate().get(b);
+        return b;
+    }
+
+    private void ensureOpen() {
+        if (closeRequested) {
+            throw new IllegalStateException("zip file closed");
+        }
+    }
+
+    // Names
+
+    /**
+     * Returns the bytes of the given name, in the given charset or in
+     * UTF-8.
+     */
+    private byte[] getBytes(String name, boolean utf8) {
+        int n = name.length();
+        byte[] b = new byte[n];
+        for (int i = 0; i < n; i++) {
+            char c = name.charAt(i);
+            if (c >= 0x80) {
+                ZipCoder zc = coder.get();
+                return utf8 ? zc.getBytesUTF8(name) : zc.getBytes(name);
+            }
+            b[i] = (byte) c;
+        }
+        return b;
+    }
+
+    /**
+     * Decodes the given bytes of the central directory, in the charset
+     * or, if the entry has the language encoding flag, in UTF-8.
+     */
+    private String toString(int off, int len, int flag) {
+        byte[] b = new byte[len];
+        boolean ascii = true;
+        for (int i = 0; i < len; i++) {
+            byte x = cen.get(off + i);
+            b[i] = x;
+            if (x < 0)
+                ascii = false;
+        }
+        if (ascii && (isUTF8 || (flag & EFS) != 0)) {
+            @SuppressWarnings("deprecation")
+            String s = new String(b, 0, 0, len);
+            return s;
+        }
+        ZipCoder zc = coder.get();
+        return ((flag & EFS) != 0) ? zc.toStringUTF8(b, len) : zc.toString(b, len);
+    }
+
+    /**
+     * Returns the number of the entry with the given name, or -1 if
+     * there is none.
+     */
+    private int findEntry(byte[] name) {
+        int hash = hash(name);
+        int mask = table.length - 1;
+        for (int j = hash & mask; ; j = (j + 1) & mask) {
+            int e = table[j] - 1;
+            if (e < 0)
+                return -1;
+            if (entryHash[e] == hash && nameEquals(entryPos[e], name))
+                return e;
+        }
+    }
+
+    private boolean nameEquals(int pos, byte[] name) {
+        int len = cen.getShort(pos + CENNAM) & 0xffff;
+        if (len != name.length)
+            return false;
+        int off = pos + CENHDR;
+        for (int i = 0; i < len; i++) {
+            if (cen.get(off + i) != name[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of the entry with the given name, looking up its
+     * UTF-8 encoding as well if the charset is not UTF-8, or -1 if there
+     * is none.
+     */
+    private int findEntry(String name) {
+        int e = findEntry(getBytes(name, false));
+        if (e < 0 && !isUTF8) {
+            e = findEntry(getBytes(name, true));
+            if (e >= 0 && (cen.getShort(entryPos[e] + CENFLG) & EFS) == 0)
+                e = -1;
+        }
+        return e;
+    }
+
+    // Entries
+
+    /**
+     * Returns the zip file entry for the specified name, or null
+     * if not found.  If there is no entry with the specified name, and it
+     * does not end with a slash, the directory entry with the specified
+     * name followed by a slash, if any, is returned.
+     *
+     * @param name the name of the entry
+     * @return the zip file entry, or null if not found
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public ZipEntry getEntry(String name) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+        ensureOpen();
+        int e = findEntry(name);
+        if (e < 0 && !name.isEmpty() && !name.endsWith("/"))
+            e = findEntry(name + "/");
+        return (e < 0) ? null : getZipEntry(e);
+    }
+
+    /**
+     * Returns a new ZipEntry for the given entry number.
+     */
+    private ZipEntry getZipEntry(int i) {
+        int pos = entryPos[i];
+        ByteBuffer cen = this.cen;
+        ZipEntry e = new ZipEntry();
+        int nlen = cen.getShort(pos + CENNAM) & 0xffff;
+        int elen = cen.getShort(pos + CENEXT) & 0xffff;
+        int clen = cen.getShort(pos + CENCOM) & 0xffff;
+        e.flag = cen.getShort(pos + CENFLG) & 0xffff;  // get the flag first
+        e.name = toString(pos + CENHDR, nlen, e.flag);
+        e.xdostime = cen.getInt(pos + CENTIM) & 0xffffffffL;
+        e.crc = cen.getInt(pos + CENCRC) & 0xffffffffL;
+        e.size = cen.getInt(pos + CENLEN) & 0xffffffffL;
+        e.csize = cen.getInt(pos + CENSIZ) & 0xffffffffL;
+        e.method = cen.getShort(pos + CENHOW) & 0xffff;
+        if (elen != 0) {
+            byte[] extra = new byte[elen];
+            int off = pos + CENHDR + nlen;
+            for (int j = 0; j < elen; j++)
+                extra[j] = cen.get(off + j);
+            long[] z64 = zip64(pos);
+            if (z64 != null) {
+                e.size = z64[0];
+                e.csize = z64[1];
+            }
+            e.setExtra0(extra, false);
+        }
+        if (clen != 0)
+            e.comment = toString(pos + CENHDR + nlen + elen, clen, e.flag);
+        return e;
+    }
+
+    /**
+     * Returns the uncompressed size, the compressed size and the LOC
+     * header offset of the entry with the given CEN header, taking those
+     * whose 32-bit field holds the magic value from its ZIP64 extra
+     * field, or null if it has no such field.
+     */
+    private long[] zip64(int pos) {
+        long size = cen.getInt(pos + CENLEN) & 0xffffffffL;
+        long csize = cen.getInt(pos + CENSIZ) & 0xffffffffL;
+        long locoff = cen.getInt(pos + CENOFF) & 0xffffffffL;
+        if (size != ZIP64_MAGICVAL && csize != ZIP64_MAGICVAL &&
+            locoff != ZIP64_MAGICVAL)
+            return null;
+        int nlen = cen.getShort(pos + CENNAM) & 0xffff;
+        int elen = cen.getShort(pos + CENEXT) & 0xffff;
+        int off = pos + CENHDR + nlen, end = off + elen;
+        while (off + 4 <= end) {
+            int tag = cen.getShort(off) & 0xffff;
+            int sz = cen.getShort(off + 2) & 0xffff;
+            off += 4;
+            if (off + sz > end)         // invalid data
+                break;
+            if (tag == EXTID_ZIP64) {
+                int p = off, pend = off + sz;
+                if (size == ZIP64_MAGICVAL && p + 8 <= pend) {
+                    size = cen.getLong(p);
+                    p += 8;
+                }
+                if (csize == ZIP64_MAGICVAL && p + 8 <= pend) {
+                    csize = cen.getLong(p);
+                    p += 8;
+                }
+                if (locoff == ZIP64_MAGICVAL && p + 8 <= pend)
+                    locoff = cen.getLong(p);
+                break;
+            }
+            off += sz;
+        }
+        return new long[] { size, csize, locoff };
+    }
+
+    /**
+     * Returns the position in the file of the data of the given entry.
+     */
+    private long dataPos(int i, long csize) throws IOException {
+        int pos = entryPos[i];
+        long[] z64 = zip64(pos);
+        long locoff = (z64 != null) ? z64[2] :
+            cen.getInt(pos + CENOFF) & 0xffffffffL;
+        long locPos = prefix + locoff;
+        ByteBuffer loc = read(locPos, LOCHDR);
+        if (loc.getInt(0) != (int) LOCSIG)
+            throw new ZipException("invalid LOC header (bad signature)");
+        long dataPos = locPos + LOCHDR + (loc.getShort(LOCNAM) & 0xffff)
+            + (loc.getShort(LOCEXT) & 0xffff);
+        if (dataPos + csize > length || csize < 0)
+            throw new ZipException("invalid LOC header (bad entry size)");
+        return dataPos;
+    }
+
+    /**
+     * Returns a read-only buffer holding the data of the specified
+     * {@code STORED} zip file entry.  If the zip file is mapped, the
+     * buffer is a slice of the mapping, so that no data is copied.
+     *
+     * @param entry the zip file entry
+     * @return a read-only buffer holding the data of the entry, or null
+     *         if the zip file contains no entry with its name
+     * @throws ZipException if a ZIP format error has occurred, or if the
+     *         entry is compressed or larger than the largest buffer
+     * @throws IOException if an I/O error has occurred
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public ByteBuffer getByteBuffer(ZipEntry entry) throws IOException {
+        if (entry == null) {
+            throw new NullPointerException("entry");
+        }
+        ensureOpen();
+        int i = findEntry(entry.name);
+        if (i < 0)
+            return null;
+        int pos = entryPos[i];
+        if ((cen.getShort(pos + CENHOW) & 0xffff) != STORED)
+            throw new ZipException("entry is compressed: " + entry.name);
+        long[] z64 = zip64(pos);
+        long csize = (z64 != null) ? z64[1] : cen.getInt(pos + CENSIZ) & 0xffffffffL;
+        if (csize > Integer.MAX_VALUE)
+            throw new ZipException("entry too large: " + entry.name);
+        return read(dataPos(i, csize), (int) csize).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns an input stream for reading the contents of the specified
+     * zip file entry.
+     *
+     * @param entry the zip file entry
+     * @return the input stream for reading the contents of the specified
+     * zip file entry, or null if the zip file contains no entry with its
+     * name
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public InputStream getInputStream(ZipEntry entry) throws IOException {
+        if (entry == null) {
+            throw new NullPointerException("entry");
+        }
+        ensureOpen();
+        int i = findEntry(entry.name);
+        if (i < 0)
+            return null;
+        int pos = entryPos[i];
+        long[] z64 = zip64(pos);
+        long size = (z64 != null) ? z64[0] : cen.getInt(pos + CENLEN) & 0xffffffffL;
+        long csize = (z64 != null) ? z64[1] : cen.getInt(pos + CENSIZ) & 0xffffffffL;
+        EntryInputStream in = new EntryInputStream(dataPos(i, csize), csize);
+        switch (cen.getShort(pos + CENHOW) & 0xffff) {
+        case STORED:
+            return in;
+        case DEFLATED:
+            // a small entry is read in one fill, with room for the dummy
+            // byte that fill() adds at its end
+            long bufSize = csize + 2;
+            if (bufSize > 65536) bufSize = 8192;
+            if (bufSize <= 0) bufSize = 4096;
+            Inflater inf = getInflater();
+            EntryInflaterInputStream is =
+                new EntryInflaterInputStream(in, inf, (int) bufSize, size);
+            // the stream is recorded before closeRequested is read, and
+            // close() sets closeRequested before it reads the set, so that
+            // either this method fails or close() closes the stream
+            streams.add(is.ref);
+            if (closeRequested) {
+                if (streams.remove(is.ref))
+                    releaseInflater(inf);
+                throw new IllegalStateException("zip file closed");
+            }
+            return is;
+        default:
+            throw new ZipException("invalid compression method");
+        }
+    }
+
+    /*
+     * Gets an inflater from the pool of the current thread or allocates
+     * a new one.
+     */
+    private static Inflater getInflater() {
+        Inflater inf = inflaterPool.get().poll();
+        return (inf != null) ? inf : new Inflater(true);
+    }
+
+    /*
+     * Releases the specified inflater to the pool of the current thread,
+     * or ends it if the pool is full.
+     */
+    private static void releaseInflater(Inflater inf) {
+        ArrayDeque<Inflater> pool = inflaterPool.get();
+        if (pool.size() < MAX_POOLED_INFLATERS) {
+            inf.reset();
+            pool.push(inf);
+        } else {
+            inf.end();
+        }
+    }
+
+    /*
+     * Input stream over the (possibly compressed) data of an entry, read
+     * from a slice of the mapping or with positional reads.
+     */
+    private class EntryInputStream extends InputStream {
+        private final ByteBuffer buf; // slice of the mapping, or null
+        private long pos;             // position in the file, if not mapped
+        private long rem;             // number of remaining bytes
+
+        EntryInputStream(long pos, long len) throws IOException {
+            this.buf = (map != null) ? MappedZipFile.this.read(pos, (int) len) : null;
+            this.pos = pos;
+            this.rem = len;
+        }
+
+        public int read(byte b[], int off, int len) throws IOException {
+            if (closeRequested)
+                throw new ZipException("ZipFile closed");
+            if (off < 0 || len < 0 || len > b.length - off)
+                throw new IndexOutOfBoundsException();
+            if (rem == 0)
+                return -1;
+            if (len == 0)
+                return 0;
+            if (len > rem)
+                len = (int) rem;
+            if (buf != null) {
+                buf.get(b, off, len);
+            } else {
+                len = ch.read(ByteBuffer.wrap(b, off, len), pos);
+                if (len < 0)
+                    throw new EOFException("Unexpected end of zip file");
+                pos += len;
+            }
+            rem -= len;
+            return len;
+        }
+
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == 1) ? b[0] & 0xff : -1;
+        }
+
+        public long skip(long n) {
+            if (n <= 0)
+                return 0;
+            if (n > rem)
+                n = rem;
+            if (buf != null)
+                buf.position(buf.position() + (int) n);
+            else
+                pos += n;
+            rem -= n;
+            return n;
+        }
+
+        public int available() {
+            return rem > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) rem;
+        }
+
+        public void close() {
+            rem = 0;
+        }
+    }
+
+    /*
+     * The record of an inflater stream that is not closed, which does not
+     * keep the stream reachable, so that it may still be finalized.
+     */
+    private static final class StreamRef
+            extends WeakReference<EntryInflaterInputStream> {
+        final Inflater inf;
+
+        StreamRef(EntryInflaterInputStream is, Inflater inf) {
+            super(is);
+            this.inf = inf;
+        }
+    }
+
+    private class EntryInflaterInputStream extends InflaterInputStream {
+        private final StreamRef ref;
+        private boolean closeRequested = false;
+        private boolean eof = false;
+        private final long size;
+
+        EntryInflaterInputStream(EntryInputStream in, Inflater inf,
+                                 int bufSize, long size) {
+            super(in, inf, bufSize);
+            this.ref = new StreamRef(this, inf);
+            this.size = size;
+        }
+
+        public void close() throws IOException {
+            if (closeRequested)
+                return;
+            closeRequested = true;
+            super.close();
+            // unless the file has already taken the inflater, to end it
+            if (streams.remove(ref))
+                releaseInflater(inf);
+        }
+
+        // Override fill() method to provide an extra "dummy" byte
+        // at the end of the input stream. This is required when
+        // using the "nowrap" Inflater option.
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        public int available() throws IOException {
+            if (closeRequested)
+                return 0;
+            long avail = size - inf.getBytesWritten();
+            return (avail > (long) Integer.MAX_VALUE ?
+                    Integer.MAX_VALUE : (int) avail);
+        }
+
+        protected void finalize() throws Throwable {
+            close();
+        }
+    }
+
+    /**
+     * Returns the path name of the ZIP file.
+     * @return the path name of the ZIP file
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the zip file comment, or null if none.
+     *
+     * @return the comment string for the zip file, or null if none
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public String getComment() {
+        ensureOpen();
+        if (comment == null)
+            return null;
+        return coder.get().toString(comment, comment.length);
+    }
+
+    private class EntryIterator implements Enumeration<ZipEntry>, Iterator<ZipEntry> {
+        private int i = 0;
+
+        public boolean hasMoreElements() {
+            return hasNext();
+        }
+
+        public boolean hasNext() {
+            ensureOpen();
+            return i < total;
+        }
+
+        public ZipEntry nextElement() {
+            return next();
+        }
+
+        public ZipEntry next() {
+            ensureOpen();
+            if (i >= total)
+                throw new NoSuchElementException();
+            return getZipEntry(i++);
+        }
+    }
+
+    /**
+     * Returns an enumeration of the ZIP file entries, in the order they
+     * appear in the central directory.
+     *
+     * @return an enumeration of the ZIP file entries
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public Enumeration<? extends ZipEntry> entries() {
+        ensureOpen();
+        return new EntryIterator();
+    }
+
+    /**
+     * Return an ordered {@code Stream} over the ZIP file entries.
+     * Entries appear in the {@code Stream} in the order they appear in
+     * the central directory of the ZIP file.
+     *
+     * @return an ordered {@code Stream} of entries in this ZIP file
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public Stream<? extends ZipEntry> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(
+                new EntryIterator(), size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT |
+                        Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns the number of entries in the ZIP file.
+     * @return the number of entries in the ZIP file
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public int size() {
+        ensureOpen();
+        return total;
+    }
+
+    /**
+     * Closes the ZIP file.  The input streams of compressed entries
+     * previously returned by invocations of the {@link #getInputStream
+     * getInputStream} method are closed, and subsequent reads of the
+     * other streams throw {@code ZipException}.
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    public void close() throws IOException {
+        if (closeRequested)
+            return;
+        closeRequested = true;
+        // close streams, end their inflaters
+        for (StreamRef ref : streams) {
+            if (streams.remove(ref)) {
+                EntryInflaterInputStream is = ref.get();
+                if (is != null)
+                    is.close();
+                ref.inf.end();
+            }
+        }
+        ch.close();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compresses blocks of data into raw DEFLATE data on the threads of a
+ * {@link ForkJoinPool}, on behalf of a {@link GZIPOutputStream} or a
+ * {@link ZipOutputStream} in parallel mode.  The compressed form of a
+ * block depends only on the block, its dictionary and the compression
+ * level, so the output of the streams does not depend on the scheduling
+ * of the tasks.  Deflaters are reused across the tasks of one stream.
+ */
+final class ParallelDeflater {
+
+    /**
+     * The result of compressing one block.
+     */
+    static final class Block {
+        final byte[] data;  // compressed data
+        final int len;      // length of compressed data
+        final long crc;     // CRC-32 of the uncompressed data
+        final int inLen;    // length of the uncompressed data
+
+        Block(byte[] data, int len, long crc, int inLen) {
+            this.data = data;
+            this.len = len;
+            this.crc = crc;
+            this.inLen = inLen;
+        }
+    }
+
+    // idle deflaters, indexed by compression level + 1
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<Deflater>[] deflaters =
+        (ConcurrentLinkedQueue<Deflater>[]) new ConcurrentLinkedQueue<?>[11];
+
+    ParallelDeflater() {
+        for (int i = 0; i < deflaters.length; i++)
+            deflaters[i] = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns the number of tasks of the pool that may usefully be
+     * outstanding at once; streams wait for the oldest block once they
+     * have more.
+     */
+    static int maxPending(ForkJoinPool pool) {
+        return 2 * pool.getParallelism() + 1;
+    }
+
+    /**
+     * Submits to the pool the compression of len bytes of the array b, starting at
+     * off.  The data may be primed with the dictLen bytes of dict that
+     * precede it in the stream.  If last is true, the compressed data
+     * ends with a final DEFLATE block; otherwise it ends with a sync
+     * flush, so that it ends on a byte boundary and the data of the next
+     * block may follow it.  The level must be a valid compression level
+     * of {@link Deflater}.  The arrays must not be modified until the
+     * task completes.
+     */
+    ForkJoinTask<Block> submit(ForkJoinPool pool, final byte[] b, final int off, final int len,
+                               final int level, final byte[] dict,
+                               final int dictOff, final int dictLen,
+                               final boolean last) {
+        return pool.submit(new RecursiveTask<Block>() {
+            private static final long serialVersionUID = 1L;
+            protected Block compute() {
+                return deflate(b, off, len, level, dict, dictOff, dictLen,
+                               last);
+            }
+        });
+    }
+
+    private Block deflate(byte[] b, int off, int len, int level,
+                          byte[] dict, int dictOff, int dictLen,
+                          boolean last) {
+        CRC32 crc = new CRC32();
+        crc.update(b, off, len);
+        ConcurrentLinkedQueue<Deflater> idle = deflaters[level + 1];
+        Deflater def = idle.poll();
+        if (def == null)
+            def = new Deflater(level, true);
+        try {
+            if (dictLen > 0)
+                def.setDictionary(dict, dictOff, dictLen);
+            def.setInput(b, off, len);
+            byte[] out = new byte[len + (len >>> 10) + 64];
+            int n = 0;
+            if (last) {
+                def.finish();
+                while (!def.finished()) {
+                    if (n == out.length)
+                        out = grow(out);
+                    n += def.deflate(out, n, out.length - n);
+                }
+            } else {
+                // a sync flush is complete once it leaves room in out
+                do {
+                    if (n == out.length)
+                        out = grow(out);
+                    n += def.deflate(out, n, out.length - n,
+                                     Deflater.SYNC_FLUSH);
+                } while (n == out.length);
+            }
+            return new Block(out, n, crc.getValue(), len);
+        } finally {
+            def.reset();
+            idle.offer(def);
+        }
+    }
+
+    private static byte[] grow(byte[] b) {
+        return java.util.Arrays.copyOf(b, b.length + (b.length >>> 1) + 64);
+    }
+
+    /**
+     * Releases the deflaters.  Must only be called once no task is
+     * outstanding.
+     */
+    void end() {
+        for (ConcurrentLinkedQueue<Deflater> idle : deflaters) {
+            Deflater def;
+            while ((def = idle.poll()) != null)
+                def.end();
+        }
+    }
+}
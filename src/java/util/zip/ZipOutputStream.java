@@ -29,8 +29,12 @@ import java.io.OutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Vector;
 import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import static java.util.zip.ZipConstants64.*;
 import static java.util.zip.ZipUtils.*;
 
@@ -39,6 +43,10 @@ import static java.util.zip.ZipUtils.*;
  * ZIP file format. Includes support for both compressed and uncompressed
  * entries.
  *
+ * <p>DEFLATED entries may be compressed in parallel, by the tasks of a
+ * {@link ForkJoinPool} set with {@link #setParallelCompression
+ * setParallelCompression}.
+ *
  * @author      David Connelly
  */
 public
@@ -67,7 +75,53 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
         }
     }
 
+    /*
+     * A DEFLATED entry compressed in parallel: its data is buffered until
+     * the entry is closed, then compressed by a task, and the entry is
+     * written once it and all of the entries before it are compressed.
+     */
+    private static class PEntry {
+        final ZipEntry entry;
+        final int level;
+        final ForkJoinPool pool;            // as set when the entry began
+        final ParallelDeflater compressor;
+        byte[] buf = new byte[8192];
+        int len;
+        ForkJoinTask<ParallelDeflater.Block> task;
+        PEntry(ZipEntry entry, int level, ForkJoinPool pool,
+               ParallelDeflater compressor) {
+            this.entry = entry;
+            this.level = level;
+            this.pool = pool;
+            this.compressor = compressor;
+        }
+        void write(byte[] b, int off, int n) {
+            if (n > buf.length - len)
+                buf = Arrays.copyOf(buf, Math.max(len + n, 2 * buf.length));
+            System.arraycopy(b, off, buf, len, n);
+            len += n;
+        }
+    }
+
+    /*
+     * Size above which the data of an entry is no longer buffered, and the
+     * entry is compressed on the writing thread instead.
+     */
+    private static final int MAX_PARALLEL_ENTRY_SIZE = 8 * 1024 * 1024;
+
+    /*
+     * Number of bytes of buffered data of closed entries above which the
+     * writing thread waits for their compression.
+     */
+    private static final long MAX_PENDING_SIZE = 64 * 1024 * 1024;
+
     private XEntry current;
+    private PEntry pcurrent;
+    private ForkJoinPool pool;
+    private ParallelDeflater compressor;
+    private final ArrayDeque<PEntry> pending = new ArrayDeque<>();
+    private long pendingSize;
+    private int level = Deflater.DEFAULT_COMPRESSION;
     private Vector<XEntry> xentries = new Vector<>();
     private HashSet<String> names = new HashSet<>();
     private CRC32 crc = new CRC32();
@@ -174,6 +228,34 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
      */
     public void setLevel(int level) {
         def.setLevel(level);
+        this.level = level;
+    }
+
+    /**
+     * Sets the pool used to compress subsequent entries which are
+     * DEFLATED, or {@code null} to compress them on the writing thread,
+     * which is the default.
+     *
+     * <p>While a pool is set, the data of each DEFLATED entry is held in
+     * memory until the entry is closed, and is then compressed by a task
+     * of the pool while the next entries are written.  Entries are written
+     * to the output stream in the order in which they were begun, as soon
+     * as they and the entries before them are compressed, with their
+     * sizes and CRC-32 stored in their local headers rather than in data
+     * descriptors.  The output depends only on the entries written and
+     * their data, not on the scheduling of the tasks.  The writing thread waits
+     * for the compression of the oldest entries when too many of them, or
+     * too much of their data, would otherwise be held in memory.  Entries
+     * too large to be held in memory are compressed on the writing thread.
+     * The current entry, if any, is compressed as set when it was begun.
+     *
+     * @param pool the pool in which to compress entries, or {@code null}
+     * @since 1.8
+     */
+    public void setParallelCompression(ForkJoinPool pool) {
+        if (pool != null && compressor == null)
+            compressor = new ParallelDeflater();
+        this.pool = pool;
     }
 
     /**
@@ -188,7 +270,7 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
      */
     public void putNextEntry(ZipEntry e) throws IOException {
         ensureOpen();
-        if (current != null) {
+        if (current != null || pcurrent != null) {
             closeEntry();       // close previous entry
         }
         if (e.xdostime == -1) {
@@ -233,6 +315,11 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
         }
         if (zc.isUTF8())
             e.flag |= EFS;
+        if (pool != null && e.method == DEFLATED) {
+            pcurrent = new PEntry(e, level, pool, compressor);
+            return;
+        }
+        writePending(0);
         current = new XEntry(e, written);
         xentries.add(current);
         writeLOC(current);
@@ -246,6 +333,16 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
      */
     public void closeEntry() throws IOException {
         ensureOpen();
+        if (pcurrent != null) {
+            PEntry pe = pcurrent;
+            pcurrent = null;
+            pe.task = pe.compressor.submit(pe.pool, pe.buf, 0, pe.len, pe.level,
+                                           null, 0, 0, true);
+            pending.add(pe);
+            pendingSize += pe.len;
+            writePending(ParallelDeflater.maxPending(pe.pool));
+            return;
+        }
         if (current != null) {
             ZipEntry e = current.entry;
             switch (e.method) {
@@ -322,6 +419,21 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
             return;
         }
 
+        if (pcurrent != null) {
+            pcurrent.write(b, off, len);
+            if (pcurrent.len > MAX_PARALLEL_ENTRY_SIZE) {
+                // compress the entry on this thread from now on
+                PEntry pe = pcurrent;
+                pcurrent = null;
+                writePending(0);
+                current = new XEntry(pe.entry, written);
+                xentries.add(current);
+                writeLOC(current);
+                super.write(pe.buf, 0, pe.len);
+                crc.update(pe.buf, 0, pe.len);
+            }
+            return;
+        }
         if (current == null) {
             throw new ZipException("no current ZIP entry");
         }
@@ -356,9 +468,20 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
         if (finished) {
             return;
         }
-        if (current != null) {
+        if (current != null || pcurrent != null) {
             closeEntry();
         }
+        if (compressor != null) {
+            try {
+                writePending(0);
+            } finally {
+                // wait for the tasks so their deflaters can be ended
+                for (PEntry pe : pending)
+                    pe.task.quietlyJoin();
+                pending.clear();
+                compressor.end();
+            }
+        }
         // write central directory
         long off = written;
         for (XEntry xentry : xentries)
@@ -379,6 +502,53 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
         }
     }
 
+    /*
+     * Writes the entries compressed in parallel in order, waiting for
+     * their compression until no more than max entries, and no more than
+     * MAX_PENDING_SIZE bytes of their data, are pending, and then writing
+     * those that are already compressed.
+     */
+    private void writePending(int max) throws IOException {
+        PEntry pe;
+        while ((pe = pending.peek()) != null &&
+               (pending.size() > max || pendingSize > MAX_PENDING_SIZE ||
+                pe.task.isDone())) {
+            ParallelDeflater.Block b = pe.task.join();
+            pending.poll();
+            pendingSize -= pe.len;
+            ZipEntry e = pe.entry;
+            if ((e.flag & 8) == 0) {
+                // verify size, compressed size, and crc-32 settings
+                if (e.size != b.inLen) {
+                    throw new ZipException(
+                        "invalid entry size (expected " + e.size +
+                        " but got " + b.inLen + " bytes)");
+                }
+                if (e.csize != b.len) {
+                    throw new ZipException(
+                        "invalid entry compressed size (expected " +
+                        e.csize + " but got " + b.len + " bytes)");
+                }
+                if (e.crc != b.crc) {
+                    throw new ZipException(
+                        "invalid entry CRC-32 (expected 0x" +
+                        Long.toHexString(e.crc) + " but got 0x" +
+                        Long.toHexString(b.crc) + ")");
+                }
+            } else {
+                // sizes and crc-32 are known, so store them in LOC header
+                e.flag &= ~8;
+                e.size = b.inLen;
+                e.csize = b.len;
+                e.crc = b.crc;
+            }
+            XEntry xentry = new XEntry(e, written);
+            xentries.add(xentry);
+            writeLOC(xentry);
+            writeBytes(b.data, 0, b.len);
+        }
+    }
+
     /*
      * Writes local file (LOC) header for specified entry.
      */